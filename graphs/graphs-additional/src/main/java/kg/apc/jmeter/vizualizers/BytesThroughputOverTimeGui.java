@@ -44,7 +44,7 @@ public class BytesThroughputOverTimeGui
 
         //fix to have values/sec in all cases
         if (getGranulation() > 0) {
-            row.add(time, value * 1000.0d / getGranulation());
+            addRowValue(row, time, value * 1000.0d / getGranulation());
         }
     }
 
@@ -24,8 +24,8 @@ public class ConnectTimesOverTimeGui extends AbstractOverTimeVisualizer {
             rowAgg = getNewRow(modelAggregate, AbstractGraphRow.ROW_AVERAGES, labelAgg, AbstractGraphRow.MARKER_SIZE_SMALL, false, false, false, true, Color.RED, true);
         }
 
-        row.add(time, numThreads);
-        rowAgg.add(time, numThreads);
+        addRowValue(row, time, numThreads);
+        addRowValue(rowAgg, time, numThreads);
     }
 
     @Override
@@ -26,7 +26,7 @@ public class HitsPerSecondGui
 
         //fix to have trans/sec values in all cases
         if (getGranulation() > 0) {
-            row.add(time, count * 1000.0d / getGranulation());
+            addRowValue(row, time, count * 1000.0d / getGranulation());
         }
     }
 
@@ -28,7 +28,7 @@ public class ResponseCodesPerSecondGui
 
         //fix to have /sec values in all cases
         if (getGranulation() > 0) {
-            row.add(time, 1 * 1000.0d / getGranulation());
+            addRowValue(row, time, 1 * 1000.0d / getGranulation());
         }
     }
 
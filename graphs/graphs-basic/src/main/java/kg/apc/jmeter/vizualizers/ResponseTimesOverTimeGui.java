@@ -29,8 +29,8 @@ public class ResponseTimesOverTimeGui
             rowAgg = getNewRow(modelAggregate, AbstractGraphRow.ROW_AVERAGES, labelAgg, AbstractGraphRow.MARKER_SIZE_SMALL, false, false, false, true, Color.RED, true);
         }
 
-        row.add(time, numThreads);
-        rowAgg.add(time, numThreads);
+        addRowValue(row, time, numThreads);
+        addRowValue(rowAgg, time, numThreads);
     }
 
     public String getLabelResource() {
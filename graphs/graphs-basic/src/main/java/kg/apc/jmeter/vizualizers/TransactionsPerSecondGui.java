@@ -48,15 +48,15 @@ public class TransactionsPerSecondGui
         //fix to have trans/sec values in all cases
         if (getGranulation() > 0) {
             double tps = count * 1000.0 / getGranulation();
-            row.add(time, tps);
-            rowAgg.add(time, tps);
+            addRowValue(row, time, tps);
+            addRowValue(rowAgg, time, tps);
             //always add 0 to agg failure row
             if (isSuccess) {
                 rowAgg = modelAggregate.get(labelAggFailure);
                 if (rowAgg == null) {
                     rowAgg = getNewRow(modelAggregate, AbstractGraphRow.ROW_SUM_VALUES, labelAggFailure, AbstractGraphRow.MARKER_SIZE_SMALL, false, false, false, true, Color.RED, true);
                 }
-                rowAgg.add(time, 0);
+                addRowValue(rowAgg, time, 0);
             }
         }
     }
@@ -11,6 +11,8 @@ import org.apache.jmeter.samplers.SampleResult;
 public class ResponseTimesPercentilesGui
         extends AbstractGraphPanelVisualizer {
 
+    private static final String AGGREGATE_LABEL = "Overall Response Times";
+
     /**
      *
      */
@@ -38,20 +40,19 @@ public class ResponseTimesPercentilesGui
             return;
         }
         String label = res.getSampleLabel();
-        String aggregateLabel = "Overall Response Times";
         GraphRowPercentiles row = (GraphRowPercentiles) model.get(label);
-        GraphRowPercentiles rowAgg = (GraphRowPercentiles) modelAggregate.get(label);
 
         if (row == null) {
             row = (GraphRowPercentiles) getNewRow(model, AbstractGraphRow.ROW_PERCENTILES, label, AbstractGraphRow.MARKER_SIZE_NONE, false, false, false, true, false);
         }
 
-        if (rowAgg == null) {
-            rowAgg = (GraphRowPercentiles) getNewRow(modelAggregate, AbstractGraphRow.ROW_PERCENTILES, aggregateLabel, AbstractGraphRow.MARKER_SIZE_NONE, false, false, false, true, Color.RED, false);
+        if (!modelAggregate.containsKey(AGGREGATE_LABEL)) {
+            // overall row merges label rows, so each value is recorded once
+            GraphRowPercentiles rowAgg = (GraphRowPercentiles) getNewRow(modelAggregate, AbstractGraphRow.ROW_PERCENTILES, AGGREGATE_LABEL, AbstractGraphRow.MARKER_SIZE_NONE, false, false, false, true, Color.RED, false);
+            rowAgg.setMergedRows(model.values());
         }
 
         row.add(res.getTime(), 1);
-        rowAgg.add(res.getTime(), 1);
         updateGui(null);
     }
 
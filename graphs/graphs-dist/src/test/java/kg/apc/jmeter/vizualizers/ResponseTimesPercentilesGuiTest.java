@@ -1,5 +1,6 @@
 package kg.apc.jmeter.vizualizers;
 
+import kg.apc.charting.AbstractGraphRow;
 import kg.apc.emulators.TestJMeterUtils;
 import org.apache.jmeter.samplers.SampleResult;
 import org.junit.After;
@@ -72,6 +73,34 @@ public class ResponseTimesPercentilesGuiTest {
         instance.add(res);
     }
 
+    @Test
+    public void testAdd_aggregate() {
+        System.out.println("add aggregate");
+        ResponseTimesPercentilesGuiEmul instance = new ResponseTimesPercentilesGuiEmul();
+        for (int n = 1; n <= 100; n++) {
+            SampleResult res = new SampleResult(1400000000000L + n, n * 10);
+            res.setSampleLabel(n % 2 == 0 ? "even" : "odd");
+            instance.add(res);
+        }
+
+        assertEquals(2, instance.getModelSize());
+        AbstractGraphRow row = instance.getAggregateRow();
+        row.iterator();
+        assertEquals(500, row.getElement(500).getValue(), 500 / 64.0);
+        assertEquals(990, row.getElement(990).getValue(), 990 / 64.0);
+    }
+
+    private static class ResponseTimesPercentilesGuiEmul extends ResponseTimesPercentilesGui {
+        int getModelSize() {
+            return model.size();
+        }
+
+        AbstractGraphRow getAggregateRow() {
+            assertEquals(1, modelAggregate.size());
+            return modelAggregate.firstEntry().getValue();
+        }
+    }
+
     /**
      * Test of getSettingsPanel method, of class ResponseTimesPercentilesGUI.
      */
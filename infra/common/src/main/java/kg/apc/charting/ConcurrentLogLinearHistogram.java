@@ -0,0 +1,130 @@
+package kg.apc.charting;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counterpart of {@link LogLinearHistogram} for recording from
+ * sampler threads: bins are atomic counters with the same layout, count and sum
+ * are striped by thread to avoid contention on a single atomic. Readers copy
+ * bins into {@link Snapshot}, which is a regular histogram for percentiles.
+ */
+public class ConcurrentLogLinearHistogram {
+
+    /**
+     * Relative error within 1/16
+     */
+    public static final int DEFAULT_PRECISION_BITS = 5;
+
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    // fields of one stripe occupy own cache line
+    private static final int STRIDE = 8;
+    private static final int STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final int precisionBits;
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * STRIDE);
+    private final AtomicLongArray bins;
+
+    public ConcurrentLogLinearHistogram() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param precisionBits 2..20, as for {@link LogLinearHistogram}
+     */
+    public ConcurrentLogLinearHistogram(int precisionBits) {
+        if (precisionBits < 2 || precisionBits > 20) {
+            throw new IllegalArgumentException("Precision bits must be within 2..20, got " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        bins = new AtomicLongArray(LogLinearHistogram.getIndex(Long.MAX_VALUE, precisionBits) + 1);
+    }
+
+    public void add(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        int base = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * STRIDE;
+        stripes.incrementAndGet(base + COUNT);
+        stripes.addAndGet(base + SUM, value);
+        bins.incrementAndGet(LogLinearHistogram.getIndex(value, precisionBits));
+    }
+
+    public void reset() {
+        for (int n = 0; n < stripes.length(); n++) {
+            stripes.set(n, 0);
+        }
+        for (int n = 0; n < bins.length(); n++) {
+            bins.set(n, 0);
+        }
+    }
+
+    /**
+     * Adds values recorded so far to snapshot, keeps them here
+     */
+    public void addTo(Snapshot snapshot) {
+        copyTo(snapshot, false);
+    }
+
+    /**
+     * Moves values recorded so far to snapshot, values added concurrently
+     * stay here for the next drain
+     */
+    public void drainTo(Snapshot snapshot) {
+        copyTo(snapshot, true);
+    }
+
+    private void copyTo(Snapshot snapshot, boolean drain) {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int base = stripe * STRIDE;
+            snapshot.count += drain ? stripes.getAndSet(base + COUNT, 0) : stripes.get(base + COUNT);
+            snapshot.sum += drain ? stripes.getAndSet(base + SUM, 0) : stripes.get(base + SUM);
+        }
+        for (int n = 0; n < bins.length(); n++) {
+            long count = drain ? bins.getAndSet(n, 0) : bins.get(n);
+            if (count > 0) {
+                snapshot.add(LogLinearHistogram.getLowestValue(n, precisionBits), count);
+            }
+        }
+    }
+
+    /**
+     * Histogram of values copied from one or several concurrent histograms,
+     * with exact count and sum for the mean
+     */
+    public static class Snapshot extends LogLinearHistogram {
+        private long count;
+        private long sum;
+
+        public Snapshot() {
+            super(DEFAULT_PRECISION_BITS);
+        }
+
+        public Snapshot(int precisionBits) {
+            super(precisionBits);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @return zero if there are no values
+         */
+        public double getMean() {
+            return count > 0 ? sum / (double) count : 0;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            count = 0;
+            sum = 0;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package kg.apc.charting;
+
+import java.util.Arrays;
+
+/**
+ * HdrHistogram-like sketch: values below 2^precisionBits are counted exactly,
+ * bigger values fall into power-of-two ranges split into 2^(precisionBits-1)
+ * linear sub-buckets, so relative error stays under 2^(1-precisionBits).
+ * Counters are allocated lazily by chunks of one range, recording
+ * is O(1) and does not allocate once the range was seen.
+ */
+public class LogLinearHistogram implements PercentileSketch {
+
+    public static final int DEFAULT_PRECISION_BITS = 10;
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int halfCountBits;
+    private final double[][] chunks;
+    private double totalWeight = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public LogLinearHistogram() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param precisionBits 2..20, values below 2^precisionBits are exact
+     */
+    public LogLinearHistogram(int precisionBits) {
+        if (precisionBits < 2 || precisionBits > 20) {
+            throw new IllegalArgumentException("Precision bits must be within 2..20, got " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.halfCountBits = precisionBits - 1;
+        chunks = new double[getIndex(Long.MAX_VALUE) / (subBucketCount >> 1) + 1][];
+    }
+
+    int getIndex(long value) {
+        return getIndex(value, precisionBits);
+    }
+
+    long getLowestValue(int index) {
+        return getLowestValue(index, precisionBits);
+    }
+
+    static int getIndex(long value, int precisionBits) {
+        if (value < 1 << precisionBits) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - precisionBits;
+        return (shift << (precisionBits - 1)) + (int) (value >>> shift);
+    }
+
+    static long getLowestValue(int index, int precisionBits) {
+        if (index < 1 << precisionBits) {
+            return index;
+        }
+        int shift = (index >> (precisionBits - 1)) - 1;
+        return (long) (index - (shift << (precisionBits - 1))) << shift;
+    }
+
+    @Override
+    public void add(long value, double weight) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        int index = getIndex(value);
+        int chunk = index >> halfCountBits;
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new double[1 << halfCountBits];
+        }
+        chunks[chunk][index & ((1 << halfCountBits) - 1)] += weight;
+        totalWeight += weight;
+
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    @Override
+    public void merge(PercentileSketch other) {
+        if (!(other instanceof LogLinearHistogram) || ((LogLinearHistogram) other).precisionBits != precisionBits) {
+            throw new IllegalArgumentException("Cannot merge " + other + " into " + this);
+        }
+
+        LogLinearHistogram hist = (LogLinearHistogram) other;
+        for (int n = 0; n < chunks.length; n++) {
+            if (hist.chunks[n] == null) {
+                continue;
+            }
+            if (chunks[n] == null) {
+                chunks[n] = new double[hist.chunks[n].length];
+            }
+            for (int i = 0; i < chunks[n].length; i++) {
+                chunks[n][i] += hist.chunks[n][i];
+            }
+        }
+
+        totalWeight += hist.totalWeight;
+        min = Math.min(min, hist.min);
+        max = Math.max(max, hist.max);
+    }
+
+    @Override
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public long getMin() {
+        return totalWeight > 0 ? min : 0;
+    }
+
+    @Override
+    public long getMax() {
+        return totalWeight > 0 ? max : 0;
+    }
+
+    @Override
+    public long getValueAtPercentile(double percentile) {
+        long[] result = new long[1];
+        getValuesAtWeights(new double[]{totalWeight * percentile / 100}, result);
+        return result[0];
+    }
+
+    @Override
+    public void getValuesAtWeights(double[] cumulativeWeights, long[] results) {
+        int pos = 0;
+        double cumulative = 0;
+        int chunkSize = 1 << halfCountBits;
+        for (int n = 0; n < chunks.length && pos < cumulativeWeights.length; n++) {
+            if (chunks[n] == null) {
+                continue;
+            }
+            for (int i = 0; i < chunkSize && pos < cumulativeWeights.length; i++) {
+                double weight = chunks[n][i];
+                if (weight == 0) {
+                    continue;
+                }
+                cumulative += weight;
+                while (pos < cumulativeWeights.length && cumulative >= cumulativeWeights[pos]) {
+                    results[pos++] = Math.min(Math.max(getLowestValue(n * chunkSize + i), getMin()), getMax());
+                }
+            }
+        }
+
+        Arrays.fill(results, pos, cumulativeWeights.length, getMax());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(chunks, null);
+        totalWeight = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "LogLinearHistogram{precisionBits=" + precisionBits + ", totalWeight=" + totalWeight + "}";
+    }
+}
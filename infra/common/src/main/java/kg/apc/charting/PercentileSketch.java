@@ -0,0 +1,46 @@
+package kg.apc.charting;
+
+/**
+ * Compact structure answering percentile queries over recorded values,
+ * used instead of keeping count for every distinct value.
+ * Implementations are not thread-safe, callers synchronize.
+ */
+public interface PercentileSketch {
+
+    /**
+     * @param value  non-negative value, negative values are recorded as 0
+     * @param weight how many times value was seen
+     */
+    void add(long value, double weight);
+
+    /**
+     * Adds all values recorded in other sketch of the same type
+     *
+     * @param other sketch to add
+     * @throws IllegalArgumentException for sketches of different type or precision
+     */
+    void merge(PercentileSketch other);
+
+    double getTotalWeight();
+
+    long getMin();
+
+    long getMax();
+
+    /**
+     * @param percentile 0..100
+     * @return smallest recorded value covering given percent of total weight
+     */
+    long getValueAtPercentile(double percentile);
+
+    /**
+     * Batch lookup done in single pass over the sketch
+     *
+     * @param cumulativeWeights ascending weights to look values for
+     * @param results           smallest recorded values with cumulative weight
+     *                          not less than requested, max value if weight is never reached
+     */
+    void getValuesAtWeights(double[] cumulativeWeights, long[] results);
+
+    void clear();
+}
@@ -17,6 +17,11 @@ public class GraphPanelChartAverageElement
     public GraphPanelChartAverageElement() {
     }
 
+    public GraphPanelChartAverageElement(double avgValue, int count) {
+        this.avgValue = avgValue;
+        this.count = count;
+    }
+
     public void add(double yVal) {
         avgValue = (avgValue * count + yVal) / (++count);
     }
@@ -17,6 +17,11 @@ public class GraphPanelChartSumElement
     GraphPanelChartSumElement() {
     }
 
+    public GraphPanelChartSumElement(double sumValue, int count) {
+        this.sumValue = sumValue;
+        this.count = count;
+    }
+
     public void add(double yVal) {
         sumValue += yVal;
         count++;
@@ -3,38 +3,53 @@ package kg.apc.charting.rows;
 import kg.apc.charting.AbstractGraphRow;
 import kg.apc.charting.elements.GraphPanelChartAverageElement;
 import kg.apc.charting.AbstractGraphPanelChartElement;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Iterator;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.NoSuchElementException;
 
 public class GraphRowAverages
         extends AbstractGraphRow {
 
-    private ConcurrentSkipListMap<Long, AbstractGraphPanelChartElement> values;
+    private final PrimitiveBucketStore values;
 
     public GraphRowAverages() {
         super();
-        values = new ConcurrentSkipListMap<>();
+        values = new PrimitiveBucketStore();
     }
 
     @Override
     public void add(long xVal, double yVal) {
-        GraphPanelChartAverageElement el;
-        if (values.containsKey(xVal)) {
-            el = (GraphPanelChartAverageElement) values.get(xVal);
-            el.add(yVal);
-            yVal = el.getValue();
-        } else {
-            el = new GraphPanelChartAverageElement(yVal);
-            values.put(xVal, el);
-        }
-
+        values.add(xVal, yVal);
         super.add(xVal, yVal);
     }
 
     @Override
     public Iterator<Entry<Long, AbstractGraphPanelChartElement>> iterator() {
-        return values.entrySet().iterator();
+        final PrimitiveBucketStore.View view = values.view();
+        return new Iterator<Entry<Long, AbstractGraphPanelChartElement>>() {
+            private int pos = 0;
+
+            @Override
+            public boolean hasNext() {
+                return pos < view.size();
+            }
+
+            @Override
+            public Entry<Long, AbstractGraphPanelChartElement> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Entry<Long, AbstractGraphPanelChartElement> entry = new SimpleImmutableEntry<>(view.getKey(pos), getElement(view, pos));
+                pos++;
+                return entry;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Not supported yet.");
+            }
+        };
     }
 
     @Override
@@ -44,17 +59,20 @@ public class GraphRowAverages
 
     @Override
     public AbstractGraphPanelChartElement getElement(long value) {
-        return values.get(value);
+        PrimitiveBucketStore.View view = values.view();
+        int pos = view.indexOf(value);
+        return pos < 0 ? null : getElement(view, pos);
     }
 
     @Override
     public AbstractGraphPanelChartElement getLowerElement(long value) {
-        Long lower = values.navigableKeySet().lower(value);
+        PrimitiveBucketStore.View view = values.view();
+        int pos = view.lowerIndexOf(value);
+        return pos < 0 ? null : getElement(view, pos);
+    }
 
-        if (lower != null) {
-            return getElement(lower);
-        } else {
-            return null;
-        }
+    private static AbstractGraphPanelChartElement getElement(PrimitiveBucketStore.View view, int pos) {
+        int count = view.getCount(pos);
+        return new GraphPanelChartAverageElement(view.getSum(pos) / count, count);
     }
 }
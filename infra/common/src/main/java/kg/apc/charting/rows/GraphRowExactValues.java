@@ -4,42 +4,63 @@ import kg.apc.charting.AbstractGraphRow;
 import kg.apc.charting.elements.GraphPanelChartExactElement;
 import kg.apc.charting.AbstractGraphPanelChartElement;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.NoSuchElementException;
 
 public class GraphRowExactValues
         extends AbstractGraphRow
         implements Iterator<Entry<Long, AbstractGraphPanelChartElement>> {
-    private ConcurrentSkipListMap<Long, AbstractGraphPanelChartElement> values;
-    private Iterator<Entry<Long, AbstractGraphPanelChartElement>> iterator;
+    private static final int INITIAL_CAPACITY = 64;
+    // append-only, iterator works on arrays and size captured under lock
+    private long[] xValues = new long[INITIAL_CAPACITY];
+    private double[] yValues = new double[INITIAL_CAPACITY];
+    private int count = 0;
+    private long[] iteratedX;
+    private double[] iteratedY;
+    private int iteratedCount;
+    private int iteratorPos;
 
     public GraphRowExactValues() {
         super();
-        values = new ConcurrentSkipListMap<>();
     }
 
     @Override
     public void add(long xVal, double yVal) {
-        GraphPanelChartExactElement el;
-        el = new GraphPanelChartExactElement(xVal, yVal);
-        values.put((long) values.size(), el);
+        synchronized (this) {
+            if (count == xValues.length) {
+                int capacity = count + (count >> 1);
+                xValues = Arrays.copyOf(xValues, capacity);
+                yValues = Arrays.copyOf(yValues, capacity);
+            }
+            xValues[count] = xVal;
+            yValues[count] = yVal;
+            count++;
+        }
 
         super.add(xVal, yVal);
     }
 
     @Override
-    public Iterator<Entry<Long, AbstractGraphPanelChartElement>> iterator() {
-        iterator = values.entrySet().iterator();
+    public synchronized Iterator<Entry<Long, AbstractGraphPanelChartElement>> iterator() {
+        iteratedX = xValues;
+        iteratedY = yValues;
+        iteratedCount = count;
+        iteratorPos = 0;
         return this;
     }
 
     public boolean hasNext() {
-        return iterator != null && iterator.hasNext();
+        return iteratedX != null && iteratorPos < iteratedCount;
     }
 
     public Entry<Long, AbstractGraphPanelChartElement> next() {
-        GraphPanelChartExactElement el = (GraphPanelChartExactElement) iterator.next().getValue();
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        GraphPanelChartExactElement el = new GraphPanelChartExactElement(iteratedX[iteratorPos], iteratedY[iteratorPos]);
+        iteratorPos++;
         return new ExactEntry(el.getX(), el);
     }
 
@@ -71,22 +92,18 @@ public class GraphRowExactValues
     }
 
     @Override
-    public int size() {
-        return values.size();
+    public synchronized int size() {
+        return count;
     }
 
     @Override
-    public AbstractGraphPanelChartElement getElement(long value) {
-        AbstractGraphPanelChartElement ret = null;
-        Iterator<Entry<Long, AbstractGraphPanelChartElement>> it = values.entrySet().iterator();
-
-        while (it.hasNext() && ret == null) {
-            GraphPanelChartExactElement el = (GraphPanelChartExactElement) it.next().getValue();
-            if (el.getX() == value) {
-                ret = el;
+    public synchronized AbstractGraphPanelChartElement getElement(long value) {
+        for (int n = 0; n < count; n++) {
+            if (xValues[n] == value) {
+                return new GraphPanelChartExactElement(xValues[n], yValues[n]);
             }
         }
 
-        return ret;
+        return null;
     }
 }
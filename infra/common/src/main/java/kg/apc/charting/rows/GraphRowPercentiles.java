@@ -1,22 +1,39 @@
 package kg.apc.charting.rows;
 
+import kg.apc.charting.AbstractGraphRow;
+import kg.apc.charting.LogLinearHistogram;
+import kg.apc.charting.PercentileSketch;
 import kg.apc.charting.elements.GraphPanelChartExactElement;
 import kg.apc.charting.AbstractGraphPanelChartElement;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
-import org.slf4j.LoggerFactory;
-import org.slf4j.Logger;
 
+/**
+ * Percentile points are taken from {@link PercentileSketch},
+ * so recording is O(1) and all points are computed in single pass,
+ * only when new values were added since last calculation.
+ * Overall row can be merged from per-label rows, see {@link #setMergedRows(Collection)}.
+ */
 public class GraphRowPercentiles extends GraphRowSumValues {
 
-    private static final Logger log = LoggerFactory.getLogger(GraphRowPercentiles.class);
     private ConcurrentSkipListMap<Long, AbstractGraphPanelChartElement> percentiles = new ConcurrentSkipListMap<Long, AbstractGraphPanelChartElement>();
+    private final PercentileSketch sketch;
     private long totalCount = 0L;
+    private long calculatedCount = 0L;
     private static final int FRACTION = 10;
+    private final double[] weights = new double[100 * FRACTION - 1];
+    private final long[] values = new long[weights.length];
+    private Collection<AbstractGraphRow> mergedRows;
 
     public GraphRowPercentiles() {
+        this(new LogLinearHistogram());
+    }
+
+    public GraphRowPercentiles(PercentileSketch sketch) {
         super();
+        this.sketch = sketch;
         //create percentiles objects, and reuse them to avoid GC
         //we remove p=100 as we now have 99.9 percentile which is enough, and by doing this loiterings will not break chart anymore
         for (long p = 1; p <= 100 * FRACTION-1; p++) {
@@ -25,11 +42,63 @@ public class GraphRowPercentiles extends GraphRowSumValues {
     }
 
     @Override
-    public void add(long xVal, double yVal) {
-        super.add(xVal, yVal);
+    public synchronized void add(long xVal, double yVal) {
+        sketch.add(xVal, yVal);
         totalCount++;
     }
 
+    /**
+     * Adds all values recorded by other row, used to build overall row from per-label rows
+     */
+    public synchronized void merge(GraphRowPercentiles other) {
+        if (other == this) {
+            return;
+        }
+
+        synchronized (other) {
+            sketch.merge(other.sketch);
+            totalCount += other.totalCount;
+        }
+    }
+
+    /**
+     * Makes this row an overall one: instead of recording every value twice,
+     * its sketch is rebuilt from percentile rows of collection when they change
+     *
+     * @param rows live collection of per-label rows, e.g. model values
+     */
+    public synchronized void setMergedRows(Collection<AbstractGraphRow> rows) {
+        mergedRows = rows;
+    }
+
+    private synchronized void mergeRows() {
+        if (mergedRows == null) {
+            return;
+        }
+
+        long count = 0;
+        for (AbstractGraphRow row : mergedRows) {
+            if (row instanceof GraphRowPercentiles && row != this) {
+                count += ((GraphRowPercentiles) row).getTotalCount();
+            }
+        }
+        if (count == totalCount) {
+            return;
+        }
+
+        sketch.clear();
+        totalCount = 0;
+        for (AbstractGraphRow row : mergedRows) {
+            if (row instanceof GraphRowPercentiles) {
+                merge((GraphRowPercentiles) row);
+            }
+        }
+    }
+
+    private synchronized long getTotalCount() {
+        return totalCount;
+    }
+
     @Override
     public long getMinX() {
         return 0;
@@ -40,28 +109,21 @@ public class GraphRowPercentiles extends GraphRowSumValues {
         return 100 * FRACTION;
     }
 
-    private void calculatePercentiles() {
-        double calculatedPerc = 0;
-        Iterator<Entry<Long, AbstractGraphPanelChartElement>> valIT = super.iterator();
-        Entry<Long, AbstractGraphPanelChartElement> el = null;
-        Iterator<Entry<Long, AbstractGraphPanelChartElement>> percIT = percentiles.entrySet().iterator();
-        Long timeLevel = 0L;
-
-        while (percIT.hasNext()) {
-            Entry<Long, AbstractGraphPanelChartElement> percEl = percIT.next();
-            double percLevel = percEl.getKey() / (double) FRACTION;
-
-            while (calculatedPerc < percLevel && valIT.hasNext()) {
-                el = valIT.next();
-                calculatedPerc = 100 * el.getValue().getValue() / (double) totalCount;
-            }
+    private synchronized void calculatePercentiles() {
+        mergeRows();
+        if (calculatedCount == totalCount) {
+            return;
+        }
 
-            if (el != null) {
-                timeLevel = el.getKey();
-            }
+        for (int n = 0; n < weights.length; n++) {
+            weights[n] = (n + 1) / (double) FRACTION * totalCount / 100;
+        }
+        sketch.getValuesAtWeights(weights, values);
 
-            percEl.getValue().add(timeLevel);
+        for (int n = 0; n < values.length; n++) {
+            percentiles.get((long) n + 1).add(values[n]);
         }
+        calculatedCount = totalCount;
     }
 
     @Override
@@ -71,8 +133,9 @@ public class GraphRowPercentiles extends GraphRowSumValues {
     }
 
     @Override
-    public int size() {
-        if (super.size() == 0) {
+    public synchronized int size() {
+        mergeRows();
+        if (totalCount == 0) {
             return 0;
         } else {
             return percentiles.size();
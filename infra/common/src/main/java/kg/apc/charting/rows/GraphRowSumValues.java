@@ -6,20 +6,20 @@ import kg.apc.charting.AbstractGraphPanelChartElement;
 
 import java.util.Iterator;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.NoSuchElementException;
 
 public class GraphRowSumValues
         extends AbstractGraphRow
         implements Iterator<Entry<Long, AbstractGraphPanelChartElement>> {
     //private static final Logger log = LoggerFactory.getLogger(GraphRowSumValues.class);
 
-    private ConcurrentSkipListMap<Long, GraphPanelChartSumElement> values;
+    private final PrimitiveBucketStore values;
     private double rollingSum;
-    private Iterator<Entry<Long, GraphPanelChartSumElement>> iterator;
+    private PrimitiveBucketStore.View iterated;
+    private int iteratorPos;
     private boolean isRollingSum = true;
     private boolean excludeOutOfRangeValues = false;
     private final static long excludeCount = 15; //we don't take in account for max x if more than 15 empty bars
-    private int countX = 0;
 
     @Override
     public void setExcludeOutOfRangeValues(boolean excludeOutOfRangeValues) {
@@ -31,51 +31,48 @@ public class GraphRowSumValues
      */
     public GraphRowSumValues() {
         super();
-        values = new ConcurrentSkipListMap<>();
+        values = new PrimitiveBucketStore();
     }
 
     public GraphRowSumValues(boolean doRollingSum) {
         super();
-        values = new ConcurrentSkipListMap<>();
+        values = new PrimitiveBucketStore();
         isRollingSum = doRollingSum;
     }
 
     @Override
     public void add(long xVal, double yVal) {
-        GraphPanelChartSumElement el;
-        if (values.containsKey(xVal)) {
-            el = values.get(xVal);
-            el.add(yVal);
-            yVal = el.getValue();
-        } else {
-            el = new GraphPanelChartSumElement(yVal);
-            values.put(xVal, el);
-            countX++;
-        }
+        values.add(xVal, yVal);
         super.add(xVal, yVal);
     }
 
     public Iterator<Entry<Long, AbstractGraphPanelChartElement>> iterator() {
         rollingSum = 0;
-        iterator = values.entrySet().iterator();
+        iterated = values.view();
+        iteratorPos = 0;
         return this;
     }
 
     public boolean hasNext() {
-        return iterator.hasNext();
+        return iterated != null && iteratorPos < iterated.size();
     }
 
     public Entry<Long, AbstractGraphPanelChartElement> next() {
-        Entry<Long, GraphPanelChartSumElement> entry = iterator.next();
-        GraphPanelChartSumElement ret = entry.getValue();
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
 
-        //log.info("Rolling: " + entry.getKey() + " " + rollingSum);
+        long key = iterated.getKey(iteratorPos);
+        double value = iterated.getSum(iteratorPos);
+        iteratorPos++;
+
+        //log.info("Rolling: " + key + " " + rollingSum);
         ExactEntry retValue = null;
         if (isRollingSum) {
-            rollingSum += ret.getValue();
-            retValue = new ExactEntry(entry.getKey(), new GraphPanelChartSumElement(rollingSum));
+            rollingSum += value;
+            retValue = new ExactEntry(key, new GraphPanelChartSumElement(rollingSum));
         } else {
-            retValue = new ExactEntry(entry.getKey(), new GraphPanelChartSumElement(ret.getValue()));
+            retValue = new ExactEntry(key, new GraphPanelChartSumElement(value));
         }
         return retValue;
     }
@@ -110,7 +107,7 @@ public class GraphRowSumValues
 
     @Override
     public int size() {
-        return countX;
+        return values.size();
     }
 
     /**
@@ -126,14 +123,14 @@ public class GraphRowSumValues
             return super.getMaxX();
         } else {
             long retMax = 0;
-            Iterator<Long> iter = values.keySet().iterator();
+            PrimitiveBucketStore.View view = values.view();
 
-            if (iter.hasNext()) {
-                retMax = iter.next();
+            if (view.size() > 0) {
+                retMax = view.getKey(0);
             }
             long excludeValue = getGranulationValue() * excludeCount;
-            while (iter.hasNext()) {
-                long value = iter.next();
+            for (int n = 1; n < view.size(); n++) {
+                long value = view.getKey(n);
 
                 if (value > retMax) {
                     if ((value - retMax) < excludeValue) {
@@ -147,24 +144,18 @@ public class GraphRowSumValues
 
     @Override
     public AbstractGraphPanelChartElement getElement(long value) {
-        if (!isRollingSum) {
-            return values.get(value);
+        PrimitiveBucketStore.View view = values.view();
+        int pos = view.indexOf(value);
+        if (pos < 0) {
+            return null;
+        } else if (!isRollingSum) {
+            return new GraphPanelChartSumElement(view.getSum(pos), view.getCount(pos));
         } else {
-            if (!values.containsKey(value)) {
-                return null;
-            } else {
-                long sum = 0;
-                Iterator<Entry<Long, GraphPanelChartSumElement>> it = values.entrySet().iterator();
-                boolean valueReached = false;
-                while (it.hasNext() && !valueReached) {
-                    Entry<Long, GraphPanelChartSumElement> entry = it.next();
-                    sum += entry.getValue().getValue();
-                    if (entry.getKey() == value) {
-                        valueReached = true;
-                    }
-                }
-                return new GraphPanelChartSumElement(sum);
+            long sum = 0;
+            for (int n = 0; n <= pos; n++) {
+                sum += view.getSum(n);
             }
+            return new GraphPanelChartSumElement(sum);
         }
     }
 }
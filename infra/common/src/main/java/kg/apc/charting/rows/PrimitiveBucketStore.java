@@ -0,0 +1,129 @@
+package kg.apc.charting.rows;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, array-backed storage of (key, sum, count) buckets for graph rows.
+ * Keys are kept in ascending order in parallel primitive arrays,
+ * so one bucket costs 20 bytes instead of a skip-list node plus boxed key
+ * plus element object. Keys coming in ascending order (time) are appended,
+ * random keys are placed with binary search.
+ * <p>
+ * Writers are synchronized, readers work on {@link View} snapshots which
+ * stay valid while new buckets are added: appends never touch indexes
+ * visible to existing views and inserts in the middle copy the arrays.
+ */
+class PrimitiveBucketStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private double[] sums = new double[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * @return true if new bucket was created
+     */
+    public synchronized boolean add(long key, double value) {
+        int pos = size > 0 && keys[size - 1] == key ? size - 1 : indexOf(key);
+        if (pos >= 0) {
+            sums[pos] += value;
+            counts[pos]++;
+            return false;
+        }
+
+        insert(-pos - 1, key, value);
+        return true;
+    }
+
+    private void insert(int pos, long key, double value) {
+        if (pos == size) {
+            if (size == keys.length) {
+                int capacity = size + (size >> 1);
+                keys = Arrays.copyOf(keys, capacity);
+                sums = Arrays.copyOf(sums, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+        } else {
+            // views may still read old arrays, so shift into fresh copies
+            int capacity = size == keys.length ? size + (size >> 1) : keys.length;
+            keys = shift(keys, new long[capacity], pos);
+            sums = shift(sums, new double[capacity], pos);
+            counts = shift(counts, new int[capacity], pos);
+        }
+
+        keys[pos] = key;
+        sums[pos] = value;
+        counts[pos] = 1;
+        size++;
+    }
+
+    private <T> T shift(T src, T dst, int pos) {
+        System.arraycopy(src, 0, dst, 0, pos);
+        System.arraycopy(src, pos, dst, pos + 1, size - pos);
+        return dst;
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized View view() {
+        return new View(keys, sums, counts, size);
+    }
+
+    /**
+     * Consistent read-only window over buckets present at creation time
+     */
+    static class View {
+
+        private final long[] keys;
+        private final double[] sums;
+        private final int[] counts;
+        private final int size;
+
+        private View(long[] keys, double[] sums, int[] counts, int size) {
+            this.keys = keys;
+            this.sums = sums;
+            this.counts = counts;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long getKey(int index) {
+            return keys[index];
+        }
+
+        public double getSum(int index) {
+            return sums[index];
+        }
+
+        public int getCount(int index) {
+            return counts[index];
+        }
+
+        /**
+         * @return index of key, negative if not found
+         */
+        public int indexOf(long key) {
+            int pos = Arrays.binarySearch(keys, 0, size, key);
+            return pos >= 0 ? pos : -1;
+        }
+
+        /**
+         * @return index of the greatest key strictly less than given one, negative if not found
+         */
+        public int lowerIndexOf(long key) {
+            int pos = Arrays.binarySearch(keys, 0, size, key);
+            return (pos >= 0 ? pos : -pos - 1) - 1;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import kg.apc.jmeter.JMeterPluginsUtils;
 import kg.apc.jmeter.vizualizers.CompositeResultCollector;
 import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
 import kg.apc.jmeter.vizualizers.JSettingsPanel;
+import kg.apc.jmeter.vizualizers.LabelFilter;
 import org.apache.jmeter.gui.GuiPackage;
 import org.apache.jmeter.gui.tree.JMeterTreeModel;
 import org.apache.jmeter.gui.tree.JMeterTreeNode;
@@ -30,8 +31,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
 
@@ -69,12 +68,9 @@ public abstract class AbstractGraphPanelVisualizer
     public static final String GRAPH_AGGREGATED = "graph_aggregated";
     private JSettingsPanel settingsPanel = null;
     //
-    private List<String> includes = new ArrayList<>(0);
-    private List<String> excludes = new ArrayList<>(0);
-    private String incRegex;
-    private String excRegex;
-    private boolean includeRegexChkboxState;
-    private boolean excludeRegexChkboxState;
+    private volatile LabelFilter labelFilter = LabelFilter.ACCEPT_ALL;
+    private final RowIngestBuffer ingestBuffer = new RowIngestBuffer();
+    private volatile boolean bufferedIngestion = false;
     protected long startTimeRef = 0;
     protected long startTimeInf;
     protected long startTimeSup;
@@ -219,14 +215,38 @@ public abstract class AbstractGraphPanelVisualizer
     }
 
     public void updateGui() {
+        ingestBuffer.fold();
         graphPanel.updateGui();
     }
 
+    /**
+     * Adds value into row whose values are accumulated (averages, sums).
+     * While test is running values are buffered per thread
+     * and folded into rows on next {@link #updateGui()}.
+     */
+    protected void addRowValue(AbstractGraphRow row, long time, double value) {
+        if (!bufferedIngestion || !ingestBuffer.offer(row, time, value)) {
+            row.add(time, value);
+        }
+    }
+
+    /**
+     * Switches buffering of {@link #addRowValue} values, pending values
+     * are folded into rows when buffering is switched off
+     */
+    public void setBufferedIngestion(boolean buffered) {
+        bufferedIngestion = buffered;
+        if (!buffered) {
+            ingestBuffer.fold();
+        }
+    }
+
     @Override
     public void clearData() {
 
         startTimeRef = 0;
         clearRowsFromCompositeModels(getModel().getName());
+        ingestBuffer.clear();
         model.clear();
         modelAggregate.clear();
         colors.reset();
@@ -532,23 +552,7 @@ public abstract class AbstractGraphPanelVisualizer
             startTimeSup = startTimeRef + (1000 - startTimeRef % 1000) % 1000;
         }
 
-        if (includeRegexChkboxState && !incRegex.isEmpty()
-                && !res.getSampleLabel().matches(incRegex)) {
-            return false;
-        }
-
-        if (excludeRegexChkboxState && !excRegex.isEmpty()
-                && res.getSampleLabel().matches(excRegex)) {
-            return false;
-        }
-
-        if (!includeRegexChkboxState && !includes.isEmpty()
-                && !includes.contains(res.getSampleLabel())) {
-            return false;
-        }
-
-        if (!excludeRegexChkboxState && !excludes.isEmpty()
-                && excludes.contains(res.getSampleLabel())) {
+        if (!labelFilter.isIncluded(res.getSampleLabel())) {
             return false;
         }
 
@@ -563,26 +567,7 @@ public abstract class AbstractGraphPanelVisualizer
     }
 
     protected boolean isSampleIncluded(String sampleLabel) {
-        if (includeRegexChkboxState && !incRegex.isEmpty()
-                && !sampleLabel.matches(incRegex)) {
-            return false;
-        }
-
-        if (excludeRegexChkboxState && !excRegex.isEmpty()
-                && sampleLabel.matches(excRegex)) {
-            return false;
-        }
-
-        if (!includeRegexChkboxState && !includes.isEmpty()
-                && !includes.contains(sampleLabel)) {
-            return false;
-        }
-
-        if (!excludeRegexChkboxState && !excludes.isEmpty()
-                && excludes.contains(sampleLabel)) {
-            return false;
-        }
-        return true;
+        return labelFilter.isIncluded(sampleLabel);
     }
 
     public void setUpFiltering(CorrectedResultCollector rc) {
@@ -590,22 +575,7 @@ public abstract class AbstractGraphPanelVisualizer
                 CorrectedResultCollector.START_OFFSET, Long.MIN_VALUE);
         endOffset = rc.getTimeDelimiter(CorrectedResultCollector.END_OFFSET,
                 Long.MAX_VALUE);
-        includeRegexChkboxState = rc
-                .getRegexChkboxState(CorrectedResultCollector.INCLUDE_REGEX_CHECKBOX_STATE);
-        excludeRegexChkboxState = rc
-                .getRegexChkboxState(CorrectedResultCollector.EXCLUDE_REGEX_CHECKBOX_STATE);
-        if (includeRegexChkboxState)
-            incRegex = rc
-                    .getRegex(CorrectedResultCollector.INCLUDE_SAMPLE_LABELS);
-        else
-            includes = rc
-                    .getList(CorrectedResultCollector.INCLUDE_SAMPLE_LABELS);
-        if (excludeRegexChkboxState)
-            excRegex = rc
-                    .getRegex(CorrectedResultCollector.EXCLUDE_SAMPLE_LABELS);
-        else
-            excludes = rc
-                    .getList(CorrectedResultCollector.EXCLUDE_SAMPLE_LABELS);
+        labelFilter = LabelFilter.fromCollector(rc);
     }
 
     private class MaximizeAction implements ActionListener {
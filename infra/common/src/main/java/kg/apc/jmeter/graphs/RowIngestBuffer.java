@@ -0,0 +1,99 @@
+package kg.apc.jmeter.graphs;
+
+import kg.apc.charting.AbstractGraphRow;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-thread buffers of pending row values. Each sampler thread appends
+ * into its own single-producer ring without locks, values are folded
+ * into rows by {@link #fold()} on repaint. A full ring is reported to the
+ * caller, which then adds the value into the row directly.
+ * <p>
+ * Only suitable for rows where order of adds does not matter
+ * (averages and sums).
+ */
+class RowIngestBuffer {
+
+    private static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+
+    private final CopyOnWriteArrayList<Stripe> stripes = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Stripe> local = new ThreadLocal<Stripe>() {
+        @Override
+        protected Stripe initialValue() {
+            Stripe stripe = new Stripe(Thread.currentThread());
+            stripes.add(stripe);
+            return stripe;
+        }
+    };
+
+    /**
+     * @return false if buffer of calling thread is full
+     */
+    public boolean offer(AbstractGraphRow row, long x, double y) {
+        Stripe stripe = local.get();
+        long tail = stripe.tail;
+        if (tail - stripe.head >= CAPACITY) {
+            return false;
+        }
+
+        int index = (int) (tail & MASK);
+        stripe.rows[index] = row;
+        stripe.xs[index] = x;
+        stripe.ys[index] = y;
+        stripe.tail = tail + 1;
+        return true;
+    }
+
+    /**
+     * Adds all pending values into their rows
+     */
+    public synchronized void fold() {
+        for (Stripe stripe : stripes) {
+            // dead owner's writes are all visible once isAlive() returned false
+            boolean alive = stripe.owner.isAlive();
+            long tail = stripe.tail;
+            for (long n = stripe.head; n < tail; n++) {
+                int index = (int) (n & MASK);
+                stripe.rows[index].add(stripe.xs[index], stripe.ys[index]);
+                stripe.rows[index] = null;
+            }
+            stripe.head = tail;
+            if (!alive) {
+                stripes.remove(stripe);
+            }
+        }
+    }
+
+    /**
+     * Drops all pending values
+     */
+    public synchronized void clear() {
+        for (Stripe stripe : stripes) {
+            long tail = stripe.tail;
+            for (long n = stripe.head; n < tail; n++) {
+                stripe.rows[(int) (n & MASK)] = null;
+            }
+            stripe.head = tail;
+        }
+    }
+
+    int getStripeCount() {
+        return stripes.size();
+    }
+
+    private static class Stripe {
+
+        private final Thread owner;
+        private final AbstractGraphRow[] rows = new AbstractGraphRow[CAPACITY];
+        private final long[] xs = new long[CAPACITY];
+        private final double[] ys = new double[CAPACITY];
+        private volatile long head = 0;
+        private volatile long tail = 0;
+
+        private Stripe(Thread owner) {
+            this.owner = owner;
+        }
+    }
+}
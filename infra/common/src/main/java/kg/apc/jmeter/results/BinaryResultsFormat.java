@@ -0,0 +1,78 @@
+package kg.apc.jmeter.results;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Layout of binary results file:
+ * <pre>
+ * magic "JPBR", version byte
+ * block*:
+ *   int rowCount, byte columnCount
+ *   column*: byte columnId, int rawLength, int storedLength, deflated bytes
+ * </pre>
+ * Numeric columns are varints, timestamps are deltas from previous row.
+ * String columns start with varint (newEntryCount &lt;&lt; 1 | reset), where reset
+ * means dictionary is cleared before this block, then dictionary entries added
+ * in this block, followed by dictionary id per row. Writer clears dictionary
+ * after block that made it too big, so memory stays bounded with high
+ * cardinality labels or messages. Column ids are bit numbers
+ * for {@link BinaryResultsReader#setColumns(int)}.
+ */
+public final class BinaryResultsFormat {
+
+    static final byte[] MAGIC = {'J', 'P', 'B', 'R'};
+    static final byte VERSION = 2;
+    public static final String FILE_EXTENSION = ".jtlb";
+
+    public static final int TIMESTAMP = 0;
+    public static final int ELAPSED = 1;
+    public static final int LATENCY = 2;
+    public static final int CONNECT_TIME = 3;
+    public static final int LABEL = 4;
+    public static final int THREAD_NAME = 5;
+    public static final int RESPONSE_CODE = 6;
+    public static final int RESPONSE_MESSAGE = 7;
+    public static final int SUCCESS = 8;
+    public static final int BYTES = 9;
+    public static final int GRP_THREADS = 10;
+    public static final int ALL_THREADS = 11;
+    public static final int SAMPLE_COUNT = 12;
+    public static final int ERROR_COUNT = 13;
+    static final int COLUMN_COUNT = 14;
+
+    public static final int ALL_COLUMNS = (1 << COLUMN_COUNT) - 1;
+
+    private BinaryResultsFormat() {
+    }
+
+    static boolean isDictionary(int column) {
+        return column >= LABEL && column <= RESPONSE_MESSAGE;
+    }
+
+    /**
+     * @return bit mask for given columns, timestamp and elapsed are always loaded
+     */
+    public static int columns(int... columns) {
+        int mask = (1 << TIMESTAMP) | (1 << ELAPSED);
+        for (int column : columns) {
+            mask |= 1 << column;
+        }
+        return mask;
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,228 @@
+package kg.apc.jmeter.results;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static kg.apc.jmeter.results.BinaryResultsFormat.*;
+
+/**
+ * Reads samples written by {@link BinaryResultsWriter}.
+ * Columns not requested with {@link #setColumns(int)} are skipped
+ * without decompression and left at SampleResult defaults.
+ */
+public class BinaryResultsReader implements Closeable {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private final byte[][] data = new byte[COLUMN_COUNT][];
+    private final int[] pos = new int[COLUMN_COUNT];
+    private final List<List<String>> dictionaries = new ArrayList<>(COLUMN_COUNT);
+    private int columns = ALL_COLUMNS;
+    private int rowsLeft = 0;
+    private long lastTimeStamp;
+
+    public BinaryResultsReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary results file");
+        }
+
+        byte version = this.in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary results version: " + version);
+        }
+
+        for (int n = 0; n < COLUMN_COUNT; n++) {
+            dictionaries.add(isDictionary(n) ? new ArrayList<String>() : null);
+        }
+    }
+
+    public BinaryResultsReader(File file) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+    }
+
+    public static boolean isBinaryFile(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(magic);
+            return Arrays.equals(magic, MAGIC);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @param columns bit mask, see {@link BinaryResultsFormat#columns(int...)}
+     */
+    public void setColumns(int columns) {
+        this.columns = columns | BinaryResultsFormat.columns();
+    }
+
+    /**
+     * @return next sample or null at the end of file
+     */
+    public SampleResult next() throws IOException {
+        if (rowsLeft == 0 && !readBlock()) {
+            return null;
+        }
+        rowsLeft--;
+
+        lastTimeStamp += unZigZag(readVarLong(TIMESTAMP));
+        SampleResult res = new SampleResult(lastTimeStamp, unZigZag(readVarLong(ELAPSED)));
+        if (isWanted(LATENCY)) {
+            res.setLatency(unZigZag(readVarLong(LATENCY)));
+        }
+        if (isWanted(CONNECT_TIME)) {
+            res.setConnectTime(unZigZag(readVarLong(CONNECT_TIME)));
+        }
+        if (isWanted(LABEL)) {
+            res.setSampleLabel(readString(LABEL));
+        }
+        if (isWanted(THREAD_NAME)) {
+            res.setThreadName(readString(THREAD_NAME));
+        }
+        if (isWanted(RESPONSE_CODE)) {
+            res.setResponseCode(readString(RESPONSE_CODE));
+        }
+        if (isWanted(RESPONSE_MESSAGE)) {
+            res.setResponseMessage(readString(RESPONSE_MESSAGE));
+        }
+        if (isWanted(SUCCESS)) {
+            res.setSuccessful(data[SUCCESS][pos[SUCCESS]++] != 0);
+        }
+        if (isWanted(BYTES)) {
+            res.setBytes((int) unZigZag(readVarLong(BYTES)));
+        }
+        if (isWanted(GRP_THREADS)) {
+            res.setGroupThreads((int) unZigZag(readVarLong(GRP_THREADS)));
+        }
+        if (isWanted(ALL_THREADS)) {
+            res.setAllThreads((int) unZigZag(readVarLong(ALL_THREADS)));
+        }
+        if (isWanted(SAMPLE_COUNT)) {
+            res.setSampleCount((int) unZigZag(readVarLong(SAMPLE_COUNT)));
+        }
+        if (isWanted(ERROR_COUNT)) {
+            res.setErrorCount((int) unZigZag(readVarLong(ERROR_COUNT)));
+        }
+        return res;
+    }
+
+    private boolean isWanted(int column) {
+        return (columns & (1 << column)) != 0 && data[column] != null;
+    }
+
+    private boolean readBlock() throws IOException {
+        int rows;
+        try {
+            rows = in.readInt();
+        } catch (EOFException ex) {
+            return false;
+        }
+
+        int count = in.readUnsignedByte();
+        Arrays.fill(data, null);
+        for (int n = 0; n < count; n++) {
+            int column = in.readUnsignedByte();
+            int rawLength = in.readInt();
+            int storedLength = in.readInt();
+            if (column >= COLUMN_COUNT || (columns & (1 << column)) == 0) {
+                in.skipBytes(storedLength);
+                continue;
+            }
+
+            byte[] stored = new byte[storedLength];
+            in.readFully(stored);
+            data[column] = inflate(stored, rawLength);
+            pos[column] = 0;
+            if (isDictionary(column)) {
+                readDictionary(column);
+            }
+        }
+
+        rowsLeft = rows;
+        lastTimeStamp = 0;
+        return rows > 0 || readBlock();
+    }
+
+    private byte[] inflate(byte[] stored, int rawLength) throws IOException {
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(stored);
+        try {
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawLength) {
+                throw new IOException("Corrupted column block");
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupted column block", ex);
+        }
+        return raw;
+    }
+
+    private void readDictionary(int column) {
+        List<String> dictionary = dictionaries.get(column);
+        long header = readVarLong(column);
+        if ((header & 1) != 0) {
+            dictionary.clear();
+        }
+        long entries = header >>> 1;
+        for (long n = 0; n < entries; n++) {
+            int length = (int) readVarLong(column);
+            dictionary.add(new String(data[column], pos[column], length, UTF8));
+            pos[column] += length;
+        }
+    }
+
+    private String readString(int column) {
+        return dictionaries.get(column).get((int) readVarLong(column));
+    }
+
+    private long readVarLong(int column) {
+        byte[] bytes = data[column];
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[pos[column]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+}
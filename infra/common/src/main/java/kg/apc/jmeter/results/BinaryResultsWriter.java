@@ -0,0 +1,180 @@
+package kg.apc.jmeter.results;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static kg.apc.jmeter.results.BinaryResultsFormat.*;
+
+/**
+ * Writes samples in {@link BinaryResultsFormat}, buffering rows
+ * column by column and compressing each column per block.
+ */
+public class BinaryResultsWriter implements Closeable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 8192;
+    public static final int DEFAULT_MAX_DICTIONARY_SIZE = 65536;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final DataOutputStream out;
+    private final int blockSize;
+    private final int maxDictionarySize;
+    private final ByteArrayOutputStream[] columns = new ByteArrayOutputStream[COLUMN_COUNT];
+    private final ByteArrayOutputStream[] newEntries = new ByteArrayOutputStream[COLUMN_COUNT];
+    private final int[] newEntryCounts = new int[COLUMN_COUNT];
+    private final boolean[] dictionaryReset = new boolean[COLUMN_COUNT];
+    private final Map<String, Integer>[] dictionaries;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] compressed = new byte[64 * 1024];
+    private long lastTimeStamp = 0;
+    private int rows = 0;
+
+    public BinaryResultsWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BinaryResultsWriter(OutputStream out, int blockSize) throws IOException {
+        this(out, blockSize, DEFAULT_MAX_DICTIONARY_SIZE);
+    }
+
+    /**
+     * @param maxDictionarySize strings count per column after which dictionary starts over
+     */
+    @SuppressWarnings("unchecked")
+    public BinaryResultsWriter(OutputStream out, int blockSize, int maxDictionarySize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.out = new DataOutputStream(out);
+        this.blockSize = blockSize;
+        this.maxDictionarySize = Math.max(1, maxDictionarySize);
+        dictionaries = new Map[COLUMN_COUNT];
+        for (int n = 0; n < COLUMN_COUNT; n++) {
+            columns[n] = new ByteArrayOutputStream();
+            if (isDictionary(n)) {
+                newEntries[n] = new ByteArrayOutputStream();
+                dictionaries[n] = new HashMap<>();
+            }
+        }
+
+        this.out.write(MAGIC);
+        this.out.writeByte(VERSION);
+    }
+
+    public synchronized void add(SampleResult res) throws IOException {
+        long timeStamp = res.getTimeStamp();
+        writeVarLong(columns[TIMESTAMP], zigZag(timeStamp - lastTimeStamp));
+        lastTimeStamp = timeStamp;
+
+        writeVarLong(columns[ELAPSED], zigZag(res.getTime()));
+        writeVarLong(columns[LATENCY], zigZag(res.getLatency()));
+        writeVarLong(columns[CONNECT_TIME], zigZag(res.getConnectTime()));
+        writeString(LABEL, res.getSampleLabel());
+        writeString(THREAD_NAME, res.getThreadName());
+        writeString(RESPONSE_CODE, res.getResponseCode());
+        writeString(RESPONSE_MESSAGE, res.getResponseMessage());
+        columns[SUCCESS].write(res.isSuccessful() ? 1 : 0);
+        writeVarLong(columns[BYTES], zigZag(res.getBytes()));
+        writeVarLong(columns[GRP_THREADS], zigZag(res.getGroupThreads()));
+        writeVarLong(columns[ALL_THREADS], zigZag(res.getAllThreads()));
+        writeVarLong(columns[SAMPLE_COUNT], zigZag(res.getSampleCount()));
+        writeVarLong(columns[ERROR_COUNT], zigZag(res.getErrorCount()));
+
+        if (++rows >= blockSize) {
+            flushBlock();
+        }
+    }
+
+    private void writeString(int column, String str) {
+        if (str == null) {
+            str = "";
+        }
+
+        Integer id = dictionaries[column].get(str);
+        if (id == null) {
+            id = dictionaries[column].size();
+            dictionaries[column].put(str, id);
+            byte[] bytes = str.getBytes(UTF8);
+            writeVarLong(newEntries[column], bytes.length);
+            newEntries[column].write(bytes, 0, bytes.length);
+            newEntryCounts[column]++;
+        }
+        writeVarLong(columns[column], id);
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+
+        out.writeInt(rows);
+        out.writeByte(COLUMN_COUNT);
+        for (int n = 0; n < COLUMN_COUNT; n++) {
+            byte[] raw;
+            if (isDictionary(n)) {
+                ByteArrayOutputStream buf = new ByteArrayOutputStream(newEntries[n].size() + columns[n].size() + 5);
+                writeVarLong(buf, ((long) newEntryCounts[n] << 1) | (dictionaryReset[n] ? 1 : 0));
+                newEntries[n].writeTo(buf);
+                columns[n].writeTo(buf);
+                raw = buf.toByteArray();
+                newEntries[n].reset();
+                newEntryCounts[n] = 0;
+                // block can't reference dictionary cleared in the middle of it, so start over after it
+                dictionaryReset[n] = dictionaries[n].size() >= maxDictionarySize;
+                if (dictionaryReset[n]) {
+                    dictionaries[n].clear();
+                }
+            } else {
+                raw = columns[n].toByteArray();
+            }
+            columns[n].reset();
+            writeColumn(n, raw);
+        }
+        out.flush();
+
+        rows = 0;
+        lastTimeStamp = 0;
+    }
+
+    private void writeColumn(int column, byte[] raw) throws IOException {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                byte[] bigger = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, bigger, 0, length);
+                compressed = bigger;
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+
+        out.writeByte(column);
+        out.writeInt(raw.length);
+        out.writeInt(length);
+        out.write(compressed, 0, length);
+    }
+
+    public synchronized void flush() throws IOException {
+        flushBlock();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushBlock();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package kg.apc.jmeter.results;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+import java.util.Arrays;
+
+/**
+ * Layout of monitoring time-series file:
+ * <pre>
+ * magic "JPMS", version byte
+ * block*:
+ *   int newMetricCount, UTF label * newMetricCount
+ *   int seriesCount
+ *   series*: int metricId, int pointCount, int byteLength, bits
+ * </pre>
+ * Metric ids are positions in label dictionary, which grows from block to block.
+ * Series bits of each block start from raw 64 bit timestamp and value,
+ * next timestamps are stored as delta-of-delta and values are XORed with
+ * previous value, like in Facebook Gorilla. NaN value marks failed poll.
+ */
+public final class MonitoringSeriesFormat {
+
+    static final byte[] MAGIC = {'J', 'P', 'M', 'S'};
+    static final byte VERSION = 1;
+    public static final String FILE_EXTENSION = ".jtlm";
+    public static final String DEFAULT_PROPERTY = "jmeterPlugin.monitoring.seriesFile";
+
+    private MonitoringSeriesFormat() {
+    }
+
+    public static boolean isSeriesFile(String filename) {
+        return filename != null && filename.trim().toLowerCase().endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * @return extension for auto-generated monitoring files,
+     * series format is chosen by jmeterPlugin.monitoring.seriesFile=true
+     */
+    public static String getDefaultExtension(String textExtension) {
+        return JMeterUtils.getPropDefault(DEFAULT_PROPERTY, false) ? FILE_EXTENSION : textExtension;
+    }
+
+    static void writeTimestamp(BitOutput out, long dod) {
+        if (dod == 0) {
+            out.writeBits(0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod + 63, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod + 255, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod + 2047, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    static long readTimestamp(BitInput in) {
+        if (in.readBits(1) == 0) {
+            return 0;
+        } else if (in.readBits(1) == 0) {
+            return in.readBits(7) - 63;
+        } else if (in.readBits(1) == 0) {
+            return in.readBits(9) - 255;
+        } else if (in.readBits(1) == 0) {
+            return in.readBits(12) - 2047;
+        } else {
+            return in.readBits(64);
+        }
+    }
+
+    /**
+     * Bits written MSB first
+     */
+    static class BitOutput {
+        private byte[] bytes = new byte[64];
+        private long bits;
+
+        void writeBits(long value, int count) {
+            for (int n = count - 1; n >= 0; n--) {
+                int index = (int) (bits >>> 3);
+                if (index == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                if (((value >>> n) & 1) != 0) {
+                    bytes[index] |= (byte) (0x80 >>> (bits & 7));
+                }
+                bits++;
+            }
+        }
+
+        int length() {
+            return (int) ((bits + 7) >>> 3);
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        void reset() {
+            Arrays.fill(bytes, 0, length(), (byte) 0);
+            bits = 0;
+        }
+    }
+
+    static class BitInput {
+        private final byte[] bytes;
+        private long bits;
+
+        BitInput(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readBits(int count) {
+            long value = 0;
+            for (int n = 0; n < count; n++) {
+                int bit = (bytes[(int) (bits >>> 3)] >>> (7 - (bits & 7))) & 1;
+                value = (value << 1) | bit;
+                bits++;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package kg.apc.jmeter.results;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static kg.apc.jmeter.results.MonitoringSeriesFormat.*;
+
+/**
+ * Reads points written by {@link MonitoringSeriesWriter}, series of each block
+ * are merged by timestamp. Points are returned as results understood by
+ * both PerfMon and other monitoring visualizers: value is kept as elapsed time
+ * in thousandths and as response message. Failed polls are unsuccessful results.
+ */
+public class MonitoringSeriesReader implements Closeable {
+
+    private static final Comparator<Cursor> BY_TIME = new Comparator<Cursor>() {
+        @Override
+        public int compare(Cursor o1, Cursor o2) {
+            if (o1.timeStamp != o2.timeStamp) {
+                return o1.timeStamp < o2.timeStamp ? -1 : 1;
+            }
+            return o1.id < o2.id ? -1 : (o1.id == o2.id ? 0 : 1);
+        }
+    };
+
+    private final DataInputStream in;
+    private final List<String> labels = new ArrayList<>();
+    private final PriorityQueue<Cursor> cursors = new PriorityQueue<>(64, BY_TIME);
+
+    public MonitoringSeriesReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a monitoring series file");
+        }
+
+        byte version = this.in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported monitoring series version: " + version);
+        }
+    }
+
+    public MonitoringSeriesReader(File file) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+    }
+
+    public static boolean isSeriesFile(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+
+        byte[] magic = new byte[MAGIC.length];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(magic);
+            return Arrays.equals(magic, MAGIC);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return next point or null at the end of file
+     */
+    public SampleResult next() throws IOException {
+        if (cursors.isEmpty() && !readBlock()) {
+            return null;
+        }
+
+        Cursor cursor = cursors.poll();
+        SampleResult res = createResult(cursor.timeStamp, labels.get(cursor.id), cursor.value);
+        if (cursor.next()) {
+            cursors.add(cursor);
+        }
+        return res;
+    }
+
+    private static SampleResult createResult(long timeStamp, String label, double value) {
+        SampleResult res;
+        if (Double.isNaN(value)) {
+            res = SampleResult.createTestSample(timeStamp, timeStamp - 1000);
+            res.setResponseMessage("Failed to get value of " + label);
+            res.setSuccessful(false);
+        } else {
+            res = SampleResult.createTestSample(timeStamp, timeStamp + (long) (value * 1000));
+            res.setResponseMessage(Double.toString(value));
+            res.setSuccessful(true);
+        }
+        res.setSampleLabel(label);
+        return res;
+    }
+
+    private boolean readBlock() throws IOException {
+        int newLabels;
+        try {
+            newLabels = in.readInt();
+        } catch (EOFException ex) {
+            return false;
+        }
+
+        for (int n = 0; n < newLabels; n++) {
+            labels.add(in.readUTF());
+        }
+
+        int seriesCount = in.readInt();
+        for (int n = 0; n < seriesCount; n++) {
+            int id = in.readInt();
+            int count = in.readInt();
+            byte[] bits = new byte[in.readInt()];
+            in.readFully(bits);
+            if (id < 0 || id >= labels.size()) {
+                throw new IOException("Wrong metric id in series block: " + id);
+            }
+            if (count > 0) {
+                Cursor cursor = new Cursor(id, count, new BitInput(bits));
+                cursor.next();
+                cursors.add(cursor);
+            }
+        }
+        return !cursors.isEmpty() || readBlock();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static class Cursor {
+        private final int id;
+        private final BitInput bits;
+        private int left;
+        private boolean started;
+        private long timeStamp;
+        private long delta;
+        private long valueBits;
+        private double value;
+        private int leading;
+        private int trailing;
+
+        private Cursor(int id, int count, BitInput bits) {
+            this.id = id;
+            this.left = count;
+            this.bits = bits;
+        }
+
+        /**
+         * @return false if series has no more points
+         */
+        private boolean next() {
+            if (left == 0) {
+                return false;
+            }
+            left--;
+
+            if (!started) {
+                started = true;
+                timeStamp = bits.readBits(64);
+                valueBits = bits.readBits(64);
+            } else {
+                delta += readTimestamp(bits);
+                timeStamp += delta;
+                readValue();
+            }
+            value = Double.longBitsToDouble(valueBits);
+            return true;
+        }
+
+        private void readValue() {
+            if (bits.readBits(1) == 0) {
+                return;
+            }
+
+            if (bits.readBits(1) != 0) {
+                leading = (int) bits.readBits(5);
+                int meaningful = (int) bits.readBits(6) + 1;
+                trailing = 64 - leading - meaningful;
+            }
+            valueBits ^= bits.readBits(64 - leading - trailing) << trailing;
+        }
+    }
+}
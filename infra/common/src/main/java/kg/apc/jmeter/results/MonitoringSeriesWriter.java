@@ -0,0 +1,211 @@
+package kg.apc.jmeter.results;
+
+import org.apache.jmeter.services.FileServer;
+import org.apache.jmeter.util.JMeterUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static kg.apc.jmeter.results.MonitoringSeriesFormat.*;
+
+/**
+ * Writes monitoring points in {@link MonitoringSeriesFormat},
+ * one compressed series per metric and block. Block is written when it fills up
+ * or when it is older than flush interval, so a crash loses only the last seconds
+ * of a long test. Shorter interval means more blocks, each starting series from
+ * raw 64 bit values, so it costs some compression.
+ */
+public class MonitoringSeriesWriter implements Closeable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 65536;
+    public static final String FLUSH_INTERVAL_PROPERTY = "jmeterPlugin.monitoring.seriesFlushInterval";
+
+    private final DataOutputStream out;
+    private final int blockSize;
+    private final long flushIntervalNanos;
+    private long blockStarted;
+    private final Map<String, Series> metrics = new HashMap<>();
+    private final List<String> newLabels = new ArrayList<>();
+    private final List<Series> blockSeries = new ArrayList<>();
+    private int points = 0;
+
+    public MonitoringSeriesWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    public MonitoringSeriesWriter(OutputStream out, int blockSize) throws IOException {
+        this(out, blockSize, TimeUnit.SECONDS.toMillis(JMeterUtils.getPropDefault(FLUSH_INTERVAL_PROPERTY, 10)));
+    }
+
+    /**
+     * @param flushIntervalMs max age of block before it is written to the stream
+     */
+    public MonitoringSeriesWriter(OutputStream out, int blockSize, long flushIntervalMs) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.out = new DataOutputStream(out);
+        this.blockSize = blockSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.out.write(MAGIC);
+        this.out.writeByte(VERSION);
+    }
+
+    /**
+     * Opens file relative to test plan directory
+     */
+    public static MonitoringSeriesWriter open(String filename) throws IOException {
+        String path = FileServer.resolveBaseRelativeName(filename);
+        return new MonitoringSeriesWriter(new BufferedOutputStream(new FileOutputStream(path), 64 * 1024));
+    }
+
+    /**
+     * @param value NaN for failed poll
+     */
+    public synchronized void add(long timeStamp, String label, double value) throws IOException {
+        addPoint(timeStamp, label, value);
+    }
+
+    /**
+     * Adds points with the same timestamp, NaN values are skipped
+     *
+     * @param labels labels indexed as values
+     */
+    public synchronized void add(long timeStamp, String[] labels, double[] values) throws IOException {
+        for (int n = 0; n < values.length; n++) {
+            if (!Double.isNaN(values[n])) {
+                addPoint(timeStamp, labels[n], values[n]);
+            }
+        }
+    }
+
+    private void addPoint(long timeStamp, String label, double value) throws IOException {
+        long now = System.nanoTime();
+        if (points == 0) {
+            blockStarted = now;
+        }
+
+        Series series = metrics.get(label);
+        if (series == null) {
+            series = new Series(metrics.size());
+            metrics.put(label, series);
+            newLabels.add(label);
+        }
+        if (series.count == 0) {
+            blockSeries.add(series);
+        }
+        series.add(timeStamp, value);
+
+        if (++points >= blockSize || now - blockStarted >= flushIntervalNanos) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (points == 0) {
+            return;
+        }
+
+        out.writeInt(newLabels.size());
+        for (String label : newLabels) {
+            out.writeUTF(label);
+        }
+        newLabels.clear();
+
+        out.writeInt(blockSeries.size());
+        for (Series series : blockSeries) {
+            out.writeInt(series.id);
+            out.writeInt(series.count);
+            out.writeInt(series.bits.length());
+            out.write(series.bits.getBytes(), 0, series.bits.length());
+            series.reset();
+        }
+        blockSeries.clear();
+        out.flush();
+        points = 0;
+    }
+
+    public synchronized void flush() throws IOException {
+        flushBlock();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushBlock();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static class Series {
+        private final int id;
+        private final BitOutput bits = new BitOutput();
+        private int count;
+        private long lastTimeStamp;
+        private long lastDelta;
+        private long lastValue;
+        private int leading = -1;
+        private int trailing;
+
+        private Series(int id) {
+            this.id = id;
+        }
+
+        private void add(long timeStamp, double value) {
+            long valueBits = Double.doubleToLongBits(value);
+            if (count == 0) {
+                bits.writeBits(timeStamp, 64);
+                bits.writeBits(valueBits, 64);
+            } else {
+                long delta = timeStamp - lastTimeStamp;
+                writeTimestamp(bits, delta - lastDelta);
+                lastDelta = delta;
+                writeValue(valueBits ^ lastValue);
+            }
+            lastTimeStamp = timeStamp;
+            lastValue = valueBits;
+            count++;
+        }
+
+        private void writeValue(long xor) {
+            if (xor == 0) {
+                bits.writeBits(0, 1);
+                return;
+            }
+
+            bits.writeBits(1, 1);
+            int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                // fits into previous meaningful bits window
+                bits.writeBits(0, 1);
+                bits.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int meaningful = 64 - lead - trail;
+                bits.writeBits(1, 1);
+                bits.writeBits(lead, 5);
+                bits.writeBits(meaningful - 1, 6);
+                bits.writeBits(xor >>> trail, meaningful);
+                leading = lead;
+                trailing = trail;
+            }
+        }
+
+        private void reset() {
+            bits.reset();
+            count = 0;
+            lastDelta = 0;
+            leading = -1;
+        }
+    }
+}
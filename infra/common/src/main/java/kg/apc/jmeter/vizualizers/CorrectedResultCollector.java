@@ -1,11 +1,21 @@
 package kg.apc.jmeter.vizualizers;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import kg.apc.jmeter.graphs.AbstractGraphPanelVisualizer;
+import kg.apc.jmeter.results.BinaryResultsFormat;
+import kg.apc.jmeter.results.BinaryResultsReader;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
+import kg.apc.jmeter.results.MonitoringSeriesReader;
+import kg.apc.jmeter.results.MonitoringSeriesWriter;
 import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.services.FileServer;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
@@ -21,6 +31,9 @@ public class CorrectedResultCollector extends ResultCollector {
     public static final String PREFIX_LABEL = "prefix_label";
     public static final String EMPTY_FIELD = "";
     private static final String COMMA = ",";
+    private transient int binaryColumns = BinaryResultsFormat.ALL_COLUMNS;
+    private transient volatile MonitoringSeriesWriter seriesWriter;
+    private transient boolean ownFileOutput;
 
     @Override
     public void testStarted() {
@@ -28,10 +41,113 @@ public class CorrectedResultCollector extends ResultCollector {
         super.testStarted();
     }
 
+    /**
+     * ResultCollector output is opened only if collector does not write file itself
+     */
     @Override
     public void testStarted(String host) {
         setupSaving();
-        super.testStarted(host);
+        ownFileOutput = hasOwnFileOutput();
+        if (!ownFileOutput) {
+            super.testStarted(host);
+        }
+        setBufferedIngestion(true);
+    }
+
+    @Override
+    public void testEnded(String host) {
+        if (!ownFileOutput) {
+            super.testEnded(host);
+        }
+        ownFileOutput = false;
+        closeSeriesFile();
+        if (setBufferedIngestion(false)) {
+            ((AbstractGraphPanelVisualizer) getVisualizer()).updateGui();
+        }
+    }
+
+    /**
+     * @return true if file is written by collector itself and must not be opened as CSV/XML,
+     * checked on test start after subclass opened its file
+     */
+    protected boolean hasOwnFileOutput() {
+        return seriesWriter != null;
+    }
+
+    /**
+     * Opens monitoring series file if file name has {@link MonitoringSeriesFormat#FILE_EXTENSION},
+     * to be called by monitoring collectors before testStarted
+     */
+    protected void openSeriesFile() {
+        String filename = getFilename();
+        if (seriesWriter != null || !MonitoringSeriesFormat.isSeriesFile(filename)) {
+            return;
+        }
+
+        try {
+            seriesWriter = MonitoringSeriesWriter.open(filename);
+            log.info("Writing monitoring series into " + filename);
+        } catch (IOException ex) {
+            log.error("Cannot open file " + filename, ex);
+        }
+    }
+
+    private void closeSeriesFile() {
+        MonitoringSeriesWriter writer = seriesWriter;
+        seriesWriter = null;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                log.error("Failed to close file " + getFilename(), ex);
+            }
+        }
+    }
+
+    /**
+     * @return false if there is no series file, so value must be recorded as sample result
+     */
+    protected boolean addSeriesPoint(long timeStamp, String label, double value) {
+        MonitoringSeriesWriter writer = seriesWriter;
+        if (writer == null) {
+            return false;
+        }
+
+        try {
+            writer.add(timeStamp, label, value);
+        } catch (IOException ex) {
+            log.error("Failed to write monitoring series point to " + getFilename(), ex);
+        }
+        return true;
+    }
+
+    /**
+     * @return false if there is no series file, so values must be recorded as sample results
+     */
+    protected boolean addSeriesPoints(long timeStamp, String[] labels, double[] values) {
+        MonitoringSeriesWriter writer = seriesWriter;
+        if (writer == null) {
+            return false;
+        }
+
+        try {
+            writer.add(timeStamp, labels, values);
+        } catch (IOException ex) {
+            log.error("Failed to write monitoring series points to " + getFilename(), ex);
+        }
+        return true;
+    }
+
+    /**
+     * Live samples are buffered by graph visualizers between repaints,
+     * loaded files are added directly
+     */
+    private boolean setBufferedIngestion(boolean buffered) {
+        if (getVisualizer() instanceof AbstractGraphPanelVisualizer) {
+            ((AbstractGraphPanelVisualizer) getVisualizer()).setBufferedIngestion(buffered);
+            return true;
+        }
+        return false;
     }
 
     private void setupSaving() {
@@ -40,6 +156,66 @@ public class CorrectedResultCollector extends ResultCollector {
         conf.setThreadCounts(true);
     }
 
+    /**
+     * Binary results and monitoring series files are read directly, skipping text parsing,
+     * other files are loaded by ResultCollector
+     */
+    @Override
+    public void loadExistingFile() {
+        String filename = getFilename();
+        if (getVisualizer() == null || filename.isEmpty()) {
+            super.loadExistingFile();
+            return;
+        }
+
+        File file = new File(FileServer.resolveBaseRelativeName(filename));
+        if (MonitoringSeriesReader.isSeriesFile(file)) {
+            loadSeriesFile(file);
+            return;
+        }
+        if (!BinaryResultsReader.isBinaryFile(file)) {
+            super.loadExistingFile();
+            return;
+        }
+
+        log.info("Loading binary results file: " + file.getAbsolutePath());
+        try (BinaryResultsReader reader = new BinaryResultsReader(file)) {
+            reader.setColumns(binaryColumns);
+            SampleResult res;
+            while ((res = reader.next()) != null) {
+                if (isSampleWanted(res.isSuccessful())) {
+                    sendToVisualizer(res);
+                }
+            }
+        } catch (IOException ex) {
+            log.error("Failed to load binary results file " + filename, ex);
+        }
+    }
+
+    private void loadSeriesFile(File file) {
+        log.info("Loading monitoring series file: " + file.getAbsolutePath());
+        try (MonitoringSeriesReader reader = new MonitoringSeriesReader(file)) {
+            SampleResult res;
+            while ((res = reader.next()) != null) {
+                if (isSampleWanted(res.isSuccessful())) {
+                    sendToVisualizer(res);
+                }
+            }
+        } catch (IOException ex) {
+            log.error("Failed to load monitoring series file " + file, ex);
+        }
+    }
+
+    /**
+     * Limits columns read from binary results files,
+     * success column is always read for success/error filtering
+     *
+     * @param columns bit mask, see {@link BinaryResultsFormat#columns(int...)}
+     */
+    public void setBinaryColumns(int columns) {
+        binaryColumns = columns | BinaryResultsFormat.columns(BinaryResultsFormat.SUCCESS);
+    }
+
     public List<String> getList(String prop) {
         String s = getPropertyAsString(prop);
         if (s.isEmpty()) {
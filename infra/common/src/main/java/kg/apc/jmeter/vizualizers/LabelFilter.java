@@ -0,0 +1,102 @@
+package kg.apc.jmeter.vizualizers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Include/exclude sample label filter compiled once from collector settings:
+ * regular expressions are precompiled, plain label lists become hash sets,
+ * and decisions are cached per label.
+ * Invalid regular expression rejects every label.
+ */
+public class LabelFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LabelFilter.class);
+    private static final int MAX_CACHED_LABELS = 10000;
+    public static final LabelFilter ACCEPT_ALL = new LabelFilter(false, "", Collections.<String>emptyList(),
+            false, "", Collections.<String>emptyList());
+
+    private final Pattern includePattern;
+    private final Pattern excludePattern;
+    private final Set<String> includes;
+    private final Set<String> excludes;
+    private final boolean invalid;
+    private final ConcurrentMap<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    public LabelFilter(boolean includeRegex, String includeExpr, Collection<String> includeLabels,
+                       boolean excludeRegex, String excludeExpr, Collection<String> excludeLabels) {
+        Pattern inc = null;
+        Pattern exc = null;
+        boolean failed = false;
+        try {
+            inc = includeRegex ? compile(includeExpr) : null;
+            exc = excludeRegex ? compile(excludeExpr) : null;
+        } catch (PatternSyntaxException ex) {
+            log.error("Invalid label filter regex: " + ex.getPattern(), ex);
+            failed = true;
+        }
+        includePattern = inc;
+        excludePattern = exc;
+        invalid = failed;
+        includes = includeRegex ? Collections.<String>emptySet() : new HashSet<>(includeLabels);
+        excludes = excludeRegex ? Collections.<String>emptySet() : new HashSet<>(excludeLabels);
+    }
+
+    private static Pattern compile(String expr) {
+        return expr == null || expr.isEmpty() ? null : Pattern.compile(expr);
+    }
+
+    public static LabelFilter fromCollector(CorrectedResultCollector rc) {
+        boolean includeRegex = rc.getRegexChkboxState(CorrectedResultCollector.INCLUDE_REGEX_CHECKBOX_STATE);
+        boolean excludeRegex = rc.getRegexChkboxState(CorrectedResultCollector.EXCLUDE_REGEX_CHECKBOX_STATE);
+        return new LabelFilter(
+                includeRegex, rc.getRegex(CorrectedResultCollector.INCLUDE_SAMPLE_LABELS),
+                rc.getList(CorrectedResultCollector.INCLUDE_SAMPLE_LABELS),
+                excludeRegex, rc.getRegex(CorrectedResultCollector.EXCLUDE_SAMPLE_LABELS),
+                rc.getList(CorrectedResultCollector.EXCLUDE_SAMPLE_LABELS));
+    }
+
+    public boolean isIncluded(String label) {
+        if (label == null) {
+            return decide(null);
+        }
+
+        Boolean decision = decisions.get(label);
+        if (decision == null) {
+            decision = decide(label);
+            if (decisions.size() < MAX_CACHED_LABELS) {
+                decisions.put(label, decision);
+            }
+        }
+        return decision;
+    }
+
+    private boolean decide(String label) {
+        if (invalid) {
+            return false;
+        }
+
+        if (includePattern != null && !includePattern.matcher(label).matches()) {
+            return false;
+        }
+
+        if (excludePattern != null && excludePattern.matcher(label).matches()) {
+            return false;
+        }
+
+        if (!includes.isEmpty() && !includes.contains(label)) {
+            return false;
+        }
+
+        return excludes.isEmpty() || !excludes.contains(label);
+    }
+}
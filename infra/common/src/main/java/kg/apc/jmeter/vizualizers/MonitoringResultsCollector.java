@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
 import kg.apc.jmeter.JMeterPluginsUtils;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
 
 public class MonitoringResultsCollector
         extends CorrectedResultCollector
@@ -29,6 +30,7 @@ public class MonitoringResultsCollector
 
     private int interval;
     private Thread workerThread;
+    private transient volatile MonitoringScheduler scheduler;
     private volatile boolean stop = false;
     protected List<MonitoringSampler> samplers = new ArrayList<MonitoringSampler>();
     private String autoFileBaseName = null;
@@ -60,7 +62,7 @@ public class MonitoringResultsCollector
         if (counter > 1) {
             ret = ret + "_" + counter;
         }
-        ret = ret + ".csv";
+        ret = ret + MonitoringSeriesFormat.getDefaultExtension(".csv");
 
         return ret;
     }
@@ -113,26 +115,35 @@ public class MonitoringResultsCollector
     }
 
     @Override
-    public synchronized void run() {
-        try {
-            syncContext(true);
-        
-            while (!stop) {
-                long startTime = System.currentTimeMillis();
-                processConnectors();
-                long elapsedTime = System.currentTimeMillis() - startTime;
-                if (interval > elapsedTime) {
-                    this.wait(interval - elapsedTime);
-                }
-                syncContext(false);
-            }
-        }
-        catch (InterruptedException ex) {
-            log.debug("Monitoring thread was interrupted", ex);
+    public void run() {
+        syncContext(true);
+        MonitoringScheduler current = scheduler;
+        if (current == null) {
+            current = createScheduler();
+            scheduler = current;
         }
+        current.run();
         log.debug("exiting run()");
     }
 
+    /**
+     * Each sampler is polled by own scheduler task, so slow one does not delay others
+     */
+    protected MonitoringScheduler createScheduler() {
+        MonitoringScheduler result = new MonitoringScheduler(getPrefix(), interval);
+        for (int i = 0; i < samplers.size(); i++) {
+            final MonitoringSampler sampler = samplers.get(i);
+            result.add(getPrefix() + "#" + i, getPrefix() + " sampler #" + i, new Runnable() {
+                @Override
+                public void run() {
+                    syncContext(true);
+                    sampler.generateSamples(MonitoringResultsCollector.this);
+                }
+            });
+        }
+        return result;
+    }
+
     //ensure we start only on one host (if multiple slaves)
     private synchronized boolean isWorkingHost(String host) {
         if (workerHost == null) {
@@ -159,10 +170,12 @@ public class MonitoringResultsCollector
             }
         }
 
+        openSeriesFile();
         ctx = JMeterContextService.getContext();
         initiateConnectors();
 
         stop = false;
+        scheduler = createScheduler();
         workerThread = new Thread(this);
         workerThread.start();
 
@@ -187,6 +200,10 @@ public class MonitoringResultsCollector
         }
 
         stop = true;
+        if (scheduler != null) {
+            scheduler.stop();
+            scheduler = null;
+        }
         shutdownConnectors();
 
         //reset autoFileName for next test run
@@ -232,8 +249,15 @@ public class MonitoringResultsCollector
         super.sampleOccurred(event);
     }
 
+    /**
+     * Values go to series file if it is used, results are created only for visualizer then
+     */
     @Override
     public void generateSample(double value, String label) {
+        if (addSeriesPoint(System.currentTimeMillis(), label, value) && getVisualizer() == null) {
+            return;
+        }
+
         MonitoringSampleResult res = new MonitoringSampleResult();
         res.setSampleLabel(label);
         res.setValue(value);
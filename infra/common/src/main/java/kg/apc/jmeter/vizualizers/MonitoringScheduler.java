@@ -0,0 +1,288 @@
+package kg.apc.jmeter.vizualizers;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Polls monitoring metrics in parallel at fixed rate.
+ * Thread calling {@link #run()} only keeps nanoTime based deadlines and submits
+ * metric tasks to small pool of workers, so one slow host does not delay others.
+ * Each metric runs at most once at a time: if it is still busy when next tick comes,
+ * the tick is counted as missed, and if it is busy longer than timeout it is interrupted.
+ * Number of metrics polled simultaneously from the same host is limited: metrics
+ * over the limit wait in the host queue, not in a worker, and are submitted
+ * as soon as a previous metric of that host finishes.
+ */
+public class MonitoringScheduler implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(MonitoringScheduler.class);
+    public static final String THREADS_PROPERTY = "jmeterPlugin.monitoring.threads";
+    public static final String HOST_CONCURRENCY_PROPERTY = "jmeterPlugin.monitoring.hostConcurrency";
+    public static final String TIMEOUT_PROPERTY = "jmeterPlugin.monitoring.timeout";
+
+    private final String name;
+    private final long intervalNanos;
+    private final int maxThreads;
+    private final List<MetricTask> tasks = new ArrayList<MetricTask>();
+    private final Map<String, Host> hosts = new ConcurrentHashMap<String, Host>();
+    private int hostConcurrency;
+    private long timeoutNanos;
+    private volatile boolean running = true;
+    private volatile ExecutorService executor;
+    private volatile Thread ticker;
+
+    /**
+     * Settings are taken from JMeter properties, timeout defaults to the interval
+     */
+    public MonitoringScheduler(String name, long intervalMs) {
+        this(name, intervalMs,
+                JMeterUtils.getPropDefault(THREADS_PROPERTY, 4),
+                JMeterUtils.getPropDefault(HOST_CONCURRENCY_PROPERTY, 2),
+                JMeterUtils.getPropDefault(TIMEOUT_PROPERTY, intervalMs));
+    }
+
+    public MonitoringScheduler(String name, long intervalMs, int maxThreads, int hostConcurrency, long timeoutMs) {
+        this.name = name;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervalMs));
+        this.maxThreads = Math.max(1, maxThreads);
+        this.hostConcurrency = Math.max(1, hostConcurrency);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, timeoutMs));
+    }
+
+    /**
+     * Registers metric, must be called before {@link #run()}
+     *
+     * @param host   key to limit concurrency by, like host name or connection URL
+     * @param metric metric label used to report missed ticks
+     */
+    public void add(String host, String metric, Runnable task) {
+        tasks.add(new MetricTask(getHost(host), metric, task));
+    }
+
+    /**
+     * Overrides concurrency limit for the host, e.g. when its metrics share single connection
+     */
+    public void setHostConcurrency(String host, int limit) {
+        getHost(host).setLimit(limit);
+    }
+
+    private Host getHost(String host) {
+        Host result = hosts.get(host);
+        if (result == null) {
+            result = new Host(host, hostConcurrency);
+            hosts.put(host, result);
+        }
+        return result;
+    }
+
+    /**
+     * Ticks until {@link #stop()} is called or thread is interrupted
+     */
+    @Override
+    public void run() {
+        if (!running) {
+            return;
+        }
+
+        ticker = Thread.currentThread();
+        executor = createExecutor(Math.max(1, Math.min(maxThreads, tasks.size())));
+        long deadline = System.nanoTime();
+        try {
+            while (running) {
+                for (MetricTask task : tasks) {
+                    task.tick(deadline);
+                }
+
+                deadline += intervalNanos;
+                long now = System.nanoTime();
+                if (now - deadline > 0) {
+                    // ticker itself was delayed, skip passed ticks instead of bursting
+                    long behind = (now - deadline) / intervalNanos + 1;
+                    deadline += behind * intervalNanos;
+                    for (MetricTask task : tasks) {
+                        task.missed.addAndGet(behind);
+                    }
+                }
+
+                while (running && (now = System.nanoTime()) - deadline < 0) {
+                    LockSupport.parkNanos(this, deadline - now);
+                    if (Thread.interrupted()) {
+                        running = false;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            reportMissed();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        Thread thread = ticker;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        ExecutorService current = executor;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return count of ticks metric was not polled, because it was still busy or waiting for its host
+     */
+    public long getMissedTicks(String metric) {
+        long result = 0;
+        for (MetricTask task : tasks) {
+            if (task.metric.equals(metric)) {
+                result += task.missed.get();
+            }
+        }
+        return result;
+    }
+
+    public long getMissedTicks() {
+        long result = 0;
+        for (MetricTask task : tasks) {
+            result += task.missed.get();
+        }
+        return result;
+    }
+
+    private void reportMissed() {
+        for (MetricTask task : tasks) {
+            if (task.missed.get() > 0) {
+                log.info(name + " metric '" + task.metric + "' of " + task.host.name + " missed " + task.missed.get() + " ticks");
+            }
+        }
+    }
+
+    private ExecutorService createExecutor(int threads) {
+        final AtomicInteger number = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, name + "-poller-" + number.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Queue of metrics due on one host, at most limit of them are in the executor
+     */
+    private class Host {
+        private final String name;
+        private final Queue<MetricTask> waiting = new ArrayDeque<MetricTask>();
+        private int limit;
+        private int active;
+
+        private Host(String name, int limit) {
+            this.name = name;
+            this.limit = limit;
+        }
+
+        private synchronized void setLimit(int limit) {
+            this.limit = Math.max(1, limit);
+        }
+
+        private synchronized void offer(MetricTask task) {
+            waiting.add(task);
+            dispatch();
+        }
+
+        private synchronized void finished() {
+            active--;
+            dispatch();
+        }
+
+        private void dispatch() {
+            while (active < limit && !waiting.isEmpty()) {
+                MetricTask task = waiting.poll();
+                try {
+                    task.future = executor.submit(task);
+                } catch (RejectedExecutionException e) {
+                    // scheduler is stopped
+                    waiting.clear();
+                    return;
+                }
+                active++;
+            }
+        }
+    }
+
+    private class MetricTask implements Runnable {
+        private final Host host;
+        private final String metric;
+        private final Runnable task;
+        private final AtomicLong missed = new AtomicLong();
+        // set from tick until the poll ends, while waiting in host queue and while
+        // interrupted task ignores the interrupt
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile Future<?> future;
+        private volatile boolean polling;
+        private volatile long started;
+
+        private MetricTask(Host host, String metric, Runnable task) {
+            this.host = host;
+            this.metric = metric;
+            this.task = task;
+        }
+
+        private void tick(long deadline) {
+            if (scheduled.get()) {
+                missed.incrementAndGet();
+                Future<?> current = future;
+                // only cancel started poll, cancelled before start it would never leave the host
+                if (polling && current != null && !current.isDone() && deadline - started >= timeoutNanos) {
+                    log.warn(name + " metric '" + metric + "' of " + host.name + " timed out, interrupting it");
+                    current.cancel(true);
+                }
+                return;
+            }
+
+            scheduled.set(true);
+            host.offer(this);
+        }
+
+        @Override
+        public void run() {
+            started = System.nanoTime();
+            polling = true;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn(name + " metric '" + metric + "' failed", e);
+            } finally {
+                polling = false;
+                scheduled.set(false);
+                host.finished();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package kg.apc.charting;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentLogLinearHistogramTest {
+
+    @Test
+    public void testAddTo() {
+        System.out.println("addTo");
+        ConcurrentLogLinearHistogram instance = new ConcurrentLogLinearHistogram();
+        for (int n = 1; n <= 100; n++) {
+            instance.add(n * 10);
+        }
+        instance.add(-5);
+
+        ConcurrentLogLinearHistogram.Snapshot snapshot = new ConcurrentLogLinearHistogram.Snapshot();
+        instance.addTo(snapshot);
+        assertEquals(101, snapshot.getCount());
+        assertEquals(50500, snapshot.getSum());
+        assertEquals(500, snapshot.getMean(), 0.001);
+        assertEquals(0, snapshot.getMin());
+        assertEquals(900, snapshot.getValueAtPercentile(90), 900 / 16);
+        assertEquals(990, snapshot.getValueAtPercentile(99), 990 / 16);
+
+        // values are kept, so another window sees them too
+        instance.addTo(snapshot);
+        assertEquals(202, snapshot.getCount());
+        assertEquals(202, snapshot.getTotalWeight(), 0);
+    }
+
+    @Test
+    public void testDrainTo() {
+        System.out.println("drainTo");
+        ConcurrentLogLinearHistogram instance = new ConcurrentLogLinearHistogram();
+        instance.add(10);
+        instance.add(30);
+
+        ConcurrentLogLinearHistogram.Snapshot snapshot = new ConcurrentLogLinearHistogram.Snapshot();
+        instance.drainTo(snapshot);
+        assertEquals(2, snapshot.getCount());
+        assertEquals(20, snapshot.getMean(), 0.001);
+        assertEquals(30, snapshot.getValueAtPercentile(100));
+
+        snapshot.clear();
+        instance.drainTo(snapshot);
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMean(), 0);
+        assertEquals(0, snapshot.getValueAtPercentile(90));
+    }
+
+    @Test
+    public void testReset() {
+        System.out.println("reset");
+        ConcurrentLogLinearHistogram instance = new ConcurrentLogLinearHistogram();
+        instance.add(Long.MAX_VALUE);
+        instance.reset();
+        ConcurrentLogLinearHistogram.Snapshot snapshot = new ConcurrentLogLinearHistogram.Snapshot();
+        instance.addTo(snapshot);
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getTotalWeight(), 0);
+    }
+
+    @Test(timeout = 10000)
+    public void testAdd_concurrent() throws InterruptedException {
+        System.out.println("add_concurrent");
+        final ConcurrentLogLinearHistogram instance = new ConcurrentLogLinearHistogram();
+        Thread[] threads = new Thread[8];
+        for (int n = 0; n < threads.length; n++) {
+            threads[n] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        instance.add(i % 100);
+                    }
+                }
+            };
+            threads[n].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        ConcurrentLogLinearHistogram.Snapshot snapshot = new ConcurrentLogLinearHistogram.Snapshot();
+        instance.drainTo(snapshot);
+        assertEquals(80000, snapshot.getCount());
+        assertEquals(80000, snapshot.getTotalWeight(), 0);
+        assertEquals(49.5, snapshot.getMean(), 0.001);
+    }
+}
@@ -0,0 +1,90 @@
+package kg.apc.charting;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogLinearHistogramTest {
+
+    private LogLinearHistogram instance;
+
+    @Before
+    public void setUp() {
+        instance = new LogLinearHistogram();
+    }
+
+    @Test
+    public void testIndex() {
+        System.out.println("index");
+        assertEquals(0, instance.getIndex(0));
+        assertEquals(1023, instance.getIndex(1023));
+        assertEquals(1024, instance.getLowestValue(instance.getIndex(1024)));
+        assertEquals(1024, instance.getLowestValue(instance.getIndex(1025)));
+        assertEquals(1026, instance.getLowestValue(instance.getIndex(1026)));
+        for (long v = 1; v > 0 && v < Long.MAX_VALUE / 3; v = v * 3 + 1) {
+            long lowest = instance.getLowestValue(instance.getIndex(v));
+            assertTrue(lowest <= v);
+            assertTrue((v - lowest) / (double) v < 1.0 / 512);
+        }
+        instance.add(Long.MAX_VALUE, 1);
+        assertEquals(Long.MAX_VALUE, instance.getMax());
+    }
+
+    @Test
+    public void testAdd() {
+        System.out.println("add");
+        assertEquals(0, instance.getValueAtPercentile(50));
+        instance.add(10, 1);
+        instance.add(20, 1);
+        instance.add(-5, 1);
+        assertEquals(3, instance.getTotalWeight(), 0.001);
+        assertEquals(0, instance.getMin());
+        assertEquals(20, instance.getMax());
+        assertEquals(10, instance.getValueAtPercentile(50));
+        assertEquals(20, instance.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testGetValuesAtWeights() {
+        System.out.println("getValuesAtWeights");
+        for (int n = 1; n <= 100000; n++) {
+            instance.add(n, 1);
+        }
+        long[] results = new long[3];
+        instance.getValuesAtWeights(new double[]{50000, 99000, 200000}, results);
+        assertEquals(50000, results[0], 50000 / 512);
+        assertEquals(99000, results[1], 99000 / 512);
+        assertEquals(100000, results[2]);
+    }
+
+    @Test
+    public void testMerge() {
+        System.out.println("merge");
+        LogLinearHistogram other = new LogLinearHistogram();
+        instance.add(1, 1);
+        other.add(100000, 3);
+        instance.merge(other);
+        assertEquals(4, instance.getTotalWeight(), 0.001);
+        assertEquals(1, instance.getMin());
+        assertEquals(100000, instance.getMax());
+        assertEquals(1, instance.getValueAtPercentile(25));
+        assertEquals(100000, instance.getValueAtPercentile(50), 100000 / 512);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMerge_precision() {
+        System.out.println("merge different precision");
+        instance.merge(new LogLinearHistogram(5));
+    }
+
+    @Test
+    public void testClear() {
+        System.out.println("clear");
+        instance.add(5, 1);
+        instance.clear();
+        assertEquals(0, instance.getTotalWeight(), 0.001);
+        assertEquals(0, instance.getMax());
+    }
+}
@@ -1,9 +1,11 @@
 package kg.apc.charting.rows;
 
 import kg.apc.charting.AbstractGraphPanelChartElement;
+import kg.apc.charting.AbstractGraphRow;
 import kg.apc.charting.rows.GraphRowPercentiles;
 import java.util.Map.Entry;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.junit.*;
 
@@ -166,6 +168,45 @@ public class GraphRowPercentilesTest {
         assertEquals(32, result.getValue(), 0.001);
     }
 
+    @Test
+    public void testMerge() {
+        System.out.println("merge");
+        GraphRowPercentiles instance = new GraphRowPercentiles();
+        GraphRowPercentiles other = new GraphRowPercentiles();
+        instance.add(10, 1);
+        other.add(20, 1);
+        instance.merge(other);
+        instance.iterator();
+        assertEquals(10, instance.getElement(500).getValue(), 0.001);
+        assertEquals(20, instance.getElement(501).getValue(), 0.001);
+    }
+
+    @Test
+    public void testSetMergedRows() {
+        System.out.println("setMergedRows");
+        ConcurrentSkipListMap<String, AbstractGraphRow> rows = new ConcurrentSkipListMap<String, AbstractGraphRow>();
+        GraphRowPercentiles instance = new GraphRowPercentiles();
+        instance.setMergedRows(rows.values());
+        assertEquals(0, instance.size());
+
+        GraphRowPercentiles first = new GraphRowPercentiles();
+        rows.put("first", first);
+        first.add(10, 1);
+        assertEquals(expectedCount, instance.size());
+        instance.iterator();
+        assertEquals(10, instance.getElement(999).getValue(), 0.001);
+
+        // rows added later and new values are picked up on next calculation
+        GraphRowPercentiles second = new GraphRowPercentiles();
+        rows.put("second", second);
+        second.add(20, 1);
+        second.add(30, 1);
+        instance.iterator();
+        assertEquals(10, instance.getElement(333).getValue(), 0.001);
+        assertEquals(20, instance.getElement(334).getValue(), 0.001);
+        assertEquals(30, instance.getElement(999).getValue(), 0.001);
+    }
+
     /**
      * Test of add method, of class GraphRowPercentiles.
      */
@@ -0,0 +1,78 @@
+package kg.apc.charting.rows;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveBucketStoreTest {
+
+    private PrimitiveBucketStore instance;
+
+    @Before
+    public void setUp() {
+        instance = new PrimitiveBucketStore();
+    }
+
+    @Test
+    public void testAdd() {
+        System.out.println("add");
+        assertTrue(instance.add(1000, 1));
+        assertFalse(instance.add(1000, 2));
+        assertTrue(instance.add(2000, 3));
+        assertEquals(2, instance.size());
+
+        PrimitiveBucketStore.View view = instance.view();
+        assertEquals(1000, view.getKey(0));
+        assertEquals(3, view.getSum(0), 0.001);
+        assertEquals(2, view.getCount(0));
+        assertEquals(2000, view.getKey(1));
+    }
+
+    @Test
+    public void testAdd_unordered() {
+        System.out.println("add unordered");
+        for (int n = 0; n < 1000; n++) {
+            instance.add((n * 7919) % 1000, n);
+        }
+        instance.add(500, 1);
+
+        PrimitiveBucketStore.View view = instance.view();
+        assertEquals(1000, view.size());
+        for (int n = 0; n < view.size(); n++) {
+            assertEquals(n, view.getKey(n));
+        }
+        assertEquals(2, view.getCount(view.indexOf(500)));
+    }
+
+    @Test
+    public void testView_isolated() {
+        System.out.println("view isolated");
+        instance.add(1000, 1);
+        instance.add(3000, 1);
+        PrimitiveBucketStore.View view = instance.view();
+        instance.add(2000, 1);
+        instance.add(4000, 1);
+
+        assertEquals(2, view.size());
+        assertEquals(1000, view.getKey(0));
+        assertEquals(3000, view.getKey(1));
+        assertEquals(4, instance.view().size());
+    }
+
+    @Test
+    public void testIndexOf() {
+        System.out.println("indexOf");
+        instance.add(1000, 1);
+        instance.add(2000, 1);
+        PrimitiveBucketStore.View view = instance.view();
+        assertEquals(1, view.indexOf(2000));
+        assertEquals(-1, view.indexOf(1500));
+        assertEquals(-1, view.lowerIndexOf(1000));
+        assertEquals(0, view.lowerIndexOf(1500));
+        assertEquals(0, view.lowerIndexOf(2000));
+        assertEquals(1, view.lowerIndexOf(5000));
+    }
+}
@@ -2,6 +2,7 @@ package kg.apc.jmeter.graphs;
 
 import kg.apc.charting.AbstractGraphRow;
 import kg.apc.charting.GraphPanelChart;
+import kg.apc.charting.rows.GraphRowSumValues;
 import kg.apc.emulators.TestJMeterUtils;
 import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
 import kg.apc.jmeter.vizualizers.JSettingsPanel;
@@ -92,6 +93,25 @@ public class AbstractGraphPanelVisualizerTest {
         instance.updateGui();
     }
 
+    @Test
+    public void testAddRowValue() {
+        System.out.println("addRowValue");
+        AbstractGraphPanelVisualizer instance = new AbstractGraphPanelVisualizerImpl();
+        AbstractGraphRow row = new GraphRowSumValues(false);
+        instance.addRowValue(row, 1000, 2);
+        assertEquals(2, row.getElement(1000).getValue(), 0.001);
+
+        instance.setBufferedIngestion(true);
+        instance.addRowValue(row, 1000, 3);
+        assertEquals(2, row.getElement(1000).getValue(), 0.001);
+        instance.updateGui();
+        assertEquals(5, row.getElement(1000).getValue(), 0.001);
+
+        instance.addRowValue(row, 1000, 4);
+        instance.setBufferedIngestion(false);
+        assertEquals(9, row.getElement(1000).getValue(), 0.001);
+    }
+
     /**
      * Test of clearData method, of class AbstractGraphPanelVisualizer.
      */
@@ -0,0 +1,89 @@
+package kg.apc.jmeter.graphs;
+
+import kg.apc.charting.AbstractGraphRow;
+import kg.apc.charting.rows.GraphRowSumValues;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RowIngestBufferTest {
+
+    @Test
+    public void testOfferFold() {
+        System.out.println("offer fold");
+        RowIngestBuffer instance = new RowIngestBuffer();
+        GraphRowSumValues row = new GraphRowSumValues(false);
+        assertTrue(instance.offer(row, 1000, 1));
+        assertTrue(instance.offer(row, 1000, 2));
+        assertTrue(instance.offer(row, 2000, 5));
+        assertNull(row.getElement(1000));
+        instance.fold();
+        assertEquals(3, row.getElement(1000).getValue(), 0.001);
+        assertEquals(5, row.getElement(2000).getValue(), 0.001);
+        instance.fold();
+        assertEquals(3, row.getElement(1000).getValue(), 0.001);
+    }
+
+    @Test
+    public void testOffer_full() {
+        System.out.println("offer full");
+        RowIngestBuffer instance = new RowIngestBuffer();
+        GraphRowSumValues row = new GraphRowSumValues(false);
+        int accepted = 0;
+        while (instance.offer(row, 1000, 1)) {
+            accepted++;
+        }
+        assertFalse(instance.offer(row, 1000, 1));
+        instance.fold();
+        assertEquals(accepted, row.getElement(1000).getValue(), 0.001);
+        assertTrue(instance.offer(row, 1000, 1));
+    }
+
+    @Test
+    public void testClear() {
+        System.out.println("clear");
+        RowIngestBuffer instance = new RowIngestBuffer();
+        GraphRowSumValues row = new GraphRowSumValues(false);
+        instance.offer(row, 1000, 1);
+        instance.clear();
+        instance.fold();
+        assertNull(row.getElement(1000));
+    }
+
+    @Test
+    public void testFold_concurrent() throws InterruptedException {
+        System.out.println("fold concurrent");
+        final RowIngestBuffer instance = new RowIngestBuffer();
+        final AbstractGraphRow row = new GraphRowSumValues(false);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int n = 0; n < 10000; n++) {
+                        if (!instance.offer(row, n % 10 * 1000, 1)) {
+                            row.add(n % 10 * 1000, 1);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+
+        for (int n = 0; n < 100; n++) {
+            instance.fold();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        instance.fold();
+
+        for (int n = 0; n < 10; n++) {
+            assertEquals(8000, row.getElement(n * 1000).getValue(), 0.001);
+        }
+        assertEquals(0, instance.getStripeCount());
+    }
+}
@@ -0,0 +1,153 @@
+package kg.apc.jmeter.results;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryResultsReaderTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    private static SampleResult getSample(int n) {
+        SampleResult res = new SampleResult(1400000000000L + n * 250 - (n % 3) * 1000, n * 7);
+        res.setSampleLabel("label" + (n % 5));
+        res.setThreadName("thread " + (n % 3));
+        res.setResponseCode(n % 4 == 0 ? "500" : "200");
+        res.setResponseMessage("OK");
+        res.setSuccessful(n % 4 != 0);
+        res.setLatency(n * 3);
+        res.setConnectTime(n);
+        res.setBytes(n * 100);
+        res.setGroupThreads(n % 10);
+        res.setAllThreads(n % 20);
+        res.setSampleCount(1);
+        res.setErrorCount(n % 4 == 0 ? 1 : 0);
+        return res;
+    }
+
+    private static byte[] write(int count, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryResultsWriter writer = new BinaryResultsWriter(out, blockSize);
+        for (int n = 0; n < count; n++) {
+            writer.add(getSample(n));
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testNext() throws IOException {
+        System.out.println("next");
+        BinaryResultsReader instance = new BinaryResultsReader(new ByteArrayInputStream(write(1000, 64)));
+        for (int n = 0; n < 1000; n++) {
+            SampleResult exp = getSample(n);
+            SampleResult res = instance.next();
+            assertEquals(exp.getTimeStamp(), res.getTimeStamp());
+            assertEquals(exp.getStartTime(), res.getStartTime());
+            assertEquals(exp.getTime(), res.getTime());
+            assertEquals(exp.getLatency(), res.getLatency());
+            assertEquals(exp.getConnectTime(), res.getConnectTime());
+            assertEquals(exp.getSampleLabel(), res.getSampleLabel());
+            assertEquals(exp.getThreadName(), res.getThreadName());
+            assertEquals(exp.getResponseCode(), res.getResponseCode());
+            assertEquals(exp.getResponseMessage(), res.getResponseMessage());
+            assertEquals(exp.isSuccessful(), res.isSuccessful());
+            assertEquals(exp.getBytes(), res.getBytes());
+            assertEquals(exp.getGroupThreads(), res.getGroupThreads());
+            assertEquals(exp.getAllThreads(), res.getAllThreads());
+            assertEquals(exp.getSampleCount(), res.getSampleCount());
+            assertEquals(exp.getErrorCount(), res.getErrorCount());
+        }
+        assertNull(instance.next());
+        instance.close();
+    }
+
+    @Test
+    public void testSetColumns() throws IOException {
+        System.out.println("setColumns");
+        BinaryResultsReader instance = new BinaryResultsReader(new ByteArrayInputStream(write(100, 30)));
+        instance.setColumns(BinaryResultsFormat.columns(BinaryResultsFormat.LABEL));
+        int count = 0;
+        SampleResult res;
+        while ((res = instance.next()) != null) {
+            SampleResult exp = getSample(count++);
+            assertEquals(exp.getTimeStamp(), res.getTimeStamp());
+            assertEquals(exp.getSampleLabel(), res.getSampleLabel());
+            assertEquals("", res.getThreadName());
+            assertEquals(0, res.getLatency());
+        }
+        assertEquals(100, count);
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        System.out.println("empty");
+        BinaryResultsReader instance = new BinaryResultsReader(new ByteArrayInputStream(write(0, 10)));
+        assertNull(instance.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotBinary() throws IOException {
+        System.out.println("not binary");
+        new BinaryResultsReader(new ByteArrayInputStream("timeStamp,elapsed\n".getBytes()));
+    }
+
+    @Test
+    public void testIsBinaryFile() throws IOException {
+        System.out.println("isBinaryFile");
+        File f = File.createTempFile("test", ".csv");
+        try (FileWriter writer = new FileWriter(f)) {
+            writer.write("timeStamp,elapsed\n");
+        }
+        assertFalse(BinaryResultsReader.isBinaryFile(f));
+        assertFalse(BinaryResultsReader.isBinaryFile(new File("/nonexistent")));
+
+        f = File.createTempFile("test", BinaryResultsFormat.FILE_EXTENSION);
+        new BinaryResultsWriter(new FileOutputStream(f)).close();
+        assertTrue(BinaryResultsReader.isBinaryFile(f));
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        System.out.println("compression");
+        assertTrue(write(10000, BinaryResultsWriter.DEFAULT_BLOCK_SIZE).length < 10000 * 10);
+    }
+
+    @Test
+    public void testDictionaryReset() throws IOException {
+        System.out.println("dictionaryReset");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryResultsWriter writer = new BinaryResultsWriter(out, 16, 40);
+        for (int n = 0; n < 500; n++) {
+            SampleResult res = getSample(n);
+            res.setResponseMessage("message " + n);
+            writer.add(res);
+        }
+        writer.close();
+
+        BinaryResultsReader instance = new BinaryResultsReader(new ByteArrayInputStream(out.toByteArray()));
+        for (int n = 0; n < 500; n++) {
+            SampleResult res = instance.next();
+            assertEquals("message " + n, res.getResponseMessage());
+            assertEquals(getSample(n).getSampleLabel(), res.getSampleLabel());
+        }
+        assertNull(instance.next());
+        instance.close();
+    }
+}
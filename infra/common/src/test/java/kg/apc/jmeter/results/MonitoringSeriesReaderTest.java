@@ -0,0 +1,166 @@
+package kg.apc.jmeter.results;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MonitoringSeriesReaderTest {
+
+    private static final long START = 1400000000000L;
+    private static final int METRICS = 5;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    private static long getTimeStamp(int tick) {
+        // a bit of jitter and one long pause
+        return START + tick * 1000L + (tick % 7) * 3 + (tick > 50 ? 3600000L : 0);
+    }
+
+    private static double getValue(int tick, int metric) {
+        switch (metric) {
+            case 0:
+                return 42;
+            case 1:
+                return tick * 0.1;
+            case 2:
+                return Math.sin(tick) * 1e6;
+            case 3:
+                return tick % 10 == 0 ? Double.NaN : tick;
+            default:
+                return tick % 2 == 0 ? Long.MAX_VALUE : -1;
+        }
+    }
+
+    private static byte[] write(int ticks, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MonitoringSeriesWriter writer = new MonitoringSeriesWriter(out, blockSize);
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int metric = 0; metric < METRICS; metric++) {
+                writer.add(getTimeStamp(tick), "metric " + metric, getValue(tick, metric));
+            }
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static void check(MonitoringSeriesReader instance, int ticks) throws IOException {
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int metric = 0; metric < METRICS; metric++) {
+                SampleResult res = instance.next();
+                double value = getValue(tick, metric);
+                assertEquals("metric " + metric, res.getSampleLabel());
+                assertEquals(getTimeStamp(tick), res.getStartTime());
+                assertEquals(!Double.isNaN(value), res.isSuccessful());
+                if (res.isSuccessful()) {
+                    assertEquals(value, Double.parseDouble(res.getResponseMessage()), 0);
+                    assertEquals((long) (value * 1000), res.getTime());
+                }
+            }
+        }
+        assertNull(instance.next());
+    }
+
+    @Test
+    public void testNext() throws IOException {
+        System.out.println("next");
+        check(new MonitoringSeriesReader(new ByteArrayInputStream(write(100, 128))), 100);
+    }
+
+    @Test
+    public void testNext_singleBlock() throws IOException {
+        System.out.println("next_singleBlock");
+        check(new MonitoringSeriesReader(new ByteArrayInputStream(write(100, MonitoringSeriesWriter.DEFAULT_BLOCK_SIZE))), 100);
+    }
+
+    @Test
+    public void testNext_empty() throws IOException {
+        System.out.println("next_empty");
+        assertNull(new MonitoringSeriesReader(new ByteArrayInputStream(write(0, 10))).next());
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        System.out.println("compression");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MonitoringSeriesWriter writer = new MonitoringSeriesWriter(out);
+        String[] labels = {"host CPU", "host Memory"};
+        for (int tick = 0; tick < 3600; tick++) {
+            writer.add(START + tick * 1000L, labels, new double[]{tick % 60 == 0 ? 12.5 : 10.0, 1024 * 1024});
+        }
+        writer.close();
+        // regular timestamps and repeated values take about 2 bits per point
+        assertTrue(out.size() < 7200 / 2);
+
+        MonitoringSeriesReader instance = new MonitoringSeriesReader(new ByteArrayInputStream(out.toByteArray()));
+        int count = 0;
+        while (instance.next() != null) {
+            count++;
+        }
+        assertEquals(7200, count);
+    }
+
+    @Test
+    public void testFlushInterval() throws Exception {
+        System.out.println("flushInterval");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MonitoringSeriesWriter writer = new MonitoringSeriesWriter(out, MonitoringSeriesWriter.DEFAULT_BLOCK_SIZE, 50);
+        int header = out.size();
+        writer.add(START, "metric", 1);
+        assertEquals(header, out.size());
+        Thread.sleep(60);
+        // old block is on the stream before test ends, not only on close
+        writer.add(START + 1000, "metric", 2);
+        assertTrue(out.size() > header);
+
+        int flushed = out.size();
+        writer.add(START + 2000, "metric", 3);
+        assertEquals(flushed, out.size());
+        writer.close();
+
+        MonitoringSeriesReader instance = new MonitoringSeriesReader(new ByteArrayInputStream(out.toByteArray()));
+        for (int n = 0; n < 3; n++) {
+            SampleResult res = instance.next();
+            assertEquals(START + n * 1000L, res.getStartTime());
+            assertEquals(n + 1, Double.parseDouble(res.getResponseMessage()), 0);
+        }
+        assertNull(instance.next());
+    }
+
+    @Test
+    public void testIsSeriesFile() throws IOException {
+        System.out.println("isSeriesFile");
+        File f = File.createTempFile("test", MonitoringSeriesFormat.FILE_EXTENSION);
+        f.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(write(1, 10));
+        }
+        assertTrue(MonitoringSeriesReader.isSeriesFile(f));
+        assertTrue(MonitoringSeriesFormat.isSeriesFile(f.getName()));
+        assertFalse(MonitoringSeriesFormat.isSeriesFile("perfmon.csv"));
+
+        File csv = File.createTempFile("test", ".csv");
+        csv.deleteOnExit();
+        assertFalse(MonitoringSeriesReader.isSeriesFile(csv));
+    }
+
+    @Test(expected = IOException.class)
+    public void testConstructor_wrongMagic() throws IOException {
+        System.out.println("constructor_wrongMagic");
+        new MonitoringSeriesReader(new ByteArrayInputStream("timeStamp,elapsed".getBytes()));
+    }
+}
@@ -1,13 +1,26 @@
 package kg.apc.jmeter.vizualizers;
 
 import kg.apc.emulators.TestJMeterUtils;
+import kg.apc.jmeter.results.BinaryResultsFormat;
+import kg.apc.jmeter.results.BinaryResultsWriter;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
+import kg.apc.jmeter.results.MonitoringSeriesReader;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.Visualizer;
 import org.junit.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class CorrectedResultCollectorTest {
 
@@ -86,4 +99,82 @@ public class CorrectedResultCollectorTest {
         CorrectedResultCollector instance = new CorrectedResultCollector();
         instance.setIncludeLabels(labels);
     }
+
+    @Test
+    public void testLoadExistingFile_binary() throws IOException {
+        System.out.println("loadExistingFile binary");
+        File f = File.createTempFile("test", BinaryResultsFormat.FILE_EXTENSION);
+        try (BinaryResultsWriter writer = new BinaryResultsWriter(new FileOutputStream(f))) {
+            for (int n = 0; n < 10; n++) {
+                SampleResult res = new SampleResult(1000 + n, n);
+                res.setSampleLabel("label");
+                res.setSuccessful(n % 2 == 0);
+                writer.add(res);
+            }
+        }
+
+        final List<SampleResult> loaded = new ArrayList<>();
+        CorrectedResultCollector instance = new CorrectedResultCollector();
+        instance.setFilename(f.getAbsolutePath());
+        instance.setErrorLogging(true);
+        instance.setBinaryColumns(BinaryResultsFormat.columns(BinaryResultsFormat.LABEL));
+        instance.setListener(new Visualizer() {
+            @Override
+            public void add(SampleResult sample) {
+                loaded.add(sample);
+            }
+
+            @Override
+            public boolean isStats() {
+                return false;
+            }
+        });
+        instance.loadExistingFile();
+
+        assertEquals(5, loaded.size());
+        assertEquals("label", loaded.get(0).getSampleLabel());
+        assertEquals(1001, loaded.get(0).getTimeStamp());
+        assertEquals("", loaded.get(0).getThreadName());
+    }
+
+    @Test
+    public void testSeriesFile() throws IOException {
+        System.out.println("series file");
+        File f = File.createTempFile("test", MonitoringSeriesFormat.FILE_EXTENSION);
+        f.deleteOnExit();
+        CorrectedResultCollector instance = new CorrectedResultCollector();
+        instance.setFilename(f.getAbsolutePath());
+        assertFalse(instance.addSeriesPoint(1000, "label", 1));
+
+        instance.openSeriesFile();
+        instance.testStarted("");
+        assertEquals(f.getAbsolutePath(), instance.getFilename());
+        assertTrue(instance.addSeriesPoint(1000, "label", 1.5));
+        assertTrue(instance.addSeriesPoints(2000, new String[]{"label", "other"}, new double[]{2.5, Double.NaN}));
+        instance.testEnded("");
+        assertFalse(instance.addSeriesPoint(3000, "label", 1));
+        assertTrue(MonitoringSeriesReader.isSeriesFile(f));
+
+        final List<SampleResult> loaded = new ArrayList<>();
+        CorrectedResultCollector reader = new CorrectedResultCollector();
+        reader.setFilename(f.getAbsolutePath());
+        reader.setListener(new Visualizer() {
+            @Override
+            public void add(SampleResult sample) {
+                loaded.add(sample);
+            }
+
+            @Override
+            public boolean isStats() {
+                return false;
+            }
+        });
+        reader.loadExistingFile();
+
+        assertEquals(2, loaded.size());
+        assertEquals(1000, loaded.get(0).getStartTime());
+        assertEquals("1.5", loaded.get(0).getResponseMessage());
+        assertEquals(2000, loaded.get(1).getStartTime());
+        assertEquals(2500, loaded.get(1).getTime());
+    }
 }
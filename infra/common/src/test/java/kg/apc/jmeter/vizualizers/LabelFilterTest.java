@@ -0,0 +1,82 @@
+package kg.apc.jmeter.vizualizers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LabelFilterTest {
+
+    @Test
+    public void testAcceptAll() {
+        System.out.println("acceptAll");
+        assertTrue(LabelFilter.ACCEPT_ALL.isIncluded("any"));
+        assertTrue(LabelFilter.ACCEPT_ALL.isIncluded(""));
+    }
+
+    @Test
+    public void testIsIncluded_lists() {
+        System.out.println("isIncluded lists");
+        LabelFilter instance = new LabelFilter(false, "a,b", Arrays.asList("a", "b"),
+                false, "b", Collections.singletonList("b"));
+        assertTrue(instance.isIncluded("a"));
+        assertFalse(instance.isIncluded("b"));
+        assertFalse(instance.isIncluded("c"));
+        assertTrue(instance.isIncluded("a"));
+        assertFalse(instance.isIncluded("c"));
+    }
+
+    @Test
+    public void testIsIncluded_regex() {
+        System.out.println("isIncluded regex");
+        LabelFilter instance = new LabelFilter(true, "[P-T][0-9].*", Collections.singletonList("[P-T][0-9].*"),
+                true, "[T-Z][0-9].*", Collections.singletonList("[T-Z][0-9].*"));
+        assertTrue(instance.isIncluded("P1_TEST"));
+        assertFalse(instance.isIncluded("T1_TEST"));
+        assertFalse(instance.isIncluded("A1_TEST"));
+        // whole label must match, like String.matches
+        assertFalse(instance.isIncluded("xP1"));
+    }
+
+    @Test
+    public void testIsIncluded_emptyRegex() {
+        System.out.println("isIncluded empty regex");
+        LabelFilter instance = new LabelFilter(true, "", Collections.<String>emptyList(),
+                false, "", Collections.<String>emptyList());
+        assertTrue(instance.isIncluded("anything"));
+    }
+
+    @Test
+    public void testIsIncluded_invalidRegex() {
+        System.out.println("isIncluded invalid regex");
+        LabelFilter instance = new LabelFilter(false, "", Collections.<String>emptyList(),
+                true, "[unclosed", Collections.singletonList("[unclosed"));
+        assertFalse(instance.isIncluded("label"));
+    }
+
+    @Test
+    public void testFromCollector() {
+        System.out.println("fromCollector");
+        CorrectedResultCollector rc = new CorrectedResultCollector();
+        rc.setIncludeLabels("P.*");
+        rc.setEnabledIncludeRegex(true);
+        rc.setExcludeLabels("P2,P3");
+        LabelFilter instance = LabelFilter.fromCollector(rc);
+        assertTrue(instance.isIncluded("P1"));
+        assertFalse(instance.isIncluded("P2"));
+        assertFalse(instance.isIncluded("Q1"));
+    }
+
+    @Test
+    public void testIsIncluded_manyLabels() {
+        System.out.println("isIncluded many labels");
+        LabelFilter instance = new LabelFilter(true, "l[0-9]*5", Collections.<String>emptyList(),
+                false, "", Collections.<String>emptyList());
+        for (int n = 0; n < 20000; n++) {
+            assertTrue(instance.isIncluded("l" + n) == (n % 10 == 5));
+        }
+    }
+}
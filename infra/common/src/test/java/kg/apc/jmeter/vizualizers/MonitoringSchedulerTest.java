@@ -0,0 +1,197 @@
+package kg.apc.jmeter.vizualizers;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MonitoringSchedulerTest {
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    private static Thread start(MonitoringScheduler instance) {
+        Thread thread = new Thread(instance);
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void testRun_fixedRate() throws Exception {
+        System.out.println("run_fixedRate");
+        MonitoringScheduler instance = new MonitoringScheduler("test", 50, 2, 2, 1000);
+        final AtomicInteger fast = new AtomicInteger();
+        final AtomicInteger slow = new AtomicInteger();
+        instance.add("host1", "fast", new Runnable() {
+            @Override
+            public void run() {
+                fast.incrementAndGet();
+            }
+        });
+        instance.add("host2", "slow", new Runnable() {
+            @Override
+            public void run() {
+                slow.incrementAndGet();
+                sleep(120);
+            }
+        });
+
+        Thread thread = start(instance);
+        Thread.sleep(520);
+        instance.stop();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+
+        // slow metric does not delay the fast one
+        assertTrue(fast.get() >= 8);
+        assertTrue(slow.get() < fast.get());
+        assertTrue(instance.getMissedTicks("slow") > instance.getMissedTicks("fast"));
+        assertEquals(instance.getMissedTicks("slow") + instance.getMissedTicks("fast"), instance.getMissedTicks());
+    }
+
+    @Test
+    public void testRun_hostConcurrency() throws Exception {
+        System.out.println("run_hostConcurrency");
+        MonitoringScheduler instance = new MonitoringScheduler("test", 50, 4, 2, 1000);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                int current = active.incrementAndGet();
+                if (current > maxActive.get()) {
+                    maxActive.set(current);
+                }
+                sleep(30);
+                active.decrementAndGet();
+            }
+        };
+        for (int n = 0; n < 4; n++) {
+            instance.add("host", "metric" + n, task);
+        }
+        instance.setHostConcurrency("host", 1);
+
+        Thread thread = start(instance);
+        Thread.sleep(300);
+        instance.stop();
+        thread.join(1000);
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    public void testRun_hostQueue() throws Exception {
+        System.out.println("run_hostQueue");
+        MonitoringScheduler instance = new MonitoringScheduler("test", 50, 4, 2, 1000);
+        final AtomicInteger[] polls = new AtomicInteger[5];
+        for (int n = 0; n < polls.length; n++) {
+            final AtomicInteger counter = new AtomicInteger();
+            polls[n] = counter;
+            instance.add("pool", "query" + n, new Runnable() {
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                    sleep(2);
+                }
+            });
+        }
+        instance.setHostConcurrency("pool", 1);
+
+        Thread thread = start(instance);
+        Thread.sleep(500);
+        instance.stop();
+        thread.join(1000);
+
+        // metrics over the host limit wait for their turn instead of skipping the tick
+        for (int n = 0; n < polls.length; n++) {
+            assertTrue("query" + n + " polled " + polls[n].get(), polls[n].get() >= 5);
+        }
+        assertTrue(instance.getMissedTicks() < 10);
+    }
+
+    @Test
+    public void testRun_hungHost() throws Exception {
+        System.out.println("run_hungHost");
+        MonitoringScheduler instance = new MonitoringScheduler("test", 20, 2, 1, 10000);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger healthy = new AtomicInteger();
+        Runnable hang = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        instance.add("hung", "hang1", hang);
+        instance.add("hung", "hang2", hang);
+        instance.add("healthy", "poll", new Runnable() {
+            @Override
+            public void run() {
+                healthy.incrementAndGet();
+            }
+        });
+
+        Thread thread = start(instance);
+        try {
+            Thread.sleep(300);
+        } finally {
+            instance.stop();
+            release.countDown();
+        }
+        thread.join(1000);
+
+        // second metric of hung host waits in the host queue and keeps the worker free
+        assertTrue(healthy.get() >= 5);
+        assertTrue(instance.getMissedTicks("hang2") > 0);
+    }
+
+    @Test
+    public void testRun_timeout() throws Exception {
+        System.out.println("run_timeout");
+        MonitoringScheduler instance = new MonitoringScheduler("test", 20, 1, 1, 50);
+        final AtomicInteger interrupted = new AtomicInteger();
+        instance.add("host", "hang", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+            }
+        });
+
+        Thread thread = start(instance);
+        Thread.sleep(300);
+        instance.stop();
+        thread.join(1000);
+        assertTrue(interrupted.get() >= 2);
+    }
+
+    @Test
+    public void testRun_noTasks() throws Exception {
+        System.out.println("run_noTasks");
+        MonitoringScheduler instance = new MonitoringScheduler("test", 1000);
+        Thread thread = start(instance);
+        assertTrue(instance.isRunning());
+        instance.stop();
+        thread.join(2000);
+        assertFalse(thread.isAlive());
+        assertEquals(0, instance.getMissedTicks());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package kg.apc.jmeter.reporters;
 
-import kg.apc.charting.elements.GraphPanelChartAverageElement;
 import org.apache.jmeter.JMeter;
 import org.apache.jmeter.engine.StandardJMeterEngine;
 import org.apache.jmeter.engine.util.NoThreadClone;
@@ -8,6 +7,7 @@ import org.apache.jmeter.reporters.AbstractListenerElement;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.util.JMeterUtils;
@@ -19,6 +19,10 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public class AutoStop
         extends AbstractListenerElement
@@ -32,10 +36,16 @@ public class AutoStop
     private final static String ERROR_RATE_SECS = "error_rate_length";
     private final static String RESPONSE_LATENCY = "avg_response_latency";
     private final static String RESPONSE_LATENCY_SECS = "avg_response_latency_length";
-    private long curSec = 0L;
-    private GraphPanelChartAverageElement avgRespTime = new GraphPanelChartAverageElement();
-    private GraphPanelChartAverageElement avgRespLatency = new GraphPanelChartAverageElement();
-    private GraphPanelChartAverageElement errorRate = new GraphPanelChartAverageElement();
+    public static final String WINDOW_PROPERTY = "jmeterPlugin.autostop.window";
+    public static final String PERCENTILE_PROPERTY = "jmeterPlugin.autostop.percentile";
+    // evaluate a bit after second ends, so its last samples are counted
+    private static final long EVALUATION_DELAY_MS = 100;
+    private transient volatile SlidingWindowStats stats = new SlidingWindowStats(1);
+    private transient ScheduledExecutorService evaluator;
+    private transient volatile StandardJMeterEngine engine;
+    private int window = 1;
+    private double percentile = 0;
+    private String metric = "Average";
     private long respTimeExceededStart = 0;
     private long errRateExceededStart = 0;
     private long respLatencyExceededStart = 0;
@@ -52,62 +62,66 @@ public class AutoStop
         super();
     }
 
+    /**
+     * Only accumulates sample into current second, criteria are evaluated by background thread
+     */
     @Override
     public void sampleOccurred(SampleEvent se) {
-        long sec = System.currentTimeMillis() / 1000;
-
-        if (curSec != sec) {
-            if (testValueRespTime > 0) {
-                //log.debug("Avg resp time: "+avgRespTime.getValue());
-                if (avgRespTime.getValue() > testValueRespTime) {
-                    //log.debug((sec - respTimeExceededStart)+" "+getResponseTimeSecsAsInt());
-                    if (sec - respTimeExceededStart >= testValueRespTimeSec) {
-                        log.info("Average Response Time is more than " + getResponseTime() + " for " + getResponseTimeSecs() + "s. Auto-shutdown test...");
-                        System.out.println("AutoStop - Average Response Time is more than " + getResponseTime() + " for " + getResponseTimeSecs() + "s. Auto-shutdown test...");
-                        stopTest();
-                    }
-                } else {
-                    respTimeExceededStart = sec;
+        if (engine == null) {
+            engine = JMeterContextService.getContext().getEngine();
+        }
+        add(System.currentTimeMillis() / 1000, se.getResult());
+    }
+
+    void add(long sec, SampleResult res) {
+        stats.add(sec, res.getTime(), res.getLatency(), res.isSuccessful());
+    }
+
+    /**
+     * Checks criteria against window ending with given second.
+     * Window without samples neither confirms nor breaks criteria.
+     */
+    void evaluate(long sec) {
+        SlidingWindowStats.Window stat = stats.getWindow(sec, window);
+        if (stat.getCount() == 0) {
+            return;
+        }
+
+        if (testValueRespTime > 0) {
+            if (stat.getTime(percentile) > testValueRespTime) {
+                if (sec - respTimeExceededStart >= testValueRespTimeSec) {
+                    log.info(metric + " Response Time is more than " + getResponseTime() + " for " + getResponseTimeSecs() + "s. Auto-shutdown test...");
+                    System.out.println("AutoStop - " + metric + " Response Time is more than " + getResponseTime() + " for " + getResponseTimeSecs() + "s. Auto-shutdown test...");
+                    stopTest();
                 }
+            } else {
+                respTimeExceededStart = sec;
             }
+        }
 
-            if (testValueRespLatency > 0) {
-                //log.debug("Avg resp time: "+avgRespTime.getValue());
-                if (avgRespLatency.getValue() > testValueRespLatency) {
-                    //log.debug((sec - respTimeExceededStart)+" "+getResponseTimeSecsAsInt());
-                    if (sec - respLatencyExceededStart >= testValueRespLatencySec) {
-                        log.info("Average Latency Time is more than " + getResponseLatency() + " for " + getResponseLatencySecs() + "s. Auto-shutdown test...");
-                        System.out.println("AutoStop - Average Latency Time is more than " + getResponseLatency() + " for " + getResponseLatencySecs() + "s. Auto-shutdown test...");
-                        stopTest();
-                    }
-                } else {
-                    respLatencyExceededStart = sec;
+        if (testValueRespLatency > 0) {
+            if (stat.getLatency(percentile) > testValueRespLatency) {
+                if (sec - respLatencyExceededStart >= testValueRespLatencySec) {
+                    log.info(metric + " Latency Time is more than " + getResponseLatency() + " for " + getResponseLatencySecs() + "s. Auto-shutdown test...");
+                    System.out.println("AutoStop - " + metric + " Latency Time is more than " + getResponseLatency() + " for " + getResponseLatencySecs() + "s. Auto-shutdown test...");
+                    stopTest();
                 }
+            } else {
+                respLatencyExceededStart = sec;
             }
+        }
 
-            if (testValueError > 0) {
-                //log.debug("Error rate: "+errorRate.getValue()+"/"+getErrorRateAsFloat());
-                if (errorRate.getValue() > testValueError) {
-                    //log.debug((sec - errRateExceededStart)+" "+getErrorRateSecsAsInt());
-                    if (sec - errRateExceededStart >= testValueErrorSec) {
-                        log.info("Error rate more than " + getErrorRate() + " for " + getErrorRateSecs() + "s. Auto-shutdown test...");
-                        System.out.println("AutoStop - Error rate more than " + getErrorRate() + " for " + getErrorRateSecs() + "s. Auto-shutdown test...");
-                        stopTest();
-                    }
-                } else {
-                    errRateExceededStart = sec;
+        if (testValueError > 0) {
+            if (stat.getErrorRate() > testValueError) {
+                if (sec - errRateExceededStart >= testValueErrorSec) {
+                    log.info("Error rate more than " + getErrorRate() + " for " + getErrorRateSecs() + "s. Auto-shutdown test...");
+                    System.out.println("AutoStop - Error rate more than " + getErrorRate() + " for " + getErrorRateSecs() + "s. Auto-shutdown test...");
+                    stopTest();
                 }
+            } else {
+                errRateExceededStart = sec;
             }
-
-            curSec = sec;
-            avgRespTime = new GraphPanelChartAverageElement();
-            avgRespLatency = new GraphPanelChartAverageElement();
-            errorRate = new GraphPanelChartAverageElement();
         }
-
-        avgRespTime.add(se.getResult().getTime());
-        avgRespLatency.add(se.getResult().getLatency());
-        errorRate.add(se.getResult().isSuccessful() ? 0 : 1);
     }
 
     @Override
@@ -120,16 +134,9 @@ public class AutoStop
 
     @Override
     public void testStarted() {
-        curSec = 0;
+        stopEvaluator();
         stopTries = 0;
-
-        avgRespTime = new GraphPanelChartAverageElement();
-        errorRate = new GraphPanelChartAverageElement();
-        avgRespLatency = new GraphPanelChartAverageElement();
-
-        errRateExceededStart = 0;
-        respTimeExceededStart = 0;
-        respLatencyExceededStart = 0;
+        engine = null;
 
         //init test values
         testValueError = getErrorRateAsFloat();
@@ -138,6 +145,49 @@ public class AutoStop
         testValueRespLatencySec = getResponseLatencySecsAsInt();
         testValueRespTime = getResponseTimeAsInt();
         testValueRespTimeSec = getResponseTimeSecsAsInt();
+        window = Math.max(1, JMeterUtils.getPropDefault(WINDOW_PROPERTY, 1));
+        percentile = getPercentileProperty();
+        metric = percentile > 0 ? "Percentile " + JMeterUtils.getPropDefault(PERCENTILE_PROPERTY, "") + " of" : "Average";
+        stats = new SlidingWindowStats(window);
+
+        long now = System.currentTimeMillis();
+        errRateExceededStart = now / 1000;
+        respTimeExceededStart = now / 1000;
+        respLatencyExceededStart = now / 1000;
+
+        if (testValueError > 0 || testValueRespLatency > 0 || testValueRespTime > 0) {
+            startEvaluator(now);
+        }
+    }
+
+    private synchronized void startEvaluator(long now) {
+        evaluator = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "AutoStop-" + getName());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        long delay = 1000 - now % 1000 + EVALUATION_DELAY_MS;
+        evaluator.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evaluate(System.currentTimeMillis() / 1000 - 1);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to evaluate AutoStop criteria", e);
+                }
+            }
+        }, delay, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopEvaluator() {
+        if (evaluator != null) {
+            evaluator.shutdownNow();
+            evaluator = null;
+        }
     }
 
     @Override
@@ -147,10 +197,12 @@ public class AutoStop
 
     @Override
     public void testEnded() {
+        stopEvaluator();
     }
 
     @Override
     public void testEnded(String string) {
+        testEnded();
     }
 
     void setResponseTime(String text) {
@@ -267,6 +319,16 @@ public class AutoStop
         return res > 0 ? res : 1;
     }
 
+    private double getPercentileProperty() {
+        String value = JMeterUtils.getPropDefault(PERCENTILE_PROPERTY, "0");
+        try {
+            return Math.min(100, Math.max(0, Double.parseDouble(value)));
+        } catch (NumberFormatException e) {
+            log.error("Wrong percentile: " + value + ", using average", e);
+            return 0;
+        }
+    }
+
     private void stopTest() {
         stopTries++;
         System.setProperty("auto_stopped", "true");
@@ -281,8 +343,10 @@ public class AutoStop
             } else if (stopTries > 5) {
                 log.info("Tries more than 5, stop it!");
                 StandardJMeterEngine.stopEngine();
+            } else if (engine != null) {
+                engine.askThreadsToStop();
             } else {
-                JMeterContextService.getContext().getEngine().askThreadsToStop();
+                StandardJMeterEngine.stopEngine();
             }
         }
     }
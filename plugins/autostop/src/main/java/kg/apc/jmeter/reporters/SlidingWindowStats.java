@@ -0,0 +1,114 @@
+package kg.apc.jmeter.reporters;
+
+import kg.apc.charting.ConcurrentLogLinearHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sample statistics kept per second in a ring of buckets, so any window
+ * up to the ring size can be aggregated. Sampler threads add into bucket of
+ * current second without locking. Bucket is reset by first sample that arrives in a new second.
+ */
+class SlidingWindowStats {
+    private final Bucket[] buckets;
+
+    /**
+     * @param maxWindow longest window in seconds that will be requested
+     */
+    public SlidingWindowStats(int maxWindow) {
+        buckets = new Bucket[Math.max(1, maxWindow) + 1];
+        for (int n = 0; n < buckets.length; n++) {
+            buckets[n] = new Bucket();
+        }
+    }
+
+    public void add(long second, long time, long latency, boolean success) {
+        Bucket bucket = getBucket(second);
+        if (!success) {
+            bucket.errors.incrementAndGet();
+        }
+        bucket.times.add(time);
+        bucket.latencies.add(latency);
+    }
+
+    private Bucket getBucket(long second) {
+        Bucket bucket = buckets[(int) (second % buckets.length)];
+        if (bucket.second != second) {
+            synchronized (bucket) {
+                if (bucket.second != second) {
+                    bucket.reset();
+                    bucket.second = second;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * @param lastSecond last second included into window
+     * @param length window length in seconds, at most the max window
+     */
+    public Window getWindow(long lastSecond, int length) {
+        Window window = new Window();
+        int seconds = Math.min(Math.max(1, length), buckets.length - 1);
+        for (long sec = lastSecond - seconds + 1; sec <= lastSecond; sec++) {
+            Bucket bucket = buckets[(int) (sec % buckets.length)];
+            if (bucket.second != sec) {
+                continue; // no samples in that second
+            }
+
+            window.errors += bucket.errors.get();
+            bucket.times.addTo(window.times);
+            bucket.latencies.addTo(window.latencies);
+        }
+        return window;
+    }
+
+    private static class Bucket {
+        private volatile long second = -1;
+        private final AtomicLong errors = new AtomicLong();
+        private final ConcurrentLogLinearHistogram times = new ConcurrentLogLinearHistogram();
+        private final ConcurrentLogLinearHistogram latencies = new ConcurrentLogLinearHistogram();
+
+        private void reset() {
+            errors.set(0);
+            times.reset();
+            latencies.reset();
+        }
+    }
+
+    /**
+     * Aggregated statistics of several seconds
+     */
+    static class Window {
+        private long errors;
+        private final ConcurrentLogLinearHistogram.Snapshot times = new ConcurrentLogLinearHistogram.Snapshot();
+        private final ConcurrentLogLinearHistogram.Snapshot latencies = new ConcurrentLogLinearHistogram.Snapshot();
+
+        public long getCount() {
+            return times.getCount();
+        }
+
+        public double getErrorRate() {
+            return getCount() > 0 ? errors / (double) getCount() : 0;
+        }
+
+        /**
+         * @param percentile zero for average
+         */
+        public double getTime(double percentile) {
+            return get(times, percentile);
+        }
+
+        /**
+         * @param percentile zero for average
+         */
+        public double getLatency(double percentile) {
+            return get(latencies, percentile);
+        }
+
+        private double get(ConcurrentLogLinearHistogram.Snapshot histogram, double percentile) {
+            return percentile > 0 ? histogram.getValueAtPercentile(percentile) : histogram.getMean();
+        }
+    }
+}
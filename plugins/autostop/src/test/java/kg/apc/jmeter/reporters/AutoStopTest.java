@@ -7,6 +7,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class AutoStopTest {
     @BeforeClass
@@ -51,6 +52,63 @@ public class AutoStopTest {
         }
     }
 
+    @Test
+    public void testEvaluate() {
+        System.out.println("evaluate");
+        SampleResult res = new SampleResult();
+        res.setSuccessful(false);
+        SampleEvent se = new SampleEvent(res, "");
+        AutoStop instance = new AutoStop();
+        instance.setResponseTime("0");
+        instance.setResponseLatency("0");
+        instance.setErrorRate("50");
+        instance.setErrorRateSecs("2");
+        System.clearProperty("auto_stopped");
+        instance.testStarted();
+        try {
+            long sec = System.currentTimeMillis() / 1000;
+            instance.sampleOccurred(se);
+            instance.evaluate(sec);
+            assertNull(System.getProperty("auto_stopped"));
+            // no samples in later seconds, nothing to evaluate
+            instance.evaluate(sec + 3);
+            assertNull(System.getProperty("auto_stopped"));
+        } finally {
+            instance.testEnded();
+        }
+    }
+
+    @Test
+    public void testEvaluate_idleSeconds() {
+        System.out.println("evaluate_idleSeconds");
+        SampleResult res = new SampleResult();
+        res.setSuccessful(true);
+        res.setStampAndTime(System.currentTimeMillis(), 100);
+        AutoStop instance = new AutoStop();
+        instance.setResponseTime("10");
+        instance.setResponseTimeSecs("3");
+        instance.setResponseLatency("0");
+        instance.setErrorRate("0");
+        System.clearProperty("auto_stopped");
+        instance.testStarted();
+        try {
+            long sec = System.currentTimeMillis() / 1000;
+            // slow samples every other second, idle seconds must not reset the period
+            for (int n = 0; n <= 2; n += 2) {
+                instance.add(sec + n, res);
+                instance.evaluate(sec + n);
+                instance.evaluate(sec + n + 1);
+            }
+            assertNull(System.getProperty("auto_stopped"));
+            instance.add(sec + 4, res);
+            instance.evaluate(sec + 4);
+            assertEquals("true", System.getProperty("auto_stopped"));
+        } finally {
+            instance.testEnded();
+            System.clearProperty("auto_stopped");
+        }
+    }
+
     @Test
     public void testSampleStarted() {
         System.out.println("sampleStarted");
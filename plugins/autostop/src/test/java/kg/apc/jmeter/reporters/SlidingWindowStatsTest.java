@@ -0,0 +1,64 @@
+package kg.apc.jmeter.reporters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SlidingWindowStatsTest {
+
+    @Test
+    public void testGetWindow() {
+        System.out.println("getWindow");
+        SlidingWindowStats stats = new SlidingWindowStats(3);
+        stats.add(100, 10, 1, true);
+        stats.add(101, 20, 2, false);
+        stats.add(102, 30, 3, true);
+        stats.add(102, 30, 3, true);
+
+        SlidingWindowStats.Window last = stats.getWindow(102, 1);
+        assertEquals(2, last.getCount());
+        assertEquals(30, last.getTime(0), 0.001);
+        assertEquals(0, last.getErrorRate(), 0.001);
+
+        SlidingWindowStats.Window all = stats.getWindow(102, 3);
+        assertEquals(4, all.getCount());
+        assertEquals(22.5, all.getTime(0), 0.001);
+        assertEquals(2.25, all.getLatency(0), 0.001);
+        assertEquals(0.25, all.getErrorRate(), 0.001);
+        assertEquals(30, all.getTime(99), 2);
+
+        // second 100 is overwritten by 104, 103 had no samples
+        stats.add(104, 50, 5, true);
+        SlidingWindowStats.Window rotated = stats.getWindow(104, 3);
+        assertEquals(3, rotated.getCount());
+        assertEquals(0, stats.getWindow(103, 1).getCount());
+        assertEquals(0, stats.getWindow(103, 1).getTime(95), 0.001);
+    }
+
+    @Test(timeout = 10000)
+    public void testAdd_concurrent() throws InterruptedException {
+        System.out.println("add_concurrent");
+        final SlidingWindowStats stats = new SlidingWindowStats(1);
+        Thread[] threads = new Thread[8];
+        for (int n = 0; n < threads.length; n++) {
+            threads[n] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        stats.add(5, 100, 10, i % 10 != 0);
+                    }
+                }
+            };
+            threads[n].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        SlidingWindowStats.Window window = stats.getWindow(5, 1);
+        assertEquals(80000, window.getCount());
+        assertEquals(100, window.getTime(0), 0.001);
+        assertEquals(10, window.getLatency(0), 0.001);
+        assertEquals(0.1, window.getErrorRate(), 0.001);
+    }
+}
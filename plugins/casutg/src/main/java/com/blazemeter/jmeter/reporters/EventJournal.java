@@ -0,0 +1,245 @@
+package com.blazemeter.jmeter.reporters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Binary journal of thread group events. Sampler threads put fixed-size records
+ * into lock-free ring buffer and never block, background thread writes them to file.
+ * If buffer is full, record is dropped and counted. Records that come
+ * after {@link #close()} are not written, they are counted as late.
+ * <p>
+ * File starts with header: magic, version, group name, wall clock millis and nano time
+ * at journal start. Each record is event (int), thread number (int),
+ * arrival ID (long) and System.nanoTime() (long).
+ */
+public class EventJournal {
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+
+    public static final int MAGIC = 0x4a504a4e; // "JPJN"
+    public static final int VERSION = 1;
+    public static final int RECORD_SIZE = 24;
+
+    public static final int START = 0;
+    public static final int FINISH = 1;
+    public static final int ARRIVAL = 2;
+    public static final int COMPLETION = 3;
+    public static final int ABANDONMENT = 4;
+    private static final String[] EVENT_NAMES = {"START", "FINISH", "ARRIVAL", "COMPLETION", "ABANDONMENT"};
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int mask;
+    private final int[] events;
+    private final int[] threadNums;
+    private final long[] arrivalIDs;
+    private final long[] times;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong late = new AtomicLong();
+
+    private final DataOutputStream out;
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    /**
+     * @param capacity ring buffer size in records, rounded up to power of two
+     */
+    public EventJournal(OutputStream output, String groupName, int capacity) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        events = new int[size];
+        threadNums = new int[size];
+        arrivalIDs = new long[size];
+        times = new long[size];
+        published = new AtomicLongArray(size);
+        for (int n = 0; n < size; n++) {
+            published.set(n, -1);
+        }
+
+        out = new DataOutputStream(new BufferedOutputStream(output, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(groupName);
+        out.writeLong(System.currentTimeMillis());
+        out.writeLong(System.nanoTime());
+
+        writer = new Thread(groupName + "-journal") {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        };
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public EventJournal(String filename, String groupName, int capacity) throws IOException {
+        this(new FileOutputStream(filename), groupName, capacity);
+    }
+
+    /**
+     * @return false if buffer was full and record is dropped
+     */
+    public boolean record(int event, int threadNum, long arrivalID) {
+        if (!running) {
+            late.incrementAndGet();
+            return false;
+        }
+
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head.get() > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+
+        int idx = (int) seq & mask;
+        events[idx] = event;
+        threadNums[idx] = threadNum;
+        arrivalIDs[idx] = arrivalID;
+        times[idx] = System.nanoTime();
+        published.lazySet(idx, seq);
+        return true;
+    }
+
+    /**
+     * Writes out everything recorded so far and closes the file
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while closing journal", e);
+            Thread.currentThread().interrupt();
+        }
+        // claimed while writer was doing its last drain
+        late.addAndGet(tail.get() - head.get());
+
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal", e);
+        }
+
+        if (dropped.get() > 0) {
+            log.warn("Journal dropped " + dropped.get() + " records because buffer was full");
+        }
+        if (late.get() > 0) {
+            log.warn("Journal got " + late.get() + " records after it was closed");
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getLateCount() {
+        return late.get();
+    }
+
+    public static String getEventName(int event) {
+        return event >= 0 && event < EVENT_NAMES.length ? EVENT_NAMES[event] : String.valueOf(event);
+    }
+
+    private void drainLoop() {
+        try {
+            while (running) {
+                if (drain() == 0) {
+                    out.flush();
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            drain();
+            out.flush();
+        } catch (IOException e) {
+            log.error("Failed to write journal, further records are lost", e);
+        }
+    }
+
+    private int drain() throws IOException {
+        int count = 0;
+        long seq = head.get();
+        while (seq < tail.get()) {
+            int idx = (int) seq & mask;
+            if (published.get(idx) != seq) {
+                break; // claimed, but not filled yet
+            }
+
+            out.writeInt(events[idx]);
+            out.writeInt(threadNums[idx]);
+            out.writeLong(arrivalIDs[idx]);
+            out.writeLong(times[idx]);
+            seq++;
+            head.lazySet(seq);
+            count++;
+        }
+        written.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * Converts journal into CSV with columns timeStamp,threadGroup,event,threadNum,arrivalID.
+     * Timestamp is wall clock millis derived from header and record nano time.
+     *
+     * @return records count
+     */
+    public static long convertToCSV(InputStream input, PrintWriter output) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a thread group journal file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version: " + version);
+        }
+        String group = in.readUTF();
+        long startMillis = in.readLong();
+        long startNanos = in.readLong();
+
+        output.println("timeStamp,threadGroup,event,threadNum,arrivalID");
+        long count = 0;
+        while (true) {
+            int event;
+            try {
+                event = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+
+            int threadNum = in.readInt();
+            long arrivalID = in.readLong();
+            long nanos = in.readLong();
+            long timestamp = startMillis + TimeUnit.NANOSECONDS.toMillis(nanos - startNanos);
+            output.println(timestamp + "," + group + "," + getEventName(event) + "," + threadNum + "," + arrivalID);
+            count++;
+        }
+        output.flush();
+        return count;
+    }
+}
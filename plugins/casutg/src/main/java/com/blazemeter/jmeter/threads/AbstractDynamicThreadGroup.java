@@ -9,7 +9,12 @@ import org.apache.jorphan.collections.ListedHashTree;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
-import java.util.Set;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 // adding some basic methods to our Model
 public abstract class AbstractDynamicThreadGroup extends AbstractDynamicThreadGroupModel {
@@ -17,7 +22,10 @@ public abstract class AbstractDynamicThreadGroup extends AbstractDynamicThreadGr
     public static final String UNIT = "Unit";
     public static final String UNIT_MINUTES = "M";
     public static final String UNIT_SECONDS = "S";
+    private static final long STATE_CHECK_INTERVAL = 200;
     protected transient Thread threadStarter;
+    private transient Lock lock = new ReentrantLock();
+    private transient Condition condition = lock.newCondition();
 
     public AbstractDynamicThreadGroup() {
         super();
@@ -42,26 +50,58 @@ public abstract class AbstractDynamicThreadGroup extends AbstractDynamicThreadGr
         if (jMeterThread instanceof DynamicThread) {
             threads.remove(jMeterThread);
         }
+        signalStateChanged();
+    }
+
+    @Override
+    public void addThread(DynamicThread threadWorker) {
+        super.addThread(threadWorker);
+        signalStateChanged();
+    }
+
+    /**
+     * Wakes up threads waiting for group state change: thread finished or started, starter is done
+     */
+    public void signalStateChanged() {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for group state change, at most given time
+     */
+    protected void awaitStateChanged(long maxWait) throws InterruptedException {
+        lock.lock();
+        try {
+            condition.await(maxWait, TimeUnit.MILLISECONDS); // NOSONAR
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void waitThreadsStopped() {
         while (running) {
             if (!threads.isEmpty()) {
-                joinThreadFrom(threads);
+                log.debug("Waiting for " + threads.size() + " threads to finish");
             } else if (isLimitReached()) {
                 log.debug("Don't need more load, running=false");
                 running = false;
+                break;
             } else if (!threadStarter.isAlive()) {
                 log.debug("Thread Starter is done and we have no active threads, let's finish with this");
                 running = false;
-            } else {
-                log.debug("Nothing to do, let's have some sleep");
-                try {
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    log.warn("Interrupted", e);
-                }
+                break;
+            }
+
+            try {
+                awaitStateChanged(STATE_CHECK_INTERVAL);
+            } catch (InterruptedException e) {
+                log.warn("Interrupted", e);
             }
         }
         log.debug("Done waiting for threads stopped");
@@ -69,17 +109,25 @@ public abstract class AbstractDynamicThreadGroup extends AbstractDynamicThreadGr
 
     public abstract boolean isLimitReached();
 
+    /**
+     * All threads share the same WAIT_TO_DIE deadline, those still alive after it are stopped forcibly
+     */
     @Override
     public boolean verifyThreadsStopped() {
+        long deadline = System.currentTimeMillis() + WAIT_TO_DIE;
         for (DynamicThread thread : threads) {
-            if (thread.getOSThread() != null) {
+            long wait = deadline - System.currentTimeMillis();
+            if (thread.getOSThread() != null && wait > 0) {
                 try {
-                    thread.getOSThread().join(WAIT_TO_DIE);
+                    thread.getOSThread().join(wait);
                 } catch (InterruptedException e) {
                     log.warn("Interrupted", e);
                 }
             }
-            stopThread(thread.getThreadName(), true);
+        }
+
+        for (DynamicThread thread : threads) {
+            stopThread(thread, true);
         }
         return threads.isEmpty();
     }
@@ -90,8 +138,9 @@ public abstract class AbstractDynamicThreadGroup extends AbstractDynamicThreadGr
         threadStarter.interrupt();
 
         for (DynamicThread thread : threads) {
-            stopThread(thread.getThreadName(), false);
+            stopThread(thread, false);
         }
+        signalStateChanged();
     }
 
     /**
@@ -105,38 +154,24 @@ public abstract class AbstractDynamicThreadGroup extends AbstractDynamicThreadGr
             thread.interrupt();
             thread.interruptOSThread();
         }
+        signalStateChanged();
     }
 
     @Override
     public boolean stopThread(String threadName, boolean forced) {
-        for (DynamicThread thrd : threads) {
-            if (thrd.getThreadName().equals(threadName)) {
-                thrd.stop();
-                thrd.interrupt();
-                if (forced) {
-                    if (thrd.getOSThread() != null) {
-                        thrd.getOSThread().interrupt();
-                    }
-                }
-                return true;
-            }
+        DynamicThread thrd = threads.get(threadName);
+        if (thrd == null) {
+            return false;
         }
-        return false;
+        stopThread(thrd, forced);
+        return true;
     }
 
-    protected void joinThreadFrom(Set<DynamicThread> threadSet) {
-        DynamicThread[] threads = threadSet.toArray(new DynamicThread[0]);
-        if (threads.length > 0 && threads[0] != null) {
-            DynamicThread thread = threads[0];
-            log.debug("Joining thread " + thread.getThreadName());
-            if (thread.getOSThread() != null) {
-                try {
-                    thread.getOSThread().join(WAIT_TO_DIE);
-                } catch (InterruptedException e) {
-                    log.warn("Interrupted", e);
-                }
-            }
-            log.debug("Done joining thread " + thread.getThreadName());
+    protected void stopThread(DynamicThread thrd, boolean forced) {
+        thrd.stop();
+        thrd.interrupt();
+        if (forced) {
+            thrd.interruptOSThread();
         }
     }
 
@@ -174,6 +209,12 @@ public abstract class AbstractDynamicThreadGroup extends AbstractDynamicThreadGr
         return getUnitStr(unit);
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        lock = new ReentrantLock();
+        condition = lock.newCondition();
+    }
+
     @Override
     public void startNextLoop() {
         ((VirtualUserController) getSamplerController()).startNextLoop();
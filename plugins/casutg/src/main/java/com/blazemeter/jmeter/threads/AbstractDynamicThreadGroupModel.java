@@ -2,19 +2,18 @@ package com.blazemeter.jmeter.threads;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.util.Collections;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.jmeter.reporters.ResultCollector;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.AbstractThreadGroup;
+import org.apache.jmeter.threads.JMeterThread;
 import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
+import com.blazemeter.jmeter.reporters.EventJournal;
 import com.blazemeter.jmeter.reporters.FlushingResultCollector;
 
 // reason to have this class as separate is will to keep Model responsibility separate
@@ -27,8 +26,11 @@ public abstract class AbstractDynamicThreadGroupModel extends AbstractThreadGrou
     public static final String STEPS = "Steps";
     public static final String ITERATIONS = "Iterations";
     public static final String HOLD = "Hold";
-    protected transient Set<DynamicThread> threads = Collections.newSetFromMap(new ConcurrentHashMap<DynamicThread, Boolean>());
+    public static final String BINARY_LOG = "dynamic_tg.binary_log";
+    public static final String BINARY_LOG_BUFFER = "dynamic_tg.binary_log_buffer";
+    protected transient DynamicThreadSet threads = new DynamicThreadSet();
     protected final ResultCollector logFile = new FlushingResultCollector();
+    protected transient volatile EventJournal journal;
     protected volatile boolean running = false;
 
     public void setLogFilename(String value) {
@@ -39,6 +41,19 @@ public abstract class AbstractDynamicThreadGroupModel extends AbstractThreadGrou
         return getPropertyAsString(LOG_FILENAME);
     }
 
+    /**
+     * @param arrivalID negative if event is not related to arrival
+     */
+    protected void saveLogRecord(int event, JMeterThread thread, long arrivalID) {
+        EventJournal current = journal;
+        if (current != null) {
+            current.record(event, thread.getThreadNum(), arrivalID);
+        } else {
+            String label = arrivalID < 0 ? "" : thread.getThreadNum() + "." + arrivalID;
+            saveLogRecord(EventJournal.getEventName(event), thread.getThreadName(), label);
+        }
+    }
+
     protected void saveLogRecord(String marker, String threadName, String arrivalID) {
         SampleResult res = new SampleResult();
         res.sampleStart();
@@ -57,7 +72,16 @@ public abstract class AbstractDynamicThreadGroupModel extends AbstractThreadGrou
 
     @Override
     public void testStarted(String s) {
-        logFile.setFilename(getLogFilename());
+        String filename = getLogFilename();
+        if (JMeterUtils.getPropDefault(BINARY_LOG, false) && !filename.isEmpty()) {
+            try {
+                journal = new EventJournal(filename, getName(), JMeterUtils.getPropDefault(BINARY_LOG_BUFFER, 64 * 1024));
+                return;
+            } catch (IOException e) {
+                log.error("Failed to open binary log, falling back to regular one", e);
+            }
+        }
+        logFile.setFilename(filename);
         logFile.testStarted(s);
     }
 
@@ -68,7 +92,16 @@ public abstract class AbstractDynamicThreadGroupModel extends AbstractThreadGrou
 
     @Override
     public void testEnded(String s) {
-        logFile.testEnded(s);
+        EventJournal current = journal;
+        if (current != null) {
+            // detach after close, so records of threads still running are written or counted as late
+            current.close();
+            journal = null;
+            log.info("Binary log has " + current.getWrittenCount() + " records, dropped " + current.getDroppedCount()
+                    + ", late " + current.getLateCount());
+        } else {
+            logFile.testEnded(s);
+        }
     }
 
     @Override
@@ -180,7 +213,7 @@ public abstract class AbstractDynamicThreadGroupModel extends AbstractThreadGrou
     private void readObject(ObjectInputStream in)
             throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        threads = Collections.newSetFromMap(new ConcurrentHashMap<DynamicThread, Boolean>());
+        threads = new DynamicThreadSet();
     }
 
     public boolean isRunning() {
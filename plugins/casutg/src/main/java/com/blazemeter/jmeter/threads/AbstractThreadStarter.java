@@ -2,6 +2,7 @@ package com.blazemeter.jmeter.threads;
 
 import com.blazemeter.jmeter.control.VirtualUserController;
 import kg.apc.jmeter.threads.AbstractSimpleThreadGroup;
+import kg.apc.jmeter.threads.VirtualThreads;
 import org.apache.jmeter.control.Controller;
 import org.apache.jmeter.engine.StandardJMeterEngine;
 import org.apache.jmeter.engine.TreeCloner;
@@ -16,6 +17,7 @@ import org.slf4j.Logger;
 
 public abstract class AbstractThreadStarter extends Thread {
     private static final Logger log = LoggerFactory.getLogger(AbstractThreadStarter.class);
+    private static final int CLONE_POOL_MAX = JMeterUtils.getPropDefault("dynamic_tg.clone_pool_max", 8);
     protected final ListenerNotifier notifier;
     protected final ListedHashTree threadGroupTree;
     protected final StandardJMeterEngine engine;
@@ -24,6 +26,7 @@ public abstract class AbstractThreadStarter extends Thread {
     protected final int groupIndex;
     protected long threadIndex = 0;
     protected HashTree treeClone;
+    protected final TreeClonePool clonePool;
     protected double startTime = 0;
 
     public AbstractThreadStarter(int groupIndex, AbstractDynamicThreadGroup owner, ListedHashTree listedHashTree, ListenerNotifier listenerNotifier, StandardJMeterEngine standardJMeterEngine) {
@@ -35,6 +38,7 @@ public abstract class AbstractThreadStarter extends Thread {
         this.threadGroupTree = listedHashTree;
         this.notifier = listenerNotifier;
         this.context = JMeterContextService.getContext();
+        this.clonePool = new TreeClonePool(this, listedHashTree, CLONE_POOL_MAX);
         setDaemon(true);
     }
 
@@ -43,12 +47,17 @@ public abstract class AbstractThreadStarter extends Thread {
         try {
             // Copy in ThreadStarter thread context from calling Thread
             JMeterContextService.getContext().setVariables(this.context.getVariables());
+            clonePool.start(getName() + "-Cloner");
             supplyActiveThreads();
         } catch (InterruptedException e) {
             log.debug("Interrupted", e);
             // "InterruptedException" should not be ignored (squid:S2142)
             Thread.currentThread().interrupt();
+        } finally {
+            clonePool.stop();
+            owner.signalStateChanged();
         }
+        log.debug("Tree clones taken ready/made on demand: " + clonePool.getHits() + "/" + clonePool.getMisses());
         log.debug("Thread starter has done its job");
     }
 
@@ -94,11 +103,11 @@ public abstract class AbstractThreadStarter extends Thread {
     protected DynamicThread addActiveThread() {
         DynamicThread threadWorker = makeThread(threadIndex++);
         owner.addThread(threadWorker);
-        Thread thread = new Thread(threadWorker, threadWorker.getThreadName());
+        // we can't have it daemon, since it will stay and eat RAM in UI mode
+        Thread thread = VirtualThreads.newThread(threadWorker, threadWorker.getThreadName(), false);
         threadWorker.setOSThread(thread);
-        thread.setDaemon(false); // we can't have it daemon, since it will stay and eat RAM in UI mode
         thread.start();
-        treeClone = cloneTree(threadGroupTree); // use background time to clone tree
+        treeClone = clonePool.take();
         return threadWorker;
     }
 
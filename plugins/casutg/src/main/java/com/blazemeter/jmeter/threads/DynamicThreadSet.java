@@ -0,0 +1,61 @@
+package com.blazemeter.jmeter.threads;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent set of dynamic threads indexed by thread name,
+ * so stopping thread by name does not scan all threads.
+ * Thread names are unique within the group.
+ */
+public class DynamicThreadSet extends AbstractSet<DynamicThread> {
+    private final ConcurrentMap<String, DynamicThread> byName = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean add(DynamicThread thread) {
+        return byName.putIfAbsent(thread.getThreadName(), thread) == null;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof DynamicThread)) {
+            return false;
+        }
+        DynamicThread thread = (DynamicThread) o;
+        return byName.remove(thread.getThreadName(), thread);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof DynamicThread && byName.get(((DynamicThread) o).getThreadName()) == o;
+    }
+
+    /**
+     * @return thread with given name or null
+     */
+    public DynamicThread get(String threadName) {
+        return byName.get(threadName);
+    }
+
+    @Override
+    public Iterator<DynamicThread> iterator() {
+        return byName.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return byName.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return byName.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        byName.clear();
+    }
+}
@@ -0,0 +1,142 @@
+package com.blazemeter.jmeter.threads;
+
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps bounded number of thread group tree clones ready ahead of demand,
+ * cloning them in background thread. If pool is empty, clone is made
+ * synchronously by the caller.
+ */
+public class TreeClonePool {
+    private static final Logger log = LoggerFactory.getLogger(TreeClonePool.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AbstractThreadStarter starter;
+    private final ListedHashTree source;
+    private final int maxSize;
+    private final ConcurrentLinkedQueue<ListedHashTree> clones = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile int targetSize = 1;
+    private volatile boolean running = false;
+    private volatile Thread producer;
+
+    public TreeClonePool(AbstractThreadStarter starter, ListedHashTree source, int maxSize) {
+        this.starter = starter;
+        this.source = source;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Starts cloner thread, it gets JMeter variables of calling thread
+     * so elements cloned there see the same context as cloned by caller
+     */
+    public synchronized void start(String name) {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        final JMeterVariables variables = JMeterContextService.getContext().getVariables();
+        Thread thread = new Thread(name) {
+            @Override
+            public void run() {
+                JMeterContextService.getContext().setVariables(variables);
+                produce();
+            }
+        };
+        thread.setDaemon(true);
+        producer = thread;
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (producer != null) {
+            producer.interrupt();
+            producer = null;
+        }
+        clones.clear();
+        size.set(0);
+    }
+
+    /**
+     * Sets how many clones to keep ready, bounded by pool max size
+     */
+    public void setTargetSize(int value) {
+        int bounded = Math.max(1, Math.min(value, maxSize));
+        if (bounded != targetSize) {
+            targetSize = bounded;
+            wakeProducer();
+        }
+    }
+
+    public int getTargetSize() {
+        return targetSize;
+    }
+
+    public int getReadyCount() {
+        return size.get();
+    }
+
+    public ListedHashTree take() {
+        ListedHashTree clone = clones.poll();
+        if (clone != null) {
+            size.decrementAndGet();
+            hits.incrementAndGet();
+            wakeProducer();
+            return clone;
+        }
+
+        misses.incrementAndGet();
+        wakeProducer();
+        return starter.cloneTree(source);
+    }
+
+    /**
+     * @return count of clones taken ready from pool
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return count of clones made synchronously because pool was empty
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void wakeProducer() {
+        Thread thread = producer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void produce() {
+        try {
+            while (running) {
+                if (size.get() < targetSize) {
+                    clones.offer(starter.cloneTree(source));
+                    size.incrementAndGet();
+                } else {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Background tree cloning failed, will clone on demand", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.blazemeter.jmeter.threads.arrivals;
+
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands arrival tickets from thread starter to idle pool threads.
+ * Idle threads block on lock-free transfer queue, ticket is only
+ * handed over if some thread is waiting, so starter never blocks
+ * and decides itself what to do with unserved arrival.
+ * Ticket is the scheduled arrival time in nanos.
+ */
+public class ArrivalsDispatcher {
+
+    private final LinkedTransferQueue<Long> tickets = new LinkedTransferQueue<>();
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong lagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    /**
+     * @return false if there is no idle thread to take the ticket
+     */
+    public boolean offer(long scheduledNanos) {
+        return tickets.tryTransfer(scheduledNanos);
+    }
+
+    /**
+     * Blocks idle thread until next arrival ticket
+     */
+    public long take() throws InterruptedException {
+        return tickets.take();
+    }
+
+    /**
+     * Records arrival served by pool or new thread
+     */
+    public void dispatched(long scheduledNanos, long now) {
+        dispatchedCount.incrementAndGet();
+        long lag = Math.max(0, now - scheduledNanos);
+        lagNanos.addAndGet(lag);
+        long max;
+        while (lag > (max = maxLagNanos.get())) {
+            if (maxLagNanos.compareAndSet(max, lag)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Records arrival nobody was available to serve
+     */
+    public void dropped() {
+        droppedCount.incrementAndGet();
+    }
+
+    public int getIdleCount() {
+        return tickets.getWaitingConsumerCount();
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public double getAverageLagMs() {
+        long count = dispatchedCount.get();
+        return count > 0 ? lagNanos.get() / 1000000.0 / count : 0;
+    }
+
+    public double getMaxLagMs() {
+        return maxLagNanos.get() / 1000000.0;
+    }
+}
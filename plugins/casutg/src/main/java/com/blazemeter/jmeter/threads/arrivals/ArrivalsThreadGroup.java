@@ -1,5 +1,6 @@
 package com.blazemeter.jmeter.threads.arrivals;
 
+import com.blazemeter.jmeter.reporters.EventJournal;
 import com.blazemeter.jmeter.threads.AbstractDynamicThreadGroup;
 import com.blazemeter.jmeter.threads.DynamicThread;
 import org.apache.jmeter.engine.StandardJMeterEngine;
@@ -14,6 +15,7 @@ import org.slf4j.Logger;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class ArrivalsThreadGroup extends AbstractDynamicThreadGroup {
@@ -24,20 +26,26 @@ public class ArrivalsThreadGroup extends AbstractDynamicThreadGroup {
     protected final AtomicLong completionsCount = new AtomicLong();
     protected AtomicLong abandonsCount = new AtomicLong();
     protected final Set<DynamicThread> poolThreads = Collections.newSetFromMap(new ConcurrentHashMap<DynamicThread, Boolean>());
+    protected transient ArrivalsDispatcher dispatcher = new ArrivalsDispatcher();
+    private transient CountDownLatch firstArrival = new CountDownLatch(1);
 
     @Override
     public void start(int groupIndex, ListenerNotifier listenerNotifier, ListedHashTree testTree, StandardJMeterEngine engine) {
+        dispatcher = new ArrivalsDispatcher();
+        firstArrival = new CountDownLatch(1);
         super.start(groupIndex, listenerNotifier, testTree, engine);
-        synchronized (this) {
-            try {
-                wait();
-                log.info("Got first arrival");
-            } catch (InterruptedException e) {
-                log.warn("Interrupted start", e);
-            }
+        try {
+            firstArrival.await();
+            log.info("Got first arrival");
+        } catch (InterruptedException e) {
+            log.warn("Interrupted start", e);
         }
     }
 
+    public ArrivalsDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
     public int getNumThreads() {
         return threads.size();
     }
@@ -72,7 +80,7 @@ public class ArrivalsThreadGroup extends AbstractDynamicThreadGroup {
     public void tellThreadsToStop() {
         super.tellThreadsToStop();
         for (DynamicThread thread : poolThreads) {
-            stopThread(thread.getThreadName(), true);
+            stopThread(thread, true);
         }
     }
 
@@ -94,32 +102,28 @@ public class ArrivalsThreadGroup extends AbstractDynamicThreadGroup {
         log.debug("Moved thread to pool: " + thread + ", pool size: " + poolThreads.size());
 
         ThreadCountsAccessor.decrNumberOfThreads();
-        //noinspection SynchronizationOnLocalVariableOrMethodParameter
-        synchronized (thread) {
-            try {
-                thread.wait();
-            } catch (InterruptedException e) {
-                log.debug("Interrupted", e);
-            }
+        try {
+            dispatcher.take();
+        } catch (InterruptedException e) {
+            log.debug("Interrupted", e);
         }
+        poolThreads.remove(thread);
+        threads.add(thread);
         ThreadCountsAccessor.incrNumberOfThreads();
         return running;
     }
 
-    public synchronized boolean releasedPoolThread() {
-        if (poolThreads.isEmpty()) {
-            return false;
-        }
+    /**
+     * Hands arrival scheduled at given time to one of idle pool threads
+     *
+     * @return false if there were no idle threads
+     */
+    public boolean releasedPoolThread(long scheduledNanos) {
+        return dispatcher.offer(scheduledNanos);
+    }
 
-        DynamicThread thread = poolThreads.toArray(new DynamicThread[poolThreads.size()])[0];
-        poolThreads.remove(thread);
-        threads.add(thread);
-        log.debug("Releasing pool thread: " + thread + ", pool size: " + poolThreads.size());
-        //noinspection SynchronizationOnLocalVariableOrMethodParameter
-        synchronized (thread) {
-            thread.notify();
-        }
-        return true;
+    public boolean releasedPoolThread() {
+        return releasedPoolThread(System.nanoTime());
     }
 
     public boolean isLimitReached() {
@@ -133,20 +137,20 @@ public class ArrivalsThreadGroup extends AbstractDynamicThreadGroup {
         return !(limit <= 0 || arrivalsCount.longValue() < limit);
     }
 
-    public synchronized void arrivalFact(JMeterThread thread, long arrivalID) {
+    public void arrivalFact(JMeterThread thread, long arrivalID) {
         arrivalsCount.incrementAndGet();
-        notifyAll();
-        saveLogRecord("ARRIVAL", thread.getThreadName(), thread.getThreadNum() + "." + arrivalID);
+        firstArrival.countDown();
+        saveLogRecord(EventJournal.ARRIVAL, thread, arrivalID);
     }
 
     public void completionFact(JMeterThread thread, long arrivalID) {
         completionsCount.incrementAndGet();
-        saveLogRecord("COMPLETION", thread.getThreadName(), thread.getThreadNum() + "." + arrivalID);
+        saveLogRecord(EventJournal.COMPLETION, thread, arrivalID);
     }
 
     public void abandonFact(JMeterThread thread, long arrivalID) {
         abandonsCount.incrementAndGet();
-        saveLogRecord("ABANDONMENT", thread.getThreadName(), thread.getThreadNum() + "." + arrivalID);
+        saveLogRecord(EventJournal.ABANDONMENT, thread, arrivalID);
     }
 
     public boolean canCreateMoreThreads() {
@@ -178,20 +182,21 @@ public class ArrivalsThreadGroup extends AbstractDynamicThreadGroup {
 
     @Override
     public void testEnded(String s) {
+        // pool threads still idle at the end were never needed by arrivals rate
+        int idle = dispatcher.getIdleCount();
         releaseAllPoolThreads();
         super.testEnded(s);
         log.info("Done " + arrivalsCount.longValue() + " arrivals, " + completionsCount.longValue() + " completions, " + abandonsCount.longValue() + " abandonments");
+        log.info("Arrivals dispatched: " + dispatcher.getDispatchedCount() + ", dropped: " + dispatcher.getDroppedCount()
+                + ", idle pool threads at end: " + idle
+                + ", scheduling lag avg/max: " + dispatcher.getAverageLagMs() + "/" + dispatcher.getMaxLagMs() + " ms");
         log.debug("Pool size: " + poolThreads.size());
     }
 
     public void releaseAllPoolThreads() {
         for (DynamicThread thread : poolThreads) {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized (thread) {
-                thread.interrupt();
-                thread.interruptOSThread();
-                thread.notify();
-            }
+            thread.interrupt();
+            thread.interruptOSThread();
         }
     }
 }
\ No newline at end of file
@@ -7,11 +7,19 @@ import org.apache.jorphan.collections.ListedHashTree;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
+import java.util.concurrent.locks.LockSupport;
+
 public class ArrivalsThreadStarter extends AbstractThreadStarter {
     private static final Logger log = LoggerFactory.getLogger(ArrivalsThreadStarter.class);
     private ArrivalsThreadGroup arrivalsTG;
     protected long scheduledCount = 0;
     protected double rollingTime = 0;
+    /**
+     * nanoTime matching start of rollingTime, used for precise waits
+     */
+    private long originNanos;
+    private double originMillis;
+    private long scheduledNanos;
 
     public ArrivalsThreadStarter(int groupIndex, ListenerNotifier listenerNotifier, ListedHashTree listedHashTree, StandardJMeterEngine standardJMeterEngine, ArrivalsThreadGroup owner) {
         super(groupIndex, owner, listedHashTree, listenerNotifier, standardJMeterEngine);
@@ -19,29 +27,35 @@ public class ArrivalsThreadStarter extends AbstractThreadStarter {
     }
 
     protected void supplyActiveThreads() throws InterruptedException {
+        ArrivalsDispatcher dispatcher = arrivalsTG.getDispatcher();
         while (needMoreArrivals()) {
-            if (!arrivalsTG.releasedPoolThread()) {
-                if (arrivalsTG.canCreateMoreThreads()) {
-                    addActiveThread();
-                } else {
-                    log.debug("Not creating thread because of concurrency limit");
-                }
+            if (arrivalsTG.releasedPoolThread(scheduledNanos)) {
+                dispatcher.dispatched(scheduledNanos, System.nanoTime());
+            } else if (arrivalsTG.canCreateMoreThreads()) {
+                addActiveThread();
+                dispatcher.dispatched(scheduledNanos, System.nanoTime());
+            } else {
+                log.debug("Not creating thread because of concurrency limit");
+                dispatcher.dropped();
             }
         }
     }
 
-    public synchronized boolean needMoreArrivals() throws InterruptedException {
+    public boolean needMoreArrivals() throws InterruptedException {
         if (rollingTime > 0) { // a case for very first thread
-            while (rollingTime >= System.currentTimeMillis()) {
-                long maxWait = (long) (rollingTime - System.currentTimeMillis());
-                if (maxWait > 0) {
-                    log.debug("Waiting " + maxWait);
-                    wait(maxWait);
+            long deadline = getScheduledNanos();
+            long wait;
+            while ((wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
                 }
             }
         } else {
             rollingTime = System.currentTimeMillis();
             startTime = rollingTime / 1000.0;
+            originMillis = rollingTime;
+            originNanos = System.nanoTime();
         }
 
         double currentRate;
@@ -59,11 +73,19 @@ public class ArrivalsThreadStarter extends AbstractThreadStarter {
             ((ArrivalsThreadGroup) owner).setArrivalsLimit(String.valueOf(scheduledCount));
             return false;
         }
+        scheduledNanos = getScheduledNanos();
         tickRollingTime(currentRate);
         return !owner.isLimitReached();
     }
 
 
+    /**
+     * @return nanoTime of the arrival rollingTime points to
+     */
+    private long getScheduledNanos() {
+        return originNanos + (long) ((rollingTime - originMillis) * 1000000);
+    }
+
     // ported from Taurus PBench module
     protected double getCurrentRate() {
         long rampUp = owner.getRampUpSeconds();
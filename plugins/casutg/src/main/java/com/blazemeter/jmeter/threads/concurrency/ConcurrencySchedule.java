@@ -0,0 +1,86 @@
+package com.blazemeter.jmeter.threads.concurrency;
+
+/**
+ * Timeline of planned concurrency: ramp-up (linear or stepped), then hold.
+ * Besides the level at given moment it tells when the level changes next,
+ * so thread starter can sleep exactly until then instead of polling.
+ * Time is in seconds since thread group start.
+ */
+public class ConcurrencySchedule {
+    public static final long FINISHED = -1;
+
+    private final long rampUp;
+    private final long hold;
+    private final long steps;
+    private final double maxConcurr;
+    private final long shift;
+
+    public ConcurrencySchedule(long rampUp, long hold, long steps, double maxConcurr, long shift) {
+        this.rampUp = rampUp;
+        this.hold = hold;
+        this.steps = steps;
+        this.maxConcurr = maxConcurr;
+        this.shift = shift;
+    }
+
+    /**
+     * @return planned concurrency or FINISHED if schedule is over
+     */
+    public long getLevel(double elapsed) {
+        double offset = Math.max(0, elapsed - shift);
+        if (offset >= rampUp + hold) {
+            return FINISHED;
+        }
+
+        if (rampUp == 0 || offset > rampUp) {
+            return Math.round(maxConcurr);
+        } else if (steps > 0) {
+            double stepSize = maxConcurr / (double) steps;
+            double stepLen = rampUp / (double) steps;
+            return Math.round(stepSize * (Math.floor(offset / stepLen) + 1));
+        } else {
+            double slope = maxConcurr / rampUp;
+            return Math.round(slope * offset);
+        }
+    }
+
+    /**
+     * @return seconds until planned concurrency grows next time,
+     * Double.POSITIVE_INFINITY if it stays the same until the end
+     */
+    public double getTimeToNextChange(double elapsed) {
+        double offset = elapsed - shift;
+        if (rampUp == 0 || maxConcurr <= 0 || offset > rampUp) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        if (offset < 0) {
+            return -offset;
+        } else if (steps > 0) {
+            double stepLen = rampUp / (double) steps;
+            return (Math.floor(offset / stepLen) + 1) * stepLen - offset;
+        } else {
+            // rounded level grows when slope * offset passes next half
+            double slope = maxConcurr / rampUp;
+            double next = (Math.floor(slope * offset + 0.5) + 0.5) / slope;
+            return next - offset;
+        }
+    }
+
+    /**
+     * @return threads to be started by next level change: one second of linear ramp or one step
+     */
+    public int getGrowthAhead(double elapsed) {
+        if (rampUp == 0 || elapsed - shift > rampUp) {
+            return 1;
+        } else if (steps > 0) {
+            return (int) Math.ceil(maxConcurr / steps);
+        } else {
+            return (int) Math.ceil(maxConcurr / rampUp);
+        }
+    }
+
+    public long getDuration() {
+        return shift + rampUp + hold;
+    }
+}
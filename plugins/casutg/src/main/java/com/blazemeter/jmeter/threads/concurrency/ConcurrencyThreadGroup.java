@@ -1,12 +1,5 @@
 package com.blazemeter.jmeter.threads.concurrency;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
 import org.apache.jmeter.engine.StandardJMeterEngine;
 import org.apache.jmeter.threads.JMeterThread;
 import org.apache.jmeter.threads.ListenerNotifier;
@@ -15,6 +8,7 @@ import org.apache.jorphan.collections.ListedHashTree;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
+import com.blazemeter.jmeter.reporters.EventJournal;
 import com.blazemeter.jmeter.threads.AbstractDynamicThreadGroup;
 
 public class ConcurrencyThreadGroup extends AbstractDynamicThreadGroup {
@@ -22,9 +16,7 @@ public class ConcurrencyThreadGroup extends AbstractDynamicThreadGroup {
     private static final long DEFAULT_TEMPORISATION = JMeterUtils.getPropDefault("dynamic_tg.temporisation", 10L);
 
     public static final long MIN_CHECK_TIME = 1000L;
-    private transient Lock lock = new ReentrantLock();
-    private transient Condition condition = lock.newCondition(); 
-    
+
     @Override
     protected Thread getThreadStarter(int groupIndex, ListenerNotifier listenerNotifier, ListedHashTree testTree, StandardJMeterEngine engine) {
         return new ConcurrencyThreadStarter(groupIndex, listenerNotifier, testTree, engine, this);
@@ -35,15 +27,19 @@ public class ConcurrencyThreadGroup extends AbstractDynamicThreadGroup {
      * otherwise we wait for 1s
      */
     public void waitThreadStopped() { // FIXME: method named in confusing way
-        long sleepTime = threads.isEmpty() ? DEFAULT_TEMPORISATION : MIN_CHECK_TIME;
-        lock.lock();
+        waitThreadStopped(MIN_CHECK_TIME);
+    }
+
+    /**
+     * Same as {@link #waitThreadStopped()}, with custom wait when threads are not empty
+     */
+    public void waitThreadStopped(long maxWait) {
+        long sleepTime = threads.isEmpty() ? Math.min(DEFAULT_TEMPORISATION, maxWait) : maxWait;
         try {
-             condition.await(sleepTime, TimeUnit.MILLISECONDS); // NOSONAR 
+            awaitStateChanged(sleepTime);
         } catch (InterruptedException e) {
             log.debug("Interrupted", e);
             Thread.currentThread().interrupt();
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -58,7 +54,7 @@ public class ConcurrencyThreadGroup extends AbstractDynamicThreadGroup {
     }
 
     public void threadStarted(JMeterThread thread) {
-        saveLogRecord("START", thread.getThreadName(), "");
+        saveLogRecord(EventJournal.START, thread, -1);
     }
 
     public ConcurrencyThreadGroup() {
@@ -69,13 +65,7 @@ public class ConcurrencyThreadGroup extends AbstractDynamicThreadGroup {
     @Override
     public void threadFinished(JMeterThread thread) {
         super.threadFinished(thread);
-        saveLogRecord("FINISH", thread.getThreadName(), "");
-        lock.lock();
-        try {
-            condition.signalAll();
-        } finally {
-            lock.unlock();
-        }
+        saveLogRecord(EventJournal.FINISH, thread, -1);
     }
 
     public long getConcurrency() {
@@ -85,11 +75,4 @@ public class ConcurrencyThreadGroup extends AbstractDynamicThreadGroup {
     public boolean tooMuchConcurrency() {
         return threads.size() > getTargetLevelAsDouble();
     }
-    
-    private void readObject(ObjectInputStream in)
-            throws IOException, ClassNotFoundException {
-        in.defaultReadObject();
-        lock = new ReentrantLock();
-        condition = lock.newCondition(); 
-    }
 }
@@ -15,26 +15,27 @@ public class ConcurrencyThreadStarter extends AbstractThreadStarter {
     static final long CACHING_VALIDITY_MS = JMeterUtils.getPropDefault("dynamic_tg.properties_caching_validity", 20L);
 
     private final ConcurrencyThreadGroup concurrTG;
-    // We cache values for performance
-    private long rampUp;
-    private long hold;
-    private long steps;
-    private double maxConcurr;
+    // We cache schedule for performance
+    private ConcurrencySchedule schedule;
     private long lastCachedTime;
-    private long defaultShiftRampup;
+    // ramp accuracy: how far factual concurrency was behind planned one
+    private long lagSamples;
+    private long lagSum;
+    private long maxLag;
 
     public ConcurrencyThreadStarter(int groupIndex, ListenerNotifier listenerNotifier, ListedHashTree testTree, StandardJMeterEngine engine, ConcurrencyThreadGroup concurrencyThreadGroup) {
         super(groupIndex, concurrencyThreadGroup, testTree, listenerNotifier, engine);
         concurrTG = concurrencyThreadGroup;
         // We cache values
-        this.rampUp = owner.getRampUpSeconds();
-        this.hold = owner.getHoldSeconds();
-        this.steps = owner.getStepsAsLong();
-        this.maxConcurr = owner.getTargetLevelAsDouble();
-        this.defaultShiftRampup = JMeterUtils.getPropDefault("dynamic_tg.shift_rampup_start", 0L);
+        this.schedule = buildSchedule();
         this.lastCachedTime = System.currentTimeMillis();
     }
 
+    private ConcurrencySchedule buildSchedule() {
+        return new ConcurrencySchedule(owner.getRampUpSeconds(), owner.getHoldSeconds(), owner.getStepsAsLong(),
+                owner.getTargetLevelAsDouble(), JMeterUtils.getPropDefault("dynamic_tg.shift_rampup_start", 0L));
+    }
+
     @Override
     protected void supplyActiveThreads() {
         log.info("Start supplying threads");
@@ -44,46 +45,73 @@ public class ConcurrencyThreadStarter extends AbstractThreadStarter {
         }
         startTime = System.currentTimeMillis();
         boolean isDebugEnabled = log.isDebugEnabled();
-        while (!owner.isLimitReached() && getPlannedConcurrency(isDebugEnabled) >= 0) {
+        long planned;
+        while (!owner.isLimitReached() && (planned = getPlannedConcurrency(isDebugEnabled)) >= 0) {
             if (isDebugEnabled) {
-                log.debug("Concurrency factual/expected: " + concurrTG.getConcurrency() + "/" + getPlannedConcurrency(isDebugEnabled));
+                log.debug("Concurrency factual/expected: " + concurrTG.getConcurrency() + "/" + planned);
             }
+            recordLag(planned - concurrTG.getConcurrency());
+            clonePool.setTargetSize(getClonesAhead(System.currentTimeMillis()));
             while (concurrTG.getConcurrency() < getPlannedConcurrency(isDebugEnabled)) {
                 DynamicThread thread = addActiveThread();
                 concurrTG.threadStarted(thread);
             }
-            concurrTG.waitThreadStopped();
+            concurrTG.waitThreadStopped(getCheckInterval(System.currentTimeMillis()));
         }
-        log.info("Done supplying threads");
+        log.info("Done supplying threads, ramp lag avg/max: " + getAverageLag() + "/" + getMaxLag() + " threads");
     }
 
-    private long getPlannedConcurrency(boolean isDebugEnabled) {
-        long now = System.currentTimeMillis();
-        checkNeedsPropertiesReloading(now);
-        double timeOffset = (now - startTime) / 1000.0;
-        if (isDebugEnabled) {
-            log.debug("Time progress: " + timeOffset + "/" + (rampUp + hold));
-        }
+    private void recordLag(long lag) {
+        lag = Math.max(0, lag);
+        lagSamples++;
+        lagSum += lag;
+        maxLag = Math.max(maxLag, lag);
+    }
 
-        timeOffset -= defaultShiftRampup;
-        if (timeOffset < 0) {
-            timeOffset = 0;
-        }
+    /**
+     * @return average count of threads factual concurrency was behind the planned one
+     */
+    public double getAverageLag() {
+        return lagSamples > 0 ? lagSum / (double) lagSamples : 0;
+    }
 
-        if (timeOffset >= rampUp + hold) {
-            return -1; // means no more concurrency needed
+    /**
+     * @return max count of threads factual concurrency was behind the planned one
+     */
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    private double getElapsed(long now) {
+        return (now - startTime) / 1000.0;
+    }
+
+    /**
+     * @return how many tree clones to keep ready: threads needed for next second of ramp or next step
+     */
+    int getClonesAhead(long now) {
+        return schedule.getGrowthAhead(getElapsed(now));
+    }
+
+    /**
+     * @return time to wait for threads stopping, during ramp-up it is time until planned concurrency grows
+     */
+    long getCheckInterval(long now) {
+        double untilNext = schedule.getTimeToNextChange(getElapsed(now));
+        if (untilNext * 1000 >= ConcurrencyThreadGroup.MIN_CHECK_TIME) {
+            return ConcurrencyThreadGroup.MIN_CHECK_TIME;
         }
+        return Math.max(1, (long) Math.ceil(untilNext * 1000));
+    }
 
-        if (rampUp == 0 || timeOffset > rampUp) {
-            return Math.round(maxConcurr);
-        } else if (steps > 0) {
-            double stepSize = maxConcurr / (double) steps;
-            double stepLen = rampUp / (double) steps;
-            return Math.round(stepSize * (Math.floor(timeOffset / stepLen) + 1));
-        } else {
-            double slope = maxConcurr / rampUp;
-            return Math.round(slope * timeOffset);
+    private long getPlannedConcurrency(boolean isDebugEnabled) {
+        long now = System.currentTimeMillis();
+        checkNeedsPropertiesReloading(now);
+        double timeOffset = getElapsed(now);
+        if (isDebugEnabled) {
+            log.debug("Time progress: " + timeOffset + "/" + schedule.getDuration());
         }
+        return schedule.getLevel(timeOffset);
     }
 
     /**
@@ -93,11 +121,7 @@ public class ConcurrencyThreadStarter extends AbstractThreadStarter {
      */
     void checkNeedsPropertiesReloading(long now) {
         if (CACHING_VALIDITY_MS > 0 && now - lastCachedTime > CACHING_VALIDITY_MS) {
-            this.rampUp = owner.getRampUpSeconds();
-            this.hold = owner.getHoldSeconds();
-            this.steps = owner.getStepsAsLong();
-            this.maxConcurr = owner.getTargetLevelAsDouble();
-            this.defaultShiftRampup = JMeterUtils.getPropDefault("dynamic_tg.shift_rampup_start", 0L);
+            this.schedule = buildSchedule();
             this.lastCachedTime = System.currentTimeMillis();
         }
     }
@@ -0,0 +1,63 @@
+package kg.apc.cmdtools;
+
+import com.blazemeter.jmeter.reporters.EventJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ListIterator;
+
+/**
+ * Converts binary log of Concurrency and Arrivals thread groups into CSV
+ */
+public class ThreadGroupJournalTool extends AbstractCMDTool {
+    private static final Logger log = LoggerFactory.getLogger(ThreadGroupJournalTool.class);
+
+    @Override
+    protected void showHelp(PrintStream os) {
+        os.println("Options for tool 'ThreadGroupJournal': --input-file <binary log file> --output-file <CSV file>");
+    }
+
+    @Override
+    protected int processParams(ListIterator args) throws UnsupportedOperationException, IllegalArgumentException {
+        String input = null;
+        String output = null;
+        while (args.hasNext()) {
+            String nextArg = (String) args.next();
+            if (nextArg.equalsIgnoreCase("--input-file")) {
+                if (!args.hasNext()) {
+                    throw new IllegalArgumentException("Missing input file name");
+                }
+                input = (String) args.next();
+            } else if (nextArg.equalsIgnoreCase("--output-file")) {
+                if (!args.hasNext()) {
+                    throw new IllegalArgumentException("Missing output file name");
+                }
+                output = (String) args.next();
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + nextArg);
+            }
+        }
+
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Both --input-file and --output-file are required");
+        }
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(input));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            long count = EventJournal.convertToCSV(in, out);
+            log.info("Converted " + count + " records from " + input);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to convert " + input, e);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,109 @@
+package kg.apc.jmeter.threads;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Creates OS threads for JMeter threads of our thread groups.
+ * When "jmeterPlugin.virtualThreads" property is true and JVM has virtual
+ * threads (Java 21+), virtual threads are used, so mostly idle users don't
+ * hold a platform thread each. Accessed via reflection as we build for Java 7.
+ * Carrier count is taken from "jmeterPlugin.virtualThreads.parallelism",
+ * it has effect only before first virtual thread is created in JVM.
+ */
+public final class VirtualThreads {
+
+    public static final String ENABLED_PROPERTY = "jmeterPlugin.virtualThreads";
+    public static final String PARALLELISM_PROPERTY = "jmeterPlugin.virtualThreads.parallelism";
+    private static final String SCHEDULER_PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final Method ofVirtual;
+    private static final Method builderName;
+    private static final Method builderUnstarted;
+    private static volatile boolean schedulerConfigured = false;
+    private static volatile boolean unsupportedReported = false;
+
+    static {
+        Method of = null;
+        Method name = null;
+        Method unstarted = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            of = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            log.debug("Virtual threads are not available in this JVM");
+        }
+        ofVirtual = of;
+        builderName = name;
+        builderUnstarted = unstarted;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return ofVirtual != null;
+    }
+
+    public static boolean isEnabled() {
+        return JMeterUtils.getPropDefault(ENABLED_PROPERTY, false);
+    }
+
+    /**
+     * @param daemon applies to platform threads only, virtual threads are always daemon
+     * @return unstarted thread, virtual one if enabled and supported
+     */
+    public static Thread newThread(Runnable target, String name, boolean daemon) {
+        if (isEnabled()) {
+            if (isSupported()) {
+                Thread thread = newVirtualThread(target, name);
+                if (thread != null) {
+                    return thread;
+                }
+            } else if (!unsupportedReported) {
+                unsupportedReported = true;
+                log.warn("Virtual threads requested by " + ENABLED_PROPERTY + ", but JVM does not support them");
+            }
+        }
+
+        Thread thread = new Thread(target, name);
+        thread.setDaemon(daemon);
+        return thread;
+    }
+
+    private static Thread newVirtualThread(Runnable target, String name) {
+        configureScheduler();
+        try {
+            Object builder = ofVirtual.invoke(null);
+            builder = builderName.invoke(builder, name);
+            return (Thread) builderUnstarted.invoke(builder, target);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            log.warn("Failed to create virtual thread, falling back to platform one", e);
+            return null;
+        }
+    }
+
+    private static void configureScheduler() {
+        if (schedulerConfigured) {
+            return;
+        }
+
+        synchronized (VirtualThreads.class) {
+            if (!schedulerConfigured) {
+                int parallelism = JMeterUtils.getPropDefault(PARALLELISM_PROPERTY, 0);
+                if (parallelism > 0 && System.getProperty(SCHEDULER_PARALLELISM) == null) {
+                    System.setProperty(SCHEDULER_PARALLELISM, String.valueOf(parallelism));
+                    log.info("Virtual threads carrier parallelism set to " + parallelism);
+                }
+                schedulerConfigured = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.blazemeter.jmeter.reporters;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class EventJournalTest {
+
+    private static String convert(ByteArrayOutputStream buf) throws IOException {
+        StringWriter csv = new StringWriter();
+        EventJournal.convertToCSV(new ByteArrayInputStream(buf.toByteArray()), new PrintWriter(csv));
+        return csv.toString();
+    }
+
+    @Test
+    public void testRecordAndConvert() throws IOException {
+        System.out.println("recordAndConvert");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        EventJournal journal = new EventJournal(buf, "tg", 16);
+        assertTrue(journal.record(EventJournal.ARRIVAL, 3, 7));
+        assertTrue(journal.record(EventJournal.COMPLETION, 3, 7));
+        assertTrue(journal.record(EventJournal.START, 4, -1));
+        journal.close();
+        assertEquals(3, journal.getWrittenCount());
+
+        String[] lines = convert(buf).split("\r?\n");
+        assertEquals(4, lines.length);
+        assertEquals("timeStamp,threadGroup,event,threadNum,arrivalID", lines[0]);
+        assertTrue(lines[1].endsWith(",tg,ARRIVAL,3,7"));
+        assertTrue(lines[2].endsWith(",tg,COMPLETION,3,7"));
+        assertTrue(lines[3].endsWith(",tg,START,4,-1"));
+        long timestamp = Long.parseLong(lines[1].split(",")[0]);
+        assertTrue(Math.abs(System.currentTimeMillis() - timestamp) < 60000);
+    }
+
+    @Test(timeout = 10000)
+    public void testRecord_concurrent() throws Exception {
+        System.out.println("record_concurrent");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final EventJournal journal = new EventJournal(buf, "tg", 1024);
+        Thread[] producers = new Thread[8];
+        for (int n = 0; n < producers.length; n++) {
+            final int threadNum = n;
+            producers[n] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        while (!journal.record(EventJournal.ARRIVAL, threadNum, i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            producers[n].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        journal.close();
+
+        assertEquals(80000, journal.getWrittenCount());
+        assertEquals(80000 * EventJournal.RECORD_SIZE, buf.size() - 28);
+        String[] lines = convert(buf).split("\r?\n");
+        assertEquals(80001, lines.length);
+    }
+
+    @Test
+    public void testRecord_afterClose() throws IOException {
+        System.out.println("record_afterClose");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        EventJournal journal = new EventJournal(buf, "tg", 16);
+        assertTrue(journal.record(EventJournal.START, 1, -1));
+        journal.close();
+        assertFalse(journal.record(EventJournal.FINISH, 1, -1));
+        assertEquals(1, journal.getWrittenCount());
+        assertEquals(1, journal.getLateCount());
+        assertEquals(0, journal.getDroppedCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testConvert_wrongFile() throws IOException {
+        System.out.println("convert_wrongFile");
+        EventJournal.convertToCSV(new ByteArrayInputStream("timeStamp,label\n".getBytes()), new PrintWriter(new StringWriter()));
+    }
+
+    @Test
+    public void testGetEventName() {
+        System.out.println("getEventName");
+        assertEquals("ABANDONMENT", EventJournal.getEventName(EventJournal.ABANDONMENT));
+        assertEquals("42", EventJournal.getEventName(42));
+    }
+}
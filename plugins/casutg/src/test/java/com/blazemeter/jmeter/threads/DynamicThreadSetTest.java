@@ -0,0 +1,65 @@
+package com.blazemeter.jmeter.threads;
+
+import com.blazemeter.jmeter.threads.arrivals.ArrivalsThreadGroupTest;
+import com.blazemeter.jmeter.threads.concurrency.ConcurrencyThreadGroup;
+import kg.apc.emulators.TestJMeterUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DynamicThreadSetTest {
+    @BeforeClass
+    public static void setUpClass() {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    private static DynamicThread createThread(String name) {
+        DynamicThread thread = new DynamicThread(ArrivalsThreadGroupTest.getListedHashTree(new ConcurrencyThreadGroup(), false), null, null);
+        thread.setThreadName(name);
+        return thread;
+    }
+
+    @Test
+    public void testAddRemove() {
+        System.out.println("addRemove");
+        DynamicThreadSet set = new DynamicThreadSet();
+        DynamicThread first = createThread("tg 1-1");
+        DynamicThread second = createThread("tg 1-2");
+        assertTrue(set.add(first));
+        assertTrue(set.add(second));
+        assertFalse(set.add(first));
+        assertEquals(2, set.size());
+        assertSame(second, set.get("tg 1-2"));
+        assertTrue(set.contains(first));
+
+        assertTrue(set.remove(first));
+        assertFalse(set.remove(first));
+        assertNull(set.get("tg 1-1"));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testRemove_otherWithSameName() {
+        System.out.println("remove_otherWithSameName");
+        DynamicThreadSet set = new DynamicThreadSet();
+        DynamicThread thread = createThread("tg 1-1");
+        set.add(thread);
+        assertFalse(set.remove(createThread("tg 1-1")));
+        assertFalse(set.contains(createThread("tg 1-1")));
+        assertSame(thread, set.get("tg 1-1"));
+    }
+
+    @Test
+    public void testIterateAndRemove() {
+        System.out.println("iterateAndRemove");
+        DynamicThreadSet set = new DynamicThreadSet();
+        for (int n = 0; n < 100; n++) {
+            set.add(createThread("tg 1-" + n));
+        }
+        for (DynamicThread thread : set) {
+            set.remove(thread);
+        }
+        assertTrue(set.isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package com.blazemeter.jmeter.threads;
+
+import com.blazemeter.jmeter.threads.arrivals.ArrivalsThreadGroupTest;
+import com.blazemeter.jmeter.threads.concurrency.ConcurrencyThreadGroup;
+import com.blazemeter.jmeter.threads.concurrency.ConcurrencyThreadStarter;
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TreeClonePoolTest {
+    @BeforeClass
+    public static void setUpClass() {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    private static TreeClonePool createPool(int max) {
+        ConcurrencyThreadGroup ctg = new ConcurrencyThreadGroup();
+        ListedHashTree tree = ArrivalsThreadGroupTest.getListedHashTree(ctg, false);
+        ConcurrencyThreadStarter starter = new ConcurrencyThreadStarter(0, null, tree, null, ctg);
+        return new TreeClonePool(starter, tree, max);
+    }
+
+    @Test
+    public void testTake_empty() {
+        TreeClonePool pool = createPool(10);
+        ListedHashTree clone = pool.take();
+        assertEquals(1, clone.list().size());
+        assertEquals(0, pool.getHits());
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test(timeout = 10000)
+    public void testTake_ready() throws InterruptedException {
+        TreeClonePool pool = createPool(10);
+        pool.setTargetSize(5);
+        pool.start("test-cloner");
+        try {
+            while (pool.getReadyCount() < 5) {
+                Thread.sleep(1);
+            }
+            ListedHashTree first = pool.take();
+            ListedHashTree second = pool.take();
+            assertNotSame(first, second);
+            assertNotSame(first.getArray()[0], second.getArray()[0]);
+            assertEquals(2, pool.getHits());
+            assertEquals(0, pool.getMisses());
+
+            // refilled after take
+            while (pool.getReadyCount() < 5) {
+                Thread.sleep(1);
+            }
+        } finally {
+            pool.stop();
+        }
+        assertEquals(0, pool.getReadyCount());
+    }
+
+    @Test
+    public void testSetTargetSize() {
+        TreeClonePool pool = createPool(10);
+        pool.setTargetSize(100);
+        assertEquals(10, pool.getTargetSize());
+        pool.setTargetSize(0);
+        assertEquals(1, pool.getTargetSize());
+    }
+
+    @Test(timeout = 10000)
+    public void testStart_context() throws InterruptedException {
+        ConcurrencyThreadGroup ctg = new ConcurrencyThreadGroup();
+        ListedHashTree tree = ArrivalsThreadGroupTest.getListedHashTree(ctg, false);
+        final AtomicReference<JMeterVariables> clonerVars = new AtomicReference<>();
+        ConcurrencyThreadStarter starter = new ConcurrencyThreadStarter(0, null, tree, null, ctg) {
+            @Override
+            protected ListedHashTree cloneTree(ListedHashTree tree) {
+                if (Thread.currentThread().getName().equals("test-cloner")) {
+                    clonerVars.compareAndSet(null, JMeterContextService.getContext().getVariables());
+                }
+                return super.cloneTree(tree);
+            }
+        };
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("user", "1");
+        JMeterContextService.getContext().setVariables(vars);
+
+        TreeClonePool pool = new TreeClonePool(starter, tree, 1);
+        pool.start("test-cloner");
+        try {
+            while (clonerVars.get() == null) {
+                Thread.sleep(1);
+            }
+        } finally {
+            pool.stop();
+        }
+        assertSame(vars, clonerVars.get());
+    }
+}
@@ -0,0 +1,63 @@
+package com.blazemeter.jmeter.threads.arrivals;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ArrivalsDispatcherTest {
+
+    @Test
+    public void testOffer() throws Exception {
+        final ArrivalsDispatcher obj = new ArrivalsDispatcher();
+        assertFalse(obj.offer(1));
+        assertEquals(0, obj.getIdleCount());
+
+        final AtomicLong taken = new AtomicLong();
+        Thread idle = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    taken.set(obj.take());
+                } catch (InterruptedException e) {
+                    taken.set(-1);
+                }
+            }
+        };
+        idle.start();
+        while (obj.getIdleCount() == 0) {
+            Thread.sleep(1);
+        }
+        assertTrue(obj.offer(42));
+        idle.join();
+        assertEquals(42, taken.get());
+        assertEquals(0, obj.getIdleCount());
+    }
+
+    @Test
+    public void testTake_interrupted() throws Exception {
+        final ArrivalsDispatcher obj = new ArrivalsDispatcher();
+        Thread.currentThread().interrupt();
+        try {
+            obj.take();
+            fail();
+        } catch (InterruptedException e) {
+            assertFalse(Thread.currentThread().isInterrupted());
+        }
+    }
+
+    @Test
+    public void testMetrics() {
+        ArrivalsDispatcher obj = new ArrivalsDispatcher();
+        assertEquals(0, obj.getAverageLagMs(), 0.001);
+        obj.dispatched(0, 1000000);
+        obj.dispatched(0, 3000000);
+        obj.dispatched(5000000, 1000000);
+        obj.dropped();
+        assertEquals(3, obj.getDispatchedCount());
+        assertEquals(1, obj.getDroppedCount());
+        assertEquals(4 / 3.0, obj.getAverageLagMs(), 0.001);
+        assertEquals(3, obj.getMaxLagMs(), 0.001);
+    }
+}
@@ -54,6 +54,8 @@ public class ArrivalsThreadGroupTest {
         atg.verifyThreadsStopped();
         assertTrue(2000 < f.length());
         assertEquals(20, atg.getArrivalsDone());
+        assertTrue(atg.getDispatcher().getDispatchedCount() >= 20);
+        assertTrue(atg.verifyThreadsStopped());
     }
 
     @Test
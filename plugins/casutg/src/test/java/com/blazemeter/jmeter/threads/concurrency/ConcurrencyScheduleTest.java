@@ -0,0 +1,64 @@
+package com.blazemeter.jmeter.threads.concurrency;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyScheduleTest {
+
+    @Test
+    public void testGetLevel_linear() {
+        System.out.println("getLevel_linear");
+        ConcurrencySchedule schedule = new ConcurrencySchedule(10, 20, 0, 100, 0);
+        assertEquals(0, schedule.getLevel(0));
+        assertEquals(50, schedule.getLevel(5));
+        assertEquals(100, schedule.getLevel(15));
+        assertEquals(ConcurrencySchedule.FINISHED, schedule.getLevel(30));
+    }
+
+    @Test
+    public void testGetLevel_steps() {
+        System.out.println("getLevel_steps");
+        ConcurrencySchedule schedule = new ConcurrencySchedule(10, 20, 4, 100, 0);
+        assertEquals(25, schedule.getLevel(0));
+        assertEquals(50, schedule.getLevel(2.5));
+        assertEquals(100, schedule.getLevel(9.9));
+    }
+
+    @Test
+    public void testGetLevel_shift() {
+        System.out.println("getLevel_shift");
+        ConcurrencySchedule schedule = new ConcurrencySchedule(10, 20, 0, 100, 5);
+        assertEquals(0, schedule.getLevel(3));
+        assertEquals(50, schedule.getLevel(10));
+        assertEquals(35, schedule.getDuration());
+        assertEquals(2, schedule.getTimeToNextChange(3), 0.0001);
+    }
+
+    @Test
+    public void testGetTimeToNextChange() {
+        System.out.println("getTimeToNextChange");
+        ConcurrencySchedule linear = new ConcurrencySchedule(10, 20, 0, 10, 0);
+        assertEquals(0.5, linear.getTimeToNextChange(0), 0.0001);
+        assertEquals(0.75, linear.getTimeToNextChange(0.75), 0.0001);
+        assertEquals(Double.POSITIVE_INFINITY, linear.getTimeToNextChange(15), 0);
+
+        // level really changes at predicted moment
+        double t = 3.2;
+        double next = t + linear.getTimeToNextChange(t);
+        assertEquals(linear.getLevel(t), linear.getLevel(next - 0.001));
+        assertEquals(linear.getLevel(t) + 1, linear.getLevel(next + 0.001));
+
+        ConcurrencySchedule steps = new ConcurrencySchedule(10, 20, 5, 10, 0);
+        assertEquals(1.5, steps.getTimeToNextChange(0.5), 0.0001);
+    }
+
+    @Test
+    public void testGetGrowthAhead() {
+        System.out.println("getGrowthAhead");
+        assertEquals(10, new ConcurrencySchedule(10, 20, 0, 100, 0).getGrowthAhead(1));
+        assertEquals(25, new ConcurrencySchedule(10, 20, 4, 100, 0).getGrowthAhead(1));
+        assertEquals(1, new ConcurrencySchedule(10, 20, 4, 100, 0).getGrowthAhead(11));
+        assertEquals(1, new ConcurrencySchedule(0, 20, 0, 100, 0).getGrowthAhead(0));
+    }
+}
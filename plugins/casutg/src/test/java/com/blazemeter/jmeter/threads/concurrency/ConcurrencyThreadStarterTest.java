@@ -24,6 +24,34 @@ public class ConcurrencyThreadStarterTest {
         starter.supplyActiveThreads();
     }
 
+    @Test
+    public void testRampPacing() {
+        ConcurrencyThreadGroupExt ctg = new ConcurrencyThreadGroupExt();
+        ctg.setTargetLevel("2000");
+        ctg.setRampUp("10");
+        ctg.setHold("60");
+        ListedHashTree tree = ArrivalsThreadGroupTest.getListedHashTree(ctg, false);
+        final long now = System.currentTimeMillis();
+        ConcurrencyThreadStarter starter = new ConcurrencyThreadStarter(0, null, tree, null, ctg) {
+            {
+                startTime = now;
+            }
+        };
+        assertEquals(200, starter.getClonesAhead(now));
+        assertEquals(3, starter.getCheckInterval(now));
+        assertEquals(1, starter.getClonesAhead(now + 20000));
+        assertEquals(ConcurrencyThreadGroup.MIN_CHECK_TIME, starter.getCheckInterval(now + 20000));
+
+        ctg.setSteps("4");
+        starter = new ConcurrencyThreadStarter(0, null, tree, null, ctg) {
+            {
+                startTime = now;
+            }
+        };
+        assertEquals(500, starter.getClonesAhead(now));
+        assertEquals(500, starter.getCheckInterval(now + 2000));
+    }
+
     public static class ConcurrencyThreadGroupExt extends ConcurrencyThreadGroup {
         @Override
         public boolean isLimitReached() {
@@ -0,0 +1,60 @@
+package kg.apc.cmdtools;
+
+import com.blazemeter.jmeter.reporters.EventJournal;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+import static org.junit.Assert.*;
+
+public class ThreadGroupJournalToolTest {
+
+    @Test
+    public void testShowHelp() {
+        System.out.println("showHelp");
+        new ThreadGroupJournalTool().showHelp(System.out);
+    }
+
+    @Test
+    public void testProcessParamsWrong() {
+        System.out.println("processParamsWrong");
+        ArrayList<String> al = new ArrayList<>();
+        al.add("--input-file");
+        al.add("in.bin");
+        ListIterator args = al.listIterator();
+        try {
+            new ThreadGroupJournalTool().processParams(args);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void testProcessParams() throws Exception {
+        System.out.println("processParams");
+        File input = File.createTempFile("journal", ".bin");
+        input.deleteOnExit();
+        File output = File.createTempFile("journal", ".csv");
+        output.deleteOnExit();
+
+        EventJournal journal = new EventJournal(input.getAbsolutePath(), "tg", 16);
+        journal.record(EventJournal.ARRIVAL, 1, 1);
+        journal.close();
+
+        ArrayList<String> al = new ArrayList<>();
+        al.add("--input-file");
+        al.add(input.getAbsolutePath());
+        al.add("--output-file");
+        al.add(output.getAbsolutePath());
+        assertEquals(0, new ThreadGroupJournalTool().processParams(al.listIterator()));
+
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).endsWith(",tg,ARRIVAL,1,1"));
+    }
+}
@@ -0,0 +1,69 @@
+package kg.apc.jmeter.threads;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.util.JMeterUtils;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class VirtualThreadsTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    @After
+    public void tearDown() {
+        JMeterUtils.setProperty(VirtualThreads.ENABLED_PROPERTY, "false");
+    }
+
+    @Test
+    public void testNewThread_platform() throws Exception {
+        System.out.println("newThread platform");
+        final AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = VirtualThreads.newThread(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        }, "test-1", false);
+        assertEquals("test-1", thread.getName());
+        assertFalse(thread.isDaemon());
+        assertFalse(isVirtual(thread));
+        thread.start();
+        thread.join();
+        assertTrue(ran.get());
+    }
+
+    @Test
+    public void testNewThread_enabled() throws Exception {
+        System.out.println("newThread enabled");
+        JMeterUtils.setProperty(VirtualThreads.ENABLED_PROPERTY, "true");
+        JMeterUtils.setProperty(VirtualThreads.PARALLELISM_PROPERTY, "2");
+        final AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = VirtualThreads.newThread(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        }, "test-2", false);
+        assertEquals("test-2", thread.getName());
+        assertEquals(VirtualThreads.isSupported(), isVirtual(thread));
+        thread.start();
+        thread.join();
+        assertTrue(ran.get());
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -4,6 +4,12 @@ package kg.apc.jmeter.reporters;
 
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import kg.apc.charting.ConcurrentLogLinearHistogram;
 import org.apache.jmeter.JMeter;
 import org.apache.jmeter.engine.event.LoopIterationEvent;
 import org.apache.jmeter.engine.util.NoThreadClone;
@@ -14,6 +20,7 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestListener;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
@@ -22,14 +29,18 @@ public class ConsoleStatusLogger extends AbstractListenerElement
         NoThreadClone, TestStateListener {
 
     private static final Logger log = LoggerFactory.getLogger(ConsoleStatusLogger.class);
-    private PrintStream out;
-    private long cur = 0;
-    private int count;
-    private int threads;
-    private int sumRTime;
-    private int sumLatency;
-    private int errors;
+    public static final String INTERVAL_PROPERTY = "jmeterPlugin.csl.interval";
+    public static final String JSON_PROPERTY = "jmeterPlugin.csl.json";
+    private transient PrintStream out;
+    private transient volatile ConcurrentLogLinearHistogram times = new ConcurrentLogLinearHistogram();
+    private transient volatile ConcurrentLogLinearHistogram latencies = new ConcurrentLogLinearHistogram();
+    private transient volatile AtomicLong errors = new AtomicLong();
+    private transient volatile int threads;
+    private transient ScheduledExecutorService reporter;
+    private long intervalMs = 1000;
+    private boolean json = false;
     private long begin;
+    private long intervalStart;
 
     private static class JMeterLoggerOutputStream extends PrintStream {
 
@@ -43,41 +54,74 @@ public class ConsoleStatusLogger extends AbstractListenerElement
         }
     }
 
+    /**
+     * Only counts the sample, status is printed by reporter thread
+     */
     @Override
-    public synchronized void sampleOccurred(SampleEvent se) {
-        // TODO: make the interval configurable
-        long sec = System.currentTimeMillis() / 1000;
-        if (sec != cur && count > 0) {
-            if (cur == 0) {
-                begin = sec;
-            }
+    public void sampleOccurred(SampleEvent se) {
+        SampleResult res = se.getResult();
+        if (!res.isSuccessful()) {
+            errors.incrementAndGet();
+        }
+        times.add(res.getTime());
+        latencies.add(res.getLatency());
+        threads = res.getAllThreads();
+    }
 
-            log.debug(cur + " " + begin);
-            flush(sec - begin);
-            cur = sec;
+    /**
+     * Prints values counted since previous call, if there were samples
+     */
+    synchronized void flush() {
+        if (out == null) {
+            return;
         }
-        SampleResult res = se.getResult();
 
-        count++;
-        sumRTime += res.getTime();
-        sumLatency += res.getLatency();
-        errors += res.isSuccessful() ? 0 : 1;
-        threads = res.getAllThreads();
+        // samples that come while draining are printed with the next interval
+        ConcurrentLogLinearHistogram.Snapshot intervalTimes = new ConcurrentLogLinearHistogram.Snapshot();
+        ConcurrentLogLinearHistogram.Snapshot intervalLatencies = new ConcurrentLogLinearHistogram.Snapshot();
+        times.drainTo(intervalTimes);
+        latencies.drainTo(intervalLatencies);
+        long intervalErrors = errors.getAndSet(0);
+        long now = System.currentTimeMillis();
+        long sec = (intervalStart - begin) / 1000;
+        intervalStart = now;
+        if (intervalTimes.getCount() == 0) {
+            return;
+        }
+
+        out.println(json ? formatJSON(sec, intervalTimes, intervalLatencies, intervalErrors)
+                : formatText(sec, intervalTimes, intervalLatencies, intervalErrors));
     }
 
-    private void flush(long sec) {
-        String msg = '#' + Long.toString(sec) + '\t';
-        msg += "Threads: " + threads + '/' + JMeterContextService.getTotalThreads() + '\t';
-        msg += "Samples: " + count + '\t';
-        msg += "Latency: " + sumLatency / (count > 0 ? count : 1) + '\t';
-        msg += "Resp.Time: " + sumRTime / (count > 0 ? count : 1) + '\t';
-        msg += "Errors: " + errors;
-        out.println(msg);
-
-        count = 0;
-        sumRTime = 0;
-        sumLatency = 0;
-        errors = 0;
+    private String formatText(long sec, ConcurrentLogLinearHistogram.Snapshot intervalTimes,
+                              ConcurrentLogLinearHistogram.Snapshot intervalLatencies, long intervalErrors) {
+        StringBuilder msg = new StringBuilder(128);
+        msg.append('#').append(sec).append('\t');
+        msg.append("Threads: ").append(threads).append('/').append(JMeterContextService.getTotalThreads()).append('\t');
+        msg.append("Samples: ").append(intervalTimes.getCount()).append('\t');
+        msg.append("Latency: ").append((long) intervalLatencies.getMean()).append('\t');
+        msg.append("Resp.Time: ").append((long) intervalTimes.getMean()).append('\t');
+        msg.append("Errors: ").append(intervalErrors).append('\t');
+        msg.append("p90: ").append(intervalTimes.getValueAtPercentile(90)).append('\t');
+        msg.append("p99: ").append(intervalTimes.getValueAtPercentile(99));
+        return msg.toString();
+    }
+
+    private String formatJSON(long sec, ConcurrentLogLinearHistogram.Snapshot intervalTimes,
+                              ConcurrentLogLinearHistogram.Snapshot intervalLatencies, long intervalErrors) {
+        StringBuilder msg = new StringBuilder(160);
+        msg.append("{\"sec\":").append(sec);
+        msg.append(",\"timestamp\":").append(intervalStart);
+        msg.append(",\"threads\":").append(threads);
+        msg.append(",\"totalThreads\":").append(JMeterContextService.getTotalThreads());
+        msg.append(",\"samples\":").append(intervalTimes.getCount());
+        msg.append(",\"latency\":").append((long) intervalLatencies.getMean());
+        msg.append(",\"respTime\":").append((long) intervalTimes.getMean());
+        msg.append(",\"errors\":").append(intervalErrors);
+        msg.append(",\"p90\":").append(intervalTimes.getValueAtPercentile(90));
+        msg.append(",\"p99\":").append(intervalTimes.getValueAtPercentile(99));
+        msg.append('}');
+        return msg.toString();
     }
 
     @Override
@@ -90,12 +134,47 @@ public class ConsoleStatusLogger extends AbstractListenerElement
 
     @Override
     public void testStarted() {
-        if (JMeter.isNonGUI()) {
-            out = System.out;
-        } else {
-            out = new JMeterLoggerOutputStream(log);
+        stopReporter();
+        synchronized (this) {
+            if (JMeter.isNonGUI()) {
+                out = System.out;
+            } else {
+                out = new JMeterLoggerOutputStream(log);
+            }
+            intervalMs = Math.max(1, JMeterUtils.getPropDefault(INTERVAL_PROPERTY, 1)) * 1000L;
+            json = JMeterUtils.getPropDefault(JSON_PROPERTY, false);
+            times = new ConcurrentLogLinearHistogram();
+            latencies = new ConcurrentLogLinearHistogram();
+            errors = new AtomicLong();
+            begin = System.currentTimeMillis();
+            intervalStart = begin;
+        }
+
+        reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ConsoleStatusLogger");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        reporter.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to print status", e);
+                }
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopReporter() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
         }
-        cur = 0;
     }
 
     @Override
@@ -105,9 +184,12 @@ public class ConsoleStatusLogger extends AbstractListenerElement
 
     @Override
     public void testEnded() {
+        stopReporter();
+        flush();
     }
 
     @Override
     public void testEnded(String string) {
+        testEnded();
     }
 }
@@ -56,7 +56,7 @@ public class ConsoleStatusLoggerGui extends AbstractListenerGui {
         
         info.setText("This is a simple listener that prints short summary log to console while JMeter is running in non-GUI mode. "
                 + "It also writes the same info into jmeter.log in GUI mode."
-                + "\n\nNote that response time and latency values printed are averages.");
+                + "\n\nNote that response time and latency values printed are averages, p90 and p99 are response time percentiles.");
 
         add(jScrollPane1, BorderLayout.CENTER);
     }
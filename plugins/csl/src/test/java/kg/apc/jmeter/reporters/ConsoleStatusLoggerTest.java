@@ -4,10 +4,18 @@
  */
 package kg.apc.jmeter.reporters;
 
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.JMeter;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.util.JMeterUtils;
 import org.junit.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.*;
+
 public class ConsoleStatusLoggerTest {
 
     public ConsoleStatusLoggerTest() {
@@ -50,6 +58,77 @@ public class ConsoleStatusLoggerTest {
         instance.sampleOccurred(se);
     }
 
+    @Test
+    public void testFlush_json() {
+        System.out.println("flush_json");
+        TestJMeterUtils.createJmeterEnv();
+        JMeterUtils.setProperty(ConsoleStatusLogger.JSON_PROPERTY, "true");
+        System.setProperty(JMeter.JMETER_NON_GUI, "true");
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(buf));
+            SampleResult res = new SampleResult();
+            res.setSuccessful(true);
+            res.setLatency(5);
+            SampleEvent se = new SampleEvent(res, "testTG");
+            ConsoleStatusLogger instance = new ConsoleStatusLogger();
+            instance.testStarted();
+            instance.sampleOccurred(se);
+            instance.sampleOccurred(se);
+            instance.testEnded();
+        } finally {
+            System.setOut(stdout);
+            System.clearProperty(JMeter.JMETER_NON_GUI);
+            JMeterUtils.setProperty(ConsoleStatusLogger.JSON_PROPERTY, "false");
+        }
+
+        String output = buf.toString().trim();
+        System.out.println(output);
+        assertTrue(output.startsWith("{\"sec\":0,"));
+        assertTrue(output.contains("\"samples\":2,\"latency\":5,"));
+        assertTrue(output.contains("\"errors\":0,"));
+    }
+
+    @Test
+    public void testFlush_interval() {
+        System.out.println("flush_interval");
+        TestJMeterUtils.createJmeterEnv();
+        JMeterUtils.setProperty(ConsoleStatusLogger.JSON_PROPERTY, "true");
+        System.setProperty(JMeter.JMETER_NON_GUI, "true");
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(buf));
+            SampleResult ok = SampleResult.createTestSample(1000, 1010);
+            ok.setSuccessful(true);
+            SampleResult failed = SampleResult.createTestSample(1000, 1100);
+            failed.setSuccessful(false);
+            ConsoleStatusLogger instance = new ConsoleStatusLogger();
+            instance.testStarted();
+            instance.sampleOccurred(new SampleEvent(ok, "testTG"));
+            instance.flush();
+            instance.flush(); // nothing new, nothing printed
+            instance.sampleOccurred(new SampleEvent(failed, "testTG"));
+            instance.sampleOccurred(new SampleEvent(failed, "testTG"));
+            instance.testEnded();
+        } finally {
+            System.setOut(stdout);
+            System.clearProperty(JMeter.JMETER_NON_GUI);
+            JMeterUtils.setProperty(ConsoleStatusLogger.JSON_PROPERTY, "false");
+        }
+
+        String[] lines = buf.toString().trim().split("\r?\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"samples\":1,"));
+        assertTrue(lines[0].contains("\"respTime\":10,"));
+        assertTrue(lines[0].contains("\"errors\":0,"));
+        assertTrue(lines[1].contains("\"samples\":2,"));
+        assertTrue(lines[1].contains("\"respTime\":100,"));
+        assertTrue(lines[1].contains("\"errors\":2,"));
+        assertTrue(lines[1].contains("\"p99\":100}"));
+    }
+
     /**
      * Test of sampleStarted method, of class ConsoleStatusLogger.
      */
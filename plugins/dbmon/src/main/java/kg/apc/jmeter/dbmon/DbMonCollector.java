@@ -10,7 +10,9 @@ import java.util.Iterator;
 import java.util.List;
 
 import kg.apc.jmeter.JMeterPluginsUtils;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
 import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
+import kg.apc.jmeter.vizualizers.MonitoringScheduler;
 
 import org.apache.jmeter.protocol.jdbc.config.DataSourceElement;
 import org.apache.jmeter.samplers.SampleEvent;
@@ -35,7 +37,9 @@ public class DbMonCollector
     private static final Logger log = LoggerFactory.getLogger(DbMonCollector.class);
     public static final String DATA_PROPERTY = "samplers";
     private int interval;
+    private int queryTimeout;
     private Thread workerThread = null;
+    private transient volatile MonitoringScheduler scheduler;
     private List<DbMonSampler> dbMonSamplers = new ArrayList<DbMonSampler>();
     private static String autoFileBaseName = null;
     private static int counter = 0;
@@ -58,7 +62,7 @@ public class DbMonCollector
         if (counter > 1) {
             ret = ret + "_" + counter;
         }
-        ret = ret + ".csv";
+        ret = ret + MonitoringSeriesFormat.getDefaultExtension(".csv");
 
         return ret;
     }
@@ -66,6 +70,8 @@ public class DbMonCollector
     public DbMonCollector() {
         // TODO: document it
         interval = JMeterUtils.getPropDefault("jmeterPlugin.dbmon.interval", 1000);
+        // seconds, as JDBC expects
+        queryTimeout = JMeterUtils.getPropDefault("jmeterPlugin.dbmon.queryTimeout", (interval + 999) / 1000);
     }
 
     public void setData(CollectionProperty rows) {
@@ -77,15 +83,29 @@ public class DbMonCollector
     }
 
     @Override
-    public synchronized void run() {
-        try {
-            while (true) {
-                processConnectors();
-                this.wait(interval);
-            }
-        } catch (InterruptedException ex) {
-            log.debug("Monitoring thread was interrupted", ex);
+    public void run() {
+        MonitoringScheduler current = scheduler;
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    /**
+     * Samplers of different pools are polled in parallel,
+     * samplers of the same pool share connection, so they go one by one
+     */
+    protected MonitoringScheduler createScheduler() {
+        MonitoringScheduler result = new MonitoringScheduler(DBMON, interval);
+        for (final DbMonSampler sampler : dbMonSamplers) {
+            result.add(sampler.getPoolName(), sampler.getMetricName(), new Runnable() {
+                @Override
+                public void run() {
+                    sampler.generateSamples(DbMonCollector.this);
+                }
+            });
+            result.setHostConcurrency(sampler.getPoolName(), 1);
         }
+        return result;
     }
 
     //ensure we start only on one host (if multiple slaves)
@@ -143,6 +163,7 @@ public class DbMonCollector
         } else {
             log.warn("Dbmon file saving setting is not CSV with header line, cannot upload it to Loadosophia.org: " + getPropertyAsString(FILENAME));
         }*/
+        openSeriesFile();
         try {
             initiateConnectors();
         } catch (SQLException ex) {
@@ -150,6 +171,7 @@ public class DbMonCollector
             log.error("Enable to start dbmon", ex);
         }
 
+        scheduler = createScheduler();
         workerThread = new Thread(this);
         workerThread.start();
         log.debug("End   initCollector");
@@ -172,6 +194,7 @@ public class DbMonCollector
         }
         workerHost = null;
         
+        scheduler.stop();
         workerThread.interrupt();
         shutdownConnectors();
 
@@ -211,7 +234,9 @@ public class DbMonCollector
     	else {
     		log.debug("use same connection");
     	}
-        dbMonSamplers.add(new DbMonSampler(conn, connectionPoolName, name, delta, sql));
+        DbMonSampler sampler = new DbMonSampler(conn, connectionPoolName, name, delta, sql);
+        sampler.setQueryTimeout(queryTimeout);
+        dbMonSamplers.add(sampler);
     }
 
     
@@ -238,6 +263,7 @@ public class DbMonCollector
     	
     	while (it.hasNext()) {
     		DbMonSampler dbMonSampler = it.next();
+    		dbMonSampler.close();
     		Connection connJdbc = dbMonSampler.getConnection();
     		if (connJdbc != null) {
     			try {
@@ -271,8 +297,15 @@ public class DbMonCollector
         super.sampleOccurred(event);
     }
 
+    /**
+     * Values go to series file if it is used, results are created only for visualizer then
+     */
     @Override
     public void generateSample(double value, String label) {
+        if (addSeriesPoint(System.currentTimeMillis(), label, value) && getVisualizer() == null) {
+            return;
+        }
+
         DbMonSampleResult res = new DbMonSampleResult();
         res.setSampleLabel(label);
         res.setValue(value);
@@ -1,21 +1,40 @@
 package kg.apc.jmeter.dbmon;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
+/**
+ * Runs SQL query through prepared statement kept open between polls.
+ * By default first column of the first row is the value. Label may contain
+ * placeholders to get many metrics from one query:
+ * {column} - every column of the first row, replaced with column label;
+ * {key} - every row, first column is replaced into label, second is the value;
+ * both - every row and every column after the first one.
+ */
 public class DbMonSampler {
 
     private static final Logger log = LoggerFactory.getLogger(DbMonSampler.class);
+    public static final String COLUMN_PLACEHOLDER = "{column}";
+    public static final String KEY_PLACEHOLDER = "{key}";
+
     private String metricName;
     private String sql;
     private String poolName;
     private final Connection connection;
     private boolean sampleDeltaValue = true;
     private double oldValue = Double.NaN;
+    private final Map<String, Double> oldLabelValues = new HashMap<String, Double>();
+    private PreparedStatement statement;
+    private int queryTimeout;
 
     public DbMonSampler(Connection conn, String poolName, String name, boolean sampleDeltaValue, String sql) {
         this.metricName = name;
@@ -26,32 +45,83 @@ public class DbMonSampler {
     }
 
     public void generateSamples(DbMonSampleGenerator collector) {
-        Statement stmt = null;
         ResultSet rs = null;
         try {
-            stmt = connection.createStatement();
-            rs = stmt.executeQuery(sql);
-
-            if (rs.next()) {
-                final double val = rs.getDouble(1);
-                if (sampleDeltaValue) {
-                    if (!Double.isNaN(oldValue)) {
-                        collector.generateSample(val - oldValue, metricName);
-                    }
-                    oldValue = val;
-                } else {
-                    collector.generateSample(val, metricName);
-                }
-
+            rs = getStatement().executeQuery();
+
+            boolean byColumn = metricName != null && metricName.contains(COLUMN_PLACEHOLDER);
+            boolean byKey = metricName != null && metricName.contains(KEY_PLACEHOLDER);
+            if (byColumn || byKey) {
+                sampleResults(rs, byColumn, byKey, collector);
+            } else if (rs.next()) {
+                sampleValue(rs.getDouble(1), metricName, collector);
             }
         } catch (SQLException ex) {
             log.error("Error executing query: " + sql, ex);
+            // connection may have been reset, prepare again on next poll
+            close(statement);
+            statement = null;
         } finally {
             close(rs);
-            close(stmt);
         }
     }
 
+    private void sampleResults(ResultSet rs, boolean byColumn, boolean byKey, DbMonSampleGenerator collector) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columns = meta.getColumnCount();
+        int first = byKey ? 2 : 1;
+        int last = byColumn ? columns : first;
+        while (rs.next()) {
+            String label = byKey ? metricName.replace(KEY_PLACEHOLDER, String.valueOf(rs.getString(1))) : metricName;
+            for (int col = first; col <= last; col++) {
+                String columnLabel = byColumn ? label.replace(COLUMN_PLACEHOLDER, meta.getColumnLabel(col)) : label;
+                sampleValue(rs.getDouble(col), columnLabel, collector);
+            }
+
+            if (!byKey) {
+                break;
+            }
+        }
+    }
+
+    private void sampleValue(double val, String label, DbMonSampleGenerator collector) {
+        if (sampleDeltaValue) {
+            Double old = label == null || label.equals(metricName) ? Double.valueOf(oldValue) : oldLabelValues.get(label);
+            if (old != null && !Double.isNaN(old)) {
+                collector.generateSample(val - old, label);
+            }
+            if (label == null || label.equals(metricName)) {
+                oldValue = val;
+            } else {
+                oldLabelValues.put(label, val);
+            }
+        } else {
+            collector.generateSample(val, label);
+        }
+    }
+
+    private PreparedStatement getStatement() throws SQLException {
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            if (queryTimeout > 0) {
+                try {
+                    statement.setQueryTimeout(queryTimeout);
+                } catch (SQLException ex) {
+                    log.debug("Driver does not support query timeout", ex);
+                }
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Releases prepared statement, connection is left open
+     */
+    public void close() {
+        close(statement);
+        statement = null;
+    }
+
     private void close(ResultSet r) {
         if (r != null) {
             try {
@@ -72,6 +142,13 @@ public class DbMonSampler {
         }
     }
 
+    /**
+     * @param seconds query timeout, zero for no limit
+     */
+    public void setQueryTimeout(int seconds) {
+        this.queryTimeout = seconds;
+    }
+
 	public String getMetricName() {
 		return metricName;
 	}
@@ -86,6 +163,7 @@ public class DbMonSampler {
 
 	public void setSql(String sql) {
 		this.sql = sql;
+		close();
 	}
 
 	public boolean isSampleDeltaValue() {
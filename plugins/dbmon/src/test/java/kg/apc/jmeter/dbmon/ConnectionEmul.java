@@ -23,6 +23,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.NClob;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLClientInfoException;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
@@ -46,7 +47,12 @@ class ConnectionEmul implements Connection {
 
     @Override
     public PreparedStatement prepareStatement(String string) throws SQLException {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return PreparedStatementEmul.create(new PreparedStatementEmul.Query() {
+            @Override
+            public ResultSet execute() throws SQLException {
+                return new ResultSetEmul();
+            }
+        });
     }
 
     @Override
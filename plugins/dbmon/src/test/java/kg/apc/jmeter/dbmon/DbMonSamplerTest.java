@@ -15,13 +15,34 @@
  */
 package kg.apc.jmeter.dbmon;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+
 public class DbMonSamplerTest {
+    private final Map<String, Double> samples = new HashMap<String, Double>();
+    private final DbMonSampleGenerator collector = new DbMonSampleGenerator() {
+        @Override
+        public void generateSample(double value, String label) {
+            samples.put(label, value);
+        }
+    };
+    private int prepared;
+    private PreparedStatement lastStatement;
 
     public DbMonSamplerTest() {
     }
@@ -53,4 +74,81 @@ public class DbMonSamplerTest {
         // TODO review the generated test code and remove the default call to fail.
 
     }
+
+    private Connection createConnection(final String[] columns, final Object[][] rows) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("prepareStatement")) {
+                    prepared++;
+                    lastStatement = PreparedStatementEmul.create(new PreparedStatementEmul.Query() {
+                        @Override
+                        public ResultSet execute() throws SQLException {
+                            return TableResultSetEmul.create(columns, rows);
+                        }
+                    });
+                    return lastStatement;
+                }
+                throw new UnsupportedOperationException("Not supported yet: " + method.getName());
+            }
+        });
+    }
+
+    @Test
+    public void testGenerateSamples_prepareOnce() {
+        System.out.println("generateSamples_prepareOnce");
+        Object[][] rows = {{5}};
+        DbMonSampler instance = new DbMonSampler(createConnection(new String[]{"value"}, rows), "poolName", "probe", false, "select 5");
+        instance.setQueryTimeout(3);
+        instance.generateSamples(collector);
+        rows[0][0] = 7;
+        instance.generateSamples(collector);
+
+        assertEquals(1, prepared);
+        assertEquals(2, PreparedStatementEmul.of(lastStatement).getExecuted());
+        assertEquals(3, PreparedStatementEmul.of(lastStatement).getQueryTimeout());
+        assertEquals(7.0, samples.get("probe"), 0.0001);
+
+        instance.close();
+        assertTrue(PreparedStatementEmul.of(lastStatement).isClosed());
+    }
+
+    @Test
+    public void testGenerateSamples_columns() {
+        System.out.println("generateSamples_columns");
+        Object[][] rows = {{10, 20}};
+        DbMonSampler instance = new DbMonSampler(createConnection(new String[]{"reads", "writes"}, rows), "poolName", "db {column}", true, "select reads, writes");
+        instance.generateSamples(collector);
+        assertTrue(samples.isEmpty());
+
+        rows[0] = new Object[]{15, 21};
+        instance.generateSamples(collector);
+        assertEquals(2, samples.size());
+        assertEquals(5.0, samples.get("db reads"), 0.0001);
+        assertEquals(1.0, samples.get("db writes"), 0.0001);
+    }
+
+    @Test
+    public void testGenerateSamples_keys() {
+        System.out.println("generateSamples_keys");
+        Object[][] rows = {{"postgres", 3}, {"test", 4}};
+        DbMonSampler instance = new DbMonSampler(createConnection(new String[]{"datname", "numbackends"}, rows), "poolName", "{key} backends", false, "select datname, numbackends");
+        instance.generateSamples(collector);
+        assertEquals(2, samples.size());
+        assertEquals(3.0, samples.get("postgres backends"), 0.0001);
+        assertEquals(4.0, samples.get("test backends"), 0.0001);
+    }
+
+    @Test
+    public void testGenerateSamples_keysAndColumns() {
+        System.out.println("generateSamples_keysAndColumns");
+        Object[][] rows = {{"postgres", 1, 2}, {"test", 3, 4}};
+        DbMonSampler instance = new DbMonSampler(createConnection(new String[]{"datname", "commit", "rollback"}, rows), "poolName", "{key} {column}", false, "select datname, xact_commit, xact_rollback");
+        instance.generateSamples(collector);
+        assertEquals(4, samples.size());
+        assertEquals(1.0, samples.get("postgres commit"), 0.0001);
+        assertEquals(2.0, samples.get("postgres rollback"), 0.0001);
+        assertEquals(3.0, samples.get("test commit"), 0.0001);
+        assertEquals(4.0, samples.get("test rollback"), 0.0001);
+    }
 }
@@ -0,0 +1,68 @@
+package kg.apc.jmeter.dbmon;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Prepared statement returning results of given query, other methods are not supported
+ */
+class PreparedStatementEmul implements InvocationHandler {
+
+    interface Query {
+        ResultSet execute() throws SQLException;
+    }
+
+    private final Query query;
+    private int queryTimeout;
+    private int executed;
+    private boolean closed;
+
+    private PreparedStatementEmul(Query query) {
+        this.query = query;
+    }
+
+    static PreparedStatement create(Query query) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatementEmul.class.getClassLoader(),
+                new Class[]{PreparedStatement.class}, new PreparedStatementEmul(query));
+    }
+
+    static PreparedStatementEmul of(PreparedStatement statement) {
+        return (PreparedStatementEmul) Proxy.getInvocationHandler(statement);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("executeQuery") && (args == null || args.length == 0)) {
+            executed++;
+            return query.execute();
+        } else if (name.equals("setQueryTimeout")) {
+            queryTimeout = (Integer) args[0];
+            return null;
+        } else if (name.equals("getQueryTimeout")) {
+            return queryTimeout;
+        } else if (name.equals("close")) {
+            closed = true;
+            return null;
+        } else if (name.equals("isClosed")) {
+            return closed;
+        }
+        throw new UnsupportedOperationException("Not supported yet: " + name);
+    }
+
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public int getExecuted() {
+        return executed;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
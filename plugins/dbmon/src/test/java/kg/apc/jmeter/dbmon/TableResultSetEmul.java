@@ -0,0 +1,53 @@
+package kg.apc.jmeter.dbmon;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+/**
+ * Result set over fixed table, supports only reading by column index
+ */
+class TableResultSetEmul implements InvocationHandler {
+    private final String[] columns;
+    private final Object[][] rows;
+    private int row = -1;
+
+    private TableResultSetEmul(String[] columns, Object[][] rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    static ResultSet create(String[] columns, Object[][] rows) {
+        return (ResultSet) Proxy.newProxyInstance(TableResultSetEmul.class.getClassLoader(),
+                new Class[]{ResultSet.class}, new TableResultSetEmul(columns, rows));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("next")) {
+            return ++row < rows.length;
+        } else if (name.equals("getDouble")) {
+            return ((Number) rows[row][(Integer) args[0] - 1]).doubleValue();
+        } else if (name.equals("getString")) {
+            return String.valueOf(rows[row][(Integer) args[0] - 1]);
+        } else if (name.equals("getMetaData")) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class}, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getName().equals("getColumnCount")) {
+                        return columns.length;
+                    } else if (method.getName().equals("getColumnLabel")) {
+                        return columns[(Integer) args[0] - 1];
+                    }
+                    throw new UnsupportedOperationException("Not supported yet: " + method.getName());
+                }
+            });
+        } else if (name.equals("close")) {
+            return null;
+        }
+        throw new UnsupportedOperationException("Not supported yet: " + name);
+    }
+}
@@ -49,8 +49,13 @@ class TestConnection implements Connection {
     }
 
     @Override
-    public PreparedStatement prepareStatement(String sql) throws SQLException {
-        throw new UnsupportedOperationException("Not supported yet.");
+    public PreparedStatement prepareStatement(final String sql) throws SQLException {
+        return PreparedStatementEmul.create(new PreparedStatementEmul.Query() {
+            @Override
+            public ResultSet execute() throws SQLException {
+                return dataProvider.getQueryResult(sql);
+            }
+        });
     }
 
     @Override
@@ -0,0 +1,281 @@
+package kg.apc.jmeter.reporters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves file writes off sampler threads: records are filled into pooled
+ * buffers, handed to single writer thread through {@link MpscRingBuffer}
+ * and written with one gathering write per batch.
+ */
+class AsyncChannelWriter implements Runnable {
+
+    public enum FsyncPolicy {
+        /**
+         * force only when closing
+         */
+        CLOSE,
+        /**
+         * force at most once per flush interval
+         */
+        INTERVAL,
+        /**
+         * force after every batch
+         */
+        BATCH
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncChannelWriter.class);
+    private static final int MAX_BATCH = 256;
+    private static final long PRODUCER_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final FileChannel channel;
+    private final int bufferSize;
+    private final MpscRingBuffer<ByteBuffer> queue;
+    private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private final long flushIntervalNanos;
+    private final FsyncPolicy fsyncPolicy;
+    private final boolean dropOnOverflow;
+    private final int wakeUpThreshold;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger producers = new AtomicInteger();
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH];
+    private volatile boolean accepting = true;
+    private volatile boolean running = false;
+    private volatile Thread thread;
+    private long lastForce = System.nanoTime();
+    private boolean dirty = false;
+
+    public AsyncChannelWriter(FileChannel channel, int bufferSize, int queueSize,
+                              long flushIntervalMs, FsyncPolicy fsyncPolicy, boolean dropOnOverflow) {
+        this.channel = channel;
+        this.bufferSize = bufferSize;
+        this.queue = new MpscRingBuffer<>(queueSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.fsyncPolicy = fsyncPolicy;
+        this.dropOnOverflow = dropOnOverflow;
+        this.wakeUpThreshold = Math.max(1, Math.min(MAX_BATCH, queue.capacity() / 2));
+    }
+
+    public void start(String name) {
+        running = true;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return cleared buffer to fill record into
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buf = pool.poll();
+        if (buf == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        buf.clear();
+        return buf;
+    }
+
+    /**
+     * Queues flipped buffer for writing, ownership goes to writer.
+     * Waits for free space or drops the record depending on overflow policy.
+     * Records offered after close are dropped with drop policy and
+     * reported as errors with blocking one.
+     */
+    public void write(ByteBuffer buf) {
+        if (!accepting) {
+            reject(buf);
+            return;
+        }
+
+        producers.incrementAndGet();
+        try {
+            // close() may have missed this producer, check again after registering
+            if (!accepting) {
+                reject(buf);
+                return;
+            }
+            offer(buf);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private void offer(ByteBuffer buf) {
+        boolean queued = queue.offer(buf);
+        if (!queued && !dropOnOverflow) {
+            // close() stops writer only when all producers are gone, so waiting always ends
+            blocked.incrementAndGet();
+            while (!queued && running) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(this, PRODUCER_WAIT_NANOS);
+                queued = queue.offer(buf);
+            }
+        }
+
+        if (!queued) {
+            dropped.incrementAndGet();
+            pool.offer(buf);
+            return;
+        }
+
+        if (queue.size() >= wakeUpThreshold) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void reject(ByteBuffer buf) {
+        pool.offer(buf);
+        if (dropOnOverflow) {
+            dropped.incrementAndGet();
+        } else if (rejected.incrementAndGet() == 1) {
+            log.error("File writer is closed, late records are not written");
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            forceIfNeeded(false);
+        }
+        drainAll();
+    }
+
+    private void drainAll() {
+        while (drain() > 0) {
+            log.debug("Draining remaining records");
+        }
+    }
+
+    private int drain() {
+        int count = 0;
+        ByteBuffer buf;
+        while (count < MAX_BATCH && (buf = queue.poll()) != null) {
+            batch[count++] = buf;
+        }
+
+        if (count > 0) {
+            try {
+                writeBatch(count);
+                written.addAndGet(count);
+                dirty = true;
+            } catch (IOException ex) {
+                log.error("Problems writing to file", ex);
+            }
+
+            for (int n = 0; n < count; n++) {
+                pool.offer(batch[n]);
+                batch[n] = null;
+            }
+        }
+        return count;
+    }
+
+    private void writeBatch(int count) throws IOException {
+        FileLock lock = channel.lock();
+        try {
+            int offset = 0;
+            while (offset < count) {
+                channel.write(batch, offset, count - offset);
+                while (offset < count && !batch[offset].hasRemaining()) {
+                    offset++;
+                }
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    private void forceIfNeeded(boolean closing) {
+        boolean force;
+        switch (fsyncPolicy) {
+            case BATCH:
+                force = true;
+                break;
+            case INTERVAL:
+                force = closing || System.nanoTime() - lastForce >= flushIntervalNanos;
+                break;
+            default:
+                force = closing;
+        }
+
+        if (force && dirty && channel.isOpen()) {
+            try {
+                channel.force(false);
+            } catch (IOException ex) {
+                log.error("Failed to force file contents to disk", ex);
+            }
+            lastForce = System.nanoTime();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Stops accepting records, waits for producers that are still queueing,
+     * then writes everything queued and stops writer thread
+     */
+    public void close() {
+        accepting = false;
+        while (producers.get() > 0) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, PRODUCER_WAIT_NANOS);
+        }
+
+        running = false;
+        Thread writer = thread;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException ex) {
+                log.warn("Interrupted while waiting for file writer to finish");
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (writer == null || !writer.isAlive()) {
+            // writer thread is gone, pick up records queued after its last drain
+            drainAll();
+        }
+        forceIfNeeded(true);
+
+        if (dropped.get() > 0 || blocked.get() > 0 || rejected.get() > 0) {
+            log.warn("Async file writer wrote " + written.get() + " records, dropped " + dropped.get()
+                    + ", rejected after close " + rejected.get()
+                    + ", producers waited for free space " + blocked.get() + " times");
+        } else {
+            log.debug("Async file writer wrote " + written.get() + " records");
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getBlockedCount() {
+        return blocked.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
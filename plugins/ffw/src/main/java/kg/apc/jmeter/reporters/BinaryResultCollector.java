@@ -0,0 +1,90 @@
+package kg.apc.jmeter.reporters;
+
+import kg.apc.jmeter.results.BinaryResultsWriter;
+import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.services.FileServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Records samples into compact binary results file instead of CSV/XML,
+ * see {@link kg.apc.jmeter.results.BinaryResultsFormat}.
+ * Such files are loaded back by {@link CorrectedResultCollector} without text parsing.
+ */
+public class BinaryResultCollector extends CorrectedResultCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryResultCollector.class);
+    private transient volatile BinaryResultsWriter writer;
+
+    @Override
+    public void testStarted(String host) {
+        openFile();
+        super.testStarted(host);
+    }
+
+    @Override
+    public void testEnded(String host) {
+        super.testEnded(host);
+        closeFile();
+    }
+
+    /**
+     * Binary file is written here, ResultCollector must not open it as CSV/XML
+     */
+    @Override
+    protected boolean hasOwnFileOutput() {
+        return writer != null || super.hasOwnFileOutput();
+    }
+
+    @Override
+    public void sampleOccurred(SampleEvent event) {
+        SampleResult result = event.getResult();
+        if (!isSampleWanted(result.isSuccessful())) {
+            return;
+        }
+
+        sendToVisualizer(result);
+        BinaryResultsWriter w = writer;
+        if (w != null) {
+            try {
+                w.add(result);
+            } catch (IOException ex) {
+                log.error("Failed to write sample to " + getFilename(), ex);
+            }
+        }
+    }
+
+    private synchronized void openFile() {
+        String filename = getFilename();
+        if (writer != null || filename.isEmpty()) {
+            return;
+        }
+
+        String path = FileServer.resolveBaseRelativeName(filename);
+        try {
+            writer = new BinaryResultsWriter(new BufferedOutputStream(new FileOutputStream(path)));
+            log.info("Writing binary results into " + path);
+        } catch (IOException ex) {
+            log.error("Cannot open file " + path, ex);
+        }
+    }
+
+    private synchronized void closeFile() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            log.error("Failed to close file " + getFilename(), ex);
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,105 @@
+package kg.apc.jmeter.reporters;
+
+import java.awt.BorderLayout;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+import kg.apc.jmeter.JMeterPluginsUtils;
+import kg.apc.jmeter.gui.BrowseAction;
+import kg.apc.jmeter.gui.GuiBuilderHelper;
+import kg.apc.jmeter.results.BinaryResultsFormat;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.visualizers.gui.AbstractListenerGui;
+
+public class BinaryResultCollectorGui extends AbstractListenerGui {
+
+    public static final String WIKIPAGE = "BinaryResultCollector";
+    private JTextField filename;
+
+    public BinaryResultCollectorGui() {
+        super();
+        init();
+        initFields();
+    }
+
+    @Override
+    public String getStaticLabel() {
+        return JMeterPluginsUtils.prefixLabel("Binary Results Writer");
+    }
+
+    @Override
+    public String getLabelResource() {
+        return getClass().getCanonicalName();
+    }
+
+    @Override
+    public TestElement createTestElement() {
+        TestElement te = new BinaryResultCollector();
+        modifyTestElement(te);
+        te.setComment(JMeterPluginsUtils.getWikiLinkText(WIKIPAGE));
+        return te;
+    }
+
+    @Override
+    public void modifyTestElement(TestElement te) {
+        super.configureTestElement(te);
+        if (te instanceof BinaryResultCollector) {
+            ((BinaryResultCollector) te).setFilename(filename.getText());
+        }
+    }
+
+    @Override
+    public void clearGui() {
+        super.clearGui();
+        initFields();
+    }
+
+    private void initFields() {
+        filename.setText("testResults" + BinaryResultsFormat.FILE_EXTENSION);
+    }
+
+    @Override
+    public void configure(TestElement element) {
+        super.configure(element);
+        filename.setText(((BinaryResultCollector) element).getFilename());
+    }
+
+    private void init() {
+        setLayout(new BorderLayout(0, 5));
+        setBorder(makeBorder());
+
+        add(JMeterPluginsUtils.addHelpLinkToPanel(makeTitlePanel(), WIKIPAGE), BorderLayout.NORTH);
+
+        JPanel mainPanel = new JPanel(new GridBagLayout());
+
+        GridBagConstraints labelConstraints = new GridBagConstraints();
+        labelConstraints.anchor = GridBagConstraints.FIRST_LINE_END;
+
+        GridBagConstraints editConstraints = new GridBagConstraints();
+        editConstraints.anchor = GridBagConstraints.FIRST_LINE_START;
+        editConstraints.weightx = 1.0;
+        editConstraints.fill = GridBagConstraints.HORIZONTAL;
+
+        addToPanel(mainPanel, labelConstraints, 0, 1, new JLabel("Filename: ", JLabel.RIGHT));
+        addToPanel(mainPanel, editConstraints, 1, 1, filename = new JTextField(20));
+        JButton browseButton = new JButton("Browse...");
+        addToPanel(mainPanel, labelConstraints, 2, 1, browseButton);
+        GuiBuilderHelper.strechItemToComponent(filename, browseButton);
+        browseButton.addActionListener(new BrowseAction(filename));
+
+        JPanel container = new JPanel(new BorderLayout());
+        container.add(mainPanel, BorderLayout.NORTH);
+        add(container, BorderLayout.CENTER);
+    }
+
+    private void addToPanel(JPanel panel, GridBagConstraints constraints, int col, int row, JComponent component) {
+        constraints.gridx = col;
+        constraints.gridy = row;
+        panel.add(component, constraints);
+    }
+}
@@ -0,0 +1,381 @@
+package kg.apc.jmeter.reporters;
+
+import kg.apc.jmeter.JMeterPluginsUtils;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes one column of FlexibleFileWriter record straight into the buffer.
+ * Numbers are printed digit by digit and repeated strings are encoded once,
+ * so numeric-only column sets produce no garbage per sample.
+ */
+abstract class ColumnEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnEncoder.class);
+    private static final byte[] b1 = "1".getBytes();
+    private static final byte[] b0 = "0".getBytes();
+    private static final byte[] LONG_MIN = String.valueOf(Long.MIN_VALUE).getBytes();
+    private static final int STRING_CACHE_SIZE = 1024;
+
+    public abstract void encode(ByteBuffer buf, SampleEvent evt);
+
+    public static ColumnEncoder constant(String str) {
+        return new Constant(str.getBytes());
+    }
+
+    public static ColumnEncoder variable(int varID) {
+        return new Variable(varID);
+    }
+
+    /**
+     * @param fieldID index in {@link FlexibleFileWriter#AVAILABLE_FIELDS}
+     * @return null for unknown field
+     */
+    public static ColumnEncoder field(int fieldID) {
+        switch (fieldID) {
+            case 0:
+                return new BooleanField() {
+                    @Override
+                    protected boolean get(SampleResult result) {
+                        return result.isSuccessful();
+                    }
+                };
+            case 1:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getStartTime();
+                    }
+                };
+            case 2:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getEndTime();
+                    }
+                };
+            case 3:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getSamplerData() != null ? result.getSamplerData().length() : 0;
+                    }
+                };
+            case 4:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getResponseData() != null ? result.getResponseData().length : 0;
+                    }
+                };
+            case 5:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getTime();
+                    }
+                };
+            case 6:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getLatency();
+                    }
+                };
+            case 7:
+                return new CachedStringField() {
+                    @Override
+                    protected String get(SampleResult result) {
+                        return result.getResponseCode();
+                    }
+                };
+            case 8:
+                return new CachedStringField() {
+                    @Override
+                    protected String get(SampleResult result) {
+                        return result.getResponseMessage();
+                    }
+                };
+            case 9:
+                return new BooleanField() {
+                    @Override
+                    protected boolean get(SampleResult result) {
+                        return !result.isSuccessful();
+                    }
+                };
+            case 10:
+                return new CachedStringField() {
+                    @Override
+                    protected String get(SampleResult result) {
+                        return result.getThreadName();
+                    }
+                };
+            case 11:
+                return new CachedStringField() {
+                    @Override
+                    protected String get(SampleResult result) {
+                        return result.getSampleLabel();
+                    }
+                };
+            case 12:
+                return new MillisField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getStartTime();
+                    }
+                };
+            case 13:
+                return new MillisField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getEndTime();
+                    }
+                };
+            case 14:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getTime() * 1000;
+                    }
+                };
+            case 15:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getLatency() * 1000;
+                    }
+                };
+            case 16:
+                return new ColumnEncoder() {
+                    @Override
+                    public void encode(ByteBuffer buf, SampleEvent evt) {
+                        String data = evt.getResult().getSamplerData();
+                        buf.put(data != null ? data.getBytes(JMeterPluginsUtils.CHARSET) : b0);
+                    }
+                };
+            case 17:
+                return new ColumnEncoder() {
+                    @Override
+                    public void encode(ByteBuffer buf, SampleEvent evt) {
+                        buf.put(evt.getResult().getResponseData());
+                    }
+                };
+            case 18:
+                return new ColumnEncoder() {
+                    @Override
+                    public void encode(ByteBuffer buf, SampleEvent evt) {
+                        buf.put(evt.getResult().getResponseHeaders().getBytes(JMeterPluginsUtils.CHARSET));
+                    }
+                };
+            case 19:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getAllThreads();
+                    }
+                };
+            case 20:
+                return new ColumnEncoder() {
+                    @Override
+                    public void encode(ByteBuffer buf, SampleEvent evt) {
+                        buf.put(String.valueOf(evt.getResult().getRequestHeaders()).getBytes(JMeterPluginsUtils.CHARSET));
+                    }
+                };
+            case 21:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getConnectTime();
+                    }
+                };
+            case 22:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getGroupThreads();
+                    }
+                };
+            case 23:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getSampleCount();
+                    }
+                };
+            case 24:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getErrorCount();
+                    }
+                };
+            case 25:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getHeadersSize();
+                    }
+                };
+            case 26:
+                return new LongField() {
+                    @Override
+                    protected long get(SampleResult result) {
+                        return result.getBodySize();
+                    }
+                };
+            case 27:
+                return new CachedStringField() {
+                    @Override
+                    protected String get(SampleResult result) {
+                        return result.getUrlAsString();
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    static void putLong(ByteBuffer buf, long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                buf.put(LONG_MIN);
+                return;
+            }
+            buf.put((byte) '-');
+            value = -value;
+        }
+        putDigits(buf, value, 1);
+    }
+
+    /**
+     * Prints value with decimal point before last 3 digits, e.g. 1234 as 1.234
+     */
+    static void putMillis(ByteBuffer buf, long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                buf.put(LONG_MIN);
+                return;
+            }
+            buf.put((byte) '-');
+            value = -value;
+        }
+        putDigits(buf, value / 1000, 1);
+        buf.put((byte) '.');
+        putDigits(buf, value % 1000, 3);
+    }
+
+    private static void putDigits(ByteBuffer buf, long value, int minDigits) {
+        int digits = 1;
+        for (long n = value / 10; n > 0; n /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+
+        if (buf.remaining() < digits) {
+            throw new BufferOverflowException();
+        }
+
+        int start = buf.position();
+        for (int pos = start + digits - 1; pos >= start; pos--) {
+            buf.put(pos, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buf.position(start + digits);
+    }
+
+    private static class Constant extends ColumnEncoder {
+
+        private final byte[] bytes;
+
+        public Constant(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void encode(ByteBuffer buf, SampleEvent evt) {
+            buf.put(bytes);
+        }
+    }
+
+    private static class Variable extends ColumnEncoder {
+
+        private final int varID;
+
+        public Variable(int varID) {
+            this.varID = varID;
+        }
+
+        @Override
+        public void encode(ByteBuffer buf, SampleEvent evt) {
+            if (SampleEvent.getVarCount() < varID + 1) {
+                buf.put(("UNDEFINED_variable#" + varID).getBytes());
+                log.warn("variable#" + varID + " does not exist!");
+            } else {
+                if (evt.getVarValue(varID) != null) {
+                    buf.put(evt.getVarValue(varID).getBytes());
+                }
+            }
+        }
+    }
+
+    private abstract static class BooleanField extends ColumnEncoder {
+
+        protected abstract boolean get(SampleResult result);
+
+        @Override
+        public void encode(ByteBuffer buf, SampleEvent evt) {
+            buf.put(get(evt.getResult()) ? b1 : b0);
+        }
+    }
+
+    private abstract static class LongField extends ColumnEncoder {
+
+        protected abstract long get(SampleResult result);
+
+        @Override
+        public void encode(ByteBuffer buf, SampleEvent evt) {
+            putLong(buf, get(evt.getResult()));
+        }
+    }
+
+    private abstract static class MillisField extends LongField {
+
+        @Override
+        public void encode(ByteBuffer buf, SampleEvent evt) {
+            putMillis(buf, get(evt.getResult()));
+        }
+    }
+
+    /**
+     * Keeps encoded bytes for first {@link #STRING_CACHE_SIZE} distinct values
+     */
+    private abstract static class CachedStringField extends ColumnEncoder {
+
+        private final ConcurrentHashMap<String, byte[]> cache = new ConcurrentHashMap<>();
+
+        protected abstract String get(SampleResult result);
+
+        @Override
+        public void encode(ByteBuffer buf, SampleEvent evt) {
+            String str = get(evt.getResult());
+            if (str == null) {
+                return;
+            }
+
+            byte[] bytes = cache.get(str);
+            if (bytes == null) {
+                bytes = str.getBytes(JMeterPluginsUtils.CHARSET);
+                if (cache.size() < STRING_CACHE_SIZE) {
+                    cache.put(str, bytes);
+                }
+            }
+            buf.put(bytes);
+        }
+    }
+}
@@ -1,5 +1,4 @@
 // TODO: add startTimeSec - integer epoch seconds only - why startTime does not apply?
-// TODO: buffer file writes to bigger chunks?
 package kg.apc.jmeter.reporters;
 
 import kg.apc.jmeter.JMeterPluginsUtils;
@@ -9,7 +8,6 @@ import org.apache.jmeter.reporters.ResultCollector;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleListener;
-import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.LoggerFactory;
@@ -54,14 +52,17 @@ public class FlexibleFileWriter
     private static final String FOOTER = "footer";
     private static final String VAR_PREFIX = "variable#";
     private static final String WRITE_BUFFER_LEN_PROPERTY = "kg.apc.jmeter.reporters.FFWBufferSize";
+    private static final String ASYNC_PROPERTY = "kg.apc.jmeter.reporters.FFWAsync";
+    private static final String QUEUE_SIZE_PROPERTY = "kg.apc.jmeter.reporters.FFWQueueSize";
+    private static final String FLUSH_INTERVAL_PROPERTY = "kg.apc.jmeter.reporters.FFWFlushInterval";
+    private static final String FSYNC_PROPERTY = "kg.apc.jmeter.reporters.FFWFsync";
+    private static final String DROP_ON_OVERFLOW_PROPERTY = "kg.apc.jmeter.reporters.FFWDropOnOverflow";
     private final int writeBufferSize = JMeterUtils.getPropDefault(WRITE_BUFFER_LEN_PROPERTY, 1024 * 10);
     protected volatile FileChannel fileChannel;
-    private int[] compiledVars;
-    private int[] compiledFields;
-    private ByteBuffer[] compiledConsts;
+    private transient volatile AsyncChannelWriter asyncWriter;
+    private transient ThreadLocal<ByteBuffer> threadBuffer;
+    private ColumnEncoder[] compiledColumns;
     private ArrayList<String> availableFieldNames = new ArrayList<>(Arrays.asList(AVAILABLE_FIELDS.trim().split(" ")));
-    private static final byte[] b1 = "1".getBytes();
-    private static final byte[] b0 = "0".getBytes();
 
     public FlexibleFileWriter() {
         super();
@@ -78,8 +79,17 @@ public class FlexibleFileWriter
     @Override
     public void testStarted() {
         compileColumns();
+        threadBuffer = new ThreadLocal<ByteBuffer>() {
+            @Override
+            protected ByteBuffer initialValue() {
+                return ByteBuffer.allocateDirect(writeBufferSize);
+            }
+        };
         try {
             openFile();
+            if (JMeterUtils.getPropDefault(ASYNC_PROPERTY, false)) {
+                startAsyncWriter();
+            }
         } catch (FileNotFoundException ex) {
             log.error("Cannot open file " + getFilename(), ex);
         } catch (IOException ex) {
@@ -150,25 +160,21 @@ public class FlexibleFileWriter
         log.debug("Compiling columns string: " + getColumns());
         String[] chunks = JMeterPluginsUtils.replaceRNT(getColumns()).split("\\|");
         log.debug("Chunks " + chunks.length);
-        compiledFields = new int[chunks.length];
-        compiledVars = new int[chunks.length];
-        compiledConsts = new ByteBuffer[chunks.length];
+        compiledColumns = new ColumnEncoder[chunks.length];
         for (int n = 0; n < chunks.length; n++) {
             int fieldID = availableFieldNames.indexOf(chunks[n]);
             if (fieldID >= 0) {
                 //log.debug(chunks[n] + " field id: " + fieldID);
-                compiledFields[n] = fieldID;
+                compiledColumns[n] = ColumnEncoder.field(fieldID);
             } else {
-                compiledFields[n] = -1;
-                compiledVars[n] = -1;
                 if (chunks[n].contains(VAR_PREFIX)) {
                     log.debug(chunks[n] + " is sample variable");
                     String varN = chunks[n].substring(VAR_PREFIX.length());
                     try {
-                        compiledVars[n] = Integer.parseInt(varN);
+                        compiledColumns[n] = ColumnEncoder.variable(Integer.parseInt(varN));
                     } catch (NumberFormatException e) {
                         log.error("Seems it is not variable spec: " + chunks[n]);
-                        compiledConsts[n] = ByteBuffer.wrap(chunks[n].getBytes());
+                        compiledColumns[n] = ColumnEncoder.constant(chunks[n]);
                     }
                 } else {
                     log.debug(chunks[n] + " is const");
@@ -177,7 +183,7 @@ public class FlexibleFileWriter
                         chunks[n] = "|";
                     }
 
-                    compiledConsts[n] = ByteBuffer.wrap(chunks[n].getBytes());
+                    compiledColumns[n] = ColumnEncoder.constant(chunks[n]);
                 }
             }
         }
@@ -194,7 +200,33 @@ public class FlexibleFileWriter
         }
     }
 
+    private void startAsyncWriter() {
+        String policy = JMeterUtils.getPropDefault(FSYNC_PROPERTY, AsyncChannelWriter.FsyncPolicy.CLOSE.name());
+        AsyncChannelWriter.FsyncPolicy fsyncPolicy;
+        try {
+            fsyncPolicy = AsyncChannelWriter.FsyncPolicy.valueOf(policy.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            log.warn("Unknown fsync policy " + policy + ", using " + AsyncChannelWriter.FsyncPolicy.CLOSE);
+            fsyncPolicy = AsyncChannelWriter.FsyncPolicy.CLOSE;
+        }
+
+        AsyncChannelWriter writer = new AsyncChannelWriter(fileChannel, writeBufferSize,
+                JMeterUtils.getPropDefault(QUEUE_SIZE_PROPERTY, 1024),
+                JMeterUtils.getPropDefault(FLUSH_INTERVAL_PROPERTY, 1000L),
+                fsyncPolicy,
+                JMeterUtils.getPropDefault(DROP_ON_OVERFLOW_PROPERTY, false));
+        writer.start("FlexibleFileWriter " + getName());
+        asyncWriter = writer;
+        log.info("Writing " + getFilename() + " asynchronously, fsync policy: " + fsyncPolicy);
+    }
+
     private synchronized void closeFile() {
+        AsyncChannelWriter writer = asyncWriter;
+        if (writer != null) {
+            asyncWriter = null;
+            writer.close();
+        }
+
         if (fileChannel != null && fileChannel.isOpen()) {
             try {
                 String footer = JMeterPluginsUtils.replaceRNT(getFileFooter());
@@ -219,22 +251,20 @@ public class FlexibleFileWriter
             return;
         }
 
-        ByteBuffer buf = ByteBuffer.allocateDirect(writeBufferSize);
-        for (int n = 0; n < compiledConsts.length; n++) {
-            if (compiledConsts[n] != null) {
-                //noinspection SynchronizeOnNonFinalField
-                synchronized (compiledConsts) {
-                    buf.put(compiledConsts[n].duplicate());
-                }
-            } else {
-                if (!appendSampleResultField(buf, evt.getResult(), compiledFields[n])) {
-                    appendSampleVariable(buf, evt, compiledVars[n]);
-                }
-            }
+        AsyncChannelWriter writer = asyncWriter;
+        ByteBuffer buf = writer != null ? writer.acquire() : threadBuffer.get();
+        buf.clear();
+        for (ColumnEncoder column : compiledColumns) {
+            column.encode(buf, evt);
         }
 
         buf.flip();
 
+        if (writer != null) {
+            writer.write(buf);
+            return;
+        }
+
         try {
             syncWrite(buf);
         } catch (IOException ex) {
@@ -250,165 +280,4 @@ public class FlexibleFileWriter
             lock.release();
         }
     }
-
-    /*
-     * we work with timestamps, so we assume number > 1000 to avoid tests
-     * to be faster
-     */
-    private String getShiftDecimal(long number, int shift) {
-        StringBuilder builder = new StringBuilder();
-        builder.append(number);
-
-        int index = builder.length() - shift;
-        builder.insert(index, ".");
-
-        return builder.toString();
-    }
-
-    private void appendSampleVariable(ByteBuffer buf, SampleEvent evt, int varID) {
-        if (SampleEvent.getVarCount() < varID + 1) {
-            buf.put(("UNDEFINED_variable#" + varID).getBytes());
-            log.warn("variable#" + varID + " does not exist!");
-        } else {
-            if (evt.getVarValue(varID) != null) {
-                buf.put(evt.getVarValue(varID).getBytes());
-            }
-        }
-    }
-
-    /**
-     * @return boolean true if existing field found, false instead
-     */
-    private boolean appendSampleResultField(ByteBuffer buf, SampleResult result, int fieldID) {
-        // IMPORTANT: keep this as fast as possible
-        switch (fieldID) {
-            case 0:
-                buf.put(result.isSuccessful() ? b1 : b0);
-                break;
-
-            case 1:
-                buf.put(String.valueOf(result.getStartTime()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 2:
-                buf.put(String.valueOf(result.getEndTime()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 3:
-                if (result.getSamplerData() != null) {
-                    buf.put(String.valueOf(result.getSamplerData().length()).getBytes(JMeterPluginsUtils.CHARSET));
-                } else {
-                    buf.put(b0);
-                }
-                break;
-
-            case 4:
-                if (result.getResponseData() != null) {
-                    buf.put(String.valueOf(result.getResponseData().length).getBytes(JMeterPluginsUtils.CHARSET));
-                } else {
-                    buf.put(b0);
-                }
-                break;
-
-            case 5:
-                buf.put(String.valueOf(result.getTime()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 6:
-                buf.put(String.valueOf(result.getLatency()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 7:
-                buf.put(result.getResponseCode().getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 8:
-                buf.put(result.getResponseMessage().getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 9:
-                buf.put(!result.isSuccessful() ? b1 : b0);
-                break;
-
-            case 10:
-                buf.put(result.getThreadName().getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 11:
-                buf.put(result.getSampleLabel().getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 12:
-                buf.put(getShiftDecimal(result.getStartTime(), 3).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 13:
-                buf.put(getShiftDecimal(result.getEndTime(), 3).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 14:
-                buf.put(String.valueOf(result.getTime() * 1000).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 15:
-                buf.put(String.valueOf(result.getLatency() * 1000).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 16:
-                if (result.getSamplerData() != null) {
-                    buf.put(result.getSamplerData().getBytes(JMeterPluginsUtils.CHARSET));
-                } else {
-                    buf.put(b0);
-                }
-                break;
-
-            case 17:
-                buf.put(result.getResponseData());
-                break;
-
-            case 18:
-                buf.put(result.getResponseHeaders().getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 19:
-                buf.put(String.valueOf(result.getAllThreads()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 20:
-                buf.put(String.valueOf(result.getRequestHeaders()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 21:
-                buf.put(String.valueOf(result.getConnectTime()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 22:
-                buf.put(String.valueOf(result.getGroupThreads()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 23:
-                buf.put(String.valueOf(result.getSampleCount()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 24:
-                buf.put(String.valueOf(result.getErrorCount()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 25:
-                buf.put(String.valueOf(result.getHeadersSize()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 26:
-                buf.put(String.valueOf(result.getBodySize()).getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            case 27:
-                buf.put(result.getUrlAsString().getBytes(JMeterPluginsUtils.CHARSET));
-                break;
-
-            default:
-                return false;
-        }
-        return true;
-    }
 }
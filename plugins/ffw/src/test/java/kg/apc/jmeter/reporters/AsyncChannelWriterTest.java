@@ -0,0 +1,119 @@
+package kg.apc.jmeter.reporters;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncChannelWriterTest {
+
+    private static void put(AsyncChannelWriter instance, String str) {
+        ByteBuffer buf = instance.acquire();
+        buf.put(str.getBytes());
+        buf.flip();
+        instance.write(buf);
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        System.out.println("write");
+        File f = File.createTempFile("ffw_test_", ".txt");
+        FileChannel channel = new FileOutputStream(f).getChannel();
+        AsyncChannelWriter instance = new AsyncChannelWriter(channel, 16, 2, 10,
+                AsyncChannelWriter.FsyncPolicy.INTERVAL, false);
+        instance.start("test");
+        for (int n = 0; n < 1000; n++) {
+            put(instance, "0123456789");
+        }
+        instance.close();
+        channel.close();
+        assertEquals(1000, instance.getWrittenCount());
+        assertEquals(0, instance.getDroppedCount());
+        assertEquals(10000, f.length());
+    }
+
+    @Test
+    public void testWrite_drop() throws IOException {
+        System.out.println("write with drop");
+        File f = File.createTempFile("ffw_test_", ".txt");
+        FileChannel channel = new FileOutputStream(f).getChannel();
+        AsyncChannelWriter instance = new AsyncChannelWriter(channel, 16, 2, 10,
+                AsyncChannelWriter.FsyncPolicy.CLOSE, true);
+        // writer thread is not started, so queue overflows
+        for (int n = 0; n < 5; n++) {
+            put(instance, "x");
+        }
+        assertEquals(3, instance.getDroppedCount());
+        instance.close();
+        channel.close();
+        assertEquals(2, instance.getWrittenCount());
+        assertEquals(2, f.length());
+        assertTrue(instance.getBlockedCount() == 0);
+    }
+
+    @Test(timeout = 20000)
+    public void testClose_producersRunning() throws Exception {
+        System.out.println("close while producers are running");
+        File f = File.createTempFile("ffw_test_", ".txt");
+        FileChannel channel = new FileOutputStream(f).getChannel();
+        final AsyncChannelWriter instance = new AsyncChannelWriter(channel, 16, 4, 10,
+                AsyncChannelWriter.FsyncPolicy.CLOSE, false);
+        instance.start("test");
+        final CountDownLatch started = new CountDownLatch(4);
+        final AtomicLong offered = new AtomicLong();
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread[] threads = new Thread[4];
+        for (int n = 0; n < threads.length; n++) {
+            threads[n] = new Thread() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    while (!stop.get()) {
+                        put(instance, "x");
+                        offered.incrementAndGet();
+                    }
+                }
+            };
+            threads[n].start();
+        }
+        started.await();
+        Thread.sleep(100);
+        instance.close();
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        channel.close();
+
+        assertEquals(0, instance.getDroppedCount());
+        assertEquals(offered.get(), instance.getWrittenCount() + instance.getRejectedCount());
+        assertEquals(instance.getWrittenCount(), f.length());
+    }
+
+    @Test
+    public void testWrite_afterClose() throws IOException {
+        System.out.println("write after close");
+        File f = File.createTempFile("ffw_test_", ".txt");
+        FileChannel channel = new FileOutputStream(f).getChannel();
+        AsyncChannelWriter instance = new AsyncChannelWriter(channel, 16, 2, 10,
+                AsyncChannelWriter.FsyncPolicy.CLOSE, false);
+        instance.start("test");
+        put(instance, "x");
+        instance.close();
+        put(instance, "y");
+        channel.close();
+        assertEquals(1, instance.getWrittenCount());
+        assertEquals(0, instance.getDroppedCount());
+        assertEquals(1, instance.getRejectedCount());
+        assertEquals(1, f.length());
+    }
+}
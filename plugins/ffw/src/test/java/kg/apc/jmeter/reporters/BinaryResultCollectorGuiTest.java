@@ -0,0 +1,59 @@
+package kg.apc.jmeter.reporters;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.testelement.TestElement;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryResultCollectorGuiTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    @Test
+    public void testGetStaticLabel() {
+        System.out.println("getStaticLabel");
+        BinaryResultCollectorGui instance = new BinaryResultCollectorGui();
+        assertTrue(instance.getStaticLabel().length() > 0);
+    }
+
+    @Test
+    public void testGetLabelResource() {
+        System.out.println("getLabelResource");
+        BinaryResultCollectorGui instance = new BinaryResultCollectorGui();
+        assertTrue(instance.getLabelResource().length() > 0);
+    }
+
+    @Test
+    public void testCreateTestElement() {
+        System.out.println("createTestElement");
+        BinaryResultCollectorGui instance = new BinaryResultCollectorGui();
+        TestElement result = instance.createTestElement();
+        assertTrue(result instanceof BinaryResultCollector);
+        assertEquals("testResults.jtlb", ((BinaryResultCollector) result).getFilename());
+    }
+
+    @Test
+    public void testConfigure() {
+        System.out.println("configure");
+        BinaryResultCollector element = new BinaryResultCollector();
+        element.setFilename("other.jtlb");
+        BinaryResultCollectorGui instance = new BinaryResultCollectorGui();
+        instance.configure(element);
+        TestElement modified = new BinaryResultCollector();
+        instance.modifyTestElement(modified);
+        assertEquals("other.jtlb", ((BinaryResultCollector) modified).getFilename());
+    }
+
+    @Test
+    public void testClearGui() {
+        System.out.println("clearGui");
+        BinaryResultCollectorGui instance = new BinaryResultCollectorGui();
+        instance.clearGui();
+    }
+}
@@ -0,0 +1,79 @@
+package kg.apc.jmeter.reporters;
+
+import kg.apc.emulators.TestJMeterUtils;
+import kg.apc.jmeter.results.BinaryResultsReader;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryResultCollectorTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    @Test
+    public void testSampleOccurred() throws IOException {
+        System.out.println("sampleOccurred");
+        File tmpFile = File.createTempFile("brc_test_", ".jtlb");
+        tmpFile.deleteOnExit();
+        BinaryResultCollector instance = new BinaryResultCollector();
+        instance.setFilename(tmpFile.getAbsolutePath());
+        instance.testStarted();
+        for (int n = 0; n < 10; n++) {
+            SampleResult res = SampleResult.createTestSample(1000 + n, 1010 + 2 * n);
+            res.setSampleLabel("label" + (n % 2));
+            res.setSuccessful(true);
+            instance.sampleOccurred(new SampleEvent(res, "Test"));
+        }
+        instance.testEnded();
+
+        assertTrue(BinaryResultsReader.isBinaryFile(tmpFile));
+        try (BinaryResultsReader reader = new BinaryResultsReader(tmpFile)) {
+            for (int n = 0; n < 10; n++) {
+                SampleResult res = reader.next();
+                assertEquals(1000 + n, res.getStartTime());
+                assertEquals(10 + n, res.getTime());
+                assertEquals("label" + (n % 2), res.getSampleLabel());
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testSampleOccurred_errorsOnly() throws IOException {
+        System.out.println("sampleOccurred errors only");
+        File tmpFile = File.createTempFile("brc_test_", ".jtlb");
+        tmpFile.deleteOnExit();
+        BinaryResultCollector instance = new BinaryResultCollector();
+        instance.setFilename(tmpFile.getAbsolutePath());
+        instance.setErrorLogging(true);
+        instance.testStarted();
+        SampleResult ok = SampleResult.createTestSample(1000, 1010);
+        ok.setSuccessful(true);
+        instance.sampleOccurred(new SampleEvent(ok, "Test"));
+        instance.sampleOccurred(new SampleEvent(SampleResult.createTestSample(1020, 1030), "Test"));
+        instance.testEnded();
+
+        try (BinaryResultsReader reader = new BinaryResultsReader(tmpFile)) {
+            assertEquals(1020, reader.next().getStartTime());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testTestEnded_notStarted() {
+        System.out.println("testEnded not started");
+        BinaryResultCollector instance = new BinaryResultCollector();
+        instance.testEnded();
+    }
+}
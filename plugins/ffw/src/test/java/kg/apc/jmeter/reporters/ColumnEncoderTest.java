@@ -0,0 +1,103 @@
+package kg.apc.jmeter.reporters;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ColumnEncoderTest {
+
+    private ByteBuffer buf;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    @Before
+    public void setUp() {
+        buf = ByteBuffer.allocate(64);
+    }
+
+    private String written() {
+        buf.flip();
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        buf.clear();
+        return new String(bytes);
+    }
+
+    @Test
+    public void testPutLong() {
+        System.out.println("putLong");
+        long[] values = {0, 7, 10, 999, 1234567890123L, -42, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            ColumnEncoder.putLong(buf, value);
+            assertEquals(String.valueOf(value), written());
+        }
+    }
+
+    @Test
+    public void testPutMillis() {
+        System.out.println("putMillis");
+        ColumnEncoder.putMillis(buf, 1400000000123L);
+        assertEquals("1400000000.123", written());
+        ColumnEncoder.putMillis(buf, 1005);
+        assertEquals("1.005", written());
+        ColumnEncoder.putMillis(buf, 5);
+        assertEquals("0.005", written());
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testPutLong_overflow() {
+        System.out.println("putLong overflow");
+        ColumnEncoder.putLong(ByteBuffer.allocate(3), 1234);
+    }
+
+    @Test
+    public void testField() {
+        System.out.println("field");
+        SampleResult res = SampleResult.createTestSample(1000, 1250);
+        res.setSampleLabel("label");
+        res.setLatency(15);
+        res.setResponseCode("200");
+        res.setSuccessful(true);
+        SampleEvent evt = new SampleEvent(res, "Test");
+
+        ColumnEncoder.field(5).encode(buf, evt);
+        assertEquals("250", written());
+        ColumnEncoder.field(14).encode(buf, evt);
+        assertEquals("250000", written());
+        ColumnEncoder.field(13).encode(buf, evt);
+        assertEquals("1.250", written());
+        ColumnEncoder.field(9).encode(buf, evt);
+        assertEquals("0", written());
+
+        ColumnEncoder label = ColumnEncoder.field(11);
+        label.encode(buf, evt);
+        label.encode(buf, evt);
+        assertEquals("labellabel", written());
+        res.setSampleLabel("other");
+        label.encode(buf, evt);
+        assertEquals("other", written());
+
+        assertNull(ColumnEncoder.field(100));
+    }
+
+    @Test
+    public void testConstant() {
+        System.out.println("constant");
+        ColumnEncoder instance = ColumnEncoder.constant("\t");
+        instance.encode(buf, null);
+        instance.encode(buf, null);
+        assertEquals("\t\t", written());
+    }
+}
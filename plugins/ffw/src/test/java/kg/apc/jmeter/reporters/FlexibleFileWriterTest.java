@@ -10,6 +10,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -136,6 +137,37 @@ public class FlexibleFileWriterTest {
         instance.testEnded();
     }
 
+    @Test
+    public void testSampleOccurred_async() throws IOException {
+        System.out.println("sampleOccurred async");
+        JMeterUtils.setProperty("kg.apc.jmeter.reporters.FFWAsync", "true");
+        JMeterUtils.setProperty("kg.apc.jmeter.reporters.FFWQueueSize", "4");
+        JMeterUtils.setProperty("kg.apc.jmeter.reporters.FFWFsync", "batch");
+        try {
+            SampleResult res = new SampleResult();
+            SampleEvent e = new SampleEvent(res, "Test");
+            FlexibleFileWriter instance = new FlexibleFileWriter();
+            instance.setColumns("latency|\\r\\n");
+            instance.setFileFooter("end");
+            File f = File.createTempFile("ffw_test_", ".txt");
+            instance.setFilename(f.getAbsolutePath());
+            instance.testStarted();
+            StringBuilder exp = new StringBuilder();
+            for (int n = 0; n < 100; n++) {
+                res.setLatency(n);
+                instance.sampleOccurred(e);
+                exp.append(n).append("\r\n");
+            }
+            instance.testEnded();
+            exp.append("end");
+            assertEquals(exp.toString(), new String(Files.readAllBytes(f.toPath())));
+        } finally {
+            JMeterUtils.setProperty("kg.apc.jmeter.reporters.FFWAsync", "false");
+            JMeterUtils.getJMeterProperties().remove("kg.apc.jmeter.reporters.FFWQueueSize");
+            JMeterUtils.getJMeterProperties().remove("kg.apc.jmeter.reporters.FFWFsync");
+        }
+    }
+
     @Test
     public void testSampleStarted() {
         System.out.println("sampleStarted");
@@ -0,0 +1,74 @@
+package kg.apc.jmeter.reporters;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void testOfferPoll() {
+        System.out.println("offer/poll");
+        MpscRingBuffer<Integer> instance = new MpscRingBuffer<>(3);
+        assertEquals(4, instance.capacity());
+        assertNull(instance.poll());
+        for (int n = 0; n < 4; n++) {
+            assertTrue(instance.offer(n));
+        }
+        assertFalse(instance.offer(4));
+        assertEquals(4, instance.size());
+        assertEquals(0, (int) instance.poll());
+        assertTrue(instance.offer(4));
+        for (int n = 1; n <= 4; n++) {
+            assertEquals(n, (int) instance.poll());
+        }
+        assertNull(instance.poll());
+        assertEquals(0, instance.size());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        System.out.println("concurrent producers");
+        final MpscRingBuffer<Integer> instance = new MpscRingBuffer<>(64);
+        final int producers = 4;
+        final int perProducer = 10000;
+        final CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int n = 0; n < perProducer; n++) {
+                        while (!instance.offer(1)) {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+
+        long received = 0;
+        while (received < producers * perProducer) {
+            Integer value = instance.poll();
+            if (value != null) {
+                received += value;
+            } else {
+                Thread.yield();
+            }
+        }
+        done.await();
+        assertEquals(producers * perProducer, received);
+        assertNull(instance.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacity() {
+        System.out.println("capacity");
+        new MpscRingBuffer<Integer>(0);
+    }
+}
@@ -0,0 +1,178 @@
+package kg.apc.jmeter.jmxmon;
+
+import java.io.IOException;
+import java.rmi.ConnectException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServerConnection;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samplers reading attributes of the same MBean through the same connection.
+ * All their attributes are fetched by single getAttributes call per bean and poll.
+ * Bean name pattern, like java.lang:type=GarbageCollector,*, is expanded into matching
+ * beans, each of them gets own labels. Expanded names are refreshed every
+ * jmeterPlugin.jmxmon.patternRefresh milliseconds or when one of beans disappears.
+ */
+class JMXMonBeanGroup {
+    private static final Logger log = LoggerFactory.getLogger(JMXMonBeanGroup.class);
+
+    private final List<JMXMonSampler> samplers = new ArrayList<JMXMonSampler>();
+    private final long refreshInterval;
+    private String[] attributes = new String[0];
+    private List<ObjectName> beans;
+    private long resolvedAt;
+
+    JMXMonBeanGroup(JMXMonSampler sampler) {
+        refreshInterval = JMeterUtils.getPropDefault("jmeterPlugin.jmxmon.patternRefresh", 60000L);
+        add(sampler);
+    }
+
+    /**
+     * @return false if sampler reads other bean or uses other connection
+     */
+    boolean accepts(JMXMonSampler sampler) {
+        JMXMonSampler first = samplers.get(0);
+        return first.getObjectName().equals(sampler.getObjectName())
+                && first.getConnectionKey().equals(sampler.getConnectionKey());
+    }
+
+    final void add(JMXMonSampler sampler) {
+        samplers.add(sampler);
+        Set<String> names = new LinkedHashSet<String>();
+        for (JMXMonSampler added : samplers) {
+            names.add(added.getAttribute());
+        }
+        attributes = names.toArray(new String[names.size()]);
+    }
+
+    String getUrl() {
+        return samplers.get(0).getUrl().getStringValue();
+    }
+
+    String getObjectName() {
+        return samplers.get(0).getObjectName();
+    }
+
+    List<JMXMonSampler> getSamplers() {
+        return samplers;
+    }
+
+    public void generateSamples(JMXMonSampleGenerator collector) {
+        List<JMXMonSampler> active = new ArrayList<JMXMonSampler>(samplers.size());
+        for (JMXMonSampler sampler : samplers) {
+            if (!sampler.isDisabled()) {
+                active.add(sampler);
+            }
+        }
+        if (active.isEmpty()) {
+            return;
+        }
+
+        JMXMonSampler first = active.get(0);
+        try {
+            MBeanServerConnection remote = first.connect();
+            if (remote == null) {
+                for (JMXMonSampler sampler : active) {
+                    if (sampler != first) {
+                        sampler.connect(); // marks it failed as well
+                    }
+                    sampler.sampleValue(0d, sampler.getMetricName(), collector);
+                }
+                return;
+            }
+
+            ObjectName name = first.getBeanName();
+            for (ObjectName bean : getBeans(remote, name)) {
+                long started = System.nanoTime();
+                AttributeList values = remote.getAttributes(bean, attributes);
+                first.requestDone(started);
+                Map<String, Object> byName = new HashMap<String, Object>();
+                for (Attribute attr : values.asList()) {
+                    byName.put(attr.getName(), attr.getValue());
+                }
+
+                for (JMXMonSampler sampler : active) {
+                    String label = name.isPattern() ? sampler.getMetricName() + " " + getSuffix(name, bean) : sampler.getMetricName();
+                    if (!byName.containsKey(sampler.getAttribute())) {
+                        log.error("Attribute " + sampler.getAttribute() + " not found for " + bean);
+                        continue;
+                    }
+
+                    try {
+                        sampler.sampleValue(byName.get(sampler.getAttribute()), label, collector);
+                    } catch (NumberFormatException ex) {
+                        log.error(ex.getMessage());
+                    } catch (NullPointerException ex) {
+                        log.error(ex.getMessage());
+                    }
+                }
+            }
+        } catch (ConnectException ex) {
+            beans = null;
+            for (JMXMonSampler sampler : active) {
+                sampler.connectionLost(ex, collector);
+            }
+        } catch (InstanceNotFoundException ex) {
+            beans = null; // resolve pattern again on next poll
+            log.error(ex.getMessage());
+        } catch (IOException ex) {
+            log.error(ex.getMessage());
+        } catch (ReflectionException ex) {
+            log.error(ex.getMessage());
+        } catch (MalformedObjectNameException ex) {
+            log.error(ex.getMessage());
+        }
+    }
+
+    private List<ObjectName> getBeans(MBeanServerConnection remote, ObjectName name) throws IOException {
+        if (!name.isPattern()) {
+            return Collections.singletonList(name);
+        }
+
+        long now = System.currentTimeMillis();
+        if (beans == null || now - resolvedAt >= refreshInterval) {
+            beans = new ArrayList<ObjectName>(new TreeSet<ObjectName>(remote.queryNames(name, null)));
+            resolvedAt = now;
+            log.debug("Pattern " + name + " matches " + beans);
+        }
+        return beans;
+    }
+
+    /**
+     * @return values of bean properties matched by wildcards of pattern
+     */
+    static String getSuffix(ObjectName pattern, ObjectName bean) {
+        StringBuilder result = new StringBuilder();
+        if (pattern.isDomainPattern()) {
+            result.append(bean.getDomain());
+        }
+        for (Map.Entry<String, String> prop : new TreeMap<String, String>(bean.getKeyPropertyList()).entrySet()) {
+            String key = prop.getKey();
+            if (pattern.getKeyProperty(key) == null || pattern.isPropertyValuePattern(key)) {
+                if (result.length() > 0) {
+                    result.append(',');
+                }
+                result.append(prop.getValue());
+            }
+        }
+        return result.toString();
+    }
+}
@@ -22,7 +22,9 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
 import kg.apc.jmeter.JMeterPluginsUtils;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
 import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
+import kg.apc.jmeter.vizualizers.MonitoringScheduler;
 
 public class JMXMonCollector
         extends CorrectedResultCollector
@@ -44,7 +46,9 @@ public class JMXMonCollector
       
     private int interval;
     private Thread workerThread = null;
+    private transient volatile MonitoringScheduler scheduler;
     protected List<JMXMonSampler> jmxMonSamplers = new ArrayList<JMXMonSampler>();
+    private final List<JMXMonBeanGroup> beanGroups = new ArrayList<JMXMonBeanGroup>();
     private String autoFileBaseName = null;
     private static int counter = 0;
     private String workerHost = null;
@@ -70,7 +74,7 @@ public class JMXMonCollector
         if (counter > 1) {
             ret = ret + "_" + counter;
         }
-        ret = ret + ".csv";
+        ret = ret + MonitoringSeriesFormat.getDefaultExtension(".csv");
 
         return ret;
     }
@@ -112,18 +116,29 @@ public class JMXMonCollector
 		//current.getSamplerContext().putAll(ctx.getSamplerContext());
     }
     @Override
-    public synchronized void run() {
-        try {
-        	
-        	syncContext(true);
-            while (true) {
-                processConnectors();
-                this.wait(interval);
-                syncContext(false);
-            }
-        } catch (InterruptedException ex) {
-            log.debug("Monitoring thread was interrupted", ex);
+    public void run() {
+        syncContext(true);
+        MonitoringScheduler current = scheduler;
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    /**
+     * Beans are polled in parallel, at most few at a time from the same JMX URL
+     */
+    protected MonitoringScheduler createScheduler() {
+        MonitoringScheduler result = new MonitoringScheduler(JMXMON, interval);
+        for (final JMXMonBeanGroup group : beanGroups) {
+            result.add(group.getUrl(), group.getObjectName(), new Runnable() {
+                @Override
+                public void run() {
+                    syncContext(true);
+                    group.generateSamples(JMXMonCollector.this);
+                }
+            });
         }
+        return result;
     }
 
     //ensure we start only on one host (if multiple slaves)
@@ -152,8 +167,10 @@ public class JMXMonCollector
             }
         }
         
+        openSeriesFile();
         ctx = JMeterContextService.getContext();
         initiateConnectors();
+        scheduler = createScheduler();
         
         workerThread = new Thread(this);
         workerThread.start();
@@ -178,6 +195,7 @@ public class JMXMonCollector
             return;
         }
 
+        scheduler.stop();
         workerThread.interrupt();
         shutdownConnectors();
 
@@ -191,6 +209,7 @@ public class JMXMonCollector
     private void initiateConnectors() {
         JMeterProperty prop = getSamplerSettings();
         jmxMonSamplers.clear();
+        beanGroups.clear();
         if (!(prop instanceof CollectionProperty)) {
             log.warn("Got unexpected property: " + prop);
             return;
@@ -222,6 +241,29 @@ public class JMXMonCollector
                 log.error("IOException reading JMX", ex);
             }
         }
+        groupSamplers();
+    }
+
+    /**
+     * Samplers of the same bean and connection are read by single request
+     */
+    private void groupSamplers() {
+        for (JMXMonSampler sampler : jmxMonSamplers) {
+            JMXMonBeanGroup group = null;
+            for (JMXMonBeanGroup existing : beanGroups) {
+                if (existing.accepts(sampler)) {
+                    group = existing;
+                    break;
+                }
+            }
+
+            if (group == null) {
+                beanGroups.add(new JMXMonBeanGroup(sampler));
+            } else {
+                group.add(sampler);
+            }
+        }
+        log.debug("Polling " + jmxMonSamplers.size() + " JMX metrics from " + beanGroups.size() + " beans");
     }
 
     protected void initiateConnector(Hashtable attributes, JMeterProperty jmxUrl, String name, 
@@ -237,6 +279,7 @@ public class JMXMonCollector
         log.debug("Start shutdownConnectors");
 
         jmxMonSamplers.clear();
+        beanGroups.clear();
         
         pool.closeAll();
         	
@@ -244,8 +287,8 @@ public class JMXMonCollector
     }
 
     protected void processConnectors() {
-        for (JMXMonSampler sampler : jmxMonSamplers) {
-            sampler.generateSamples(this);
+        for (JMXMonBeanGroup group : beanGroups) {
+            group.generateSamples(this);
         }
     }
 
@@ -262,8 +305,15 @@ public class JMXMonCollector
         super.sampleOccurred(event);
     }
 
+    /**
+     * Values go to series file if it is used, results are created only for visualizer then
+     */
     @Override
     public void generateSample(double value, String label) {
+        if (addSeriesPoint(System.currentTimeMillis(), label, value) && getVisualizer() == null) {
+            return;
+        }
+
         JMXMonSampleResult res = new JMXMonSampleResult();
         res.setSampleLabel(label);
         res.setValue(value);
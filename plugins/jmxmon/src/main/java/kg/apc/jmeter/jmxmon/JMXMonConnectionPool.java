@@ -2,16 +2,25 @@ package kg.apc.jmeter.jmxmon;
 
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
-import java.net.MalformedURLException;
-import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.MBeanServerConnection;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
 
+import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
@@ -19,28 +28,84 @@ import org.slf4j.Logger;
  * This class store jmx connections
  * It is not a complete pool, it will not manage lease on connection
  * It only provide the same connection for the same jmx url
- *
+ * <p>
+ * Connections are opened on background threads, caller waits at most the connect budget.
+ * Failed attempts are retried with exponential backoff and jitter. After several consecutive
+ * failures circuit of the url opens: it is not tried until the longest backoff passes,
+ * then single probe attempt decides whether to close the circuit again.
  */
 public class JMXMonConnectionPool {
-	
+
 	/**
 	 * the logger
 	 */
 	private static final Logger log = LoggerFactory.getLogger(JMXMonConnectionPool.class);
 
 	/**
-	 * Store {@link JMXMonConnection}
+	 * Circuit breaker state of the url
+	 */
+	public enum State {
+		/** connecting normally */
+		CLOSED,
+		/** too many failures, no attempts until cool down passes */
+		OPEN,
+		/** cool down passed, probe attempt is allowed */
+		HALF_OPEN
+	}
+
+	/**
+	 * Store {@link JMXMonConnection}, accessed by parallel monitoring tasks
+	 */
+	private final ConcurrentMap<String, JMXMonConnection> pool;
+
+	/**
+	 * Runs connection attempts, so callers never block on dead hosts
 	 */
-	private Map<String, JMXMonConnection> pool;
-	
+	private final ExecutorService connectExecutor;
+
+	private final long connectBudget;
+	private final long connectTimeout;
+	private final long minBackoff;
+	private final long maxBackoff;
+	private final int breakerThreshold;
+	private final Random random = new Random();
+
 	/**
-	 * The constructor
+	 * The constructor, settings are taken from JMeter properties
 	 */
 	public JMXMonConnectionPool() {
+		this(JMeterUtils.getPropDefault("jmeterPlugin.jmxmon.connectBudget", 5000L),
+				JMeterUtils.getPropDefault("jmeterPlugin.jmxmon.connectTimeout", 30000L),
+				JMeterUtils.getPropDefault("jmeterPlugin.jmxmon.backoffMin", 1000L),
+				JMeterUtils.getPropDefault("jmeterPlugin.jmxmon.backoffMax", 60000L),
+				JMeterUtils.getPropDefault("jmeterPlugin.jmxmon.breakerThreshold", 5));
+	}
+
+	/**
+	 * @param connectBudget max milliseconds {@link #getConnection(String, Hashtable, boolean)} waits for connection
+	 * @param connectTimeout milliseconds after which hanging attempt is abandoned and counted as failure
+	 * @param minBackoff delay before retry after first failure, doubled with each next one
+	 * @param maxBackoff longest delay between attempts, also the open circuit cool down
+	 * @param breakerThreshold consecutive failures that open the circuit
+	 */
+	public JMXMonConnectionPool(long connectBudget, long connectTimeout, long minBackoff, long maxBackoff, int breakerThreshold) {
 		super();
-		pool = new HashMap<String, JMXMonConnection>();
+		this.connectBudget = connectBudget;
+		this.connectTimeout = connectTimeout;
+		this.minBackoff = Math.max(1, minBackoff);
+		this.maxBackoff = Math.max(this.minBackoff, maxBackoff);
+		this.breakerThreshold = Math.max(1, breakerThreshold);
+		pool = new ConcurrentHashMap<String, JMXMonConnection>();
+		connectExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "jmxmon-connect");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 	}
-	
+
 	/**
 	 * Try to get a connection to the specified jmx url
 	 * @param jmxUrl the jmx url
@@ -51,51 +116,79 @@ public class JMXMonConnectionPool {
 	{
 		return getConnection(jmxUrl, attributes, false);
 	}
-	
+
 	/**
 	 * Try to get a connection to the specified jmx url
 	 * @param jmxUrl the jmx url
 	 * @param attributes jmx connection attributes
-	 * @param wait if true wait the current thread until the end of the connection attempt
-	 * @return a jmx connection
+	 * @param wait if true wait the current thread until the end of the connection attempt, but not longer than connect budget
+	 * @return a jmx connection or null if it is not available now
 	 */
 	public MBeanServerConnection getConnection(String jmxUrl, Hashtable attributes, boolean wait)
 	{
-		JMXMonConnection connection = (JMXMonConnection)pool.get(jmxUrl);
+		return getPoolEntry(jmxUrl).connect(attributes, wait);
+	}
+
+	private JMXMonConnection getPoolEntry(String jmxUrl) {
+		JMXMonConnection connection = pool.get(jmxUrl);
 		if (connection == null) {
 			connection = new JMXMonConnection(jmxUrl);
-			pool.put(jmxUrl, connection);
+			JMXMonConnection existing = pool.putIfAbsent(jmxUrl, connection);
+			if (existing != null) {
+				connection = existing;
+			}
 		}
-		return connection.connect(attributes, wait);
+		return connection;
+	}
 
+	/**
+	 * Opens connector, may block for long time on unreachable host
+	 */
+	protected JMXConnector openConnector(String jmxUrl, Hashtable attributes) throws IOException {
+		return JMXConnectorFactory.connect(new JMXServiceURL(jmxUrl), attributes);
 	}
-	
 
 	/**
 	 * Close all active connections by closing linked {@link JMXConnector}
 	 */
 	public void closeAll() {
-		for (Object connection : pool.values()) {
-			JMXMonConnection jmxcon = (JMXMonConnection)connection;
-            if (jmxcon.connector != null) {
-                try {
-                	jmxcon.connector.close();
-                    log.debug("jmx connector is closed");
-                } catch (Exception ex) {
-                    log.debug("Can't close jmx connector, but continue");
-                }
-            } else {
-                log.debug("jmxConnector == null, don't try to close connection");
-            }
-            
-            jmxcon.connector = null;
-            jmxcon = null;
-            
-        }
+		for (JMXMonConnection jmxcon : pool.values()) {
+			jmxcon.close();
+			if (jmxcon.attempts > 0) {
+				log.info("JMX connection health: " + jmxcon.getHealth());
+			}
+		}
 		/* erase pool informations for this run but will be recreate for the next run */
 		pool.clear();
 	}
 
+	/**
+	 * @return connection statistics or null if url was never requested
+	 */
+	public Health getHealth(String url) {
+		JMXMonConnection connection = pool.get(url);
+		return connection == null ? null : connection.getHealth();
+	}
+
+	/**
+	 * Allow external class to report duration of the request made over the connection
+	 * @param url the jmx url
+	 * @param nanos request duration
+	 */
+	public void notifyRequest(String url, long nanos) {
+		JMXMonConnection connection = pool.get(url);
+		if (connection != null) {
+			connection.requests.incrementAndGet();
+			connection.requestNanos.addAndGet(nanos);
+		}
+	}
+
+	private long getBackoff(int failures) {
+		long delay = Math.min(maxBackoff, minBackoff << Math.min(failures - 1, 30));
+		// equal jitter: hosts that failed together do not retry together
+		return delay / 2 + (long) (random.nextDouble() * (delay / 2));
+	}
+
 	/**
 	 * This class store jmx connection data
 	 * and ensure that only one connection attempt
@@ -103,91 +196,140 @@ public class JMXMonConnectionPool {
 	 *
 	 */
 	private class JMXMonConnection {
-		
+
 		/**
 		 * jmx url
 		 */
-		private String jmxUrl;
-		
+		private final String jmxUrl;
+
 		/**
 		 * jmx connector or null if not connected
 		 */
-		private JMXConnector connector;
+		private volatile JMXConnector connector;
 		/**
 		 * jmx connection or null if not connected
 		 */
-		private MBeanServerConnection connection;
+		private volatile MBeanServerConnection connection;
 		/**
-		 * thread used to handle connection attempt
+		 * running or last connection attempt
 		 */
-		private Thread connectionAttemptThread;
+		private Future<?> attempt;
 		/**
-		 * semaphore : true if a connection attempt is running
+		 * increased when attempt is abandoned, so its late result is dropped
 		 */
-		private boolean connectionAttemptFlag;
-		
+		private int generation;
+		private long attemptStarted;
+		private long nextAttempt = System.nanoTime();
+		private int failures;
+		private State state = State.CLOSED;
+
+		private volatile long attempts;
+		private volatile long failedAttempts;
+		private volatile long lastConnectMillis;
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong requestNanos = new AtomicLong();
+
 		/**Construtor
-		 * 
+		 *
 		 * @param jmxUrl jmx url
 		 */
 		private JMXMonConnection(String jmxUrl){
 			this.jmxUrl = jmxUrl;
 		}
-		
+
 		/**
 		 * Empty URL denotes local connection
 		 */
 		private boolean isLocalConnection() {
 			return jmxUrl.isEmpty();
 		}
-		
+
 		/**
-		 * Start a connection thread if none are running
+		 * Start a connection attempt if none is running and backoff allows it
 		 * @param attributes jmx connection attributes
-		 * @param wait if true wait the current thread until the end of the connection attempt
+		 * @return attempt to wait for or null if host should not be tried now
 		 */
-		protected synchronized void tryConnect(final Hashtable attributes, boolean wait)
+		private synchronized Future<?> tryConnect(final Hashtable attributes)
 		{
-			if (isLocalConnection()) {
-				log.debug("Using local PlatformMBeanServer connection");
-				connection = ManagementFactory.getPlatformMBeanServer();
-				return;
+			long now = System.nanoTime();
+			if (attempt != null && !attempt.isDone()) {
+				if (now - attemptStarted < TimeUnit.MILLISECONDS.toNanos(connectTimeout)) {
+					return attempt;
+				}
+				attempt.cancel(true);
+				generation++;
+				attemptFailed(now, new IOException("Connection attempt timed out after " + connectTimeout + " ms"));
+			}
+
+			if (now - nextAttempt < 0) {
+				return null;
 			}
-			connectionAttemptFlag = true;
-			
-			connectionAttemptThread = new Thread(new Runnable() {
-				
+
+			if (state == State.OPEN) {
+				state = State.HALF_OPEN;
+				log.info("Probing JMX connection after cool down, url = " + jmxUrl);
+			}
+
+			final int attemptGeneration = ++generation;
+			attemptStarted = now;
+			attempts++;
+			attempt = connectExecutor.submit(new Runnable() {
+
 				@Override
 				public void run() {
+					JMXConnector newConnector = null;
 					try {
-						JMXServiceURL u = new JMXServiceURL(jmxUrl);
 						log.debug("Create new connection url = " + jmxUrl);
-			            connector = JMXConnectorFactory.connect(u, attributes);
-			            connection = connector.getMBeanServerConnection();
-			            
-		            } catch (MalformedURLException ex) {
-		                //throw new RuntimeException(ex);
-		                log.error("Malformed JMX url", ex);
-		            } catch (IOException ex) {
-		                log.error("IOException reading JMX", ex);
-		            }
-					finally {
-						connectionAttemptFlag = false;
+						newConnector = openConnector(jmxUrl, attributes);
+						attemptSucceeded(attemptGeneration, newConnector, newConnector.getMBeanServerConnection());
+					} catch (IOException ex) {
+						closeQuietly(newConnector);
+						attemptFailed(attemptGeneration, ex);
+					} catch (RuntimeException ex) {
+						closeQuietly(newConnector);
+						attemptFailed(attemptGeneration, ex);
 					}
 				}
 			});
-			
-			connectionAttemptThread.start();
-			
-			if (wait)
-				try {
-					connectionAttemptThread.join();
-				} catch (InterruptedException e) {
-					log.warn("Connection thread has been interrupted", e);
+			return attempt;
+		}
+
+		private synchronized void attemptSucceeded(int attemptGeneration, JMXConnector newConnector, MBeanServerConnection newConnection) {
+			if (attemptGeneration != generation) {
+				closeQuietly(newConnector); // attempt was abandoned
+				return;
+			}
+
+			lastConnectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attemptStarted);
+			setNewActiveConnection(newConnector, newConnection);
+			failures = 0;
+			if (state != State.CLOSED) {
+				log.info("JMX connection restored, url = " + jmxUrl);
+				state = State.CLOSED;
+			}
+		}
+
+		private synchronized void attemptFailed(int attemptGeneration, Exception ex) {
+			if (attemptGeneration == generation) {
+				attemptFailed(System.nanoTime(), ex);
+			}
+		}
+
+		private void attemptFailed(long now, Exception ex) {
+			failures++;
+			failedAttempts++;
+			if (state == State.HALF_OPEN || failures >= breakerThreshold) {
+				if (state != State.OPEN) {
+					log.warn("JMX url " + jmxUrl + " failed " + failures + " times, not trying it for " + maxBackoff + " ms");
 				}
-			
+				state = State.OPEN;
+				nextAttempt = now + TimeUnit.MILLISECONDS.toNanos(maxBackoff);
+			} else {
+				nextAttempt = now + TimeUnit.MILLISECONDS.toNanos(getBackoff(failures));
+			}
+			log.error("IOException reading JMX", ex);
 		}
-		
+
 		/**
 		 * Check if a connection already exists if true it will return the
 		 * existing connection else it will attempt a new connection
@@ -197,17 +339,35 @@ public class JMXMonConnectionPool {
 		 */
 		protected MBeanServerConnection connect(Hashtable attributes, boolean wait) {
 
+			MBeanServerConnection connection = this.connection;
 			if (connection != null){
 				log.debug("Reused the same connection for url = " + (isLocalConnection()?"(local JVM)":jmxUrl));
 				return connection;
 			}
-			
-			if (!connectionAttemptFlag)
-				tryConnect(attributes, wait);
-			
-			return connection;
+
+			if (isLocalConnection()) {
+				log.debug("Using local PlatformMBeanServer connection");
+				this.connection = ManagementFactory.getPlatformMBeanServer();
+				return this.connection;
+			}
+
+			Future<?> pending = tryConnect(attributes);
+			if (wait && pending != null) {
+				try {
+					pending.get(connectBudget, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					log.warn("Not connected to " + jmxUrl + " within " + connectBudget + " ms, continue in background");
+				} catch (ExecutionException e) {
+					log.debug("Connection attempt failed", e);
+				} catch (InterruptedException e) {
+					log.warn("Connection thread has been interrupted", e);
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			return this.connection;
 		}
-        
+
 		/**
 		 * Store a new jmx connection
 		 * @param connector the jmx connector
@@ -219,19 +379,130 @@ public class JMXMonConnectionPool {
 			this.connection = connection;
 		}
 
+		/**
+		 * Drops broken connection, next request reconnects without delay unless circuit is open
+		 */
+		private synchronized void markDirty() {
+			final JMXConnector broken = connector;
+			setNewActiveConnection(null, null);
+			if (broken != null) {
+				// closing may hang on dead host, keep it off the polling thread
+				connectExecutor.submit(new Runnable() {
+					@Override
+					public void run() {
+						closeQuietly(broken);
+					}
+				});
+			}
+			if (state == State.CLOSED) {
+				nextAttempt = System.nanoTime();
+			}
+		}
+
+		private synchronized void close() {
+			if (attempt != null) {
+				attempt.cancel(true);
+			}
+			generation++;
+			if (connector != null) {
+				closeQuietly(connector);
+				log.debug("jmx connector is closed");
+			} else {
+				log.debug("jmxConnector == null, don't try to close connection");
+			}
+			setNewActiveConnection(null, null);
+		}
+
+		private synchronized Health getHealth() {
+			return new Health(jmxUrl, state, connection != null, attempts, failedAttempts, lastConnectMillis,
+					requests.get(), requestNanos.get());
+		}
+	}
+
+	private static void closeQuietly(JMXConnector connector) {
+		if (connector != null) {
+			try {
+				connector.close();
+			} catch (Exception ex) {
+				log.debug("Can't close jmx connector, but continue");
+			}
+		}
 	}
 
 	/**
 	 * Allow external class to notify the pool that the connection identified by the provided
-	 * jmx url is closed/in error 
+	 * jmx url is closed/in error
 	 * @param url the jmx url
 	 */
 	public void notifyConnectionDirty(String url) {
-		JMXMonConnection connection = (JMXMonConnection)pool.get(url);
-		
+		JMXMonConnection connection = pool.get(url);
+
 		if (connection != null){
-			connection.setNewActiveConnection(null, null);
+			connection.markDirty();
 		}
 	}
 
+	/**
+	 * Snapshot of connection statistics
+	 */
+	public static class Health {
+		private final String url;
+		private final State state;
+		private final boolean connected;
+		private final long attempts;
+		private final long failedAttempts;
+		private final long lastConnectMillis;
+		private final long requests;
+		private final long requestNanos;
+
+		private Health(String url, State state, boolean connected, long attempts, long failedAttempts,
+				long lastConnectMillis, long requests, long requestNanos) {
+			this.url = url;
+			this.state = state;
+			this.connected = connected;
+			this.attempts = attempts;
+			this.failedAttempts = failedAttempts;
+			this.lastConnectMillis = lastConnectMillis;
+			this.requests = requests;
+			this.requestNanos = requestNanos;
+		}
+
+		public State getState() {
+			return state;
+		}
+
+		public boolean isConnected() {
+			return connected;
+		}
+
+		public long getAttempts() {
+			return attempts;
+		}
+
+		public long getFailedAttempts() {
+			return failedAttempts;
+		}
+
+		/**
+		 * @return duration of last successful connect
+		 */
+		public long getLastConnectMillis() {
+			return lastConnectMillis;
+		}
+
+		public long getRequests() {
+			return requests;
+		}
+
+		public double getAvgRequestMillis() {
+			return requests > 0 ? requestNanos / 1000000.0 / requests : 0;
+		}
+
+		@Override
+		public String toString() {
+			return url + " state=" + state + " connected=" + connected + " attempts=" + attempts
+					+ " failed=" + failedAttempts + " lastConnect=" + lastConnectMillis + "ms requests=" + requests
+					+ " avgRequest=" + String.format("%.2f", getAvgRequestMillis()) + "ms";
+		}
+	}
 }
@@ -3,7 +3,9 @@ package kg.apc.jmeter.jmxmon;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.rmi.ConnectException;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Map;
 
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
@@ -35,6 +37,8 @@ public class JMXMonSampler {
     
     private boolean sampleDeltaValue = true;
     private double oldValue = Double.NaN;
+    private final Map<String, Double> oldLabelValues = new HashMap<String, Double>();
+    private ObjectName beanName;
     private boolean canRetry = true;
     private boolean hasFailed = false;
 	private JMXMonCollector collector;
@@ -82,71 +86,23 @@ public class JMXMonSampler {
 	public void generateSamples(JMXMonSampleGenerator collector) {
         try {
 
-        	if (hasFailed && !canRetry){
+        	if (isDisabled()){
         		return;
         	}
         	
-            // Construct the fully qualified name of the bean.
-            ObjectName beanName = new ObjectName(objectName);
-
-            MBeanServerConnection activeRemote = null;
-            if (remote == null) {
-            	activeRemote = pool.getConnection(url.getStringValue(), connectionAttributes);
-            	
-            	if (activeRemote == null){
-            		hasFailed = true;
-            	}
-            }
-            else
-            {
-            	activeRemote = remote;
-            }
-            
-            final double val;
+            MBeanServerConnection activeRemote = connect();
             if (activeRemote != null) {
-            	Object o = activeRemote.getAttribute(beanName, attribute);
-                
-                
-                if (o instanceof CompositeDataSupport) {
-                    if (key == null || "".equals(key)) {
-                        log.error("Got composite object from JMX, but no key specified ");
-                        return;
-                    }                    
-                    CompositeDataSupport cds = (CompositeDataSupport)o;
-                    // log.info("CDS: " + cds.toString());
-                    val = Double.parseDouble(cds.get(key).toString());
-                } else {
-                    if (key != null && !key.equals("")) {
-                        log.error("key specified, but didnt get composite object from JMX. Will continue anyway.");
-                    }                    
-                    val = Double.parseDouble(o.toString());
-                }
+                long started = System.nanoTime();
+                Object value = activeRemote.getAttribute(getBeanName(), attribute);
+                requestDone(started);
+                sampleValue(value, metricName, collector);
             } else {
-            	val = 0;
-            }
-            
-            if (sampleDeltaValue) {
-                if (!Double.isNaN(oldValue)) {
-                    collector.generateSample(val - oldValue, metricName);
-                }
-                oldValue = val;
-            } else {
-                collector.generateSample(val, metricName);
+                sampleValue(0, metricName, collector);
             }
         } catch (MalformedURLException ex) {          
             log.error(ex.getMessage());
         } catch (ConnectException ex) {          
-            log.warn("Connection lost", ex);
-            pool.notifyConnectionDirty(url.getStringValue());
-            
-            if (sampleDeltaValue) {
-                if (!Double.isNaN(oldValue)) {
-                    collector.generateSample(0 - oldValue, metricName);
-                }
-                oldValue = 0;
-            } else {
-                collector.generateSample(0, metricName);
-            }
+            connectionLost(ex, collector);
         } catch (IOException ex) {
             log.error(ex.getMessage());
         } catch (ReflectionException ex) {
@@ -164,6 +120,111 @@ public class JMXMonSampler {
         }
     }
 
+    /**
+     * @return true if sampler failed to connect and should not retry
+     */
+    boolean isDisabled() {
+        return hasFailed && !canRetry;
+    }
+
+    /**
+     * @return connection to use or null if it is not available at the moment
+     */
+    MBeanServerConnection connect() {
+        if (remote != null) {
+            return remote;
+        }
+
+        MBeanServerConnection activeRemote = pool.getConnection(url.getStringValue(), connectionAttributes);
+        if (activeRemote == null) {
+            hasFailed = true;
+        }
+        return activeRemote;
+    }
+
+    /**
+     * Reports request duration to connection pool health statistics
+     */
+    void requestDone(long started) {
+        if (pool != null) {
+            pool.notifyRequest(url.getStringValue(), System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * @return samplers with the same key can share connection
+     */
+    Object getConnectionKey() {
+        return remote != null ? remote : url.getStringValue();
+    }
+
+    /**
+     * Bean name is parsed once and reused on every poll
+     */
+    ObjectName getBeanName() throws MalformedObjectNameException {
+        if (beanName == null) {
+            beanName = new ObjectName(objectName);
+        }
+        return beanName;
+    }
+
+    /**
+     * Sends attribute value as sample, or difference with previous value of the label
+     * @param value attribute value, number or composite data
+     * @param label sample label, different from metric name for expanded bean name patterns
+     */
+    void sampleValue(Object value, String label, JMXMonSampleGenerator collector) {
+        final double val;
+        if (value instanceof CompositeDataSupport) {
+            if (key == null || "".equals(key)) {
+                log.error("Got composite object from JMX, but no key specified ");
+                return;
+            }                    
+            CompositeDataSupport cds = (CompositeDataSupport)value;
+            val = Double.parseDouble(cds.get(key).toString());
+        } else {
+            if (key != null && !key.equals("")) {
+                log.error("key specified, but didnt get composite object from JMX. Will continue anyway.");
+            }                    
+            val = Double.parseDouble(value.toString());
+        }
+        sampleValue(val, label, collector);
+    }
+
+    private void sampleValue(double val, String label, JMXMonSampleGenerator collector) {
+        if (sampleDeltaValue) {
+            Double old = label.equals(metricName) ? Double.valueOf(oldValue) : oldLabelValues.get(label);
+            if (old != null && !Double.isNaN(old)) {
+                collector.generateSample(val - old, label);
+            }
+            if (label.equals(metricName)) {
+                oldValue = val;
+            } else {
+                oldLabelValues.put(label, val);
+            }
+        } else {
+            collector.generateSample(val, label);
+        }
+    }
+
+    /**
+     * Marks connection dirty and reports zero values for all known labels
+     */
+    void connectionLost(ConnectException ex, JMXMonSampleGenerator collector) {
+        log.warn("Connection lost", ex);
+        if (pool != null) {
+            pool.notifyConnectionDirty(url.getStringValue());
+        }
+
+        if (oldLabelValues.isEmpty()) {
+            sampleValue(0, metricName, collector);
+        } else {
+            for (String label : oldLabelValues.keySet()) {
+                sampleValue(0, label, collector);
+            }
+        }
+    }
+
 	public String getMetricName() {
 		return metricName;
 	}
@@ -178,6 +239,7 @@ public class JMXMonSampler {
 
 	public void setObjectName(String objectName) {
 		this.objectName = objectName;
+		this.beanName = null;
 	}
 
 	public String getAttribute() {
@@ -0,0 +1,130 @@
+package kg.apc.jmeter.jmxmon;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JMXMonBeanGroupTest {
+    private static final String URL = "service:jmx:rmi:///jndi/rmi://localhost:6969/jmxrmi";
+
+    private final Map<String, Double> samples = new HashMap<String, Double>();
+    private final JMXMonSampleGenerator collector = new JMXMonSampleGenerator() {
+        @Override
+        public void generateSample(double value, String label) {
+            samples.put(label, value);
+        }
+    };
+
+    @BeforeClass
+    public static void setUpClass() {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    private static JMXMonSampler createSampler(MBeanServerConnectionEmul conn, String name, String objectName, String attribute, boolean delta) {
+        return new JMXMonSampler(conn, null, new JMeterPropertyEmul(URL), name, objectName, attribute, "", delta);
+    }
+
+    @Test
+    public void testGenerateSamples() {
+        System.out.println("generateSamples");
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("attr1", 1.0);
+        values.put("attr2", 10.0);
+        MBeanServerConnectionEmul conn = new MBeanServerConnectionEmul(values);
+
+        JMXMonBeanGroup instance = new JMXMonBeanGroup(createSampler(conn, "probe1", "Something:name=bean", "attr1", false));
+        JMXMonSampler second = createSampler(conn, "probe2", "Something:name=bean", "attr2", true);
+        JMXMonSampler third = createSampler(conn, "probe3", "Something:name=bean", "attr2", false);
+        assertTrue(instance.accepts(second));
+        instance.add(second);
+        instance.add(third);
+
+        instance.generateSamples(collector);
+        assertEquals(1, conn.getAttributesCount);
+        assertEquals(1.0, samples.get("probe1"), 0.0001);
+        assertNull(samples.get("probe2"));
+        assertEquals(10.0, samples.get("probe3"), 0.0001);
+
+        values.put("attr2", 15.0);
+        instance.generateSamples(collector);
+        assertEquals(2, conn.getAttributesCount);
+        assertEquals(5.0, samples.get("probe2"), 0.0001);
+        assertEquals(15.0, samples.get("probe3"), 0.0001);
+    }
+
+    @Test
+    public void testGenerateSamples_missingAttribute() {
+        System.out.println("generateSamples_missingAttribute");
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("attr1", 1.0);
+        MBeanServerConnectionEmul conn = new MBeanServerConnectionEmul(values);
+
+        JMXMonBeanGroup instance = new JMXMonBeanGroup(createSampler(conn, "probe1", "Something:name=bean", "missing", false));
+        instance.add(createSampler(conn, "probe2", "Something:name=bean", "attr1", false));
+        instance.generateSamples(collector);
+        assertNull(samples.get("probe1"));
+        assertEquals(1.0, samples.get("probe2"), 0.0001);
+    }
+
+    @Test
+    public void testGenerateSamples_pattern() throws Exception {
+        System.out.println("generateSamples_pattern");
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("CollectionCount", 3.0);
+        MBeanServerConnectionEmul conn = new MBeanServerConnectionEmul(values);
+        conn.register(new ObjectName("java.lang:type=GarbageCollector,name=Copy"));
+        conn.register(new ObjectName("java.lang:type=GarbageCollector,name=MarkSweep"));
+        conn.register(new ObjectName("java.lang:type=Memory"));
+
+        JMXMonBeanGroup instance = new JMXMonBeanGroup(createSampler(conn, "GC", "java.lang:type=GarbageCollector,*", "CollectionCount", false));
+        instance.generateSamples(collector);
+        instance.generateSamples(collector);
+        assertEquals(2, samples.size());
+        assertEquals(3.0, samples.get("GC Copy"), 0.0001);
+        assertEquals(3.0, samples.get("GC MarkSweep"), 0.0001);
+        assertEquals(1, conn.queryNamesCount);
+        assertEquals(4, conn.getAttributesCount);
+    }
+
+    @Test
+    public void testGenerateSamples_patternDelta() throws Exception {
+        System.out.println("generateSamples_patternDelta");
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("CollectionCount", 3.0);
+        MBeanServerConnectionEmul conn = new MBeanServerConnectionEmul(values);
+        conn.register(new ObjectName("java.lang:type=GarbageCollector,name=Copy"));
+
+        JMXMonBeanGroup instance = new JMXMonBeanGroup(createSampler(conn, "GC", "java.lang:type=GarbageCollector,*", "CollectionCount", true));
+        instance.generateSamples(collector);
+        assertTrue(samples.isEmpty());
+
+        values.put("CollectionCount", 5.0);
+        instance.generateSamples(collector);
+        assertEquals(2.0, samples.get("GC Copy"), 0.0001);
+    }
+
+    @Test
+    public void testAccepts() {
+        System.out.println("accepts");
+        MBeanServerConnectionEmul conn = new MBeanServerConnectionEmul(new HashMap<String, Double>());
+        JMXMonBeanGroup instance = new JMXMonBeanGroup(createSampler(conn, "probe1", "Something:name=bean", "attr1", false));
+        assertFalse(instance.accepts(createSampler(conn, "probe2", "Something:name=other", "attr1", false)));
+        MBeanServerConnectionEmul otherConn = new MBeanServerConnectionEmul(new HashMap<String, Double>());
+        assertFalse(instance.accepts(createSampler(otherConn, "probe2", "Something:name=bean", "attr1", false)));
+    }
+
+    @Test
+    public void testGetSuffix() throws Exception {
+        System.out.println("getSuffix");
+        ObjectName bean = new ObjectName("java.lang:type=MemoryPool,name=Eden Space");
+        assertEquals("Eden Space", JMXMonBeanGroup.getSuffix(new ObjectName("java.lang:type=MemoryPool,*"), bean));
+        assertEquals("Eden Space", JMXMonBeanGroup.getSuffix(new ObjectName("java.lang:type=MemoryPool,name=*"), bean));
+        assertEquals("java.lang,Eden Space,MemoryPool", JMXMonBeanGroup.getSuffix(new ObjectName("*:*"), bean));
+    }
+}
@@ -15,7 +15,10 @@
  */
 package kg.apc.jmeter.jmxmon;
 
+import java.io.File;
 import kg.apc.emulators.TestJMeterUtils;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
+import kg.apc.jmeter.results.MonitoringSeriesReader;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.property.CollectionProperty;
@@ -26,6 +29,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
 public class JMXMonCollectorTest {
 
     public JMXMonCollectorTest() {
@@ -156,4 +162,27 @@ public class JMXMonCollectorTest {
         // TODO review the generated test code and remove the default call to fail.
 
     }
+
+    @Test
+    public void testGenerateSample_seriesFile() throws Exception {
+        System.out.println("generateSample_seriesFile");
+        File f = File.createTempFile("jmxmon", MonitoringSeriesFormat.FILE_EXTENSION);
+        f.deleteOnExit();
+        JMXMonCollector instance = new JMXMonCollector();
+        instance.setFilename(f.getAbsolutePath());
+        instance.testStarted("");
+        instance.generateSample(1.5, "first");
+        instance.generateSample(2, "second");
+        instance.testEnded("");
+
+        try (MonitoringSeriesReader reader = new MonitoringSeriesReader(f)) {
+            SampleResult res = reader.next();
+            assertEquals("first", res.getSampleLabel());
+            assertEquals(1.5, Double.parseDouble(res.getResponseMessage()), 0.001);
+            res = reader.next();
+            assertEquals("second", res.getSampleLabel());
+            assertEquals(2, Double.parseDouble(res.getResponseMessage()), 0.001);
+            assertNull(reader.next());
+        }
+    }
 }
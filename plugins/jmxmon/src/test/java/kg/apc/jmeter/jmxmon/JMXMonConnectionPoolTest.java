@@ -1,8 +1,11 @@
 package kg.apc.jmeter.jmxmon;
 
+import java.io.IOException;
 import java.util.Hashtable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 
 import org.junit.After;
@@ -140,4 +143,104 @@ public class JMXMonConnectionPoolTest {
 		testSubject = createTestSubject();
 		testSubject.notifyConnectionDirty(url);
 	}
+
+	/**
+	 * Pool connecting to emulator, fails first attempts and may be slow
+	 */
+	private static class FlakyPool extends JMXMonConnectionPool {
+		private final AtomicInteger calls = new AtomicInteger();
+		private volatile int failuresLeft;
+		private volatile long delay;
+
+		private FlakyPool(long budget, long minBackoff, long maxBackoff, int threshold) {
+			super(budget, 30000, minBackoff, maxBackoff, threshold);
+		}
+
+		@Override
+		protected JMXConnector openConnector(String jmxUrl, Hashtable attributes) throws IOException {
+			calls.incrementAndGet();
+			if (delay > 0) {
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			if (failuresLeft > 0) {
+				failuresLeft--;
+				throw new IOException("Connection refused");
+			}
+			return new JMXConnectorEmul();
+		}
+	}
+
+	@Test
+	public void testGetConnection_budget() throws Exception {
+		FlakyPool testSubject = new FlakyPool(100, 50, 400, 3);
+		testSubject.delay = 2000;
+		long start = System.currentTimeMillis();
+		assertNull(testSubject.getConnection(jmxUrlOk, null, true));
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		// attempt continues in background, no second one is started
+		assertNull(testSubject.getConnection(jmxUrlOk, null, false));
+		assertEquals(1, testSubject.calls.get());
+		testSubject.closeAll();
+	}
+
+	@Test
+	public void testGetConnection_backoff() throws Exception {
+		FlakyPool testSubject = new FlakyPool(1000, 200, 800, 3);
+		testSubject.failuresLeft = 3;
+
+		assertNull(testSubject.getConnection(jmxUrlOk, null, true));
+		assertNull(testSubject.getConnection(jmxUrlOk, null, true));
+		assertEquals(1, testSubject.calls.get()); // backing off
+		assertEquals(JMXMonConnectionPool.State.CLOSED, testSubject.getHealth(jmxUrlOk).getState());
+
+		while (testSubject.calls.get() < 3) {
+			Thread.sleep(10);
+			testSubject.getConnection(jmxUrlOk, null, true);
+		}
+		JMXMonConnectionPool.Health health = testSubject.getHealth(jmxUrlOk);
+		assertEquals(JMXMonConnectionPool.State.OPEN, health.getState());
+		assertEquals(3, health.getFailedAttempts());
+		assertFalse(health.isConnected());
+
+		// circuit is open for max backoff
+		Thread.sleep(100);
+		assertNull(testSubject.getConnection(jmxUrlOk, null, true));
+		assertEquals(3, testSubject.calls.get());
+
+		Thread.sleep(800);
+		assertNotNull(testSubject.getConnection(jmxUrlOk, null, true));
+		health = testSubject.getHealth(jmxUrlOk);
+		assertEquals(JMXMonConnectionPool.State.CLOSED, health.getState());
+		assertEquals(4, health.getAttempts());
+		assertTrue(health.isConnected());
+		testSubject.closeAll();
+	}
+
+	@Test
+	public void testNotifyConnectionDirty_reconnect() throws Exception {
+		FlakyPool testSubject = new FlakyPool(1000, 50, 400, 3);
+		assertNotNull(testSubject.getConnection(jmxUrlOk, null, true));
+		testSubject.notifyConnectionDirty(jmxUrlOk);
+		assertNotNull(testSubject.getConnection(jmxUrlOk, null, true));
+		assertEquals(2, testSubject.calls.get());
+		testSubject.closeAll();
+	}
+
+	@Test
+	public void testNotifyRequest() throws Exception {
+		JMXMonConnectionPool testSubject = createTestSubject();
+		testSubject.notifyRequest(jmxUrlOk, 1000000);
+		assertNull(testSubject.getHealth(jmxUrlOk));
+
+		testSubject.getConnection(jmxUrlOk, null, true);
+		testSubject.notifyRequest(jmxUrlOk, 1000000);
+		testSubject.notifyRequest(jmxUrlOk, 3000000);
+		JMXMonConnectionPool.Health health = testSubject.getHealth(jmxUrlOk);
+		assertEquals(2, health.getRequests());
+		assertEquals(2.0, health.getAvgRequestMillis(), 0.0001);
+	}
 }
\ No newline at end of file
@@ -13,7 +13,8 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ JMXMonSampleGeneratorTest.class, JMXMonCollectorTest.class, JMXMonSamplerTest.class,
-		JMXMonSampleResultTest.class, JMXMonTest.class, JMXMonConnectionPoolTest.class })
+		JMXMonSampleResultTest.class, JMXMonTest.class, JMXMonConnectionPoolTest.class,
+		JMXMonBeanGroupTest.class })
 public class JMXMonSuite {
 
 	@BeforeClass
@@ -16,6 +16,7 @@
 package kg.apc.jmeter.jmxmon;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import javax.management.Attribute;
@@ -41,10 +42,17 @@ import javax.management.ReflectionException;
 class MBeanServerConnectionEmul implements MBeanServerConnection
  {
     private final Map<String, Double> queryResults;
+    private final Set<ObjectName> names = new HashSet<ObjectName>();
+    int getAttributesCount = 0;
+    int queryNamesCount = 0;
 
     MBeanServerConnectionEmul(Map<String, Double> queryResults) {
         this.queryResults = queryResults;
     }
+
+    void register(ObjectName name) {
+        names.add(name);
+    }
     
     @Override
     public ObjectInstance createMBean(String className, ObjectName name) throws ReflectionException, InstanceAlreadyExistsException, MBeanRegistrationException, MBeanException, NotCompliantMBeanException, IOException {
@@ -83,7 +91,14 @@ class MBeanServerConnectionEmul implements MBeanServerConnection
 
     @Override
     public Set<ObjectName> queryNames(ObjectName name, QueryExp query) throws IOException {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        queryNamesCount++;
+        Set<ObjectName> result = new HashSet<ObjectName>();
+        for (ObjectName registered : names) {
+            if (name.apply(registered)) {
+                result.add(registered);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -103,7 +118,14 @@ class MBeanServerConnectionEmul implements MBeanServerConnection
 
     @Override
     public AttributeList getAttributes(ObjectName name, String[] attributes) throws InstanceNotFoundException, ReflectionException, IOException {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        getAttributesCount++;
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            if (queryResults.containsKey(attribute)) {
+                result.add(new Attribute(attribute, queryResults.get(attribute)));
+            }
+        }
+        return result;
     }
 
     @Override
@@ -0,0 +1,35 @@
+package kg.apc.jmeter.perfmon;
+
+import java.io.IOException;
+
+/**
+ * Agent connector reading {@link BinaryMetricsFormat} frames, values are passed
+ * to collector as primitive array indexed by metric id, without parsing and per-value lookups
+ */
+public class BinaryAgentConnector extends NewAgentConnector {
+
+    private final BinaryTransport binaryTransport;
+
+    public BinaryAgentConnector(BinaryTransport atransport) {
+        binaryTransport = atransport;
+        setTransport(atransport);
+    }
+
+    @Override
+    public void generateSamples(PerfMonSampleGenerator collector) throws IOException {
+        double[] values = binaryTransport.readValues();
+        if (values == null) {
+            return;
+        }
+
+        if (collector instanceof PerfMonBatchGenerator) {
+            ((PerfMonBatchGenerator) collector).generateSamples(metricLabels, values);
+        } else {
+            for (int n = 0; n < values.length; n++) {
+                if (!Double.isNaN(values[n])) {
+                    collector.generateSample(values[n], metricLabels[n]);
+                }
+            }
+        }
+    }
+}
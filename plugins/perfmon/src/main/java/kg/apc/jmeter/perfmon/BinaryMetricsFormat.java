@@ -0,0 +1,113 @@
+package kg.apc.jmeter.perfmon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+/**
+ * Binary framing of agent metrics. Client switches agent to it by "binary" command line,
+ * agent answers with "binary:VERSION" line, commands are text lines as before.
+ * Then agent sends one frame per interval:
+ * <pre>
+ * byte type, int metricCount
+ * FULL:  double value * metricCount
+ * DELTA: int changedCount, (int metricId, double value) * changedCount
+ * </pre>
+ * Metric id is the index in "metrics:" command, NaN means value is not available.
+ * Delta frame carries only values changed since previous frame.
+ */
+public final class BinaryMetricsFormat {
+
+    public static final String COMMAND = "binary";
+    public static final int VERSION = 1;
+    static final byte FULL = 'F';
+    static final byte DELTA = 'D';
+
+    private BinaryMetricsFormat() {
+    }
+
+    /**
+     * Writes values as delta from previous frame, or full frame if it is smaller
+     *
+     * @param previous values of previous frame, updated in place; null to send full frame
+     */
+    public static void writeFrame(DataOutputStream out, double[] values, double[] previous) throws IOException {
+        int changed = 0;
+        if (previous != null) {
+            for (int n = 0; n < values.length; n++) {
+                if (isChanged(previous[n], values[n])) {
+                    changed++;
+                }
+            }
+        }
+
+        if (previous == null || changed * 12 + 4 >= values.length * 8) {
+            out.writeByte(FULL);
+            out.writeInt(values.length);
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        } else {
+            out.writeByte(DELTA);
+            out.writeInt(values.length);
+            out.writeInt(changed);
+            for (int n = 0; n < values.length; n++) {
+                if (isChanged(previous[n], values[n])) {
+                    out.writeInt(n);
+                    out.writeDouble(values[n]);
+                }
+            }
+        }
+
+        if (previous != null) {
+            System.arraycopy(values, 0, previous, 0, values.length);
+        }
+        out.flush();
+    }
+
+    /**
+     * Applies next frame to values indexed by metric id
+     *
+     * @return false if no frame started before socket timeout
+     */
+    public static boolean readFrame(DataInputStream in, double[] values) throws IOException {
+        int type;
+        try {
+            type = in.read();
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+
+        if (type < 0) {
+            throw new IOException("Agent closed connection");
+        }
+
+        int count = in.readInt();
+        if (count != values.length) {
+            throw new IOException("Agent sent " + count + " metrics, expected " + values.length);
+        }
+
+        if (type == FULL) {
+            for (int n = 0; n < count; n++) {
+                values[n] = in.readDouble();
+            }
+        } else if (type == DELTA) {
+            int changed = in.readInt();
+            for (int n = 0; n < changed; n++) {
+                int id = in.readInt();
+                if (id < 0 || id >= count) {
+                    throw new IOException("Wrong metric id in frame: " + id);
+                }
+                values[id] = in.readDouble();
+            }
+        } else {
+            throw new IOException("Wrong frame type: " + type);
+        }
+        return true;
+    }
+
+    private static boolean isChanged(double old, double value) {
+        return Double.doubleToLongBits(old) != Double.doubleToLongBits(value);
+    }
+}
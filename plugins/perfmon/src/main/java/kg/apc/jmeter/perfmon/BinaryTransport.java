@@ -0,0 +1,240 @@
+package kg.apc.jmeter.perfmon;
+
+import kg.apc.perfmon.PerfMonMetricGetter;
+import kg.apc.perfmon.client.Transport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Arrays;
+
+/**
+ * TCP transport using {@link BinaryMetricsFormat} frames instead of text lines.
+ * Commands are buffered and sent together with "metrics:" command, agent is not asked
+ * for anything after that and just streams frames each interval.
+ */
+public class BinaryTransport implements Transport {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryTransport.class);
+    private static final String CHARSET = "UTF-8";
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final int timeout;
+    private String addressLabel = "";
+    private double[] values = new double[0];
+    private long framesSkipped;
+
+    protected BinaryTransport(Socket socket, int timeout) throws IOException {
+        this.socket = socket;
+        this.timeout = timeout;
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Connects and switches agent to binary frames
+     *
+     * @throws IOException if agent is unreachable or supports text protocol only
+     */
+    public static BinaryTransport connect(SocketAddress addr, int timeout) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(addr, timeout);
+            socket.setSoTimeout(timeout);
+            socket.setTcpNoDelay(true);
+            BinaryTransport transport = new BinaryTransport(socket, timeout);
+            transport.handshake();
+            if (addr instanceof InetSocketAddress) {
+                transport.setAddressLabel(((InetSocketAddress) addr).getHostString());
+            }
+            return transport;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void handshake() throws IOException {
+        send(BinaryMetricsFormat.COMMAND, true);
+        String reply = readLine();
+        String prefix = BinaryMetricsFormat.COMMAND + PerfMonMetricGetter.DVOETOCHIE;
+        if (reply == null || !reply.startsWith(prefix)) {
+            throw new IOException("Agent does not support binary protocol, reply: " + reply);
+        }
+
+        int version;
+        try {
+            version = Integer.parseInt(reply.substring(prefix.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Wrong binary protocol version: " + reply);
+        }
+        if (version != BinaryMetricsFormat.VERSION) {
+            throw new IOException("Unsupported binary protocol version: " + version);
+        }
+    }
+
+    @Override
+    public void setInterval(long interval) {
+        try {
+            // agent does not reply, so it goes together with metrics command
+            send("interval" + PerfMonMetricGetter.DVOETOCHIE + interval, false);
+            socket.setSoTimeout((int) Math.max(interval * 2000, timeout));
+        } catch (IOException e) {
+            log.error("Error setting interval", e);
+        }
+    }
+
+    @Override
+    public void startWithMetrics(String[] metricsArray) throws IOException {
+        StringBuilder cmd = new StringBuilder("metrics").append(PerfMonMetricGetter.DVOETOCHIE);
+        for (String metric : metricsArray) {
+            cmd.append(metric.replace('\t', ' ')).append(PerfMonMetricGetter.TAB);
+        }
+        values = new double[metricsArray.length];
+        Arrays.fill(values, Double.NaN);
+        log.debug("Starting with metrics: " + cmd);
+        send(cmd.toString(), true);
+    }
+
+    /**
+     * Waits for next frame, frames received meanwhile are applied as well,
+     * so client does not lag behind agent
+     *
+     * @return current values indexed by metric, array is reused between calls;
+     * null if agent sent nothing within timeout
+     */
+    public double[] readValues() throws IOException {
+        if (!BinaryMetricsFormat.readFrame(in, values)) {
+            return null;
+        }
+        while (in.available() > 0) {
+            BinaryMetricsFormat.readFrame(in, values);
+            framesSkipped++;
+        }
+        return values;
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    /**
+     * Values in text form, for use as plain {@link Transport}
+     */
+    @Override
+    public String[] readMetrics() {
+        try {
+            double[] current = readValues();
+            if (current == null) {
+                return new String[0];
+            }
+            String[] result = new String[current.length];
+            for (int n = 0; n < current.length; n++) {
+                result[n] = Double.isNaN(current[n]) ? "" : Double.toString(current[n]);
+            }
+            return result;
+        } catch (IOException e) {
+            log.error("Error reading metrics", e);
+            return new String[0];
+        }
+    }
+
+    /**
+     * Only valid before {@link #startWithMetrics(String[])}, then stream contains frames
+     */
+    @Override
+    public String readln() {
+        try {
+            String line = readLine();
+            return line == null ? "" : line;
+        } catch (IOException e) {
+            log.error("Error reading next line", e);
+            return "";
+        }
+    }
+
+    @Override
+    public void writeln(String line) throws IOException {
+        send(line, true);
+    }
+
+    /**
+     * Only valid before {@link #startWithMetrics(String[])}
+     */
+    @Override
+    public boolean test() {
+        try {
+            writeln("test");
+        } catch (IOException e) {
+            log.error("Failed to send command", e);
+            return false;
+        }
+        return "Yep".equals(readln());
+    }
+
+    @Override
+    public void shutdownAgent() {
+        log.info("Shutting down the agent");
+        try {
+            writeln("shutdown");
+        } catch (IOException e) {
+            log.error("Error shutting down", e);
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        log.debug("Disconnecting from " + addressLabel);
+        try {
+            writeln("exit");
+        } catch (IOException e) {
+            log.debug("Error during exit", e);
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Error closing socket", e);
+        }
+        if (framesSkipped > 0) {
+            log.info("Client was behind agent " + addressLabel + ", " + framesSkipped + " frames were merged");
+        }
+    }
+
+    @Override
+    public String getAddressLabel() {
+        return addressLabel;
+    }
+
+    @Override
+    public void setAddressLabel(String label) {
+        addressLabel = label;
+    }
+
+    private void send(String line, boolean flush) throws IOException {
+        out.write((line + PerfMonMetricGetter.NEWLINE).getBytes(CHARSET));
+        if (flush) {
+            out.flush();
+        }
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return line.size() > 0 ? line.toString(CHARSET) : null;
+            }
+            line.write(b);
+        }
+        return line.toString(CHARSET).trim();
+    }
+}
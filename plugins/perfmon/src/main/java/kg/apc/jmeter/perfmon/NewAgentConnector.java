@@ -15,7 +15,7 @@ public class NewAgentConnector implements PerfMonAgentConnector {
     private static final Logger log = LoggerFactory.getLogger(NewAgentConnector.class);
     protected Transport transport;
     private Map<String, String> metrics = new HashMap<>();
-    private String[] metricLabels;
+    protected String[] metricLabels;
 
     public void setTransport(Transport atransport) {
         transport = atransport;
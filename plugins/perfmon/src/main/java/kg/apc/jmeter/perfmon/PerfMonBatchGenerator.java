@@ -0,0 +1,13 @@
+package kg.apc.jmeter.perfmon;
+
+/**
+ * Takes all values read from agent at once, instead of value by value
+ */
+public interface PerfMonBatchGenerator extends PerfMonSampleGenerator {
+
+    /**
+     * @param labels labels indexed by metric id
+     * @param values values indexed by metric id, NaN values are skipped
+     */
+    void generateSamples(String[] labels, double[] values);
+}
@@ -1,7 +1,9 @@
 package kg.apc.jmeter.perfmon;
 
 import kg.apc.jmeter.JMeterPluginsUtils;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
 import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
+import kg.apc.jmeter.vizualizers.MonitoringScheduler;
 import kg.apc.perfmon.PerfMonMetricGetter;
 import kg.apc.perfmon.client.Transport;
 import kg.apc.perfmon.client.TransportFactory;
@@ -21,16 +23,18 @@ import java.net.SocketAddress;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-public class PerfMonCollector extends CorrectedResultCollector implements Runnable, PerfMonSampleGenerator {
+public class PerfMonCollector extends CorrectedResultCollector implements Runnable, PerfMonBatchGenerator {
     private static boolean autoGenerateFiles = false;
     private static final String PERFMON = "PerfMon";
     private static final Logger log = LoggerFactory.getLogger(PerfMonCollector.class);
     public static final String DATA_PROPERTY = "metricConnections";
     private int interval;
     private Thread workerThread = null;
-    private Map<Object, PerfMonAgentConnector> connectors = new ConcurrentHashMap<>();
-    private HashMap<String, Long> oldValues = new HashMap<>();
+    private transient volatile MonitoringScheduler scheduler;
+    private ConcurrentMap<Object, PerfMonAgentConnector> connectors = new ConcurrentHashMap<>();
+    private Map<String, Long> oldValues = new ConcurrentHashMap<>();
     private static String autoFileBaseName = null;
     private static int counter = 0;
     private static final LinkedList<String> filesList = new LinkedList<>();
@@ -52,7 +56,7 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
         if (counter > 1) {
             ret = ret + "_" + counter;
         }
-        ret = ret + ".csv";
+        ret = ret + MonitoringSeriesFormat.getDefaultExtension(".csv");
 
         return ret;
     }
@@ -74,16 +78,27 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
     }
 
     @Override
-    public synchronized void run() {
-        while (true) {
-            processConnectors();
-            try {
-                this.wait(interval * 1000);
-            } catch (InterruptedException ex) {
-                log.debug("Monitoring thread was interrupted", ex);
-                break;
-            }
+    public void run() {
+        MonitoringScheduler current = scheduler;
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    /**
+     * Each agent is polled by own task, so unreachable agent does not delay others
+     */
+    protected MonitoringScheduler createScheduler() {
+        MonitoringScheduler result = new MonitoringScheduler(PERFMON, interval * 1000L);
+        for (final Object key : connectors.keySet()) {
+            result.add(key.toString(), key.toString(), new Runnable() {
+                @Override
+                public void run() {
+                    processConnector(key);
+                }
+            });
         }
+        return result;
     }
 
     //ensure we start only on one host (if multiple slaves)
@@ -108,7 +123,7 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
                 setupSaving(getAutoFileName());
             } else {
                 try {
-                    File tmpFile = File.createTempFile("perfmon_", ".jtl");
+                    File tmpFile = File.createTempFile("perfmon_", MonitoringSeriesFormat.getDefaultExtension(".jtl"));
                     tmpFile.delete(); // required to have CSV header
                     setupSaving(tmpFile.getAbsolutePath());
                 } catch (IOException ex) {
@@ -118,12 +133,15 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
         }
 
         log.debug("PerfMon metrics will be stored in " + getPropertyAsString(FILENAME));
-        if (!getSaveConfig().saveAsXml() && getSaveConfig().saveFieldNames()) {
+        if (MonitoringSeriesFormat.isSeriesFile(getPropertyAsString(FILENAME))) {
+            openSeriesFile();
+        } else if (!getSaveConfig().saveAsXml() && getSaveConfig().saveFieldNames()) {
             filesList.add(getPropertyAsString(FILENAME));
         } else {
             log.warn("Perfmon file saving setting is not CSV with header line: " + getPropertyAsString(FILENAME));
         }
         initiateConnectors();
+        scheduler = createScheduler();
 
         workerThread = new Thread(this);
         workerThread.start();
@@ -145,6 +163,7 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
             return;
         }
         workerHost = null;
+        scheduler.stop();
         workerThread.interrupt();
         shutdownConnectors();
 
@@ -238,6 +257,16 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
     protected PerfMonAgentConnector getConnector(String host, int port) throws IOException {
         log.debug("Trying new connector");
         SocketAddress addr = new InetSocketAddress(host, port);
+        if (JMeterUtils.getPropDefault("jmeterPlugin.perfmon.useBinary", false)) {
+            try {
+                BinaryTransport binary = BinaryTransport.connect(addr, JMeterUtils.getPropDefault("jmeterPlugin.perfmon.binary.timeout", 500));
+                binary.setInterval(interval);
+                return new BinaryAgentConnector(binary);
+            } catch (IOException e) {
+                log.info("Can't use binary protocol for host: " + addr.toString() + ", falling back to text", e);
+            }
+        }
+
         Transport transport;
         try {
             transport = TransportFactory.TCPInstance(addr);
@@ -282,22 +311,46 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
         }
     }
 
-    private void processConnectors() {
-        for (Object key : connectors.keySet()) {
-            PerfMonAgentConnector connector = connectors.get(key);
-            try {
-                connector.generateSamples(this);
-            } catch (IOException e) {
-                log.error(e.getMessage());
-                connectors.put(key, new UnavailableAgentConnector(e));
-            }
+    private void processConnector(Object key) {
+        PerfMonAgentConnector connector = connectors.get(key);
+        if (connector == null) {
+            return; // already shut down
+        }
+        try {
+            connector.generateSamples(this);
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            connectors.replace(key, connector, new UnavailableAgentConnector(e));
         }
     }
 
     //need floating point precision for memory and cpu
     @Override
     public void generateSample(double value, String label) {
-        PerfMonSampleResult res = new PerfMonSampleResult();
+        if (addSeriesPoint(System.currentTimeMillis(), label, value) && getVisualizer() == null) {
+            return;
+        }
+        generateSample(new PerfMonSampleResult(), value, label);
+    }
+
+    /**
+     * All values of agent poll get the same timestamp,
+     * with series file they are written at once and results are created only for visualizer
+     */
+    @Override
+    public void generateSamples(String[] labels, double[] values) {
+        long ts = System.currentTimeMillis();
+        if (addSeriesPoints(ts, labels, values) && getVisualizer() == null) {
+            return;
+        }
+        for (int n = 0; n < values.length; n++) {
+            if (!Double.isNaN(values[n])) {
+                generateSample(new PerfMonSampleResult(ts), values[n], labels[n]);
+            }
+        }
+    }
+
+    private void generateSample(PerfMonSampleResult res, double value, String label) {
         res.setSampleLabel(label);
         res.setValue(value);
         res.setSuccessful(true);
@@ -307,6 +360,10 @@ public class PerfMonCollector extends CorrectedResultCollector implements Runnab
 
     @Override
     public void generateErrorSample(String label, String errorMsg) {
+        if (addSeriesPoint(System.currentTimeMillis(), label, Double.NaN) && getVisualizer() == null) {
+            log.error("Perfmon plugin error: " + errorMsg);
+            return;
+        }
         PerfMonSampleResult res = new PerfMonSampleResult();
         res.setSampleLabel(label);
         res.setValue(-1L);
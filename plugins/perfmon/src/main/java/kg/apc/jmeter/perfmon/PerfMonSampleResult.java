@@ -7,7 +7,11 @@ public class PerfMonSampleResult extends SampleResult {
     private final long ts;
 
     public PerfMonSampleResult() {
-        ts = System.currentTimeMillis();
+        this(System.currentTimeMillis());
+    }
+
+    public PerfMonSampleResult(long timestamp) {
+        ts = timestamp;
     }
 
     // store as responseTime, multiply by 1000 to keep floating precision
@@ -0,0 +1,141 @@
+package kg.apc.jmeter.perfmon;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BinaryAgentConnectorTest {
+
+    private BinaryAgentStub agent;
+    private BinaryAgentConnector instance;
+    private final Map<String, Double> samples = new HashMap<>();
+    private int batches;
+
+    private final PerfMonBatchGenerator collector = new PerfMonBatchGenerator() {
+        @Override
+        public void generateSamples(String[] labels, double[] values) {
+            batches++;
+            for (int n = 0; n < values.length; n++) {
+                if (!Double.isNaN(values[n])) {
+                    samples.put(labels[n], values[n]);
+                }
+            }
+        }
+
+        @Override
+        public void generate2Samples(long[] netIO, String string, String string0, double d) {
+        }
+
+        @Override
+        public void generate2Samples(long[] disksIO, String string, String string0) {
+        }
+
+        @Override
+        public void generateSample(double d, String string) {
+            fail("Values must come in batch");
+        }
+
+        @Override
+        public void generateErrorSample(String label, String errorMsg) {
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        agent = new BinaryAgentStub(true);
+        BinaryTransport transport = BinaryTransport.connect(agent.getAddress(), 5000);
+        transport.setInterval(1);
+        instance = new BinaryAgentConnector(transport);
+        instance.addMetric("CPU", "", "cpu");
+        instance.addMetric("Memory", "", "mem");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        instance.disconnect();
+        agent.close();
+    }
+
+    private double[] byMetric(double cpu, double mem) throws InterruptedException {
+        String[] metrics = agent.awaitMetrics();
+        return metrics[0].startsWith("cpu") ? new double[]{cpu, mem} : new double[]{mem, cpu};
+    }
+
+    @Test
+    public void testGenerateSamples() throws Exception {
+        System.out.println("generateSamples");
+        instance.connect();
+        agent.send(byMetric(1.5, 100));
+        instance.generateSamples(collector);
+        assertEquals(1, batches);
+        assertEquals(1.5, samples.get("cpu"), 0);
+        assertEquals(100, samples.get("mem"), 0);
+        assertEquals(Arrays.asList("binary", "interval:1"), agent.getCommands().subList(0, 2));
+
+        long fullSize = agent.getBytesSent();
+        agent.send(byMetric(1.5, 200));
+        instance.generateSamples(collector);
+        assertTrue(agent.getBytesSent() - fullSize <= fullSize);
+        assertEquals(1.5, samples.get("cpu"), 0);
+        assertEquals(200, samples.get("mem"), 0);
+    }
+
+    @Test
+    public void testGenerateSamples_notAvailable() throws Exception {
+        System.out.println("generateSamples_notAvailable");
+        instance.connect();
+        agent.send(byMetric(Double.NaN, 100));
+        instance.generateSamples(new PerfMonSampleGenerator() {
+            @Override
+            public void generate2Samples(long[] netIO, String string, String string0, double d) {
+            }
+
+            @Override
+            public void generate2Samples(long[] disksIO, String string, String string0) {
+            }
+
+            @Override
+            public void generateSample(double d, String string) {
+                samples.put(string, d);
+            }
+
+            @Override
+            public void generateErrorSample(String label, String errorMsg) {
+            }
+        });
+        assertEquals(1, samples.size());
+        assertEquals(100, samples.get("mem"), 0);
+    }
+
+    @Test
+    public void testGenerateSamples_behind() throws Exception {
+        System.out.println("generateSamples_behind");
+        instance.connect();
+        agent.send(byMetric(1, 1));
+        agent.send(byMetric(2, 2));
+        agent.send(byMetric(3, 3));
+        Thread.sleep(100);
+        instance.generateSamples(collector);
+        assertEquals(1, batches);
+        assertEquals(3, samples.get("cpu"), 0);
+        assertEquals(3, samples.get("mem"), 0);
+    }
+
+    @Test
+    public void testConnect_textAgent() throws Exception {
+        System.out.println("connect_textAgent");
+        try (BinaryAgentStub textAgent = new BinaryAgentStub(false)) {
+            BinaryTransport.connect(textAgent.getAddress(), 5000);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("binary"));
+        }
+    }
+}
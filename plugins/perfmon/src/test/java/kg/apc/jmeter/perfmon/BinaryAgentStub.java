@@ -0,0 +1,134 @@
+package kg.apc.jmeter.perfmon;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local agent for tests, answers commands like ServerAgent does
+ * and sends frames given by test. Agent without binary support drops
+ * connection on "binary" command as old agents do.
+ */
+public class BinaryAgentStub implements Runnable, Closeable {
+
+    private final ServerSocket server;
+    private final boolean binary;
+    private final List<String> commands = new CopyOnWriteArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile String[] metrics;
+    private volatile Socket client;
+    private double[] previous;
+    private long bytesSent;
+
+    public BinaryAgentStub(boolean binary) throws IOException {
+        this.binary = binary;
+        server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this, "agent-stub");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+    }
+
+    public List<String> getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return metrics requested by client, in metric id order
+     */
+    public String[] awaitMetrics() throws InterruptedException {
+        if (!started.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Client did not send metrics");
+        }
+        return metrics;
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Sends values as frame in binary mode, or as text line otherwise
+     */
+    public synchronized void send(double... values) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        if (binary) {
+            BinaryMetricsFormat.writeFrame(new DataOutputStream(buf), values, previous);
+            if (previous == null) {
+                previous = values.clone();
+            }
+        } else {
+            StringBuilder line = new StringBuilder();
+            for (double value : values) {
+                line.append(Double.isNaN(value) ? "" : Double.toString(value)).append('\t');
+            }
+            buf.write(line.append('\n').toString().getBytes("UTF-8"));
+        }
+        OutputStream out = client.getOutputStream();
+        out.write(buf.toByteArray());
+        out.flush();
+        bytesSent += buf.size();
+    }
+
+    @Override
+    public void run() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                client = socket;
+                serve(socket);
+            } catch (IOException e) {
+                // next client
+            }
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+        OutputStream out = socket.getOutputStream();
+        String line;
+        while ((line = in.readLine()) != null) {
+            commands.add(line);
+            if (line.equals("test")) {
+                out.write("Yep\n".getBytes("UTF-8"));
+            } else if (line.equals(BinaryMetricsFormat.COMMAND)) {
+                if (!binary) {
+                    return;
+                }
+                out.write((BinaryMetricsFormat.COMMAND + ":" + BinaryMetricsFormat.VERSION + "\n").getBytes("UTF-8"));
+            } else if (line.startsWith("metrics:")) {
+                metrics = line.substring("metrics:".length()).split("\t");
+                synchronized (this) {
+                    previous = null;
+                }
+                started.countDown();
+            } else if (line.equals("exit")) {
+                return;
+            }
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Socket socket = client;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+}
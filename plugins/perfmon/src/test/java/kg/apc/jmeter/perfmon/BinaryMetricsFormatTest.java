@@ -0,0 +1,66 @@
+package kg.apc.jmeter.perfmon;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BinaryMetricsFormatTest {
+
+    @Test
+    public void testWriteFrame() throws Exception {
+        System.out.println("writeFrame");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buf);
+        double[] previous = new double[10];
+        Arrays.fill(previous, Double.NaN);
+
+        double[] values = {1, 2, 3, 4, 5, 6, 7, 8, 9, Double.NaN};
+        BinaryMetricsFormat.writeFrame(out, values, previous);
+        int fullSize = buf.size();
+        assertEquals(1 + 4 + 10 * 8, fullSize);
+
+        values[3] = 40;
+        BinaryMetricsFormat.writeFrame(out, values, previous);
+        assertEquals(1 + 4 + 4 + 12, buf.size() - fullSize);
+        assertEquals(40, previous[3], 0);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buf.toByteArray()));
+        double[] result = new double[10];
+        assertTrue(BinaryMetricsFormat.readFrame(in, result));
+        assertEquals(4, result[3], 0);
+        assertTrue(Double.isNaN(result[9]));
+        assertTrue(BinaryMetricsFormat.readFrame(in, result));
+        assertArrayEquals(values, result, 0);
+    }
+
+    @Test
+    public void testWriteFrame_allChanged() throws Exception {
+        System.out.println("writeFrame_allChanged");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        double[] previous = {1, 2};
+        BinaryMetricsFormat.writeFrame(new DataOutputStream(buf), new double[]{3, 4}, previous);
+        assertEquals(BinaryMetricsFormat.FULL, buf.toByteArray()[0]);
+        assertArrayEquals(new double[]{3, 4}, previous, 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadFrame_wrongCount() throws Exception {
+        System.out.println("readFrame_wrongCount");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        BinaryMetricsFormat.writeFrame(new DataOutputStream(buf), new double[]{1, 2, 3}, null);
+        BinaryMetricsFormat.readFrame(new DataInputStream(new ByteArrayInputStream(buf.toByteArray())), new double[2]);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadFrame_closed() throws Exception {
+        System.out.println("readFrame_closed");
+        BinaryMetricsFormat.readFrame(new DataInputStream(new ByteArrayInputStream(new byte[0])), new double[2]);
+    }
+}
@@ -15,11 +15,16 @@
  */
 package kg.apc.jmeter.perfmon;
 
+import java.io.File;
 import java.io.IOException;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
+import kg.apc.jmeter.results.MonitoringSeriesReader;
 import kg.apc.emulators.TestJMeterUtils;
 import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.property.CollectionProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.util.JMeterUtils;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -197,4 +202,56 @@ public class PerfMonCollectorTest {
         // TODO review the generated test code and remove the default call to fail.
 
     }
+
+    @Test
+    public void testGenerateSamples() {
+        System.out.println("generateSamples");
+        PerfMonCollector instance = new PerfMonCollector();
+        instance.generateSamples(new String[]{"cpu", "mem"}, new double[]{1.5, Double.NaN});
+    }
+
+    @Test
+    public void testGetConnector_binary() throws Exception {
+        System.out.println("getConnector_binary");
+        JMeterUtils.setProperty("jmeterPlugin.perfmon.useBinary", "true");
+        try (BinaryAgentStub binaryAgent = new BinaryAgentStub(true);
+             BinaryAgentStub textAgent = new BinaryAgentStub(false)) {
+            PerfMonCollector instance = new PerfMonCollector();
+            PerfMonAgentConnector binary = instance.getConnector("127.0.0.1", binaryAgent.getAddress().getPort());
+            assertTrue(binary instanceof BinaryAgentConnector);
+            binary.disconnect();
+
+            PerfMonAgentConnector text = instance.getConnector("127.0.0.1", textAgent.getAddress().getPort());
+            assertFalse(text instanceof BinaryAgentConnector);
+            assertTrue(textAgent.getCommands().contains("test"));
+            text.disconnect();
+        } finally {
+            JMeterUtils.setProperty("jmeterPlugin.perfmon.useBinary", "false");
+        }
+    }
+
+    @Test
+    public void testGenerateSamples_seriesFile() throws Exception {
+        System.out.println("generateSamples_seriesFile");
+        File f = File.createTempFile("perfmon", MonitoringSeriesFormat.FILE_EXTENSION);
+        f.deleteOnExit();
+        PerfMonCollector instance = new PerfMonCollector();
+        instance.setFilename(f.getAbsolutePath());
+        instance.testStarted("");
+        instance.generateSamples(new String[]{"cpu", "mem"}, new double[]{1.5, Double.NaN});
+        instance.generateSample(2, "cpu");
+        instance.generateErrorSample("mem", "Agent is down");
+        instance.testEnded("");
+
+        try (MonitoringSeriesReader reader = new MonitoringSeriesReader(f)) {
+            SampleResult res = reader.next();
+            assertEquals("cpu", res.getSampleLabel());
+            assertEquals(1.5, PerfMonSampleResult.getValue(res), 0.001);
+            assertEquals(2, PerfMonSampleResult.getValue(reader.next()), 0.001);
+            res = reader.next();
+            assertEquals("mem", res.getSampleLabel());
+            assertFalse(res.isSuccessful());
+            assertNull(reader.next());
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package kg.apc.jmeter.timers;
+
+import org.apache.jmeter.testelement.property.CollectionProperty;
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.PropertyIterator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load profile compiled into arrays of segment ends, so RPS lookup
+ * is a binary search instead of walking all rows.
+ * Each segment changes RPS linearly from its start to its end.
+ */
+public class LoadProfile {
+
+    private final double[] ends;
+    private final double[] fromRps;
+    private final double[] toRps;
+    private final long totalDuration;
+
+    private LoadProfile(double[] ends, double[] fromRps, double[] toRps, int count) {
+        this.ends = Arrays.copyOf(ends, count);
+        this.fromRps = Arrays.copyOf(fromRps, count);
+        this.toRps = Arrays.copyOf(toRps, count);
+        this.totalDuration = count > 0 ? Math.round(this.ends[count - 1]) : 0;
+    }
+
+    /**
+     * Compiles rows of (start RPS, end RPS, duration) as stored by timer GUI
+     */
+    public static LoadProfile fromRows(CollectionProperty rows) {
+        int count = rows.size();
+        double[] ends = new double[count];
+        double[] from = new double[count];
+        double[] to = new double[count];
+        double end = 0;
+        int n = 0;
+        PropertyIterator iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            @SuppressWarnings("unchecked")
+            List<Object> row = (List<Object>) iterator.next().getObjectValue();
+            from[n] = ((JMeterProperty) row.get(VariableThroughputTimer.FROM_FIELD_NO)).getDoubleValue();
+            to[n] = ((JMeterProperty) row.get(VariableThroughputTimer.TO_FIELD_NO)).getDoubleValue();
+            end += ((JMeterProperty) row.get(VariableThroughputTimer.DURATION_FIELD_NO)).getIntValue();
+            ends[n++] = end;
+        }
+        return new LoadProfile(ends, from, to, n);
+    }
+
+    /**
+     * Reads "time,rps" points, RPS is interpolated linearly between them.
+     * Time is in seconds counted from the first point. Empty lines,
+     * lines starting with # and non-numeric header line are skipped.
+     */
+    public static LoadProfile fromCSV(BufferedReader input) throws IOException {
+        double[] ends = new double[1024];
+        double[] from = new double[1024];
+        double[] to = new double[1024];
+        int count = 0;
+        double startTime = 0;
+        double prevTime = 0;
+        double prevRps = 0;
+        boolean first = true;
+        boolean headerAllowed = true;
+        int lineNo = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split(",");
+            double time;
+            double rps;
+            try {
+                if (parts.length < 2) {
+                    throw new NumberFormatException("Expected time,rps");
+                }
+                time = Double.parseDouble(parts[0].trim());
+                rps = Double.parseDouble(parts[1].trim());
+            } catch (NumberFormatException ex) {
+                if (headerAllowed) {
+                    headerAllowed = false;
+                    continue;
+                }
+                throw new IOException("Wrong load profile line " + lineNo + ": " + line, ex);
+            }
+            headerAllowed = false;
+
+            if (first) {
+                startTime = time;
+                first = false;
+            } else {
+                if (time < prevTime) {
+                    throw new IOException("Time goes backwards at load profile line " + lineNo);
+                }
+                if (count == ends.length) {
+                    ends = Arrays.copyOf(ends, count * 2);
+                    from = Arrays.copyOf(from, count * 2);
+                    to = Arrays.copyOf(to, count * 2);
+                }
+                ends[count] = time - startTime;
+                from[count] = prevRps;
+                to[count] = rps;
+                count++;
+            }
+            prevTime = time;
+            prevRps = rps;
+        }
+
+        if (!first && count == 0) {
+            // single point means zero-length profile of that rate
+            return new LoadProfile(new double[]{0}, new double[]{prevRps}, new double[]{prevRps}, 1);
+        }
+        return new LoadProfile(ends, from, to, count);
+    }
+
+    /**
+     * @param sec time since start of schedule, may be fractional
+     * @return RPS at that moment or -1 if it is beyond the profile
+     */
+    public double getRPS(double sec) {
+        int low = 0;
+        int high = ends.length;
+        // first segment ending at or after sec
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] < sec) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        if (low == ends.length) {
+            return -1;
+        }
+
+        double start = low > 0 ? ends[low - 1] : 0;
+        double duration = ends[low] - start;
+        if (duration <= 0) {
+            return fromRps[low];
+        }
+        return fromRps[low] + (sec - start) * (toRps[low] - fromRps[low]) / duration;
+    }
+
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public int size() {
+        return ends.length;
+    }
+}
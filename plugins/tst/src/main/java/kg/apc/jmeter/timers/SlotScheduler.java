@@ -0,0 +1,140 @@
+package kg.apc.jmeter.timers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free send slot scheduler with nanosecond resolution.
+ * Time is split into one second windows, each window hands out slots
+ * evenly spaced for its rate. Threads claim slots with CAS and park
+ * until their slot, unused slots of a window are not carried over
+ * into the next one.
+ */
+class SlotScheduler {
+
+    public static final long NANOS_PER_SECOND = 1000000000L;
+    public static final long NO_SLOT = Long.MIN_VALUE;
+
+    private final long origin;
+    private final AtomicReference<Window> window = new AtomicReference<>();
+    private final AtomicLong nextSlot = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger parked = new AtomicInteger();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong lagNanos = new AtomicLong();
+
+    public SlotScheduler(long origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * @return current window or null if none opened yet
+     */
+    public Window getWindow() {
+        return window.get();
+    }
+
+    public long getSecond(long nanos) {
+        return (nanos - origin) / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Replaces expired window with the window for given second
+     *
+     * @return false if other thread has replaced it already
+     */
+    public boolean open(Window expired, long second, double rps) {
+        long start = origin + second * NANOS_PER_SECOND;
+        long interval = rps > 0 ? Math.max(1, (long) (NANOS_PER_SECOND / rps)) : 0;
+        return window.compareAndSet(expired, new Window(second, start, start + NANOS_PER_SECOND, interval, rps));
+    }
+
+    /**
+     * @return slot time in nanos or {@link #NO_SLOT} if window has no free slots left
+     */
+    public long claim(Window w) {
+        if (w.interval <= 0) {
+            return NO_SLOT;
+        }
+
+        while (true) {
+            long prev = nextSlot.get();
+            long slot = Math.max(prev, w.start);
+            if (slot >= w.end) {
+                return NO_SLOT;
+            }
+            if (nextSlot.compareAndSet(prev, slot + w.interval)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Parks caller thread until deadline
+     *
+     * @return false if thread was interrupted
+     */
+    public boolean parkUntil(long deadline) {
+        parked.incrementAndGet();
+        try {
+            long wait;
+            while ((wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            parked.decrementAndGet();
+        }
+    }
+
+    public void release(long slot, long now) {
+        released.incrementAndGet();
+        lagNanos.addAndGet(now - slot);
+    }
+
+    public int getParkedCount() {
+        return parked.get();
+    }
+
+    /**
+     * @return released count and total lag in nanos since previous call
+     */
+    public long[] collect() {
+        long count = released.getAndSet(0);
+        long lag = lagNanos.getAndSet(0);
+        return new long[]{count, lag};
+    }
+
+    public static class Window {
+
+        private final long second;
+        private final long start;
+        private final long end;
+        private final long interval;
+        private final double rps;
+
+        private Window(long second, long start, long end, long interval, double rps) {
+            this.second = second;
+            this.start = start;
+            this.end = end;
+            this.interval = interval;
+            this.rps = rps;
+        }
+
+        public long getSecond() {
+            return second;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public double getRps() {
+            return rps;
+        }
+    }
+}
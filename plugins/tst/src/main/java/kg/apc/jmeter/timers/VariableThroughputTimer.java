@@ -1,5 +1,4 @@
 // TODO: fight with lagging on start
-// TODO: create a thread which will wake up at least one sampler to provide rps
 package kg.apc.jmeter.timers;
 
 import kg.apc.jmeter.JMeterPluginsUtils;
@@ -13,16 +12,16 @@ import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.testelement.property.CollectionProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.NullProperty;
-import org.apache.jmeter.testelement.property.PropertyIterator;
+import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.threads.AbstractThreadGroup;
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.timers.Timer;
 import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
 
 public class VariableThroughputTimer
         extends AbstractTestElement
@@ -37,37 +36,24 @@ public class VariableThroughputTimer
     };
 
     public static final String DATA_PROPERTY_POSTFIX = "load_profile";
+    public static final String FILE_PROPERTY_POSTFIX = "load_profile_file";
     public static final int DURATION_FIELD_NO = 2;
     public static final int FROM_FIELD_NO = 0;
     public static final int TO_FIELD_NO = 1;
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(VariableThroughputTimer.class);
-    /* put this in fields because we don't want create variables in tight loops */
     /**
-     * Current threads waiting, if &lt; 1 it means we don't have enough threads to reach RPS
+     * Current second since start of schedule
      */
-    private int cntDelayed;
-    /**
-     * Current second in Millis
-     */
-    private double time = 0;
-    /**
-     * How many requests per millis
-     */
-    private double msecPerReq;
-    /**
-     * Number of samples sent since last second
-     */
-    private long cntSent;
+    private volatile long time = -1;
     /**
      * Current RPS
      */
-    private double rps;
-    private double startSec = 0;
+    private volatile double rps;
+    private transient volatile SlotScheduler scheduler;
     private CollectionProperty overrideProp;
-    private ArrayList<LoadProfileRow> loadProfile;
+    private transient volatile LoadProfile loadProfile;
     private int stopTries;
-    private double lastStopTry;
-    private boolean stopping;
+    private long lastStopTry = -1;
 
 
     public String getDataProperty() {
@@ -81,109 +67,99 @@ public class VariableThroughputTimer
         setDataProperty();
     }
 
-    private class LoadProfileRow {
-        double fromRps, toRps;
-        int duration;
-
-        LoadProfileRow(double fromRps, double toRps, int duration) {
-            this.fromRps = fromRps;
-            this.toRps = toRps;
-            this.duration = duration;
-        }
-        double getFromRps() {
-            return this.fromRps;
-        }
-        double getToRps() {
-            return this.toRps;
-        }
-        int getDuration() {
-            return this.duration;
-        }
-    }
-
     /**
-     * Internally handles that delay for caller thread
+     * Internally handles that delay for caller thread: claims next send slot
+     * of current second and parks until it
      *
      * @return 0
      */
-    public synchronized long delay() {
-        if (loadProfile == null) {
-            JMeterProperty data = getData();
-            if (data != null && ! (data instanceof NullProperty)) {
-                setLoadProfile((CollectionProperty) data);
-            }
-        }
+    public long delay() {
+        SlotScheduler slots = getScheduler();
         while (true) {
-            long curTimeMs = System.currentTimeMillis();
-            long millisSinceLastSecond = curTimeMs % 1000;
-            long nowInMsRoundedAtSec = curTimeMs - millisSinceLastSecond;
-            checkNextSecond(nowInMsRoundedAtSec);
-            int delayMs = getDelay(millisSinceLastSecond);
-
-            if (stopping) {
-                delayMs = delayMs > 0 ? 10 : 0;
-                notify(); // NOSONAR Don't notifyAll as cost is too big in terms of performances
+            long now = System.nanoTime();
+            SlotScheduler.Window window = slots.getWindow();
+            if (window == null || now >= window.getEnd()) {
+                checkNextSecond(slots, window, now);
+                continue;
             }
 
-            if (delayMs < 1) {
-                notify(); // NOSONAR Don't notifyAll as cost is too big in terms of performances
-                break;
+            long slot = slots.claim(window);
+            // no free slots left in this second, wait for the next one
+            long deadline = slot == SlotScheduler.NO_SLOT ? window.getEnd() : slot;
+            if (!slots.parkUntil(deadline)) {
+                log.debug("Waiting thread was interrupted");
+                return 0;
             }
-            cntDelayed++;
-            try {
-                wait(delayMs);
-            } catch (InterruptedException ex) {
-                log.debug("Waiting thread was interrupted", ex);
-                Thread.currentThread().interrupt();
+
+            if (slot != SlotScheduler.NO_SLOT) {
+                slots.release(slot, System.nanoTime());
+                return 0;
             }
-            cntDelayed--;
         }
-        cntSent++;
+    }
 
-        return 0;
+    /**
+     * Schedule starts with first delay, later calls only read volatile field
+     */
+    private SlotScheduler getScheduler() {
+        SlotScheduler slots = scheduler;
+        if (slots == null) {
+            synchronized (this) {
+                slots = scheduler;
+                if (slots == null) {
+                    // compile profile before schedule start, so it is not counted as lag
+                    getLoadProfile();
+                    slots = new SlotScheduler(System.nanoTime());
+                    scheduler = slots;
+                }
+            }
+        }
+        return slots;
     }
 
     /**
-     * If we have switched to next second:
-     * <li>
-     * <ul>Updates time</ul>
-     * <ul>Updates startSec</ul>
-     * <ul>Resets cntSent</ul>
-     * </li>
+     * If we have switched to next second, opens its window of slots
+     * and publishes stats of the expired one. Only the thread that
+     * managed to open the window does that.
      *
-     * @param nowInMsRoundedAtSec Now in millis rounded as second
+     * @param slots   scheduler in use
+     * @param expired window of previous second, null at start
+     * @param now     now in nanos
      */
-    private synchronized void checkNextSecond(double nowInMsRoundedAtSec) {
-        // next second
-        if (time == nowInMsRoundedAtSec) {
+    private void checkNextSecond(SlotScheduler slots, SlotScheduler.Window expired, long now) {
+        if (slots.getWindow() != expired) {
             return;
         }
 
-        if (startSec == 0) {
-            startSec = nowInMsRoundedAtSec;
-        }
-        time = nowInMsRoundedAtSec;
-
-        Pair<Double, Long> pair = getRPSForSecond((nowInMsRoundedAtSec - startSec) / 1000);
+        long second = slots.getSecond(now);
+        Pair<Double, Long> pair = getRPSForSecond(second);
         double nextRps = pair.getLeft();
-        if (nextRps < 0) {
-            stopping = true;
+        boolean outOfSchedule = nextRps < 0;
+        if (outOfSchedule) {
             int factor = stopTries > 10 ? 2 : 1;
-            rps = rps > 0 ? rps * factor : 1;
-            stopTest();
-            notifyAll();
-        } else {
-            rps = nextRps;
+            nextRps = rps > 0 ? rps * factor : 1;
         }
 
+        if (!slots.open(expired, second, nextRps)) {
+            return;
+        }
+
+        time = second;
+        rps = nextRps;
+        int cntDelayed = slots.getParkedCount();
+        long[] stats = slots.collect();
+        long cntSent = stats[0];
+        double lagMs = cntSent > 0 ? stats[1] / 1000000.0 / cntSent : 0;
+        double overshoot = expired == null ? 0 : cntSent - expired.getRps();
+
         if (log.isDebugEnabled()) {
-            log.debug("Second changed {} , waiting: {}, samples sent {}, current rps: {} rps",
-                    ((nowInMsRoundedAtSec - startSec) / 1000), cntDelayed, cntSent, rps);
+            log.debug("Second changed {} , waiting: {}, samples sent {}, lag {} ms, overshoot {}, current rps: {} rps",
+                    second, cntDelayed, cntSent, lagMs, overshoot, rps);
         }
 
-        if (cntDelayed < 1 && cntSent < rps) {
+        if (expired != null && cntDelayed < 1 && cntSent < expired.getRps()) {
             log.warn("No free threads available in current Thread Group {}, made {} samples/s for expected rps {} samples/s, increase your number of threads",
-                    JMeterContextService.getContext().getThreadGroup().getName(), cntSent, rps);
+                    JMeterContextService.getContext().getThreadGroup().getName(), cntSent, expired.getRps());
         }
 
         String elementName = getName();
@@ -191,26 +167,12 @@ public class VariableThroughputTimer
         JMeterUtils.setProperty(elementName + "_cntDelayed", String.valueOf(cntDelayed));
         JMeterUtils.setProperty(elementName + "_cntSent", String.valueOf(cntSent));
         JMeterUtils.setProperty(elementName + "_rps", String.valueOf(rps));
+        JMeterUtils.setProperty(elementName + "_lagMs", String.valueOf(lagMs));
+        JMeterUtils.setProperty(elementName + "_overshoot", String.valueOf(overshoot));
 
-        cntSent = 0;
-        msecPerReq = 1000d / rps;
-    }
-
-    /**
-     * @param millisSinceLastSecond Millis since last second tick
-     * @return delay in Millis to apply at current millis, < 0 if no delay
-     */
-    private int getDelay(long millisSinceLastSecond) {
-        if (log.isDebugEnabled()) {
-            log.debug("Calculating {} {} {}", millisSinceLastSecond, cntSent * msecPerReq, cntSent);
-        }
-        if (millisSinceLastSecond < (cntSent * msecPerReq)) {
-            // TODO : Explain this for other maintainers
-            // cntDelayed + 1 : Current threads waiting + this thread
-            return (int) (1 + 1000.0 * (cntDelayed + 1) / rps);
+        if (outOfSchedule) {
+            stopTest();
         }
-        // we're under rate
-        return 0;
     }
 
     public void setDataProperty(){
@@ -224,16 +186,19 @@ public class VariableThroughputTimer
     }
 
     private void setLoadProfile(CollectionProperty rows) {
-        loadProfile = new ArrayList<>();
-        PropertyIterator iterator = rows.iterator();
-        while (iterator.hasNext()) {
-            @SuppressWarnings("unchecked")
-            List<Object> curProp = (List<Object>) iterator.next().getObjectValue();
-            int duration = getIntValue(curProp, DURATION_FIELD_NO);
-            double fromRps = getDoubleValue(curProp, FROM_FIELD_NO);
-            double toRps = getDoubleValue(curProp, TO_FIELD_NO);
-            loadProfile.add(new LoadProfileRow(fromRps, toRps, duration));
+        loadProfile = LoadProfile.fromRows(rows);
+    }
+
+    private LoadProfile getLoadProfile() {
+        LoadProfile profile = loadProfile;
+        if (profile == null) {
+            JMeterProperty data = getData();
+            if (data != null && ! (data instanceof NullProperty)) {
+                profile = LoadProfile.fromRows((CollectionProperty) data);
+                loadProfile = profile;
+            }
         }
+        return profile;
     }
 
     public void setData(CollectionProperty rows) {
@@ -255,42 +220,11 @@ public class VariableThroughputTimer
      * @return double RPS at that second or -1 if we're out of schedule
      */
     public Pair<Double, Long> getRPSForSecond(final double elapsedSinceStartOfTestSec) {
-        JMeterProperty data = getData();
-        if (data instanceof NullProperty) {
+        LoadProfile profile = getLoadProfile();
+        if (profile == null) {
             return Pair.of(-1.0, 0L);
         }
-        Iterator<LoadProfileRow> scheduleIT = loadProfile.iterator();
-        double newSec = elapsedSinceStartOfTestSec;
-        double result = -1;
-        boolean resultComputed = false;
-        long totalDuration = 0;
-        while (scheduleIT.hasNext()) {
-            LoadProfileRow row = scheduleIT.next();
-            int duration = row.getDuration();
-            totalDuration += duration;
-            if (!resultComputed) {
-                double fromRps = row.getFromRps();
-                double toRps = row.getToRps();
-                if (newSec - duration <= 0) {
-                    result = fromRps + newSec * (toRps - fromRps) / (double) duration;
-                    resultComputed = true;
-                } else {
-                    // We're not yet in the slot
-                    newSec -= duration;
-                }
-            }
-        }
-        return Pair.of(result, totalDuration);
-    }
-
-    private double getDoubleValue(List<Object> prop, int colID) {
-        JMeterProperty val = (JMeterProperty) prop.get(colID);
-        return val.getDoubleValue();
-    }
-
-    private int getIntValue(List<Object> prop, int colID) {
-        JMeterProperty val = (JMeterProperty) prop.get(colID);
-        return val.getIntValue();
+        return Pair.of(profile.getRPS(elapsedSinceStartOfTestSec), profile.getTotalDuration());
     }
 
     private void trySettingLoadFromProperty() {
@@ -317,6 +251,36 @@ public class VariableThroughputTimer
         }
     }
 
+    /**
+     * Loads "time,rps" CSV profile named by {@link #FILE_PROPERTY_POSTFIX} property,
+     * it is compiled directly without building table rows. Called once per test start,
+     * file profile takes precedence over property one.
+     *
+     * @return true if profile was loaded from file
+     */
+    private boolean trySettingLoadFromFile() {
+        String fileName = null;
+        if (!StringUtils.isEmpty(getName())) {
+            fileName = JMeterUtils.getProperty(getName() + "." + FILE_PROPERTY_POSTFIX);
+        }
+        if (StringUtils.isEmpty(fileName)) {
+            fileName = JMeterUtils.getProperty(FILE_PROPERTY_POSTFIX);
+        }
+        if (StringUtils.isEmpty(fileName)) {
+            return false;
+        }
+
+        String path = FileServer.resolveBaseRelativeName(fileName);
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            loadProfile = LoadProfile.fromCSV(reader);
+            log.info("Loaded load profile of {} rows from {}", loadProfile.size(), path);
+            return true;
+        } catch (IOException ex) {
+            log.error("Failed to load profile from file {}", path, ex);
+            return false;
+        }
+    }
+
     private static void parseChunk(String chunk, PowerTableModel model) {
         log.debug("Parsing chunk: {}", chunk);
         String[] parts = chunk.split("[(,]");
@@ -387,15 +351,19 @@ public class VariableThroughputTimer
 
     @Override
     public void testStarted() {
-        stopping = false;
         stopTries = 0;
+        lastStopTry = -1;
+        time = -1;
+        rps = 0;
+        scheduler = null;
         setDataProperty();
-        trySettingLoadFromProperty();
+        if (!trySettingLoadFromFile()) {
+            trySettingLoadFromProperty();
+        }
     }
 
     @Override
     public void testStarted(String string) {
-        trySettingLoadFromProperty();
         testStarted();
     }
 
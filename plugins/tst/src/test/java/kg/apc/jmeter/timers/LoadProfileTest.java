@@ -0,0 +1,89 @@
+package kg.apc.jmeter.timers;
+
+import kg.apc.emulators.TestJMeterUtils;
+import kg.apc.jmeter.JMeterPluginsUtils;
+import org.apache.jmeter.gui.util.PowerTableModel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class LoadProfileTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    @Test
+    public void testFromRows() {
+        System.out.println("fromRows");
+        PowerTableModel model = new PowerTableModel(VariableThroughputTimer.columnIdentifiers, VariableThroughputTimer.columnClasses);
+        model.addRow(new Integer[]{1, 10, 3});
+        model.addRow(new Integer[]{15, 15, 3});
+        model.addRow(new Integer[]{15, 1, 3});
+        LoadProfile instance = LoadProfile.fromRows(JMeterPluginsUtils.tableModelRowsToCollectionProperty(model, "test"));
+        assertEquals(3, instance.size());
+        assertEquals(9, instance.getTotalDuration());
+        assertEquals(1, instance.getRPS(0), 0.001);
+        assertEquals(5.5, instance.getRPS(1.5), 0.001);
+        assertEquals(10, instance.getRPS(3), 0.001);
+        assertEquals(15, instance.getRPS(4), 0.001);
+        assertEquals(15, instance.getRPS(6), 0.001);
+        assertEquals(1, instance.getRPS(9), 0.001);
+        assertEquals(-1, instance.getRPS(9.5), 0.001);
+    }
+
+    @Test
+    public void testFromCSV() throws IOException {
+        System.out.println("fromCSV");
+        String csv = "# replayed traffic\ntime,rps\n100,10\n\n101,20\n103, 20\n104,0\n";
+        LoadProfile instance = LoadProfile.fromCSV(new BufferedReader(new StringReader(csv)));
+        assertEquals(3, instance.size());
+        assertEquals(4, instance.getTotalDuration());
+        assertEquals(10, instance.getRPS(0), 0.001);
+        assertEquals(12.5, instance.getRPS(0.25), 0.001);
+        assertEquals(20, instance.getRPS(2), 0.001);
+        assertEquals(5, instance.getRPS(3.75), 0.001);
+        assertEquals(-1, instance.getRPS(4.1), 0.001);
+    }
+
+    @Test
+    public void testFromCSV_single() throws IOException {
+        System.out.println("fromCSV single point");
+        LoadProfile instance = LoadProfile.fromCSV(new BufferedReader(new StringReader("0,50\n")));
+        assertEquals(50, instance.getRPS(0), 0.001);
+        assertEquals(-1, instance.getRPS(1), 0.001);
+        assertEquals(-1, LoadProfile.fromCSV(new BufferedReader(new StringReader(""))).getRPS(0), 0.001);
+    }
+
+    @Test(expected = IOException.class)
+    public void testFromCSV_backwards() throws IOException {
+        System.out.println("fromCSV backwards");
+        LoadProfile.fromCSV(new BufferedReader(new StringReader("0,1\n5,1\n3,1\n")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testFromCSV_broken() throws IOException {
+        System.out.println("fromCSV broken");
+        LoadProfile.fromCSV(new BufferedReader(new StringReader("0,1\nabc\n")));
+    }
+
+    @Test
+    public void testFromCSV_large() throws IOException {
+        System.out.println("fromCSV large");
+        StringBuilder csv = new StringBuilder();
+        for (int n = 0; n <= 100000; n++) {
+            csv.append(n).append(',').append(n % 100).append('\n');
+        }
+        LoadProfile instance = LoadProfile.fromCSV(new BufferedReader(new StringReader(csv.toString())));
+        assertEquals(100000, instance.size());
+        assertEquals(100000, instance.getTotalDuration());
+        assertEquals(42, instance.getRPS(54342), 0.001);
+        assertEquals(42.5, instance.getRPS(54342.5), 0.001);
+    }
+}
@@ -0,0 +1,70 @@
+package kg.apc.jmeter.timers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SlotSchedulerTest {
+
+    @Test
+    public void testClaim() {
+        System.out.println("claim");
+        SlotScheduler instance = new SlotScheduler(0);
+        assertTrue(instance.open(null, 0, 1000));
+        SlotScheduler.Window window = instance.getWindow();
+        for (int n = 0; n < 1000; n++) {
+            assertEquals(n * 1000000L, instance.claim(window));
+        }
+        assertEquals(SlotScheduler.NO_SLOT, instance.claim(window));
+    }
+
+    @Test
+    public void testOpen() {
+        System.out.println("open");
+        SlotScheduler instance = new SlotScheduler(0);
+        assertTrue(instance.open(null, 0, 2));
+        SlotScheduler.Window first = instance.getWindow();
+        assertFalse(instance.open(null, 1, 2));
+        assertEquals(0, instance.claim(first));
+
+        // unused slots are not carried into next second
+        assertTrue(instance.open(first, 3, 4));
+        SlotScheduler.Window next = instance.getWindow();
+        assertEquals(3, next.getSecond());
+        assertEquals(4 * SlotScheduler.NANOS_PER_SECOND, next.getEnd());
+        assertEquals(3 * SlotScheduler.NANOS_PER_SECOND, instance.claim(next));
+        assertEquals(3 * SlotScheduler.NANOS_PER_SECOND + 250000000L, instance.claim(next));
+    }
+
+    @Test
+    public void testClaim_zeroRps() {
+        System.out.println("claim zero rps");
+        SlotScheduler instance = new SlotScheduler(0);
+        instance.open(null, 0, 0);
+        assertEquals(SlotScheduler.NO_SLOT, instance.claim(instance.getWindow()));
+    }
+
+    @Test
+    public void testParkUntil() {
+        System.out.println("parkUntil");
+        SlotScheduler instance = new SlotScheduler(System.nanoTime());
+        long deadline = System.nanoTime() + 5000000L;
+        assertTrue(instance.parkUntil(deadline));
+        assertTrue(System.nanoTime() >= deadline);
+        assertEquals(0, instance.getParkedCount());
+
+        Thread.currentThread().interrupt();
+        assertFalse(instance.parkUntil(System.nanoTime() + SlotScheduler.NANOS_PER_SECOND));
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    public void testCollect() {
+        System.out.println("collect");
+        SlotScheduler instance = new SlotScheduler(0);
+        instance.release(100, 300);
+        instance.release(200, 300);
+        assertArrayEquals(new long[]{2, 300}, instance.collect());
+        assertArrayEquals(new long[]{0, 0}, instance.collect());
+    }
+}
@@ -1,11 +1,17 @@
 package kg.apc.jmeter.timers;
 
 import org.apache.jmeter.gui.util.PowerTableModel;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import kg.apc.jmeter.JMeterPluginsUtils;
 import kg.apc.emulators.TestJMeterUtils;
 import org.apache.jmeter.testelement.property.CollectionProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.ThreadGroup;
 import org.apache.jmeter.util.JMeterUtils;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -138,6 +144,65 @@ public class VariableThroughputTimerTest {
         }
     }
 
+    @Test
+    public void testDelay_highRate() throws InterruptedException {
+        System.out.println("delay high rate");
+        final VariableThroughputTimer instance = new VariableThroughputTimerEmul();
+        instance.setName("HIGHRATE");
+        PowerTableModel model = new PowerTableModel(VariableThroughputTimer.columnIdentifiers, VariableThroughputTimer.columnClasses);
+        model.addRow(new Integer[]{2000, 2000, 10});
+        instance.setData(JMeterPluginsUtils.tableModelRowsToCollectionProperty(model, instance.getDataProperty()));
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] threads = new Thread[50];
+        for (int n = 0; n < threads.length; n++) {
+            threads[n] = new Thread() {
+                @Override
+                public void run() {
+                    JMeterContextService.getContext().setThreadGroup(new ThreadGroup());
+                    while (running.get()) {
+                        instance.delay();
+                    }
+                }
+            };
+            threads[n].start();
+        }
+        Thread.sleep(2500);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int sent = Integer.parseInt(JMeterUtils.getProperty("HIGHRATE_cntSent"));
+        assertEquals(2000, sent, 20);
+        assertEquals(sent - 2000, Double.parseDouble(JMeterUtils.getProperty("HIGHRATE_overshoot")), 0.001);
+        assertTrue(Double.parseDouble(JMeterUtils.getProperty("HIGHRATE_lagMs")) >= 0);
+        assertEquals("2000.0", JMeterUtils.getProperty("HIGHRATE_rps"));
+    }
+
+    @Test
+    public void testGetRPSForSecond_file() throws IOException {
+        System.out.println("getRPSForSecond from file");
+        File file = File.createTempFile("profile", ".csv");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("time,rps\n0,10\n10,20\n");
+        }
+        JMeterUtils.setProperty("FileInstance." + VariableThroughputTimer.FILE_PROPERTY_POSTFIX, file.getAbsolutePath());
+        try {
+            VariableThroughputTimer instance = new VariableThroughputTimer();
+            instance.setName("FileInstance");
+            // file is read on test start only
+            assertEquals(-1, instance.getRPSForSecond(5).getLeft(), 0.001);
+            instance.testStarted("host");
+            assertEquals(15, instance.getRPSForSecond(5).getLeft(), 0.001);
+            assertEquals(10L, (long) instance.getRPSForSecond(5).getRight());
+            assertEquals(-1, instance.getRPSForSecond(11).getLeft(), 0.001);
+        } finally {
+            JMeterUtils.setProperty("FileInstance." + VariableThroughputTimer.FILE_PROPERTY_POSTFIX, "");
+        }
+    }
+
     /**
      * Test of setData method, of class VariableThroughputTimer.
      */
@@ -0,0 +1,362 @@
+package kg.apc.jmeter;
+
+import kg.apc.jmeter.results.BinaryResultsReader;
+import kg.apc.jmeter.results.MonitoringSeriesReader;
+import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.services.FileServer;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jmeter.visualizers.Visualizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads CSV result files using several threads. The file is memory-mapped
+ * and split into chunks on record boundaries, chunks are parsed with
+ * JMeter's own CSV parser on a {@link ForkJoinPool}, then samples are passed
+ * to the visualizer in file order, so graphs are the same as after
+ * {@link ResultCollector#loadExistingFile()}.
+ * <p>
+ * Files that cannot be loaded this way (XML, binary results, monitoring series, small or in
+ * non-ASCII-compatible encoding) are left to the sequential loader.
+ * <p>
+ * JMeter has no public API to parse a single CSV record, so its private parser
+ * is called by reflection. If it is missing or not accessible, e.g. after JMeter
+ * upgrade, a warning is logged and all files are left to the sequential loader.
+ */
+public class ParallelCSVLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelCSVLoader.class);
+    public static final String THREADS_PROPERTY = "jmeterPlugin.cmd.loaderThreads";
+    public static final String CHUNK_SIZE_PROPERTY = "jmeterPlugin.cmd.loaderChunkSize";
+    private static final int SCAN_WINDOW = 64 * 1024 * 1024;
+    private static final int HEADER_LIMIT = 64 * 1024;
+    private static final Method parseMethod = getParseMethod();
+
+    private static final int FIELD_START = 0;
+    private static final int PLAIN = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final int threads;
+    private final int chunkSize;
+
+    public ParallelCSVLoader() {
+        this(JMeterUtils.getPropDefault(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()),
+                JMeterUtils.getPropDefault(CHUNK_SIZE_PROPERTY, 8 * 1024 * 1024));
+    }
+
+    ParallelCSVLoader(int threads, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    private static Method getParseMethod() {
+        try {
+            Method method = CSVSaveService.class.getDeclaredMethod("makeResultFromDelimitedString",
+                    String[].class, SampleSaveConfiguration.class, long.class);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException | RuntimeException ex) {
+            // RuntimeException covers module access restrictions of newer Java
+            log.warn("JMeter CSV record parser is not accessible, results files will be loaded sequentially", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Loads collector's file into visualizer, applying collector's success filter
+     *
+     * @return false if file was not loaded and sequential loading should be used
+     */
+    public boolean load(ResultCollector collector, Visualizer visualizer) {
+        if (threads < 2 || parseMethod == null || collector.getFilename().isEmpty()) {
+            return false;
+        }
+
+        File file = new File(FileServer.resolveBaseRelativeName(collector.getFilename()));
+        if (!file.isFile() || file.length() <= chunkSize
+                || BinaryResultsReader.isBinaryFile(file) || MonitoringSeriesReader.isSeriesFile(file)) {
+            return false;
+        }
+
+        Charset charset = Charset.forName(SaveService.getFileEncoding("UTF-8"));
+        if (!isAsciiCompatible(charset)) {
+            return false;
+        }
+
+        try (FileInputStream in = new FileInputStream(file)) {
+            return load(in.getChannel(), file, charset, collector, visualizer);
+        } catch (IOException ex) {
+            log.error("Failed to load results file " + file.getAbsolutePath(), ex);
+            return true;
+        }
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        String name = charset.name().toUpperCase();
+        return name.equals("UTF-8") || name.equals("US-ASCII")
+                || name.startsWith("ISO-8859-") || name.startsWith("WINDOWS-125");
+    }
+
+    private boolean load(FileChannel channel, File file, Charset charset,
+                         ResultCollector collector, Visualizer visualizer) throws IOException {
+        long size = channel.size();
+        ByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_LIMIT));
+        int eol = 0;
+        while (eol < head.limit() && head.get(eol) != '\n' && head.get(eol) != '\r') {
+            eol++;
+        }
+        if (eol == head.limit()) {
+            return false;
+        }
+
+        long dataStart = eol + 1;
+        if (head.limit() > eol + 1 && head.get(eol) == '\r' && head.get(eol + 1) == '\n') {
+            dataStart++;
+        }
+
+        head.limit(eol);
+        String line = charset.decode(head).toString();
+        if (line.startsWith("<?xml ")) {
+            return false;
+        }
+
+        long lineNumber = 1;
+        SampleSaveConfiguration saveConfig = CSVSaveService.getSampleSaveConfiguration(line, file.getAbsolutePath());
+        if (saveConfig == null) {
+            log.info(file.getAbsolutePath() + " does not appear to have a valid header. Using default configuration.");
+            saveConfig = (SampleSaveConfiguration) collector.getSaveConfig().clone();
+            dataStart = 0;
+            lineNumber = 0;
+        }
+
+        char delim = saveConfig.getDelimiter().charAt(0);
+        if (delim > 127) {
+            return false;
+        }
+
+        if (!primeConfig(channel, dataStart, charset, saveConfig, delim)) {
+            return false;
+        }
+
+        List<Chunk> chunks = split(channel, dataStart, lineNumber, delim);
+        log.info("Loading " + file.getAbsolutePath() + " in " + chunks.size() + " chunks using " + threads + " threads");
+        boolean errorsOnly = collector.isErrorLogging();
+        boolean successOnly = collector.isSuccessOnlyLogging();
+        for (Chunk chunk : chunks) {
+            chunk.init(channel, charset, saveConfig, delim, errorsOnly, successOnly);
+        }
+
+        dispatch(chunks, visualizer, file);
+        return true;
+    }
+
+    /**
+     * Record parser adjusts timestamp format on first record,
+     * let it happen before configuration is copied into chunks.
+     * This is also the check that parser can still be called, before any sample is loaded.
+     *
+     * @return false if parser cannot be called and sequential loading should be used
+     */
+    private boolean primeConfig(FileChannel channel, long dataStart, Charset charset,
+                                SampleSaveConfiguration saveConfig, char delim) throws IOException {
+        channel.position(dataStart);
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel, charset.newDecoder(), 8192));
+        String[] parts = CSVSaveService.csvReadFile(reader, delim);
+        if (parts.length != 0) {
+            try {
+                parseMethod.invoke(null, parts, saveConfig, 1L);
+            } catch (InvocationTargetException ex) {
+                log.debug("First record is not parsed, error will be reported by chunk", ex);
+            } catch (IllegalAccessException | IllegalArgumentException ex) {
+                log.warn("Failed to call JMeter CSV record parser, loading file sequentially", ex);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits file into chunks of about chunkSize bytes, cutting only
+     * after line feeds which are not inside quoted fields
+     */
+    private List<Chunk> split(FileChannel channel, long dataStart, long lineNumber, char delim) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        long chunkStart = dataStart;
+        long chunkLine = lineNumber;
+        long records = lineNumber;
+        int state = FIELD_START;
+        boolean afterCR = false;
+
+        for (long windowStart = dataStart; windowStart < size; windowStart += SCAN_WINDOW) {
+            int windowSize = (int) Math.min(SCAN_WINDOW, size - windowStart);
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            for (int n = 0; n < windowSize; n++) {
+                byte b = window.get(n);
+                boolean cr = false;
+                if (state == QUOTED) {
+                    if (b == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    }
+                } else if (state == QUOTE_IN_QUOTED && b == '"') {
+                    state = QUOTED;
+                } else if (b == '\n') {
+                    if (!afterCR) {
+                        records++;
+                    }
+                    state = FIELD_START;
+                    long pos = windowStart + n + 1;
+                    if (pos - chunkStart >= chunkSize) {
+                        chunks.add(new Chunk(chunkStart, pos, chunkLine));
+                        chunkStart = pos;
+                        chunkLine = records;
+                    }
+                } else if (b == '\r') {
+                    records++;
+                    state = FIELD_START;
+                    cr = true;
+                } else if (b == delim) {
+                    state = FIELD_START;
+                } else if (b == '"' && state == FIELD_START) {
+                    state = QUOTED;
+                } else {
+                    state = PLAIN;
+                }
+                afterCR = cr;
+            }
+        }
+
+        if (chunkStart < size) {
+            chunks.add(new Chunk(chunkStart, size, chunkLine));
+        }
+        return chunks;
+    }
+
+    private void dispatch(List<Chunk> chunks, Visualizer visualizer, File file) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Deque<Future<Chunk>> pending = new ArrayDeque<>();
+            int next = 0;
+            while (next < chunks.size() || !pending.isEmpty()) {
+                while (next < chunks.size() && pending.size() < threads * 2) {
+                    pending.add(pool.submit(chunks.get(next++)));
+                }
+
+                Chunk chunk = pending.poll().get();
+                for (SampleResult res : chunk.samples) {
+                    visualizer.add(res);
+                }
+                chunk.samples = null;
+
+                if (chunk.error != null) {
+                    log.error("Failed to load results file " + file.getAbsolutePath(), chunk.error);
+                    return;
+                }
+                if (!chunk.complete) {
+                    log.debug("Empty record found, stopped loading " + file.getAbsolutePath());
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + file.getAbsolutePath(), ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Failed to parse " + file.getAbsolutePath(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Byte range of file holding whole records, parsed into filtered samples
+     */
+    private static class Chunk implements Callable<Chunk> {
+
+        private final long start;
+        private final long end;
+        private final long firstLine;
+        private FileChannel channel;
+        private Charset charset;
+        private SampleSaveConfiguration saveConfig;
+        private char delim;
+        private boolean errorsOnly;
+        private boolean successOnly;
+        private List<SampleResult> samples = new ArrayList<>();
+        private boolean complete = false;
+        private Throwable error;
+
+        public Chunk(long start, long end, long firstLine) {
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+        }
+
+        private void init(FileChannel channel, Charset charset, SampleSaveConfiguration saveConfig,
+                          char delim, boolean errorsOnly, boolean successOnly) {
+            this.channel = channel;
+            this.charset = charset;
+            // date formatter inside is not thread-safe
+            this.saveConfig = (SampleSaveConfiguration) saveConfig.clone();
+            this.delim = delim;
+            this.errorsOnly = errorsOnly;
+            this.successOnly = successOnly;
+        }
+
+        @Override
+        public Chunk call() throws Exception {
+            CharBuffer chars = charset.decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            BufferedReader reader = new BufferedReader(new CharArrayReader(chars.array(),
+                    chars.arrayOffset() + chars.position(), chars.remaining()));
+            long lineNumber = firstLine;
+            try {
+                String[] parts;
+                while ((parts = CSVSaveService.csvReadFile(reader, delim)).length != 0) {
+                    lineNumber++;
+                    SampleEvent event = (SampleEvent) parseMethod.invoke(null, parts, saveConfig, lineNumber);
+                    if (event != null) {
+                        SampleResult res = event.getResult();
+                        if (ResultCollector.isSampleWanted(res.isSuccessful(), errorsOnly, successOnly)) {
+                            samples.add(res);
+                        }
+                    }
+                }
+                complete = reader.read() == -1;
+            } catch (InvocationTargetException ex) {
+                error = ex.getCause();
+            } catch (IOException | IllegalAccessException | IllegalArgumentException ex) {
+                error = ex;
+            }
+            return this;
+        }
+    }
+}
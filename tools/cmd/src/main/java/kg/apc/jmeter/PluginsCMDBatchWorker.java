@@ -0,0 +1,184 @@
+package kg.apc.jmeter;
+
+import kg.apc.jmeter.graphs.AbstractGraphPanelVisualizer;
+import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.Visualizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several {@link PluginsCMDWorker} jobs reading every input file only once.
+ * Samples are fanned out to all plugins sharing the same input file,
+ * then graphs are exported in parallel.
+ */
+public class PluginsCMDBatchWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(PluginsCMDBatchWorker.class);
+    private final List<PluginsCMDWorker> workers = new ArrayList<>();
+    private final Map<PluginsCMDWorker, String> names = new LinkedHashMap<>();
+    private int exportThreads = Runtime.getRuntime().availableProcessors();
+
+    public void addWorker(PluginsCMDWorker worker, String name) {
+        workers.add(worker);
+        names.put(worker, name);
+    }
+
+    public void setExportThreads(int exportThreads) {
+        if (exportThreads < 1) {
+            throw new IllegalArgumentException("Export threads count cannot be less than 1");
+        }
+        this.exportThreads = exportThreads;
+    }
+
+    public int getExportThreads() {
+        return exportThreads;
+    }
+
+    /**
+     * @return count of failed jobs
+     */
+    public int doJob() {
+        int failed = 0;
+        Map<String, List<PluginsCMDWorker>> byFile = new LinkedHashMap<>();
+        List<PluginsCMDWorker> loaded = new ArrayList<>();
+
+        for (PluginsCMDWorker worker : workers) {
+            if (worker.isMergeResults()) {
+                failed += runStandalone(worker);
+                continue;
+            }
+
+            List<PluginsCMDWorker> list = byFile.get(worker.getInputFile());
+            if (list == null) {
+                list = new ArrayList<>();
+                byFile.put(worker.getInputFile(), list);
+            }
+            list.add(worker);
+        }
+
+        for (Map.Entry<String, List<PluginsCMDWorker>> entry : byFile.entrySet()) {
+            List<CorrectedResultCollector> collectors = new ArrayList<>();
+            List<PluginsCMDWorker> prepared = new ArrayList<>();
+            for (PluginsCMDWorker worker : entry.getValue()) {
+                try {
+                    collectors.add(worker.prepareJob());
+                    prepared.add(worker);
+                } catch (RuntimeException ex) {
+                    log.error("Failed to prepare " + names.get(worker), ex);
+                    failed++;
+                }
+            }
+
+            if (prepared.isEmpty()) {
+                continue;
+            }
+
+            log.debug("Loading JTL file once for " + prepared.size() + " plugins: " + entry.getKey());
+            CorrectedResultCollector loader = new CorrectedResultCollector();
+            loader.setFilename(entry.getKey());
+            FanOutVisualizer fanOut = new FanOutVisualizer(prepared, collectors);
+            loader.setListener(fanOut);
+            if (!new ParallelCSVLoader().load(loader, fanOut)) {
+                loader.loadExistingFile();
+            }
+            loaded.addAll(prepared);
+        }
+
+        return failed + exportAll(loaded);
+    }
+
+    private int runStandalone(PluginsCMDWorker worker) {
+        try {
+            return worker.doJob() == 0 ? 0 : 1;
+        } catch (RuntimeException ex) {
+            log.error("Failed to generate " + names.get(worker), ex);
+            return 1;
+        }
+    }
+
+    private int exportAll(List<PluginsCMDWorker> loaded) {
+        if (loaded.isEmpty()) {
+            return 0;
+        }
+
+        int failed = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(exportThreads, loaded.size()));
+        try {
+            Map<PluginsCMDWorker, Future<Integer>> results = new LinkedHashMap<>();
+            for (final PluginsCMDWorker worker : loaded) {
+                results.put(worker, pool.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return worker.exportResults();
+                    }
+                }));
+            }
+
+            for (Map.Entry<PluginsCMDWorker, Future<Integer>> entry : results.entrySet()) {
+                String name = names.get(entry.getKey());
+                try {
+                    if (entry.getValue().get() == 0) {
+                        log.info("Successful generation of " + name);
+                    } else {
+                        log.error("Error generating " + name);
+                        failed++;
+                    }
+                } catch (ExecutionException ex) {
+                    log.error("Error generating " + name, ex.getCause());
+                    failed++;
+                } catch (InterruptedException ex) {
+                    log.warn("Interrupted while waiting for " + name);
+                    Thread.currentThread().interrupt();
+                    failed++;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return failed;
+    }
+
+    /**
+     * Dispatches each loaded sample to every plugin,
+     * honoring success/error filter of its own collector
+     */
+    private static class FanOutVisualizer implements Visualizer {
+
+        private final AbstractGraphPanelVisualizer[] visualizers;
+        private final CorrectedResultCollector[] collectors;
+
+        public FanOutVisualizer(List<PluginsCMDWorker> workers, List<CorrectedResultCollector> collectors) {
+            this.visualizers = new AbstractGraphPanelVisualizer[workers.size()];
+            for (int n = 0; n < visualizers.length; n++) {
+                visualizers[n] = workers.get(n).getPluginInstance();
+            }
+            this.collectors = collectors.toArray(new CorrectedResultCollector[collectors.size()]);
+        }
+
+        @Override
+        public void add(SampleResult sample) {
+            boolean success = sample.isSuccessful();
+            for (int n = 0; n < visualizers.length; n++) {
+                if (collectors[n].isSampleWanted(success)) {
+                    visualizers[n].add(sample);
+                }
+            }
+        }
+
+        @Override
+        public boolean isStats() {
+            return false;
+        }
+    }
+}
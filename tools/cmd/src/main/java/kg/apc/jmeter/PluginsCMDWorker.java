@@ -109,6 +109,29 @@ public class PluginsCMDWorker {
     }
 
     public int doJob() {
+        CorrectedResultCollector rc = prepareJob();
+
+        if (isMergeResults()) {
+            mergeResults(pluginType, rc);
+        } else {
+            log.debug("Using JTL file: " + inputFile);
+            // rc.testStarted();
+            if (!new ParallelCSVLoader().load(rc, pluginType)) {
+                rc.loadExistingFile();
+            }
+            // rc.testEnded();
+        }
+
+        return exportResults();
+    }
+
+    /**
+     * Configures plugin instance and creates result collector for it,
+     * does not load any data yet
+     *
+     * @return collector with filename set and plugin instance as listener
+     */
+    CorrectedResultCollector prepareJob() {
         checkParams();
 
         AbstractGraphPanelVisualizer pluginInstance = pluginType;
@@ -134,19 +157,21 @@ public class PluginsCMDWorker {
             rc.setSuccessOnlyLogging(successFilter != 0);
         }
 
-        if (pluginType.getStaticLabel().equals(JMeterPluginsUtils.prefixLabel("Merge Results"))) {
-            mergeResults(pluginInstance, rc);
-        } else {
-            log.debug("Using JTL file: " + inputFile);
+        if (!isMergeResults()) {
             rc.setFilename(inputFile);
             rc.setListener(pluginInstance);
             pluginInstance.configure(rc);
-
-            // rc.testStarted();
-            rc.loadExistingFile();
-            // rc.testEnded();
         }
+        return rc;
+    }
 
+    /**
+     * Writes PNG and/or CSV files from data already loaded into plugin instance
+     *
+     * @return exit code, 0 for success
+     */
+    int exportResults() {
+        AbstractGraphPanelVisualizer pluginInstance = pluginType;
         // to handle issue 64 and since it must be cheap - set options again
         setOptions(pluginInstance);
 
@@ -177,6 +202,19 @@ public class PluginsCMDWorker {
         return 0;
     }
 
+    boolean isMergeResults() {
+        return pluginType != null
+                && pluginType.getStaticLabel().equals(JMeterPluginsUtils.prefixLabel("Merge Results"));
+    }
+
+    String getInputFile() {
+        return inputFile;
+    }
+
+    AbstractGraphPanelVisualizer getPluginInstance() {
+        return pluginType;
+    }
+
     private void mergeResults(AbstractGraphPanelVisualizer pluginInstance, CorrectedResultCollector rc) {
         log.debug("Using properties file with MergeResults plugin: " + inputFile);
         Properties prop = new Properties();
@@ -0,0 +1,173 @@
+package kg.apc.jmeter;
+
+import kg.apc.emulators.TestJMeterUtils;
+import kg.apc.jmeter.results.MonitoringSeriesFormat;
+import kg.apc.jmeter.results.MonitoringSeriesWriter;
+import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.Visualizer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelCSVLoaderTest {
+
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,success,bytes,grpThreads,allThreads,Latency\n";
+    private final String basedir;
+
+    public ParallelCSVLoaderTest() {
+        String file = this.getClass().getResource("short.jtl").getPath();
+        basedir = file.substring(0, file.lastIndexOf("/"));
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    private List<String> loadSequential(ResultCollector rc) {
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        rc.setListener(visualizer);
+        rc.loadExistingFile();
+        return visualizer.records;
+    }
+
+    private List<String> loadParallel(ResultCollector rc, int chunkSize) {
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        assertTrue(new ParallelCSVLoader(4, chunkSize).load(rc, visualizer));
+        return visualizer.records;
+    }
+
+    private File writeFile(String contents) throws IOException {
+        File file = File.createTempFile("parallel", ".jtl");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write(contents);
+        }
+        return file;
+    }
+
+    @Test
+    public void testLoad() {
+        System.out.println("load");
+        ResultCollector rc = new ResultCollector();
+        rc.setFilename(basedir + "/short.jtl");
+        List<String> expected = loadSequential(rc);
+        assertEquals(150, expected.size());
+        assertEquals(expected, loadParallel(rc, 100));
+        assertEquals(expected, loadParallel(rc, 3000));
+    }
+
+    @Test
+    public void testLoad_quoted() throws IOException {
+        System.out.println("load quoted");
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (int n = 0; n < 200; n++) {
+            String label = n % 3 == 0 ? "\"multi\nline, \"\"quoted\"\"\r\nlabel " + n + "\"" : "label" + n;
+            sb.append(1451381501000L + n).append(',').append(n).append(',').append(label)
+                    .append(",200,OK,Thread Group 1-1,").append(n % 5 != 0).append(",100,1,1,").append(n / 2)
+                    .append(n % 2 == 0 ? "\r\n" : "\n");
+        }
+        ResultCollector rc = new ResultCollector();
+        rc.setFilename(writeFile(sb.toString()).getAbsolutePath());
+        List<String> expected = loadSequential(rc);
+        assertEquals(200, expected.size());
+        assertEquals(expected, loadParallel(rc, 64));
+
+        rc.setErrorLogging(true);
+        expected = loadSequential(rc);
+        assertEquals(40, expected.size());
+        assertEquals(expected, loadParallel(rc, 64));
+    }
+
+    @Test
+    public void testLoad_noHeader() throws IOException {
+        System.out.println("load no header");
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 50; n++) {
+            sb.append(1451381501000L + n).append(',').append(n).append(",label").append(n % 3)
+                    .append(",200,OK,Thread Group 1-1,text,true,100,1,1,").append(n).append("\n");
+        }
+        ResultCollector rc = new ResultCollector();
+        rc.setFilename(writeFile(sb.toString()).getAbsolutePath());
+        List<String> expected = loadSequential(rc);
+        assertEquals(50, expected.size());
+        assertEquals(expected, loadParallel(rc, 128));
+
+        sb.append("1451381502000,1,broken\n");
+        for (int n = 0; n < 10; n++) {
+            sb.append(1451381503000L + n).append(",1,label,200,OK,Thread Group 1-1,text,true,100,1,1,1\n");
+        }
+        rc.setFilename(writeFile(sb.toString()).getAbsolutePath());
+        expected = loadSequential(rc);
+        assertEquals(50, expected.size());
+        assertEquals(expected, loadParallel(rc, 128));
+    }
+
+    @Test
+    public void testLoad_fallback() throws IOException {
+        System.out.println("load fallback");
+        ResultCollector rc = new ResultCollector();
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        rc.setFilename(basedir + "/short.jtl");
+        assertFalse(new ParallelCSVLoader(1, 100).load(rc, visualizer));
+        assertFalse(new ParallelCSVLoader(4, 100000).load(rc, visualizer));
+        rc.setFilename(writeFile("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testResults version=\"1.2\">\n</testResults>\n").getAbsolutePath());
+        assertFalse(new ParallelCSVLoader(4, 10).load(rc, visualizer));
+        assertTrue(visualizer.records.isEmpty());
+    }
+
+    @Test
+    public void testLoad_seriesFile() throws IOException {
+        System.out.println("load series file");
+        File file = File.createTempFile("parallel", MonitoringSeriesFormat.FILE_EXTENSION);
+        file.deleteOnExit();
+        try (MonitoringSeriesWriter writer = new MonitoringSeriesWriter(new FileOutputStream(file))) {
+            for (int n = 0; n < 1000; n++) {
+                writer.add(1451381501000L + n * 1000L, "metric " + n % 3, n * 0.5);
+            }
+        }
+        assertTrue(file.length() > 100);
+
+        ResultCollector rc = new ResultCollector();
+        RecordingVisualizer visualizer = new RecordingVisualizer();
+        rc.setFilename(file.getAbsolutePath());
+        assertFalse(new ParallelCSVLoader(4, 100).load(rc, visualizer));
+        assertTrue(visualizer.records.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor() {
+        System.out.println("constructor");
+        new ParallelCSVLoader(2, 0);
+    }
+
+    private static class RecordingVisualizer implements Visualizer {
+
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void add(SampleResult sample) {
+            records.add(sample.getTimeStamp() + "|" + sample.getTime() + "|" + sample.getSampleLabel()
+                    + "|" + sample.getResponseCode() + "|" + sample.getResponseMessage()
+                    + "|" + sample.getThreadName() + "|" + sample.isSuccessful() + "|" + sample.getBytes()
+                    + "|" + sample.getGroupThreads() + "|" + sample.getAllThreads() + "|" + sample.getLatency());
+        }
+
+        @Override
+        public boolean isStats() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package kg.apc.jmeter;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PluginsCMDBatchWorkerTest {
+
+    private PluginsCMDBatchWorker instance;
+    private final String basedir;
+
+    public PluginsCMDBatchWorkerTest() {
+        String file = this.getClass().getResource("short.jtl").getPath();
+        basedir = file.substring(0, file.lastIndexOf("/"));
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    @Before
+    public void setUp() {
+        instance = new PluginsCMDBatchWorker();
+    }
+
+    private PluginsCMDWorker getWorker(String pluginType, File csvFile) {
+        PluginsCMDWorker worker = new PluginsCMDWorker();
+        worker.setInputFile(basedir + "/short.jtl");
+        worker.setOutputCSVFile(csvFile.getAbsolutePath());
+        worker.addExportMode(PluginsCMDWorker.EXPORT_CSV);
+        worker.setPluginType(pluginType);
+        return worker;
+    }
+
+    @Test
+    public void testDoJob() throws IOException {
+        System.out.println("doJob");
+        File rtot = File.createTempFile("test", ".csv");
+        File hits = File.createTempFile("test", ".csv");
+        File png = File.createTempFile("test", ".png");
+        instance.addWorker(getWorker("ResponseTimesOverTime", rtot), "rtot");
+        PluginsCMDWorker worker = getWorker("HitsPerSecond", hits);
+        worker.setOutputPNGFile(png.getAbsolutePath());
+        worker.addExportMode(PluginsCMDWorker.EXPORT_PNG);
+        instance.addWorker(worker, "hits");
+        instance.setExportThreads(2);
+        assertEquals(0, instance.doJob());
+        assertTrue(110 < rtot.length());
+        assertTrue(0 < hits.length());
+        assertTrue(0 < png.length());
+    }
+
+    @Test
+    public void testDoJob_sameAsSingle() throws IOException {
+        System.out.println("doJob same as single");
+        File single = File.createTempFile("test", ".csv");
+        getWorker("ResponseTimesOverTime", single).doJob();
+
+        File batched = File.createTempFile("test", ".csv");
+        instance.addWorker(getWorker("ResponseTimesOverTime", batched), "rtot");
+        instance.addWorker(getWorker("LatenciesOverTime", File.createTempFile("test", ".csv")), "lot");
+        assertEquals(0, instance.doJob());
+
+        Charset cs = Charset.defaultCharset();
+        assertEquals(Files.readAllLines(single.toPath(), cs), Files.readAllLines(batched.toPath(), cs));
+    }
+
+    @Test
+    public void testDoJob_failed() throws IOException {
+        System.out.println("doJob failed");
+        PluginsCMDWorker worker = new PluginsCMDWorker();
+        worker.setInputFile(basedir + "/short.jtl");
+        worker.setPluginType("ResponseTimesOverTime");
+        instance.addWorker(worker, "no export mode");
+        assertEquals(1, instance.doJob());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetExportThreads() {
+        System.out.println("setExportThreads");
+        instance.setExportThreads(0);
+    }
+}
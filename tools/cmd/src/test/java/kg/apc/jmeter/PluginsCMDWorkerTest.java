@@ -1,12 +1,19 @@
 package kg.apc.jmeter;
 
 import kg.apc.emulators.TestJMeterUtils;
+import kg.apc.jmeter.results.BinaryResultsWriter;
+import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.Visualizer;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -141,6 +148,50 @@ public class PluginsCMDWorkerTest {
         assertTrue(csvfile.length() == 13 || csvfile.length() == 14);
     }
 
+    @Test
+    public void testDoJob_binary() throws IOException {
+        System.out.println("doJob binary");
+        final File binfile = File.createTempFile("test", ".jtlb");
+        try (final BinaryResultsWriter writer = new BinaryResultsWriter(new FileOutputStream(binfile))) {
+            CorrectedResultCollector converter = new CorrectedResultCollector();
+            converter.setFilename(basedir + "/short.jtl");
+            converter.setListener(new Visualizer() {
+                @Override
+                public void add(SampleResult sample) {
+                    try {
+                        writer.add(sample);
+                    } catch (IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+
+                @Override
+                public boolean isStats() {
+                    return false;
+                }
+            });
+            converter.loadExistingFile();
+        }
+
+        File textCsv = File.createTempFile("test", ".csv");
+        instance.setInputFile(basedir + "/short.jtl");
+        instance.setOutputCSVFile(textCsv.getAbsolutePath());
+        instance.setPluginType("ResponseTimesOverTime");
+        instance.addExportMode(PluginsCMDWorker.EXPORT_CSV);
+        assertEquals(0, instance.doJob());
+
+        File binaryCsv = File.createTempFile("test", ".csv");
+        PluginsCMDWorker binaryWorker = new PluginsCMDWorker();
+        binaryWorker.setInputFile(binfile.getAbsolutePath());
+        binaryWorker.setOutputCSVFile(binaryCsv.getAbsolutePath());
+        binaryWorker.setPluginType("ResponseTimesOverTime");
+        binaryWorker.addExportMode(PluginsCMDWorker.EXPORT_CSV);
+        assertEquals(0, binaryWorker.doJob());
+
+        Charset cs = Charset.defaultCharset();
+        assertEquals(Files.readAllLines(textCsv.toPath(), cs), Files.readAllLines(binaryCsv.toPath(), cs));
+    }
+
     /**
      * Test of setGraphWidth method, of class PluginsCMDWorker.
      */
@@ -3,7 +3,6 @@ package org.jmeterplugins.tools;
 import java.awt.BorderLayout;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import javax.swing.BoxLayout;
 import javax.swing.JPanel;
@@ -13,6 +12,7 @@ import javax.swing.border.EmptyBorder;
 import org.apache.jmeter.samplers.SampleResult;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
+import org.jmeterplugins.save.ExternalSampleSorter;
 import org.jmeterplugins.save.MergeResultsService;
 
 import kg.apc.jmeter.graphs.AbstractGraphPanelVisualizer;
@@ -28,7 +28,7 @@ public class FilterResults extends AbstractGraphPanelVisualizer {
     private static final Logger log = LoggerFactory.getLogger(FilterResults.class);
     private Collection<String> emptyCollection = new ArrayList<String>();
 
-    private List<SampleResult> samples = new ArrayList<SampleResult>();
+    private ExternalSampleSorter sorter;
 
 
     public FilterResults() {
@@ -66,7 +66,14 @@ public class FilterResults extends AbstractGraphPanelVisualizer {
         }
 
         res.setSaveConfig(collector.getSaveConfig());
-        samples.add(res);
+        getSorter().add(res);
+    }
+
+    private synchronized ExternalSampleSorter getSorter() {
+        if (sorter == null) {
+            sorter = new ExternalSampleSorter(collector.getSaveConfig());
+        }
+        return sorter;
     }
 
     public CorrectedResultCollector getCollector() {
@@ -77,15 +84,16 @@ public class FilterResults extends AbstractGraphPanelVisualizer {
         log.info("Setup filtering...");
         setUpFiltering((CorrectedResultCollector) collector);
         log.info("Loading file...");
+        sorter = new ExternalSampleSorter(collector.getSaveConfig());
         collector.loadExistingFile();
 
-        if (!samples.isEmpty()) {
+        if (getSorter().getCount() > 0) {
             log.info("Merging results to " + outputFile);
             collector.setProperty("filename", outputFile);
             MergeResultsService mrs = new MergeResultsService();
-            mrs.mergeSamples((CorrectedResultCollector) collector, samples);
-            samples.clear();
+            mrs.mergeSamples((CorrectedResultCollector) collector, getSorter());
         }
+        getSorter().clear();
         return 0;
     }
 
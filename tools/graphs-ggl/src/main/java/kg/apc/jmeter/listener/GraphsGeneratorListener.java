@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.ResourceBundle;
 import java.util.Set;
 
+import kg.apc.jmeter.PluginsCMDBatchWorker;
 import kg.apc.jmeter.PluginsCMDWorker;
 
 import org.apache.commons.lang3.StringUtils;
@@ -37,6 +38,7 @@ import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.StringProperty;
+import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jmeter.visualizers.Visualizer;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
@@ -52,6 +54,7 @@ public class GraphsGeneratorListener extends AbstractListenerElement
     
     private static final String PNG_SUFFIX = ".png"; 
     private static final String CSV_SUFFIX = ".csv"; 
+    private static final String EXPORT_THREADS_PROPERTY = "jmeterPlugin.graphsGenerator.exportThreads";
 
     public enum ExportMode {
         PNG((byte)0),
@@ -128,6 +131,7 @@ public class GraphsGeneratorListener extends AbstractListenerElement
     private boolean excludeSamplesWithRegex;
     private String startOffset;
     private String endOffset;
+    private boolean singlePass;
 
     /* (non-Javadoc)
      * @see org.apache.jmeter.testelement.TestStateListener#testEnded()
@@ -142,83 +146,23 @@ public class GraphsGeneratorListener extends AbstractListenerElement
      */
     @Override
     public void testEnded(String host) {
-        for (String pluginType : pluginTypes) {
-            PluginsCMDWorker worker = new PluginsCMDWorker();
-            worker.setInputFile(resultsFileName);
-            worker.setGraphWidth(graphWidth);
-            worker.setGraphHeight(graphHeight);
-            if (!StringUtils.isEmpty(forceY)) {
-                worker.setForceY(Integer.parseInt(forceY));
-            }
-            if (!StringUtils.isEmpty(limitRows)) {
-                worker.setRowsLimit(Integer.parseInt(limitRows));
-            }
-            worker.setAggregate(aggregateRows ? 1 : 0);
-            worker.setPreventOutliers(preventOutliers ? 1 : 0);
-            worker.setAggregate(aggregateRows ? 1 : 0);
-            if (!StringUtils.isEmpty(paintMarkers)) {
-                worker.setMarkers("True". 
-                        equalsIgnoreCase(paintMarkers) ? 1 : 0);
-            }
-            worker.setZeroing(paintZeroing ? 1 : 0);
-            if (isTimeBasedGraph(pluginType)) {
-                worker.setRelativeTimes(relativeTimes ? 1 : 0);
-            }
-            worker.setGradient(paintGradient ? 1 : 0);
-            worker.setAutoScaleRows(autoScaleRows ? 1 : 0);
-            if (!StringUtils.isEmpty(successFilter)) {
-                worker.setSuccessFilter(
-                        "True". 
-                                equalsIgnoreCase(successFilter) ? 1 : 0);
-            }
-            if (!StringUtils.isEmpty(granulation)) {
-                worker.setGranulation(Integer.parseInt(granulation));
-            }
-            if (!StringUtils.isEmpty(lineWeight)) {
-                worker.setLineWeight(Float.parseFloat(lineWeight));
+        if (singlePass) {
+            PluginsCMDBatchWorker batch = new PluginsCMDBatchWorker();
+            batch.setExportThreads(JMeterUtils.getPropDefault(EXPORT_THREADS_PROPERTY, batch.getExportThreads()));
+            for (String pluginType : pluginTypes) {
+                String fileName = getFileName(pluginType);
+                batch.addWorker(createWorker(pluginType, fileName), "file " + fileName + " by plugin:" + pluginType);
             }
-            if (!StringUtils.isEmpty(lowCountLimit)) {
-                worker.setHideLowCounts(Integer.parseInt(lowCountLimit));
-            }
-            if (!StringUtils.isEmpty(includeLabels)) {
-                worker.setIncludeLabels(includeLabels);
-            }
-            if (!StringUtils.isEmpty(excludeLabels)) {
-                worker.setExcludeLabels(excludeLabels);
-            }
-            worker.setIncludeSamplesWithRegex(includeSamplesWithRegex ? 1 : 0);
-            worker.setExcludeSamplesWithRegex(excludeSamplesWithRegex ? 1 : 0);
-            if (!StringUtils.isEmpty(startOffset)) {
-                worker.setStartOffset(startOffset);
-            }
-            if (!StringUtils.isEmpty(endOffset)) {
-                worker.setEndOffset(endOffset);
-            }
-            String fileName;
-            if (!StringUtils.isEmpty(outputBaseFolder)) {
-                fileName = outputBaseFolder + File.separatorChar + filePrefix + pluginType;
-            } else {
-                // Handle backward compatibility
-                fileName = filePrefix + pluginType;
+            int failed = batch.doJob();
+            if (failed > 0) {
+                log.error("Failed to generate " + failed + " of " + pluginTypes.length + " reports");
             }
-            if (!CSV_ONLY.contains(pluginType)) {
-                if (exportMode == ExportMode.PNG) {
-                    worker.setOutputPNGFile(fileName+PNG_SUFFIX); 
-                    worker.addExportMode(PluginsCMDWorker.EXPORT_PNG);
-                } else if (exportMode == ExportMode.CSV) {
-                    worker.setOutputCSVFile(fileName+CSV_SUFFIX); 
-                    worker.addExportMode(PluginsCMDWorker.EXPORT_CSV);
-                } else {
-                    worker.setOutputPNGFile(fileName+PNG_SUFFIX); 
-                    worker.addExportMode(PluginsCMDWorker.EXPORT_PNG);
-                    worker.setOutputCSVFile(fileName+CSV_SUFFIX); 
-                    worker.addExportMode(PluginsCMDWorker.EXPORT_CSV);
-                }
-            } else {
-                worker.setOutputCSVFile(fileName+CSV_SUFFIX); 
-                worker.addExportMode(PluginsCMDWorker.EXPORT_CSV);                
-            }
-            worker.setPluginType(pluginType);
+            return;
+        }
+
+        for (String pluginType : pluginTypes) {
+            String fileName = getFileName(pluginType);
+            PluginsCMDWorker worker = createWorker(pluginType, fileName);
             int status = worker.doJob();
             if (status == 0) {
                 log.info("Successful generation of file " + fileName + " by plugin:" + pluginType);
@@ -228,6 +172,88 @@ public class GraphsGeneratorListener extends AbstractListenerElement
         }
     }
 
+    private String getFileName(String pluginType) {
+        if (!StringUtils.isEmpty(outputBaseFolder)) {
+            return outputBaseFolder + File.separatorChar + filePrefix + pluginType;
+        } else {
+            // Handle backward compatibility
+            return filePrefix + pluginType;
+        }
+    }
+
+    private PluginsCMDWorker createWorker(String pluginType, String fileName) {
+        PluginsCMDWorker worker = new PluginsCMDWorker();
+        worker.setInputFile(resultsFileName);
+        worker.setGraphWidth(graphWidth);
+        worker.setGraphHeight(graphHeight);
+        if (!StringUtils.isEmpty(forceY)) {
+            worker.setForceY(Integer.parseInt(forceY));
+        }
+        if (!StringUtils.isEmpty(limitRows)) {
+            worker.setRowsLimit(Integer.parseInt(limitRows));
+        }
+        worker.setAggregate(aggregateRows ? 1 : 0);
+        worker.setPreventOutliers(preventOutliers ? 1 : 0);
+        worker.setAggregate(aggregateRows ? 1 : 0);
+        if (!StringUtils.isEmpty(paintMarkers)) {
+            worker.setMarkers("True". 
+                    equalsIgnoreCase(paintMarkers) ? 1 : 0);
+        }
+        worker.setZeroing(paintZeroing ? 1 : 0);
+        if (isTimeBasedGraph(pluginType)) {
+            worker.setRelativeTimes(relativeTimes ? 1 : 0);
+        }
+        worker.setGradient(paintGradient ? 1 : 0);
+        worker.setAutoScaleRows(autoScaleRows ? 1 : 0);
+        if (!StringUtils.isEmpty(successFilter)) {
+            worker.setSuccessFilter(
+                    "True". 
+                            equalsIgnoreCase(successFilter) ? 1 : 0);
+        }
+        if (!StringUtils.isEmpty(granulation)) {
+            worker.setGranulation(Integer.parseInt(granulation));
+        }
+        if (!StringUtils.isEmpty(lineWeight)) {
+            worker.setLineWeight(Float.parseFloat(lineWeight));
+        }
+        if (!StringUtils.isEmpty(lowCountLimit)) {
+            worker.setHideLowCounts(Integer.parseInt(lowCountLimit));
+        }
+        if (!StringUtils.isEmpty(includeLabels)) {
+            worker.setIncludeLabels(includeLabels);
+        }
+        if (!StringUtils.isEmpty(excludeLabels)) {
+            worker.setExcludeLabels(excludeLabels);
+        }
+        worker.setIncludeSamplesWithRegex(includeSamplesWithRegex ? 1 : 0);
+        worker.setExcludeSamplesWithRegex(excludeSamplesWithRegex ? 1 : 0);
+        if (!StringUtils.isEmpty(startOffset)) {
+            worker.setStartOffset(startOffset);
+        }
+        if (!StringUtils.isEmpty(endOffset)) {
+            worker.setEndOffset(endOffset);
+        }
+        if (!CSV_ONLY.contains(pluginType)) {
+            if (exportMode == ExportMode.PNG) {
+                worker.setOutputPNGFile(fileName+PNG_SUFFIX); 
+                worker.addExportMode(PluginsCMDWorker.EXPORT_PNG);
+            } else if (exportMode == ExportMode.CSV) {
+                worker.setOutputCSVFile(fileName+CSV_SUFFIX); 
+                worker.addExportMode(PluginsCMDWorker.EXPORT_CSV);
+            } else {
+                worker.setOutputPNGFile(fileName+PNG_SUFFIX); 
+                worker.addExportMode(PluginsCMDWorker.EXPORT_PNG);
+                worker.setOutputCSVFile(fileName+CSV_SUFFIX); 
+                worker.addExportMode(PluginsCMDWorker.EXPORT_CSV);
+            }
+        } else {
+            worker.setOutputCSVFile(fileName+CSV_SUFFIX); 
+            worker.addExportMode(PluginsCMDWorker.EXPORT_CSV);                
+        }
+        worker.setPluginType(pluginType);
+        return worker;
+    }
+
     /**
      * 
      * @param graphName String
@@ -655,4 +681,18 @@ public class GraphsGeneratorListener extends AbstractListenerElement
     public void setPaintMarkers(String paintMarkers) {
         this.paintMarkers = paintMarkers;
     }
+
+    /**
+     * @return the singlePass
+     */
+    public boolean isSinglePass() {
+        return singlePass;
+    }
+
+    /**
+     * @param singlePass read results file once for all graphs
+     */
+    public void setSinglePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
 }
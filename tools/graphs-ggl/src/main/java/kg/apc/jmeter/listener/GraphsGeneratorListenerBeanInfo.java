@@ -37,6 +37,7 @@ public class GraphsGeneratorListenerBeanInfo extends BeanInfoSupport {
     private static final String RESULTS_FILE_NAME = "resultsFileName";
     private static final String FILE_PREFIX = "filePrefix";
     private static final String EXPORT_MODE = "exportMode";
+    private static final String SINGLE_PASS = "singlePass";
 
     private static final String GRAPH_WIDTH = "graphWidth";
     private static final String GRAPH_HEIGHT = "graphHeight";
@@ -75,7 +76,7 @@ public class GraphsGeneratorListenerBeanInfo extends BeanInfoSupport {
         super(GraphsGeneratorListener.class);
         try {
             createPropertyGroup("output_config",
-                    new String[]{OUTPUT_BASE_FOLDER, RESULTS_FILE_NAME, EXPORT_MODE, FILE_PREFIX});
+                    new String[]{OUTPUT_BASE_FOLDER, RESULTS_FILE_NAME, EXPORT_MODE, FILE_PREFIX, SINGLE_PASS});
 
             PropertyDescriptor p = property(OUTPUT_BASE_FOLDER);
             p.setValue(NOT_UNDEFINED, Boolean.TRUE);
@@ -96,6 +97,12 @@ public class GraphsGeneratorListenerBeanInfo extends BeanInfoSupport {
             p.setValue(DEFAULT, "");
             p.setValue(NOT_EXPRESSION, Boolean.FALSE);
 
+            p = property(SINGLE_PASS);
+            p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+            p.setValue(DEFAULT, Boolean.TRUE);
+            p.setValue(NOT_EXPRESSION, Boolean.FALSE);
+            p.setValue(NOT_OTHER, Boolean.TRUE);
+
 
             createPropertyGroup("graphs_config",
                     new String[]{GRAPH_WIDTH, GRAPH_HEIGHT, PAINT_MARKERS, PAINT_ZEROING,
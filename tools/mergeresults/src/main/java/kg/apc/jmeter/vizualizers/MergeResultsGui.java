@@ -26,10 +26,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -68,6 +66,7 @@ import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.gui.ComponentUtil;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
+import org.jmeterplugins.save.ExternalSampleSorter;
 import org.jmeterplugins.save.MergeResultsService;
 
 public class MergeResultsGui extends AbstractGraphPanelVisualizer implements
@@ -127,7 +126,7 @@ public class MergeResultsGui extends AbstractGraphPanelVisualizer implements
 
     private String prefixLabel = "";
 
-    private List<SampleResult> samples = new ArrayList<>(0);
+    private ExternalSampleSorter sorter;
     private MergeResultsService mergeService;
 
     public MergeResultsGui() {
@@ -315,7 +314,14 @@ public class MergeResultsGui extends AbstractGraphPanelVisualizer implements
             res.setSampleLabel(prefixLabel + resLabel);
         }
         res.setTimeStamp(res.getTimeStamp() - startTimeRef + REF_START_TIME);
-        samples.add(res);
+        getSorter().add(res);
+    }
+
+    private synchronized ExternalSampleSorter getSorter() {
+        if (sorter == null) {
+            sorter = new ExternalSampleSorter(collector.getSaveConfig());
+        }
+        return sorter;
     }
 
     @Override
@@ -449,15 +455,16 @@ public class MergeResultsGui extends AbstractGraphPanelVisualizer implements
                             "Output file error");
                     return;
                 }
+                sorter = new ExternalSampleSorter(collector.getSaveConfig());
                 boolean isSuccess = loadFilesFromTable((CorrectedResultCollector) collector);
 
                 if (isSuccess) {
                     mergeService = new MergeResultsService();
                     collector.setFilename(output);
                     mergeService.mergeSamples((CorrectedResultCollector) collector,
-                            samples);
+                            getSorter());
                 }
-                samples.clear();
+                getSorter().clear();
 
                 break;
             case ACTION_SAVE_CONFIG:
@@ -557,7 +564,7 @@ public class MergeResultsGui extends AbstractGraphPanelVisualizer implements
             mergeService = new MergeResultsService();
             collector.setFilename(file.getName());
             mergeService.mergeSamples((CorrectedResultCollector) collector,
-                    samples);
+                    getSorter());
         }
 
         @Override
@@ -0,0 +1,284 @@
+package org.jmeterplugins.save;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jmeter.util.JMeterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects samples as already formatted output records and writes them
+ * ordered by timestamp. When records exceed memory budget they are sorted
+ * and spilled to temporary run files, which are k-way merged on write,
+ * so memory use does not depend on input size.
+ */
+public class ExternalSampleSorter {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalSampleSorter.class);
+
+    public static final String BUFFER_SIZE_PROPERTY = "jmeterPlugin.mergeResults.sortBufferSize";
+    private static final long DEFAULT_BUFFER_SIZE = 64 * 1024 * 1024;
+    private static final int RECORD_OVERHEAD = 48;
+    private static final int IO_BUFFER = 64 * 1024;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String EOL = System.getProperty("line.separator");
+
+    private static final Comparator<Record> BY_TIMESTAMP = new Comparator<Record>() {
+        @Override
+        public int compare(Record o1, Record o2) {
+            return o1.timeStamp < o2.timeStamp ? -1 : (o1.timeStamp == o2.timeStamp ? 0 : 1);
+        }
+    };
+
+    private final SampleSaveConfiguration saveConfig;
+    private final long bufferSize;
+    private final List<Record> buffer = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private long bufferedBytes = 0;
+    private long count = 0;
+
+    public ExternalSampleSorter(SampleSaveConfiguration saveConfig) {
+        this(saveConfig, JMeterUtils.getPropDefault(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * @param saveConfig output format, XML or CSV
+     * @param bufferSize approximate memory budget in bytes for records kept in memory
+     */
+    public ExternalSampleSorter(SampleSaveConfiguration saveConfig, long bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Sort buffer size must be positive");
+        }
+        this.saveConfig = saveConfig;
+        this.bufferSize = bufferSize;
+    }
+
+    public synchronized void add(SampleResult result) {
+        Record record;
+        try {
+            record = new Record(result.getTimeStamp(), format(result));
+        } catch (Exception ex) {
+            log.error("Error trying to record a sample", ex);
+            return;
+        }
+
+        buffer.add(record);
+        count++;
+        bufferedBytes += RECORD_OVERHEAD + 2L * record.text.length();
+        if (bufferedBytes >= bufferSize) {
+            try {
+                spill();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to spill sorted samples to disk", ex);
+            }
+        }
+    }
+
+    private String format(SampleResult result) throws IOException {
+        SampleEvent event = new SampleEvent(result, null);
+        if (saveConfig.saveAsXml()) {
+            StringWriter writer = new StringWriter();
+            SaveService.saveSampleResult(event, writer);
+            return writer.toString();
+        } else {
+            return CSVSaveService.resultToDelimitedString(event) + EOL;
+        }
+    }
+
+    private void spill() throws IOException {
+        Collections.sort(buffer, BY_TIMESTAMP);
+        File file = File.createTempFile("jmeter-merge", ".run");
+        file.deleteOnExit();
+        runs.add(file);
+        log.debug("Spilling " + buffer.size() + " samples to " + file.getAbsolutePath());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER))) {
+            out.writeInt(buffer.size());
+            for (Record record : buffer) {
+                byte[] bytes = record.text.getBytes(UTF8);
+                out.writeLong(record.timeStamp);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return number of run files spilled to disk
+     */
+    public synchronized int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Writes all collected records in timestamp order,
+     * records with equal timestamps keep the order they were added
+     */
+    public synchronized void writeTo(PrintWriter out) throws IOException {
+        Collections.sort(buffer, BY_TIMESTAMP);
+        if (runs.isEmpty()) {
+            for (Record record : buffer) {
+                out.print(record.text);
+            }
+            return;
+        }
+
+        log.info("Merging " + count + " samples from " + runs.size() + " sorted runs");
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size() + 1);
+        try {
+            for (int n = 0; n < runs.size(); n++) {
+                RunReader reader = new FileRunReader(n, runs.get(n));
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            RunReader memory = new MemoryRunReader(runs.size(), buffer);
+            if (memory.advance()) {
+                queue.add(memory);
+            }
+
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                out.print(reader.current.text);
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Drops collected records and removes temporary files
+     */
+    public synchronized void clear() {
+        for (File run : runs) {
+            if (!run.delete()) {
+                log.warn("Failed to delete temporary file " + run.getAbsolutePath());
+            }
+        }
+        runs.clear();
+        buffer.clear();
+        bufferedBytes = 0;
+        count = 0;
+    }
+
+    private static class Record {
+
+        private final long timeStamp;
+        private final String text;
+
+        public Record(long timeStamp, String text) {
+            this.timeStamp = timeStamp;
+            this.text = text;
+        }
+    }
+
+    private abstract static class RunReader implements Comparable<RunReader>, Closeable {
+
+        private final int index;
+        protected Record current;
+
+        protected RunReader(int index) {
+            this.index = index;
+        }
+
+        public abstract boolean advance() throws IOException;
+
+        @Override
+        public int compareTo(RunReader o) {
+            int res = BY_TIMESTAMP.compare(current, o.current);
+            return res != 0 ? res : (index < o.index ? -1 : (index == o.index ? 0 : 1));
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class FileRunReader extends RunReader {
+
+        private final DataInputStream in;
+        private int remaining;
+
+        public FileRunReader(int index, File file) throws IOException {
+            super(index);
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER));
+            remaining = in.readInt();
+        }
+
+        @Override
+        public boolean advance() throws IOException {
+            if (remaining <= 0) {
+                return false;
+            }
+            remaining--;
+            long timeStamp = in.readLong();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            current = new Record(timeStamp, new String(bytes, UTF8));
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class MemoryRunReader extends RunReader {
+
+        private final List<Record> records;
+        private int pos = 0;
+
+        public MemoryRunReader(int index, List<Record> records) {
+            super(index);
+            this.records = records;
+        }
+
+        @Override
+        public boolean advance() {
+            if (pos >= records.size()) {
+                return false;
+            }
+            current = records.get(pos++);
+            return true;
+        }
+    }
+}
@@ -31,7 +31,6 @@ import java.util.Map;
 
 import kg.apc.jmeter.vizualizers.CorrectedResultCollector;
 
-import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
 import org.apache.jmeter.save.CSVSaveService;
@@ -177,28 +176,35 @@ public class MergeResultsService {
 
     public void mergeSamples(CorrectedResultCollector crc,
             List<SampleResult> samples) {
-        SampleEvent event;
+        ExternalSampleSorter sorter = new ExternalSampleSorter(crc.getSaveConfig());
+        for (SampleResult result : samples) {
+            sorter.add(result);
+        }
+        mergeSamples(crc, sorter);
+    }
+
+    /**
+     * Writes samples collected by sorter ordered by timestamp,
+     * then clears the sorter
+     */
+    public void mergeSamples(CorrectedResultCollector crc,
+            ExternalSampleSorter sorter) {
         try {
             initializeFileOutput(crc.getFilename(), crc.getSaveConfig());
         } catch (IOException e) {
             log.warn("Error trying to initialize output file " + e.toString());
         }
 
-        for (SampleResult result : samples) {
-            SampleSaveConfiguration config = crc.getSaveConfig();
-            event = new SampleEvent(result, null);
-            try {
-                if (config.saveAsXml()) {
-                    SaveService.saveSampleResult(event, out);
-                } else { // !saveAsXml
-                    String savee = CSVSaveService
-                            .resultToDelimitedString(event);
-                    out.println(savee);
-                }
-            } catch (Exception err) {
-                log.error("Error trying to record a sample", err);
-                // should throw exception back to caller
+        try {
+            if (out != null) {
+                sorter.writeTo(out);
+            } else {
+                log.warn("No output file, dropping " + sorter.getCount() + " samples");
             }
+        } catch (IOException e) {
+            log.error("Error trying to write merged samples", e);
+        } finally {
+            sorter.clear();
         }
         finalizeFileOutput();
     }
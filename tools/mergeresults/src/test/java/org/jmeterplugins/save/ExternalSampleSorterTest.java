@@ -0,0 +1,111 @@
+package org.jmeterplugins.save;
+
+import kg.apc.emulators.TestJMeterUtils;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExternalSampleSorterTest {
+
+    private SampleSaveConfiguration config;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        TestJMeterUtils.createJmeterEnv();
+    }
+
+    @Before
+    public void setUp() {
+        config = new SampleSaveConfiguration(false);
+        config.setAsXml(false);
+        config.setFieldNames(false);
+        config.setTimestamp(true);
+        config.setLabel(true);
+    }
+
+    private static SampleResult getSample(long timeStamp, String label, SampleSaveConfiguration config) {
+        SampleResult res = SampleResult.createTestSample(timeStamp, timeStamp + 10);
+        res.setTimeStamp(timeStamp);
+        res.setSampleLabel(label);
+        res.setSaveConfig(config);
+        return res;
+    }
+
+    private String[] write(ExternalSampleSorter instance) throws Exception {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        instance.writeTo(writer);
+        writer.flush();
+        return out.toString().trim().split("\\r?\\n");
+    }
+
+    @Test
+    public void testWriteTo_inMemory() throws Exception {
+        System.out.println("writeTo in memory");
+        ExternalSampleSorter instance = new ExternalSampleSorter(config, Long.MAX_VALUE);
+        instance.add(getSample(3000, "c", config));
+        instance.add(getSample(1000, "a", config));
+        instance.add(getSample(2000, "b", config));
+        assertEquals(0, instance.getRunCount());
+
+        String[] lines = write(instance);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("1000,a,"));
+        assertTrue(lines[1].startsWith("2000,b,"));
+        assertTrue(lines[2].startsWith("3000,c,"));
+    }
+
+    @Test
+    public void testWriteTo_spilled() throws Exception {
+        System.out.println("writeTo spilled");
+        ExternalSampleSorter instance = new ExternalSampleSorter(config, 500);
+        for (int n = 0; n < 100; n++) {
+            long ts = 1000000 + (n * 7919L) % 100 * 1000;
+            instance.add(getSample(ts, "label" + (ts / 1000 - 1000), config));
+        }
+        instance.add(getSample(1000000, "same", config));
+        assertEquals(101, instance.getCount());
+        assertTrue(instance.getRunCount() > 1);
+
+        String[] lines = write(instance);
+        assertEquals(101, lines.length);
+        assertTrue(lines[0].startsWith("1000000,label0,"));
+        assertTrue(lines[1].startsWith("1000000,same,"));
+        long prev = 0;
+        for (String line : lines) {
+            long ts = Long.parseLong(line.substring(0, line.indexOf(',')));
+            assertTrue(ts >= prev);
+            prev = ts;
+        }
+
+        instance.clear();
+        assertEquals(0, instance.getCount());
+        assertEquals(0, instance.getRunCount());
+    }
+
+    @Test
+    public void testWriteTo_xml() throws Exception {
+        System.out.println("writeTo xml");
+        config.setAsXml(true);
+        ExternalSampleSorter instance = new ExternalSampleSorter(config, 1);
+        instance.add(getSample(2000, "b", config));
+        instance.add(getSample(1000, "a", config));
+        String[] lines = write(instance);
+        assertTrue(lines[0].contains("lb=\"a\""));
+        assertTrue(lines[lines.length - 1].contains("lb=\"b\"") || lines[lines.length - 2].contains("lb=\"b\""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSize() {
+        System.out.println("bufferSize");
+        new ExternalSampleSorter(config, 0);
+    }
+}
@@ -23,7 +23,6 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.save.CSVSaveService;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.util.JMeterUtils;
-import org.apache.jmeter.visualizers.SamplingStatCalculator;
 import org.apache.jorphan.gui.NumberRenderer;
 import org.apache.jorphan.gui.ObjectTableModel;
 import org.apache.jorphan.gui.RateRenderer;
@@ -75,13 +74,13 @@ public class AggregateReportGui extends AbstractGraphPanelVisualizer {
     private final JCheckBox useGroupName =
             new JCheckBox(JMeterUtils.getResString("aggregate_graph_use_group_name"));
     private transient ObjectTableModel statModel;
-    private final Map<String, SamplingStatCalculator> tableRows =
+    private final Map<String, HistogramStatCalculator> tableRows =
             new ConcurrentHashMap<>();
 
     public AggregateReportGui() {
         super();
         statModel = new ObjectTableModel(getLabels(COLUMNS),
-                SamplingStatCalculator.class,
+                HistogramStatCalculator.class,
                 new Functor[]{
                     new Functor("getLabel"),
                     new Functor("getCount"),
@@ -182,12 +181,12 @@ public class AggregateReportGui extends AbstractGraphPanelVisualizer {
             return;
         }
 
-        SamplingStatCalculator row;
+        HistogramStatCalculator row;
         final String sampleLabel = res.getSampleLabel(useGroupName.isSelected());
         synchronized (tableRows) {
             row = tableRows.get(sampleLabel);
             if (row == null) {
-                row = new SamplingStatCalculator(sampleLabel);
+                row = new HistogramStatCalculator(sampleLabel);
                 tableRows.put(row.getLabel(), row);
                 statModel.insertRow(row, statModel.getRowCount() - 1);
             }
@@ -198,7 +197,7 @@ public class AggregateReportGui extends AbstractGraphPanelVisualizer {
         synchronized (row) {
             row.addSample(res);
         }
-        SamplingStatCalculator tot = tableRows.get(TOTAL_ROW_LABEL);
+        HistogramStatCalculator tot = tableRows.get(TOTAL_ROW_LABEL);
         synchronized (tot) {
             tot.addSample(res);
         }
@@ -213,7 +212,7 @@ public class AggregateReportGui extends AbstractGraphPanelVisualizer {
         synchronized (tableRows) {
             statModel.clearData();
             tableRows.clear();
-            tableRows.put(TOTAL_ROW_LABEL, new SamplingStatCalculator(TOTAL_ROW_LABEL));
+            tableRows.put(TOTAL_ROW_LABEL, new HistogramStatCalculator(TOTAL_ROW_LABEL));
             statModel.addRow(tableRows.get(TOTAL_ROW_LABEL));
         }
     }
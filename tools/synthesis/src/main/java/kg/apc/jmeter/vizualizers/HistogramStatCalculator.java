@@ -0,0 +1,175 @@
+package kg.apc.jmeter.vizualizers;
+
+import kg.apc.charting.LogLinearHistogram;
+import kg.apc.charting.PercentileSketch;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Drop-in replacement for SamplingStatCalculator in report tables.
+ * Response times are kept in {@link PercentileSketch} instead of
+ * the map of distinct values, so memory stays bounded and adding
+ * sample does not recalculate median and percentiles every time.
+ * Values below 1024 ms are exact, bigger ones are within 0.2%.
+ */
+public class HistogramStatCalculator {
+
+    private final String label;
+    private final PercentileSketch sketch;
+    private long count = 0;
+    private double sum = 0;
+    private double sumOfSquares = 0;
+    private long errorCount = 0;
+    private long bytes = 0;
+    private long firstTime = Long.MAX_VALUE;
+    private long endTime = 0;
+
+    public HistogramStatCalculator() {
+        this("");
+    }
+
+    public HistogramStatCalculator(String label) {
+        this(label, new LogLinearHistogram());
+    }
+
+    public HistogramStatCalculator(String label, PercentileSketch sketch) {
+        this.label = label;
+        this.sketch = sketch;
+    }
+
+    public synchronized void addSample(SampleResult res) {
+        int sampleCount = res.getSampleCount();
+        long time = res.getTime();
+        count += sampleCount;
+        sum += time;
+        if (sampleCount > 1) {
+            sumOfSquares += time * (double) time / sampleCount;
+            sketch.add(time / sampleCount, sampleCount);
+        } else {
+            sumOfSquares += time * (double) time;
+            sketch.add(time, 1);
+        }
+
+        errorCount += res.getErrorCount();
+        bytes += res.getBytes();
+        firstTime = Math.min(firstTime, res.getStartTime());
+        endTime = Math.max(endTime, res.getEndTime());
+    }
+
+    /**
+     * Adds all stats collected by other calculator, used for aggregate rows
+     */
+    public synchronized void merge(HistogramStatCalculator other) {
+        synchronized (other) {
+            sketch.merge(other.sketch);
+            count += other.count;
+            sum += other.sum;
+            sumOfSquares += other.sumOfSquares;
+            errorCount += other.errorCount;
+            bytes += other.bytes;
+            firstTime = Math.min(firstTime, other.firstTime);
+            endTime = Math.max(endTime, other.endTime);
+        }
+    }
+
+    public synchronized void clear() {
+        sketch.clear();
+        count = 0;
+        sum = 0;
+        sumOfSquares = 0;
+        errorCount = 0;
+        bytes = 0;
+        firstTime = Long.MAX_VALUE;
+        endTime = 0;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    public synchronized double getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    public Number getMeanAsNumber() {
+        return (long) getMean();
+    }
+
+    public synchronized double getStandardDeviation() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sum / count;
+        return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+    }
+
+    public synchronized Number getMin() {
+        return sketch.getMin();
+    }
+
+    public synchronized Number getMax() {
+        return sketch.getMax();
+    }
+
+    public Number getMedian() {
+        return getPercentPoint(0.5);
+    }
+
+    public Number getPercentPoint(float percent) {
+        return getPercentPoint((double) percent);
+    }
+
+    /**
+     * @param percent 0..1, same as SamplingStatCalculator
+     */
+    public synchronized Number getPercentPoint(double percent) {
+        if (count <= 0) {
+            return 0L;
+        }
+        if (percent >= 1.0) {
+            return sketch.getMax();
+        }
+
+        long[] result = new long[1];
+        sketch.getValuesAtWeights(new double[]{Math.round(sketch.getTotalWeight() * percent)}, result);
+        return result[0];
+    }
+
+    public synchronized long getElapsed() {
+        return endTime > 0 ? endTime - firstTime : 0;
+    }
+
+    public synchronized double getRate() {
+        long elapsed = getElapsed();
+        return count > 0 && elapsed > 0 ? count * 1000.0 / elapsed : 0;
+    }
+
+    public synchronized double getBytesPerSecond() {
+        long elapsed = getElapsed();
+        return elapsed > 0 ? bytes / (elapsed / 1000.0) : 0;
+    }
+
+    public double getKBPerSecond() {
+        return getBytesPerSecond() / 1024;
+    }
+
+    public synchronized double getAvgPageBytes() {
+        return count > 0 ? bytes / (double) count : 0;
+    }
+
+    public synchronized double getErrorPercentage() {
+        return count > 0 ? errorCount / (double) count : 0;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -29,7 +29,6 @@ import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.testelement.property.StringProperty;
 import org.apache.jmeter.util.JMeterUtils;
-import org.apache.jmeter.visualizers.SamplingStatCalculator;
 import org.apache.jorphan.gui.NumberRenderer;
 import org.apache.jorphan.gui.ObjectTableModel;
 import org.apache.jorphan.gui.RateRenderer;
@@ -157,7 +156,7 @@ public class SynthesisReportGui extends AbstractGraphPanelVisualizer implements
      */
     private final transient Object lock = new Object();
 
-    private final Map<String, SamplingStatCalculator> tableRows = new ConcurrentHashMap<>();
+    private final Map<String, HistogramStatCalculator> tableRows = new ConcurrentHashMap<>();
 
     public SynthesisReportGui() {
         super();
@@ -172,7 +171,7 @@ public class SynthesisReportGui extends AbstractGraphPanelVisualizer implements
      * @return ObjectTableModel
      */
     static ObjectTableModel createObjectTableModel() {
-        return new ObjectTableModel(COLUMNS, SamplingStatCalculator.class,
+        return new ObjectTableModel(COLUMNS, HistogramStatCalculator.class,
                 new Functor[]{
                         new Functor("getLabel"),
                         new Functor("getCount"),
@@ -239,12 +238,12 @@ public class SynthesisReportGui extends AbstractGraphPanelVisualizer implements
             @Override
             public void run() {
                 if (isSampleIncluded(res)) {
-                    SamplingStatCalculator row;
+                    HistogramStatCalculator row;
                     final String sampleLabel = res.getSampleLabel(useGroupName.isSelected());
                     synchronized (lock) {
                         row = tableRows.get(sampleLabel);
                         if (row == null) {
-                            row = new SamplingStatCalculator(sampleLabel);
+                            row = new HistogramStatCalculator(sampleLabel);
                             tableRows.put(row.getLabel(), row);
                             model.insertRow(row, model.getRowCount() - 1);
                         }
@@ -256,7 +255,7 @@ public class SynthesisReportGui extends AbstractGraphPanelVisualizer implements
                     synchronized (row) {
                         row.addSample(res);
                     }
-                    SamplingStatCalculator tot = tableRows.get(TOTAL_ROW_LABEL);
+                    HistogramStatCalculator tot = tableRows.get(TOTAL_ROW_LABEL);
                     synchronized (tot) {
                         tot.addSample(res);
                     }
@@ -274,7 +273,7 @@ public class SynthesisReportGui extends AbstractGraphPanelVisualizer implements
         synchronized (lock) {
             model.clearData();
             tableRows.clear();
-            tableRows.put(TOTAL_ROW_LABEL, new SamplingStatCalculator(
+            tableRows.put(TOTAL_ROW_LABEL, new HistogramStatCalculator(
                     TOTAL_ROW_LABEL));
             model.addRow(tableRows.get(TOTAL_ROW_LABEL));
         }
@@ -0,0 +1,79 @@
+package kg.apc.jmeter.vizualizers;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.SamplingStatCalculator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistogramStatCalculatorTest {
+
+    private static SampleResult getSample(long start, long time, boolean success) {
+        SampleResult res = SampleResult.createTestSample(start, start + time);
+        res.setSuccessful(success);
+        res.setBytes(100);
+        return res;
+    }
+
+    @Test
+    public void testAddSample() {
+        System.out.println("addSample");
+        HistogramStatCalculator instance = new HistogramStatCalculator("label");
+        SamplingStatCalculator expected = new SamplingStatCalculator("label");
+        for (int n = 0; n < 1000; n++) {
+            SampleResult res = getSample(1000 + n * 10, (n * 37) % 900, n % 10 != 0);
+            instance.addSample(res);
+            expected.addSample(res);
+        }
+
+        assertEquals("label", instance.getLabel());
+        assertEquals(expected.getCount(), instance.getCount());
+        assertEquals(expected.getMeanAsNumber(), instance.getMeanAsNumber());
+        assertEquals(expected.getMedian().longValue(), instance.getMedian().longValue());
+        assertEquals(expected.getPercentPoint(0.9f).longValue(), instance.getPercentPoint(0.9f).longValue());
+        assertEquals(expected.getPercentPoint(0.99).longValue(), instance.getPercentPoint(0.99).longValue());
+        assertEquals(expected.getMin().longValue(), instance.getMin().longValue());
+        assertEquals(expected.getMax().longValue(), instance.getMax().longValue());
+        assertEquals(expected.getStandardDeviation(), instance.getStandardDeviation(), 0.001);
+        assertEquals(expected.getErrorPercentage(), instance.getErrorPercentage(), 0.001);
+        assertEquals(expected.getRate(), instance.getRate(), 0.001);
+        assertEquals(expected.getKBPerSecond(), instance.getKBPerSecond(), 0.001);
+        assertEquals(expected.getAvgPageBytes(), instance.getAvgPageBytes(), 0.001);
+    }
+
+    @Test
+    public void testGetPercentPoint_big() {
+        System.out.println("getPercentPoint big values");
+        HistogramStatCalculator instance = new HistogramStatCalculator("label");
+        for (int n = 1; n <= 100; n++) {
+            instance.addSample(getSample(1000, n * 1000, true));
+        }
+        assertEquals(90000, instance.getPercentPoint(0.9).longValue(), 90000 / 512);
+        assertEquals(100000, instance.getPercentPoint(1.0).longValue());
+    }
+
+    @Test
+    public void testMerge() {
+        System.out.println("merge");
+        HistogramStatCalculator instance = new HistogramStatCalculator("total");
+        HistogramStatCalculator other = new HistogramStatCalculator("label");
+        instance.addSample(getSample(1000, 10, true));
+        other.addSample(getSample(2000, 30, false));
+        instance.merge(other);
+        assertEquals(2, instance.getCount());
+        assertEquals(20L, instance.getMeanAsNumber());
+        assertEquals(0.5, instance.getErrorPercentage(), 0.001);
+        assertEquals(1030, instance.getElapsed());
+    }
+
+    @Test
+    public void testClear() {
+        System.out.println("clear");
+        HistogramStatCalculator instance = new HistogramStatCalculator();
+        instance.addSample(getSample(1000, 10, true));
+        instance.clear();
+        assertEquals(0, instance.getCount());
+        assertEquals(0L, instance.getMedian());
+        assertEquals(0, instance.getRate(), 0.001);
+    }
+}